@@ -0,0 +1,60 @@
+package com.terry.reactive.stress;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Mode;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.Signal;
+import org.openjdk.jcstress.annotations.State;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE_INTERESTING;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+/**
+ * SchedulerTest의 FluxIntervalUsingNative, SchedulerMain의 Subscription은 cancel 메소드에서 일반 boolean 변수인 canceled를 true로 바꾸고
+ * Timer Thread에서 이 값을 읽는데 volatile이 아니기 때문에 Timer Thread가 바뀐 값을 끝까지 못 볼 수도 있다
+ * PlainFlag는 그 상황을 재현하고(STALE이 나올 수 있다) VolatileFlag는 volatile로 바꾸면 항상 종료되는 것을 확인한다
+ */
+public class CanceledFlagStress {
+
+    @JCStressTest(Mode.Termination)
+    @Outcome(id = "TERMINATED", expect = ACCEPTABLE, desc = "cancel observed by timer thread")
+    @Outcome(id = "STALE", expect = ACCEPTABLE_INTERESTING, desc = "cancel never observed by timer thread")
+    @State
+    public static class PlainFlag {
+        boolean canceled;
+
+        @Actor
+        public void timer() {
+            while (!canceled) {
+                // scheduleAtFixedRate로 실행되는 tick 작업
+            }
+        }
+
+        @Signal
+        public void cancel() {
+            canceled = true;
+        }
+    }
+
+    @JCStressTest(Mode.Termination)
+    @Outcome(id = "TERMINATED", expect = ACCEPTABLE, desc = "cancel observed by timer thread")
+    @Outcome(id = "STALE", expect = FORBIDDEN, desc = "volatile write must become visible")
+    @State
+    public static class VolatileFlag {
+        volatile boolean canceled;
+
+        @Actor
+        public void timer() {
+            while (!canceled) {
+                // scheduleAtFixedRate로 실행되는 tick 작업
+            }
+        }
+
+        @Signal
+        public void cancel() {
+            canceled = true;
+        }
+    }
+}
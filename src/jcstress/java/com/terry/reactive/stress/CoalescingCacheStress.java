@@ -0,0 +1,41 @@
+package com.terry.reactive.stress;
+
+import com.terry.reactive.cache.CoalescingCache;
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.I_Result;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+@JCStressTest
+@Outcome(id = "1", expect = ACCEPTABLE, desc = "loader ran once")
+@Outcome(expect = FORBIDDEN, desc = "loader ran twice for one key")
+@State
+public class CoalescingCacheStress {
+
+    final CoalescingCache<String, Integer> cache = new CoalescingCache<>(1, TimeUnit.HOURS, 16);
+    final AtomicInteger loads = new AtomicInteger();
+
+    @Actor
+    public void caller1() {
+        cache.get("k", key -> CompletableFuture.completedFuture(loads.incrementAndGet()));
+    }
+
+    @Actor
+    public void caller2() {
+        cache.get("k", key -> CompletableFuture.completedFuture(loads.incrementAndGet()));
+    }
+
+    @Arbiter
+    public void arbiter(I_Result r) {
+        r.r1 = loads.get();
+    }
+}
@@ -0,0 +1,40 @@
+package com.terry.reactive.stress;
+
+import com.terry.reactive.support.Demands;
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.Description;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.J_Result;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+@JCStressTest
+@Description("Concurrent request(n) calls must not lose demand")
+@Outcome(id = "3", expect = ACCEPTABLE, desc = "both requests accounted")
+@Outcome(expect = FORBIDDEN, desc = "lost request")
+@State
+public class DemandsStress {
+
+    final AtomicLong requested = new AtomicLong();
+
+    @Actor
+    public void request1() {
+        Demands.add(requested, 1);
+    }
+
+    @Actor
+    public void request2() {
+        Demands.add(requested, 2);
+    }
+
+    @Arbiter
+    public void arbiter(J_Result r) {
+        r.r1 = requested.get();
+    }
+}
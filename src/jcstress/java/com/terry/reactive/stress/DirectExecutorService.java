@@ -0,0 +1,42 @@
+package com.terry.reactive.stress;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 작업을 호출한 Thread에서 바로 실행하는 ExecutorService
+ * Scheduler의 drain 작업을 Actor Thread에서 실행시켜 Actor끼리 직접 경합하게 만들때 사용한다
+ */
+public class DirectExecutorService extends AbstractExecutorService {
+
+    @Override
+    public void execute(Runnable command) {
+        command.run();
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return false;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return false;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        return true;
+    }
+}
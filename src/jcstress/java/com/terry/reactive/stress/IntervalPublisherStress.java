@@ -0,0 +1,70 @@
+package com.terry.reactive.stress;
+
+import com.terry.reactive.publisher.IntervalPublisher;
+import com.terry.reactive.support.OverflowStrategy;
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.II_Result;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+/**
+ * IntervalPublisher(DROP)에서 Timer의 tick과 request가 동시에 일어나는 경우
+ * tick은 전달되거나 버려지거나 둘 중 하나여야 한다
+ */
+@JCStressTest
+@Outcome(id = "1, 0", expect = ACCEPTABLE, desc = "request won, value delivered")
+@Outcome(id = "0, 1", expect = ACCEPTABLE, desc = "no demand, value dropped")
+@Outcome(expect = FORBIDDEN, desc = "tick lost or duplicated")
+@State
+public class IntervalPublisherStress {
+
+    /**
+     * scheduleAtFixedRate로 넘어온 tick 작업을 실행하지 않고 잡아두기만 하는 Timer(Thread를 만들지 않는다)
+     */
+    static final class ManualTimer extends ScheduledThreadPoolExecutor {
+        volatile Runnable tick;
+
+        ManualTimer() {
+            super(1);
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+            tick = command;
+            return null;
+        }
+    }
+
+    final ManualTimer timer = new ManualTimer();
+    final IntervalPublisher pub = new IntervalPublisher(0, 1, TimeUnit.MILLISECONDS, OverflowStrategy.DROP, 4, timer);
+    final StressSubscriber<Long> sub = new StressSubscriber<>(0);
+
+    public IntervalPublisherStress() {
+        pub.subscribe(sub);
+    }
+
+    @Actor
+    public void tick() {
+        timer.tick.run();
+    }
+
+    @Actor
+    public void request() {
+        sub.subscription.request(1);
+    }
+
+    @Arbiter
+    public void arbiter(II_Result r) {
+        r.r1 = sub.onNextCount.get();
+        r.r2 = (int) pub.getDroppedCount();
+    }
+}
@@ -0,0 +1,31 @@
+package com.terry.reactive.stress;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Actor에서 직접 onNext, onComplete를 호출할 수 있도록 구독한 Subscriber를 잡아두는 Publisher
+ */
+public class ManualSource<T> implements Publisher<T>, Subscription {
+
+    public volatile Subscriber<? super T> subscriber;
+    public final AtomicInteger cancelled = new AtomicInteger();
+
+    @Override
+    public void subscribe(Subscriber<? super T> s) {
+        subscriber = s;
+        s.onSubscribe(this);
+    }
+
+    @Override
+    public void request(long n) {
+    }
+
+    @Override
+    public void cancel() {
+        cancelled.incrementAndGet();
+    }
+}
@@ -0,0 +1,108 @@
+package com.terry.reactive.stress;
+
+import com.terry.reactive.operator.OnBackpressureDropPublisher;
+import com.terry.reactive.operator.Operators;
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.II_Result;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+/**
+ * onBackpressureBuffer, onBackpressureLatest, onBackpressureDrop에서 request와 onNext가 동시에 호출되는 경우
+ */
+public class OnBackpressureStress {
+
+    @JCStressTest
+    @Outcome(id = "1, 0", expect = ACCEPTABLE, desc = "value delivered once")
+    @Outcome(expect = FORBIDDEN, desc = "lost, duplicated or overlapping onNext")
+    @State
+    public static class BufferRequestVsOnNext {
+        final ManualSource<Integer> source = new ManualSource<>();
+        final StressSubscriber<Integer> sub = new StressSubscriber<>(0);
+
+        public BufferRequestVsOnNext() {
+            Operators.onBackpressureBuffer(source, 4, v -> { }).subscribe(sub);
+        }
+
+        @Actor
+        public void upstream() {
+            source.subscriber.onNext(1);
+        }
+
+        @Actor
+        public void downstream() {
+            sub.subscription.request(1);
+        }
+
+        @Arbiter
+        public void arbiter(II_Result r) {
+            r.r1 = sub.onNextCount.get();
+            r.r2 = sub.overlapped.get();
+        }
+    }
+
+    @JCStressTest
+    @Outcome(id = "1, 0", expect = ACCEPTABLE, desc = "latest value delivered once")
+    @Outcome(expect = FORBIDDEN, desc = "lost, duplicated or overlapping onNext")
+    @State
+    public static class LatestRequestVsOnNext {
+        final ManualSource<Integer> source = new ManualSource<>();
+        final StressSubscriber<Integer> sub = new StressSubscriber<>(0);
+
+        public LatestRequestVsOnNext() {
+            Operators.onBackpressureLatest(source, v -> { }).subscribe(sub);
+        }
+
+        @Actor
+        public void upstream() {
+            source.subscriber.onNext(1);
+        }
+
+        @Actor
+        public void downstream() {
+            sub.subscription.request(1);
+        }
+
+        @Arbiter
+        public void arbiter(II_Result r) {
+            r.r1 = sub.onNextCount.get();
+            r.r2 = sub.overlapped.get();
+        }
+    }
+
+    @JCStressTest
+    @Outcome(id = "1, 0", expect = ACCEPTABLE, desc = "request won, value delivered")
+    @Outcome(id = "0, 1", expect = ACCEPTABLE, desc = "no demand, value dropped")
+    @Outcome(expect = FORBIDDEN, desc = "delivered and dropped, or neither")
+    @State
+    public static class DropRequestVsOnNext {
+        final ManualSource<Integer> source = new ManualSource<>();
+        final StressSubscriber<Integer> sub = new StressSubscriber<>(0);
+        final OnBackpressureDropPublisher<Integer> pub = new OnBackpressureDropPublisher<>(source, v -> { });
+
+        public DropRequestVsOnNext() {
+            pub.subscribe(sub);
+        }
+
+        @Actor
+        public void upstream() {
+            source.subscriber.onNext(1);
+        }
+
+        @Actor
+        public void downstream() {
+            sub.subscription.request(1);
+        }
+
+        @Arbiter
+        public void arbiter(II_Result r) {
+            r.r1 = sub.onNextCount.get();
+            r.r2 = (int) pub.getDroppedCount();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.terry.reactive.stress;
+
+import com.terry.reactive.operator.Operators;
+import com.terry.reactive.scheduler.ExecutorServiceScheduler;
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.III_Result;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+/**
+ * publishOn에서 request와 onNext, onComplete가 서로 다른 Thread에서 동시에 호출되는 경우
+ * 값은 정확히 한번 전달되고 onComplete도 한번만 전달되어야 한다
+ */
+public class PublishOnStress {
+
+    @JCStressTest
+    @Outcome(id = "1, 1, 0", expect = ACCEPTABLE, desc = "value and onComplete delivered once")
+    @Outcome(expect = FORBIDDEN, desc = "lost, duplicated or overlapping onNext")
+    @State
+    public static class RequestVsOnNext {
+        final ManualSource<Integer> source = new ManualSource<>();
+        final StressSubscriber<Integer> sub = new StressSubscriber<>(0);
+
+        public RequestVsOnNext() {
+            Operators.publishOn(source, new ExecutorServiceScheduler(new DirectExecutorService()), 4).subscribe(sub);
+        }
+
+        @Actor
+        public void upstream() {
+            source.subscriber.onNext(1);
+            source.subscriber.onComplete();
+        }
+
+        @Actor
+        public void downstream() {
+            sub.subscription.request(1);
+        }
+
+        @Arbiter
+        public void arbiter(III_Result r) {
+            r.r1 = sub.onNextCount.get();
+            r.r2 = sub.terminalCount.get();
+            r.r3 = sub.overlapped.get();
+        }
+    }
+
+    @JCStressTest
+    @Outcome(id = "0, 0, 1", expect = ACCEPTABLE, desc = "cancelled before onNext")
+    @Outcome(id = "1, 0, 1", expect = ACCEPTABLE, desc = "cancelled after onNext")
+    @Outcome(id = "1, 1, 1", expect = ACCEPTABLE, desc = "cancelled while completing")
+    @Outcome(id = "1, 1, 0", expect = ACCEPTABLE, desc = "cancel after termination is a no-op")
+    @Outcome(expect = FORBIDDEN, desc = "completed without value or upstream not cancelled")
+    @State
+    public static class CancelVsOnNext {
+        final ManualSource<Integer> source = new ManualSource<>();
+        final StressSubscriber<Integer> sub = new StressSubscriber<>(1);
+
+        public CancelVsOnNext() {
+            Operators.publishOn(source, new ExecutorServiceScheduler(new DirectExecutorService()), 4).subscribe(sub);
+        }
+
+        @Actor
+        public void upstream() {
+            source.subscriber.onNext(1);
+            source.subscriber.onComplete();
+        }
+
+        @Actor
+        public void downstream() {
+            sub.subscription.cancel();
+        }
+
+        @Arbiter
+        public void arbiter(III_Result r) {
+            r.r1 = sub.onNextCount.get();
+            r.r2 = sub.terminalCount.get();
+            r.r3 = source.cancelled.get();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.terry.reactive.stress;
+
+import com.terry.reactive.scheduler.ExecutorServiceScheduler;
+import com.terry.reactive.scheduler.Scheduler;
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.I_Result;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+/**
+ * 같은 Worker에 두 Thread가 동시에 작업을 넣어도 작업은 한번에 하나씩만 실행된다
+ * (동시에 실행되면 일반 int 변수의 증가가 유실된다)
+ */
+@JCStressTest
+@Outcome(id = "2", expect = ACCEPTABLE, desc = "tasks ran serially")
+@Outcome(expect = FORBIDDEN, desc = "tasks overlapped and lost an update")
+@State
+public class SerializedWorkerStress {
+
+    final Scheduler.Worker worker = new ExecutorServiceScheduler(new DirectExecutorService()).createWorker();
+    int counter;
+
+    @Actor
+    public void schedule1() {
+        worker.schedule(() -> counter++);
+    }
+
+    @Actor
+    public void schedule2() {
+        worker.schedule(() -> counter++);
+    }
+
+    @Arbiter
+    public void arbiter(I_Result r) {
+        r.r1 = counter;
+    }
+}
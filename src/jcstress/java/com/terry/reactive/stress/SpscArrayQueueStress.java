@@ -0,0 +1,40 @@
+package com.terry.reactive.stress;
+
+import com.terry.reactive.support.SpscArrayQueue;
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.II_Result;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+/**
+ * 넣는 Thread 1개, 꺼내는 Thread 1개일때 넣은 순서대로 꺼내지고 값이 중복되거나 유실되지 않는다
+ */
+@JCStressTest
+@Outcome(id = "-1, -1", expect = ACCEPTABLE, desc = "polled before offer")
+@Outcome(id = "-1, 1", expect = ACCEPTABLE, desc = "first value polled late")
+@Outcome(id = "1, -1", expect = ACCEPTABLE, desc = "only first value polled")
+@Outcome(id = "1, 2", expect = ACCEPTABLE, desc = "both values in order")
+@Outcome(expect = FORBIDDEN, desc = "reordered or duplicated")
+@State
+public class SpscArrayQueueStress {
+
+    final SpscArrayQueue<Integer> queue = new SpscArrayQueue<>(2);
+
+    @Actor
+    public void producer() {
+        queue.offer(1);
+        queue.offer(2);
+    }
+
+    @Actor
+    public void consumer(II_Result r) {
+        Integer a = queue.poll();
+        Integer b = queue.poll();
+        r.r1 = a == null ? -1 : a;
+        r.r2 = b == null ? -1 : b;
+    }
+}
@@ -0,0 +1,53 @@
+package com.terry.reactive.stress;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * jcstress 테스트에서 사용하는 Subscriber
+ * onNext가 동시에 호출되면(스펙 1.3 위반) overlapped 값을 증가시킨다
+ */
+public class StressSubscriber<T> implements Subscriber<T> {
+
+    private final long initialRequest;
+    public final AtomicInteger onNextCount = new AtomicInteger();
+    public final AtomicInteger terminalCount = new AtomicInteger();
+    public final AtomicInteger overlapped = new AtomicInteger();
+    private final AtomicInteger inside = new AtomicInteger();
+    public volatile Subscription subscription;
+    public volatile Throwable error;
+
+    public StressSubscriber(long initialRequest) {
+        this.initialRequest = initialRequest;
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        subscription = s;
+        if (initialRequest > 0) {
+            s.request(initialRequest);
+        }
+    }
+
+    @Override
+    public void onNext(T t) {
+        if (inside.getAndIncrement() != 0) {
+            overlapped.incrementAndGet();
+        }
+        onNextCount.incrementAndGet();
+        inside.decrementAndGet();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        error = t;
+        terminalCount.incrementAndGet();
+    }
+
+    @Override
+    public void onComplete() {
+        terminalCount.incrementAndGet();
+    }
+}
@@ -0,0 +1,227 @@
+package com.terry.reactive.buffer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 같은 크기의 ByteBuffer를 다시 사용하기 위한 pool
+ *
+ * onNext 마다 byte[]나 ByteBuffer를 새로 만들고 consumer가 버리면 처리량이 많을수록 GC가 자주 일어나고
+ * direct ByteBuffer는 만들고 해제하는 비용 자체가 크다
+ *
+ * 시작할때 arenaSize 개의 buffer를 큰 메모리 한 덩어리(slab)에서 잘라 만들어 arena에 넣어둔다
+ * 꺼낼때는 Thread 별 cache -> arena 순서로 찾고, 둘 다 비어 있으면 pool에 속하지 않는 buffer를 새로 만든다(unpooled, 반환되면 버린다)
+ * 반환할때는 Thread 별 cache에 먼저 넣고 cache가 꽉 차 있으면 arena에 넣는다
+ * 같은 Thread에서 꺼내고 반환하는 경우는 Thread 별 cache에서 끝나기 때문에 다른 Thread와 경쟁하지 않는다
+ * arena는 AtomicReferenceArray의 칸을 CAS로 비우고 채우는 방식이라 Lock도 없고 넣고 꺼낼때 객체도 만들지 않는다
+ * (ConcurrentLinkedQueue는 넣을때마다 Node 객체를 만든다)
+ *
+ * release를 잊어버린 buffer를 찾기 위해 leakSampleInterval 번에 한번씩 꺼낸 buffer를 WeakReference로 추적한다
+ * release 되지 않은채로 GC 되면 꺼낸 위치의 stack trace와 함께 로그를 남기고 getStats().getLeaks()가 증가한다
+ * 모든 buffer를 추적하면 그 자체가 객체를 만들기 때문에 일부만 뽑아서 추적한다
+ *
+ * 주의 : Thread가 끝나면 그 Thread의 cache에 있던 buffer는 pool로 돌아오지 않고 GC 된다
+ */
+@Slf4j
+public class BufferPool {
+
+    public static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+    static final int DEFAULT_THREAD_CACHE_SIZE = 32;
+    static final int DEFAULT_LEAK_SAMPLE_INTERVAL = 128;
+
+    private final int bufferSize;
+    private final boolean direct;
+    private final int leakSampleInterval;
+    private final AtomicReferenceArray<PooledBuffer> arena;
+    private final ThreadLocal<ThreadCache> threadCache;
+
+    private final ReferenceQueue<PooledBuffer> leakQueue = new ReferenceQueue<>();
+    private final Set<LeakTracker> trackers = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder threadCacheHits = new LongAdder();
+    private final LongAdder arenaHits = new LongAdder();
+    private final LongAdder unpooled = new LongAdder();
+    private final LongAdder outstanding = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+
+    public BufferPool(int bufferSize, int arenaSize, boolean direct) {
+        this(bufferSize, arenaSize, direct, DEFAULT_THREAD_CACHE_SIZE, DEFAULT_LEAK_SAMPLE_INTERVAL);
+    }
+
+    /**
+     * @param leakSampleInterval 몇 번에 한번씩 leak을 추적할지. 0 이면 추적하지 않고 1 이면 모두 추적한다
+     */
+    public BufferPool(int bufferSize, int arenaSize, boolean direct, int threadCacheSize, int leakSampleInterval) {
+        if (bufferSize <= 0 || arenaSize <= 0) {
+            throw new IllegalArgumentException("bufferSize > 0 and arenaSize > 0 required but it was " + bufferSize + ", " + arenaSize);
+        }
+        if ((long) bufferSize * arenaSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("bufferSize * arenaSize must not exceed 2GB");
+        }
+        this.bufferSize = bufferSize;
+        this.direct = direct;
+        this.leakSampleInterval = leakSampleInterval;
+
+        ByteBuffer slab = allocateBuffer(bufferSize * arenaSize);
+        this.arena = new AtomicReferenceArray<>(arenaSize);
+        for (int i = 0; i < arenaSize; i++) {
+            slab.limit((i + 1) * bufferSize).position(i * bufferSize);
+            arena.set(i, new PooledBuffer(this, slab.slice(), true));
+        }
+        this.threadCache = ThreadLocal.withInitial(() -> new ThreadCache(threadCacheSize, arenaSize));
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * 참조 횟수가 1인 buffer를 꺼낸다. position은 0, limit은 capacity로 초기화되어 있다
+     */
+    public PooledBuffer allocate() {
+        reportLeaks();
+        ThreadCache cache = threadCache.get();
+        PooledBuffer buffer = cache.pop();
+        if (buffer != null) {
+            threadCacheHits.increment();
+        } else {
+            buffer = takeFromArena(cache);
+            if (buffer != null) {
+                arenaHits.increment();
+            } else {
+                buffer = new PooledBuffer(this, allocateBuffer(bufferSize), false);
+                unpooled.increment();
+            }
+        }
+        buffer.reset();
+        outstanding.increment();
+        if (leakSampleInterval > 0 && ++cache.allocations % leakSampleInterval == 0) {
+            LeakTracker tracker = new LeakTracker(buffer, leakQueue);
+            trackers.add(tracker);
+            buffer.leak = tracker;
+        }
+        return buffer;
+    }
+
+    /**
+     * 참조 횟수가 0이 된 PooledBuffer가 호출한다
+     */
+    void recycle(PooledBuffer buffer) {
+        outstanding.decrement();
+        LeakTracker tracker = buffer.leak;
+        if (tracker != null) {
+            buffer.leak = null;
+            trackers.remove(tracker);
+            tracker.clear();
+        }
+        if (!buffer.isPooled()) {
+            return;
+        }
+        ThreadCache cache = threadCache.get();
+        if (!cache.push(buffer)) {
+            offerToArena(cache, buffer);
+        }
+    }
+
+    PooledBuffer takeFromArena(ThreadCache cache) {
+        int length = arena.length();
+        int start = cache.arenaHint;
+        for (int i = 0; i < length; i++) {
+            int index = (start + i) % length;
+            PooledBuffer b = arena.get(index);
+            if (b != null && arena.compareAndSet(index, b, null)) {
+                cache.arenaHint = index;
+                return b;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * pool에 속한 buffer 갯수와 arena의 칸 수가 같기 때문에 빈 칸은 항상 있다
+     */
+    void offerToArena(ThreadCache cache, PooledBuffer buffer) {
+        int length = arena.length();
+        int start = cache.arenaHint;
+        for (;;) {
+            for (int i = 0; i < length; i++) {
+                int index = (start + i) % length;
+                if (arena.get(index) == null && arena.compareAndSet(index, null, buffer)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    void reportLeaks() {
+        LeakTracker tracker;
+        while ((tracker = (LeakTracker) leakQueue.poll()) != null) {
+            if (trackers.remove(tracker)) {
+                leaks.increment();
+                logger.error("LEAK: PooledBuffer was garbage collected without release()", tracker.allocation);
+            }
+        }
+    }
+
+    private ByteBuffer allocateBuffer(int size) {
+        return direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+    }
+
+    public BufferPoolStats getStats() {
+        int available = 0;
+        for (int i = 0; i < arena.length(); i++) {
+            if (arena.get(i) != null) {
+                available++;
+            }
+        }
+        return new BufferPoolStats(threadCacheHits.sum(), arenaHits.sum(), unpooled.sum(), outstanding.sum(), leaks.sum(), available);
+    }
+
+    /**
+     * 한 Thread만 사용하기 때문에 동기화 없는 배열 stack으로 충분하다
+     */
+    static final class ThreadCache {
+        final PooledBuffer[] stack;
+        int size;
+        int arenaHint;
+        long allocations;
+
+        ThreadCache(int capacity, int arenaSize) {
+            this.stack = new PooledBuffer[capacity];
+            // Thread 마다 arena의 다른 위치부터 찾아서 같은 칸을 두고 경쟁하는 일을 줄인다
+            this.arenaHint = (int) (((Thread.currentThread().getId() * 0x9E3779B9L) >>> 1) % arenaSize);
+        }
+
+        PooledBuffer pop() {
+            if (size == 0) {
+                return null;
+            }
+            PooledBuffer b = stack[--size];
+            stack[size] = null;
+            return b;
+        }
+
+        boolean push(PooledBuffer b) {
+            if (size == stack.length) {
+                return false;
+            }
+            stack[size++] = b;
+            return true;
+        }
+    }
+
+    static final class LeakTracker extends WeakReference<PooledBuffer> {
+        final Throwable allocation = new Throwable("PooledBuffer allocated at");
+
+        LeakTracker(PooledBuffer referent, ReferenceQueue<? super PooledBuffer> queue) {
+            super(referent, queue);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.terry.reactive.buffer;
+
+/**
+ * BufferPool의 통계
+ * threadCacheHits : Thread 별 cache에서 꺼낸 횟수
+ * arenaHits : arena에서 꺼낸 횟수
+ * unpooled : pool이 비어서 새로 만든 횟수(계속 늘어나면 arenaSize가 부족한 것이다)
+ * outstanding : 꺼내간 뒤 아직 release 되지 않은 갯수
+ * leaks : release 되지 않은채로 GC 된 buffer 갯수(추적 대상으로 뽑힌 것만 센다)
+ * available : 지금 arena에 남아 있는 갯수
+ */
+public class BufferPoolStats {
+
+    private final long threadCacheHits;
+    private final long arenaHits;
+    private final long unpooled;
+    private final long outstanding;
+    private final long leaks;
+    private final int available;
+
+    public BufferPoolStats(long threadCacheHits, long arenaHits, long unpooled, long outstanding, long leaks, int available) {
+        this.threadCacheHits = threadCacheHits;
+        this.arenaHits = arenaHits;
+        this.unpooled = unpooled;
+        this.outstanding = outstanding;
+        this.leaks = leaks;
+        this.available = available;
+    }
+
+    public long getThreadCacheHits() {
+        return threadCacheHits;
+    }
+
+    public long getArenaHits() {
+        return arenaHits;
+    }
+
+    public long getUnpooled() {
+        return unpooled;
+    }
+
+    public long getOutstanding() {
+        return outstanding;
+    }
+
+    public long getLeaks() {
+        return leaks;
+    }
+
+    public int getAvailable() {
+        return available;
+    }
+
+    @Override
+    public String toString() {
+        return "BufferPoolStats(threadCacheHits=" + threadCacheHits + ", arenaHits=" + arenaHits + ", unpooled=" + unpooled
+                + ", outstanding=" + outstanding + ", leaks=" + leaks + ", available=" + available + ")";
+    }
+}
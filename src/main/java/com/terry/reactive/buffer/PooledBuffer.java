@@ -0,0 +1,96 @@
+package com.terry.reactive.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * BufferPool에서 꺼낸 ByteBuffer와 참조 횟수를 묶은 객체
+ *
+ * pool에 있는 ByteBuffer와 PooledBuffer 객체는 계속 다시 사용되기 때문에 꺼내고 반환하는 과정에서 새로 만들어지는 객체가 없다
+ * 참조 횟수는 AtomicInteger 객체를 따로 두지 않고 volatile int 필드를 AtomicIntegerFieldUpdater로 변경한다
+ */
+public final class PooledBuffer implements ReferenceCounted {
+
+    private static final AtomicIntegerFieldUpdater<PooledBuffer> REF_CNT =
+            AtomicIntegerFieldUpdater.newUpdater(PooledBuffer.class, "refCnt");
+
+    private final BufferPool pool;
+    private final ByteBuffer buffer;
+    private final boolean pooled;
+    private volatile int refCnt;
+
+    // leak 검사 대상으로 뽑힌 경우에만 값이 있다
+    BufferPool.LeakTracker leak;
+
+    PooledBuffer(BufferPool pool, ByteBuffer buffer, boolean pooled) {
+        this.pool = pool;
+        this.buffer = buffer;
+        this.pooled = pooled;
+    }
+
+    /**
+     * pool에서 꺼낼때 호출한다
+     */
+    void reset() {
+        buffer.clear();
+        REF_CNT.set(this, 1);
+    }
+
+    boolean isPooled() {
+        return pooled;
+    }
+
+    /**
+     * 반환된 뒤에 사용하면 다른 곳에서 꺼내 쓰는 중인 buffer를 건드리게 되므로 IllegalStateException을 던진다
+     */
+    public ByteBuffer buffer() {
+        if (refCnt <= 0) {
+            throw new IllegalStateException("Buffer was already released");
+        }
+        return buffer;
+    }
+
+    public int capacity() {
+        return buffer.capacity();
+    }
+
+    @Override
+    public int refCnt() {
+        return refCnt;
+    }
+
+    @Override
+    public PooledBuffer retain() {
+        for (;;) {
+            int current = refCnt;
+            if (current <= 0) {
+                throw new IllegalStateException("Buffer was already released");
+            }
+            if (REF_CNT.compareAndSet(this, current, current + 1)) {
+                return this;
+            }
+        }
+    }
+
+    @Override
+    public boolean release() {
+        for (;;) {
+            int current = refCnt;
+            if (current <= 0) {
+                throw new IllegalStateException("Buffer was already released");
+            }
+            if (REF_CNT.compareAndSet(this, current, current - 1)) {
+                if (current == 1) {
+                    pool.recycle(this);
+                    return true;
+                }
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PooledBuffer(capacity=" + buffer.capacity() + ", refCnt=" + refCnt + ", pooled=" + pooled + ")";
+    }
+}
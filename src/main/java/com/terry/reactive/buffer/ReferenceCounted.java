@@ -0,0 +1,33 @@
+package com.terry.reactive.buffer;
+
+/**
+ * 참조 횟수로 수명을 관리하는 객체
+ *
+ * 만들어질때 참조 횟수는 1이고 다른 곳에서도 계속 사용하려면 retain으로 1 올리고 다 사용했으면 release로 1 내린다
+ * 0이 되면 pool로 돌아가기 때문에 그 뒤로는 사용하면 안된다
+ */
+public interface ReferenceCounted {
+
+    int refCnt();
+
+    ReferenceCounted retain();
+
+    /**
+     * @return 참조 횟수가 0이 되어 pool로 돌아갔으면 true
+     * @throws IllegalStateException 이미 0인 경우
+     */
+    boolean release();
+
+    /**
+     * Operator가 데이터를 버릴때(cancel, onError, Queue가 넘친 경우 등) 사용한다
+     * ReferenceCounted가 아니거나 이미 반환된 경우는 아무것도 하지 않는다
+     */
+    static void safeRelease(Object o) {
+        if (o instanceof ReferenceCounted) {
+            ReferenceCounted rc = (ReferenceCounted) o;
+            if (rc.refCnt() > 0) {
+                rc.release();
+            }
+        }
+    }
+}
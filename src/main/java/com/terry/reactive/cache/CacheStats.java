@@ -0,0 +1,50 @@
+package com.terry.reactive.cache;
+
+/**
+ * CoalescingCache의 통계
+ * hits : 보관된 결과를 돌려준 횟수
+ * misses : 실제로 작업을 실행한 횟수
+ * coalesced : 실행중인 작업의 결과를 같이 기다린 횟수
+ * evictions : maxSize를 넘어서 지운 횟수
+ */
+public class CacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final long coalesced;
+    private final long evictions;
+    private final int size;
+
+    public CacheStats(long hits, long misses, long coalesced, long evictions, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.coalesced = coalesced;
+        this.evictions = evictions;
+        this.size = size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats(hits=" + hits + ", misses=" + misses + ", coalesced=" + coalesced + ", evictions=" + evictions + ", size=" + size + ")";
+    }
+}
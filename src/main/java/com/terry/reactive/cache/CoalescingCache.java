@@ -0,0 +1,146 @@
+package com.terry.reactive.cache;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * 오래 걸리는 비동기 작업(MyService.hello() 같은)의 결과를 key 별로 재사용하는 Cache
+ *
+ * 1. 같은 key로 동시에 여러번 호출되면 작업은 한번만 실행하고 나머지 호출은 실행중인 작업의 결과를 같이 기다린다(coalesced)
+ * 2. 작업이 끝난 결과는 ttl 동안 보관해두고 그 사이의 호출은 작업을 실행하지 않고 보관된 결과를 바로 돌려준다(hit)
+ * 3. 보관된 결과가 maxSize를 넘으면 먼저 들어온 것부터 지운다(FIFO)
+ * 4. 작업이 실패한 경우는 보관하지 않는다(다음 호출때 다시 실행한다)
+ *
+ * 만료 여부는 읽을때 확인하기 때문에 만료를 지우기 위한 별도 Thread는 없다
+ */
+public class CoalescingCache<K, V> {
+
+    private final ConcurrentHashMap<K, Entry<K, V>> map = new ConcurrentHashMap<>();
+    private final Queue<Entry<K, V>> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger insertionOrderSize = new AtomicInteger();
+    private final long ttlNanos;
+    private final int maxSize;
+    private final LongSupplier nanoClock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CoalescingCache(long ttl, TimeUnit unit, int maxSize) {
+        this(ttl, unit, maxSize, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock 만료 시간 계산에 사용할 시계(테스트에서 시간을 직접 조작할때 사용한다)
+     */
+    public CoalescingCache(long ttl, TimeUnit unit, int maxSize, LongSupplier nanoClock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize > 0 required but it was " + maxSize);
+        }
+        this.ttlNanos = unit.toNanos(ttl);
+        this.maxSize = maxSize;
+        this.nanoClock = nanoClock;
+    }
+
+    public CompletableFuture<V> get(K key, Function<? super K, ? extends CompletableFuture<V>> loader) {
+        for (;;) {
+            Entry<K, V> entry = map.get(key);
+            if (entry != null) {
+                if (!entry.future.isDone()) {
+                    coalesced.increment();
+                    return dependent(entry.future);
+                }
+                if (nanoClock.getAsLong() - entry.loadedAt < ttlNanos) {
+                    hits.increment();
+                    return dependent(entry.future);
+                }
+                // 만료된 것은 지우고 다시 읽어온다
+                map.remove(key, entry);
+                continue;
+            }
+
+            Entry<K, V> created = new Entry<>(key);
+            if (map.putIfAbsent(key, created) != null) {
+                // 그 사이에 다른 Thread가 먼저 넣었으면 그 Thread의 작업을 같이 기다린다
+                continue;
+            }
+            misses.increment();
+            load(created, loader);
+            return dependent(created.future);
+        }
+    }
+
+    private void load(Entry<K, V> entry, Function<? super K, ? extends CompletableFuture<V>> loader) {
+        CompletableFuture<V> source;
+        try {
+            source = loader.apply(entry.key);
+        } catch (Throwable t) {
+            map.remove(entry.key, entry);
+            entry.future.completeExceptionally(t);
+            return;
+        }
+        source.whenComplete((value, error) -> {
+            if (error != null) {
+                map.remove(entry.key, entry);
+                entry.future.completeExceptionally(error);
+                return;
+            }
+            entry.loadedAt = nanoClock.getAsLong();
+            entry.future.complete(value);
+            insertionOrder.offer(entry);
+            insertionOrderSize.incrementAndGet();
+            evictIfNeeded();
+        });
+    }
+
+    /**
+     * 보관된 결과가 maxSize를 넘으면 먼저 들어온 것부터 지운다
+     * 만료되거나 실패해서 이미 Map에서 빠진 entry도 insertionOrder에는 남아 있기 때문에
+     * insertionOrder가 maxSize의 2배를 넘어도 앞에서부터 정리해서 insertionOrder 크기도 일정하게 유지한다
+     */
+    private void evictIfNeeded() {
+        while (map.size() > maxSize || insertionOrderSize.get() > maxSize * 2) {
+            Entry<K, V> oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            insertionOrderSize.decrementAndGet();
+            if (map.remove(oldest.key, oldest)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * 호출한 쪽에서 cancel이나 complete를 해도 다른 호출자의 결과에 영향이 없도록 별도의 CompletableFuture로 돌려준다
+     */
+    private CompletableFuture<V> dependent(CompletableFuture<V> future) {
+        return future.thenApply(Function.identity());
+    }
+
+    public void invalidate(K key) {
+        map.remove(key);
+    }
+
+    public CacheStats getStats() {
+        return new CacheStats(hits.sum(), misses.sum(), coalesced.sum(), evictions.sum(), map.size());
+    }
+
+    static final class Entry<K, V> {
+        final K key;
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        volatile long loadedAt;
+
+        Entry(K key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.terry.reactive.circuit;
+
+/**
+ * CircuitBreaker가 OPEN(또는 HALF_OPEN에서 시험 호출이 다 찬) 상태라서 호출하지 않고 바로 실패시킬때 사용하는 예외
+ *
+ * 열린 동안에는 호출마다 이 예외가 만들어지기 때문에 stack trace를 만들지 않는다(빠르게 실패하는 것이 목적이라 어디서 던졌는지는 필요 없다)
+ */
+public class CallNotPermittedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CallNotPermittedException(String name, CircuitBreaker.State state) {
+        super("CircuitBreaker '" + name + "' is " + state + " and does not permit further calls", null, false, false);
+    }
+}
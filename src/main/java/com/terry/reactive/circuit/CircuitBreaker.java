@@ -0,0 +1,280 @@
+package com.terry.reactive.circuit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 느려지거나 실패하는 서비스를 계속 호출하지 않도록 막는 Circuit Breaker
+ *
+ * MyService.hello()가 느려지면 호출하는 쪽은 timeout이 날때까지 기다리고 그 동안 tp()의 Thread와 대기열이 계속 쌓인다
+ * 최근 windowSize 개 호출 중 실패한 비율이나 slowCallNanos 보다 오래 걸린 비율이 기준을 넘으면 OPEN 상태가 되고
+ * OPEN 동안에는 서비스를 호출하지 않고 CallNotPermittedException으로 바로 실패시킨다(volatile 읽기 한번과 비교 몇번이라 마이크로초도 걸리지 않는다)
+ * openDuration이 지나면 HALF_OPEN이 되어 halfOpenCalls 개의 시험 호출만 허용하고
+ * 모두 성공하면 CLOSED로, 하나라도 실패하거나 느리면 다시 OPEN으로 바뀐다
+ *
+ * 최근 호출 결과는 AtomicIntegerArray로 만든 ring(Window)에 순서대로 덮어쓰고 실패, 느린 호출 갯수는 덮어쓸때 차이만큼만 더하고 빼기 때문에 lock이 없다
+ * 상태는 불변 객체(Phase)를 AtomicReference에 넣고 CAS로 바꾸기 때문에 여러 Thread가 동시에 기준을 넘겨도 상태는 한번만 바뀐다
+ * CLOSED로 돌아갈때는 새 Window를 만들어서 OPEN 이전의 결과가 남지 않게 한다
+ *
+ * 사용 방법 : tryAcquirePermission()이 true 일때만 호출하고 끝나면 onSuccess / onError 로 걸린 시간과 결과를 알려준다
+ * 결과를 알려주지 않고 포기하는 경우(cancel 등)에는 releasePermission()을 호출한다
+ * (Futures.circuitBreaker, Operators.circuitBreaker가 이 순서대로 호출해준다)
+ */
+@Slf4j
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    // Window에 기록하는 호출 결과. 0은 아직 기록이 없는 칸이다
+    private static final int RECORDED = 1;
+    private static final int FAILURE = 2;
+    private static final int SLOW = 4;
+
+    private final String name;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long slowCallNanos;
+    private final double slowCallRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier clock;
+    private final AtomicReference<Phase> phase;
+    private final LongAdder notPermitted = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder halfOpened = new LongAdder();
+    private final LongAdder closed = new LongAdder();
+
+    /**
+     * @param windowSize            실패율을 계산할 최근 호출 수
+     * @param minimumCalls          window에 이만큼 쌓이기 전에는 OPEN 되지 않는다
+     * @param failureRateThreshold  실패 비율이 이 값(0 ~ 1) 이상이면 OPEN
+     * @param slowCallDuration      이 시간보다 오래 걸린 호출은 느린 호출이다
+     * @param slowCallRateThreshold 느린 호출 비율이 이 값(0 ~ 1) 이상이면 OPEN
+     * @param openDuration          OPEN 상태를 유지하는 시간
+     * @param halfOpenCalls         HALF_OPEN에서 허용하는 시험 호출 수
+     */
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          long slowCallDuration, double slowCallRateThreshold, long openDuration, TimeUnit unit, int halfOpenCalls) {
+        this(name, windowSize, minimumCalls, failureRateThreshold, slowCallDuration, slowCallRateThreshold, openDuration, unit, halfOpenCalls,
+                System::nanoTime);
+    }
+
+    /**
+     * @param clock nano 단위 시각(테스트에서 시간을 직접 움직일때 사용한다)
+     */
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          long slowCallDuration, double slowCallRateThreshold, long openDuration, TimeUnit unit, int halfOpenCalls,
+                          LongSupplier clock) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize > 0 required but it was " + windowSize);
+        }
+        if (minimumCalls <= 0 || minimumCalls > windowSize) {
+            throw new IllegalArgumentException("0 < minimumCalls <= windowSize required but it was " + minimumCalls);
+        }
+        if (halfOpenCalls <= 0) {
+            throw new IllegalArgumentException("halfOpenCalls > 0 required but it was " + halfOpenCalls);
+        }
+        this.name = name;
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = unit.toNanos(slowCallDuration);
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openNanos = unit.toNanos(openDuration);
+        this.halfOpenCalls = halfOpenCalls;
+        this.clock = clock;
+        this.phase = new AtomicReference<>(new Phase(State.CLOSED, clock.getAsLong(), new Window(windowSize), 0));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public State getState() {
+        return phase.get().state;
+    }
+
+    /**
+     * 지금 호출해도 되는지 확인한다. false 이면 호출하지 말고 바로 실패시켜야 한다
+     */
+    public boolean tryAcquirePermission() {
+        for (;;) {
+            Phase p = phase.get();
+            switch (p.state) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (clock.getAsLong() - p.since < openNanos) {
+                        notPermitted.increment();
+                        return false;
+                    }
+                    // 실패하면 다른 Thread가 먼저 HALF_OPEN으로 바꾼 것이므로 다시 확인한다
+                    transition(p, State.HALF_OPEN);
+                    break;
+                default:
+                    if (p.acquireProbe()) {
+                        return true;
+                    }
+                    notPermitted.increment();
+                    return false;
+            }
+        }
+    }
+
+    /**
+     * 허용받았지만 결과 없이 포기한 호출(cancel 등). HALF_OPEN의 시험 호출 자리를 돌려준다
+     */
+    public void releasePermission() {
+        Phase p = phase.get();
+        if (p.state == State.HALF_OPEN) {
+            p.probes.incrementAndGet();
+        }
+    }
+
+    public void onSuccess(long durationNanos) {
+        record(durationNanos >= slowCallNanos ? RECORDED | SLOW : RECORDED);
+    }
+
+    public void onError(long durationNanos, Throwable error) {
+        record(durationNanos >= slowCallNanos ? RECORDED | FAILURE | SLOW : RECORDED | FAILURE);
+    }
+
+    /**
+     * 호출하지 않고 바로 실패시킬때 넘겨줄 예외
+     */
+    public CallNotPermittedException callNotPermitted() {
+        return new CallNotPermittedException(name, getState());
+    }
+
+    private void record(int outcome) {
+        Phase p = phase.get();
+        switch (p.state) {
+            case CLOSED:
+                p.window.record(outcome);
+                int calls = p.window.calls.get();
+                if (calls >= minimumCalls
+                        && (p.window.failures.get() >= failureRateThreshold * calls || p.window.slow.get() >= slowCallRateThreshold * calls)) {
+                    transition(p, State.OPEN);
+                }
+                break;
+            case HALF_OPEN:
+                if ((outcome & (FAILURE | SLOW)) != 0) {
+                    transition(p, State.OPEN);
+                } else if (p.successes.incrementAndGet() == halfOpenCalls) {
+                    transition(p, State.CLOSED);
+                }
+                break;
+            default:
+                // OPEN 되기 전에 시작한 호출의 결과는 무시한다
+                break;
+        }
+    }
+
+    private void transition(Phase from, State to) {
+        Phase next = new Phase(to, clock.getAsLong(), to == State.CLOSED ? new Window(windowSize) : from.window, halfOpenCalls);
+        if (!phase.compareAndSet(from, next)) {
+            return;
+        }
+        switch (to) {
+            case OPEN:
+                opened.increment();
+                break;
+            case HALF_OPEN:
+                halfOpened.increment();
+                break;
+            default:
+                closed.increment();
+                break;
+        }
+        logger.info("CircuitBreaker '{}' {} -> {} (failures={}, slow={}, calls={})", name, from.state, to,
+                from.window.failures.get(), from.window.slow.get(), from.window.calls.get());
+    }
+
+    public CircuitBreakerStats getStats() {
+        Phase p = phase.get();
+        int calls = p.window.calls.get();
+        double failureRate = calls < minimumCalls ? -1d : p.window.failures.get() / (double) calls;
+        double slowCallRate = calls < minimumCalls ? -1d : p.window.slow.get() / (double) calls;
+        return new CircuitBreakerStats(name, p.state, calls, failureRate, slowCallRate, notPermitted.sum(),
+                opened.sum(), halfOpened.sum(), closed.sum());
+    }
+
+    /**
+     * 상태 하나. 바뀔때마다 새로 만든다
+     * since : 이 상태가 된 시각, probes : HALF_OPEN에서 남은 시험 호출 수, successes : HALF_OPEN에서 성공한 시험 호출 수
+     */
+    static final class Phase {
+
+        final State state;
+        final long since;
+        final Window window;
+        final AtomicInteger probes;
+        final AtomicInteger successes = new AtomicInteger();
+
+        Phase(State state, long since, Window window, int probes) {
+            this.state = state;
+            this.since = since;
+            this.window = window;
+            this.probes = new AtomicInteger(probes);
+        }
+
+        boolean acquireProbe() {
+            for (;;) {
+                int n = probes.get();
+                if (n <= 0) {
+                    return false;
+                }
+                if (probes.compareAndSet(n, n - 1)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * 최근 호출 결과를 담는 ring. 가장 오래된 칸을 덮어쓰면서 덮어쓴 결과만큼 갯수를 빼고 새 결과만큼 더한다
+     * 칸 하나를 getAndSet으로 바꾸기 때문에 여러 Thread가 동시에 기록해도 갯수는 결국 ring의 내용과 같아진다
+     */
+    static final class Window {
+
+        final AtomicIntegerArray outcomes;
+        final AtomicLong index = new AtomicLong();
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        final AtomicInteger slow = new AtomicInteger();
+
+        Window(int size) {
+            this.outcomes = new AtomicIntegerArray(size);
+        }
+
+        void record(int outcome) {
+            int slot = (int) (index.getAndIncrement() % outcomes.length());
+            int old = outcomes.getAndSet(slot, outcome);
+            apply(old, -1);
+            apply(outcome, 1);
+        }
+
+        private void apply(int outcome, int delta) {
+            if (outcome == 0) {
+                return;
+            }
+            calls.addAndGet(delta);
+            if ((outcome & FAILURE) != 0) {
+                failures.addAndGet(delta);
+            }
+            if ((outcome & SLOW) != 0) {
+                slow.addAndGet(delta);
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.terry.reactive.circuit;
+
+/**
+ * CircuitBreaker의 통계
+ * bufferedCalls : 지금 window에 들어있는 호출 결과 수
+ * failureRate, slowCallRate : window 안에서 실패한 호출, 느린 호출의 비율(0 ~ 1). minimumCalls 보다 적으면 -1
+ * notPermitted : 열려 있어서 호출하지 않고 바로 실패시킨 횟수
+ * openedCount, halfOpenedCount, closedCount : 각 상태로 바뀐 횟수
+ */
+public class CircuitBreakerStats {
+
+    private final String name;
+    private final CircuitBreaker.State state;
+    private final int bufferedCalls;
+    private final double failureRate;
+    private final double slowCallRate;
+    private final long notPermitted;
+    private final long openedCount;
+    private final long halfOpenedCount;
+    private final long closedCount;
+
+    public CircuitBreakerStats(String name, CircuitBreaker.State state, int bufferedCalls, double failureRate, double slowCallRate,
+                               long notPermitted, long openedCount, long halfOpenedCount, long closedCount) {
+        this.name = name;
+        this.state = state;
+        this.bufferedCalls = bufferedCalls;
+        this.failureRate = failureRate;
+        this.slowCallRate = slowCallRate;
+        this.notPermitted = notPermitted;
+        this.openedCount = openedCount;
+        this.halfOpenedCount = halfOpenedCount;
+        this.closedCount = closedCount;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CircuitBreaker.State getState() {
+        return state;
+    }
+
+    public int getBufferedCalls() {
+        return bufferedCalls;
+    }
+
+    public double getFailureRate() {
+        return failureRate;
+    }
+
+    public double getSlowCallRate() {
+        return slowCallRate;
+    }
+
+    public long getNotPermitted() {
+        return notPermitted;
+    }
+
+    public long getOpenedCount() {
+        return openedCount;
+    }
+
+    public long getHalfOpenedCount() {
+        return halfOpenedCount;
+    }
+
+    public long getClosedCount() {
+        return closedCount;
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreakerStats(name=" + name + ", state=" + state + ", bufferedCalls=" + bufferedCalls
+                + ", failureRate=" + String.format("%.2f", failureRate) + ", slowCallRate=" + String.format("%.2f", slowCallRate)
+                + ", notPermitted=" + notPermitted + ", openedCount=" + openedCount + ", halfOpenedCount=" + halfOpenedCount
+                + ", closedCount=" + closedCount + ")";
+    }
+}
@@ -0,0 +1,64 @@
+package com.terry.reactive.day04;
+
+import com.terry.reactive.executor.BatchingExecutor;
+import com.terry.reactive.executor.TaskPriority;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * async.batching.enabled=true 일때만 @Async 메소드를 tp()에 바로 넣지 않고 BatchingExecutor로 모아서 넣는다
+ *
+ * AsyncConfigurer Bean이 있으면 @EnableAsync는 tp()를 찾지 않고 getAsyncExecutor()가 돌려준 Executor를 사용한다
+ * 작업은 결국 tp()의 Thread에서 실행되고, @Async 메소드가 return 하는 Future도 지금처럼 호출마다 따로 완료된다
+ * 설정하지 않으면 이 설정 클래스가 등록되지 않기 때문에 지금처럼 tp()를 사용한다
+ *
+ * tp()는 작업을 넣는 Thread의 TaskPriority를 작업에 붙이는데, Batch는 마지막 칸을 채운 Thread나 Timer Thread가 넘기기 때문에
+ * 하나의 BatchingExecutor를 쓰면 각 호출의 등급이 사라진다. 그래서 등급마다 BatchingExecutor를 따로 두고
+ * 호출한 Thread의 등급에 맞는 BatchingExecutor에 넣으며, 각 BatchingExecutor는 자기 등급으로 tp()에 넘긴다(TaskPriority.executor)
+ * @Async("interactiveTasks") 처럼 Executor Bean 이름을 지정한 메소드는 여기를 거치지 않고 바로 tp()에 들어간다
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "async.batching.enabled", havingValue = "true")
+public class AsyncBatchingConfiguration implements AsyncConfigurer, DisposableBean {
+
+    private final Map<TaskPriority, BatchingExecutor> executors = new EnumMap<>(TaskPriority.class);
+    private final MdcTaskDecorator decorator = new MdcTaskDecorator();
+
+    public AsyncBatchingConfiguration(ThreadPoolTaskExecutor tp,
+                                      @Value("${async.batching.batch-size:64}") int batchSize,
+                                      @Value("${async.batching.max-delay-micros:500}") long maxDelayMicros) {
+        for (TaskPriority priority : TaskPriority.values()) {
+            executors.put(priority, new BatchingExecutor(priority.executor(tp), batchSize, maxDelayMicros, TimeUnit.MICROSECONDS));
+        }
+        logger.info("@Async batching enabled : batch-size={}, max-delay={}us", batchSize, maxDelayMicros);
+    }
+
+    /**
+     * tp()의 MdcTaskDecorator는 batch를 넘긴 Thread의 MDC를 복사하기 때문에 작업마다 호출한 Thread의 MDC를 여기서 따로 복사한다
+     * 호출한 Thread의 MDC가 비어있으면 그 작업은 빈 MDC로 실행되기 때문에 batch를 넘긴 Thread의 MDC가 섞이지 않는다
+     */
+    @Override
+    public Executor getAsyncExecutor() {
+        return task -> executors.get(TaskPriority.current()).execute(decorator.decorate(task));
+    }
+
+    @Override
+    public void destroy() {
+        executors.forEach((priority, executor) -> {
+            executor.shutdown();
+            logger.info("@Async batching {} : {} tasks in {} batches ({} flushed by max-delay)",
+                    priority, executor.getTaskCount(), executor.getBatchCount(), executor.getTimedFlushCount());
+        });
+    }
+}
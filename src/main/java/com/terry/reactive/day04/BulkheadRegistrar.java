@@ -0,0 +1,103 @@
+package com.terry.reactive.day04;
+
+import com.terry.reactive.executor.Bulkhead;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * application.yml의 async.bulkheads 아래에 정의한 이름마다 Bulkhead Bean을 등록한다
+ *
+ * async:
+ *   bulkheads:
+ *     hello:                # Bean 이름은 bulkhead.hello 가 된다
+ *       core-size: 2
+ *       max-size: 4
+ *       queue-capacity: 10
+ *
+ * 이렇게 정의하면 @Async("bulkhead.hello") 로 그 Bulkhead에서 실행된다. 설정 파일만 바꾸면 되고 코드에 Bean을 하나씩 만들 필요가 없다
+ * Bean 정의를 추가하는 것이기 때문에 BeanDefinitionRegistryPostProcessor로 만들고 다른 Bean보다 먼저 만들어지도록 static @Bean으로 등록한다
+ * Bulkhead는 Executor 타입이라(TaskExecutor가 아니다) 이름을 지정하지 않은 @Async는 지금처럼 tp()를 사용한다
+ */
+@Slf4j
+public class BulkheadRegistrar implements BeanDefinitionRegistryPostProcessor, EnvironmentAware {
+
+    public static final String PREFIX = "async.bulkheads";
+
+    private Environment environment;
+
+    public static String beanName(String name) {
+        return "bulkhead." + name;
+    }
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) {
+        Map<String, Spec> specs = Binder.get(environment)
+                .bind(PREFIX, Bindable.mapOf(String.class, Spec.class))
+                .orElse(Collections.emptyMap());
+        specs.forEach((name, spec) -> {
+            MdcTaskDecorator mdcTaskDecorator = new MdcTaskDecorator();
+            AbstractBeanDefinition definition = BeanDefinitionBuilder
+                    .genericBeanDefinition(Bulkhead.class, () -> new Bulkhead(name, spec.getCoreSize(), spec.getMaxSize(),
+                            spec.getQueueCapacity(), mdcTaskDecorator::decorate))
+                    .setDestroyMethodName("shutdown")
+                    .getBeanDefinition();
+            registry.registerBeanDefinition(beanName(name), definition);
+            logger.info("bulkhead {} : core-size={}, max-size={}, queue-capacity={}",
+                    beanName(name), spec.getCoreSize(), spec.getMaxSize(), spec.getQueueCapacity());
+        });
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+    }
+
+    /**
+     * Bulkhead 하나의 설정
+     */
+    public static class Spec {
+
+        private int coreSize = 1;
+        private int maxSize = 1;
+        private int queueCapacity = 0;
+
+        public int getCoreSize() {
+            return coreSize;
+        }
+
+        public void setCoreSize(int coreSize) {
+            this.coreSize = coreSize;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+}
@@ -1,12 +1,22 @@
 package com.terry.reactive.day04;
 
+import com.terry.reactive.executor.Bulkhead;
+import com.terry.reactive.executor.BulkheadStats;
+import com.terry.reactive.executor.PrioritizedTask;
+import com.terry.reactive.executor.PriorityQueueStats;
+import com.terry.reactive.executor.PriorityTaskQueue;
+import com.terry.reactive.executor.TaskPriority;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.AsyncResult;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -16,7 +26,15 @@ import org.springframework.util.concurrent.ListenableFuture;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 @SpringBootApplication
 @Slf4j
@@ -41,6 +59,11 @@ public class Day04SpringBootApplication {
     @Component
     @Async
     public static class MyService {
+        /**
+         * 항상 2초가 걸리는 느린 메소드라서 전용 Bulkhead(application.yml의 async.bulkheads.hello)에서 실행한다
+         * 이 메소드가 몰려도 자기 Bulkhead만 다 쓰고 거절되기 때문에 tp()를 쓰는 다른 메소드는 영향을 받지 않는다(TaskPriorityConfiguration 참조)
+         */
+        @Async(TaskPriorityConfiguration.HELLO_BULKHEAD)
         public Future<String> hello() throws InterruptedException {
             logger.info("hello()");
             Thread.sleep(2000);
@@ -56,6 +79,18 @@ public class Day04SpringBootApplication {
             Thread.sleep(2000);
             return new AsyncResult<>("listenableFuture.Hello");
         }
+
+        /**
+         * @Async 메소드는 CompletableFuture로도 return 할 수 있다. 이때는 작업이 끝나면 return 한 CompletableFuture의 결과가 호출한 쪽의 CompletableFuture로 전달된다
+         * CompletableFuture는 thenApply 등으로 결과를 이어서 처리할 수 있기 때문에 HelloCacheService에서 결과를 공유할때 이 메소드를 사용한다
+         * /hello 요청이 이 결과를 기다리기 때문에 INTERACTIVE 등급으로 실행한다
+         */
+        @Async(TaskPriorityConfiguration.INTERACTIVE)
+        public CompletableFuture<String> completableFuture() throws InterruptedException {
+            logger.info("completableFuture.hello()");
+            Thread.sleep(2000);
+            return CompletableFuture.completedFuture("Hello");
+        }
     }
 
     /**
@@ -83,13 +118,23 @@ public class Day04SpringBootApplication {
      *
      */
     @Bean
-    ThreadPoolTaskExecutor tp() {
-        ThreadPoolTaskExecutor te = new ThreadPoolTaskExecutor();
+    ThreadPoolTaskExecutor tp(@Value("${async.priority.max-wait-millis:500}") long maxWaitMillis) {
+        ThreadPoolTaskExecutor te = new ThreadPoolTaskExecutor() {
+            private static final long serialVersionUID = 1L;
+
+            // 하나의 FIFO 대기열(LinkedBlockingQueue) 대신 TaskPriority 등급별 대기열을 사용한다(PriorityTaskQueue 참조)
+            @Override
+            protected BlockingQueue<Runnable> createQueue(int queueCapacity) {
+                return new PriorityTaskQueue(queueCapacity, maxWaitMillis, TimeUnit.MILLISECONDS);
+            }
+        };
         te.setCorePoolSize(10); // Thread Pool의 Core Pool Size를 정한다
         te.setMaxPoolSize(100); // Thread Pool의 Max Pool Size를 정한다
-        te.setQueueCapacity(200); // Thread Pool의 대기열 Queue Size를 정한다
+        te.setQueueCapacity(200); // Thread Pool의 대기열 Queue Size를 정한다(등급별 대기열마다 이 크기이다)
         // te.setKeepAliveSeconds(10); // Thread Pool이 core pool size보다 큰 크기로 Thread가 차 있는 상태에서 Thread Pool에 Thread가 반납이 되었는데 이 Thread가 setKeepAliveSeconds 메소드에 지정된 시간만큼 사용중이지 않은 상태를 유지하면 해당 Thread를 제거한다
-        // te.setTaskDecorator(null); // Thread를 실행하는 지점 의 이전과 이후에 별도의 코드를 넣어서 실행이 되게끔 한다(Spring의 AOP를 생각하면 된다)
+        MdcTaskDecorator mdcTaskDecorator = new MdcTaskDecorator();
+        // Thread를 실행하는 지점 의 이전과 이후에 별도의 코드를 넣어서 실행이 되게끔 한다(Spring의 AOP를 생각하면 된다). 여기서는 호출한 Thread의 MDC와 TaskPriority 등급을 넘겨준다
+        te.setTaskDecorator(task -> PrioritizedTask.wrap(mdcTaskDecorator.decorate(task)));
         te.setThreadNamePrefix("myThread"); // Thread 이름 앞에 특정 문자열을 prefix로 설정한다
         return te;
     }
@@ -115,17 +160,44 @@ public class Day04SpringBootApplication {
      * 1. Database등의 별도 보관장치에다가 결과를 기록해둔뒤에 다른 Controller에서 이것을 읽어오는 방법을 사용
      * 2. Future 클래스 객체를 HttpSession에 넣어둔뒤 다른 Controller에서 HttpSession에 저장되어 있는 Future 클래스 객체를 접근하여 읽어오는 방법
      * (동영상 강의에서는 Future 클래스를 저장하는 것으로 언급했지만 방법만 놓고 보면 Future 클래스 객체가 아니더라도 작업 과정과 결과를 저장할 수 있는 클래스라면 해당 클래스를 HttpSession에 저장해도 될것 같다)
+     *
+     * 처음에는 myService.hello()가 return 한 Future의 get 메소드로 결과를 기다렸는데
+     * ApplicationRunner는 Spring Boot가 시작을 마쳤다고 알리기(ApplicationReadyEvent) 전에 실행되기 때문에 get 에서 기다리는 2초만큼 시작이 늦어졌다
+     * 그래서 CompletableFuture를 return 하는 메소드로 바꾸고 결과는 작업이 끝난 뒤 callback으로 받아서 출력하도록 했다
+     *
+     * 다만 main은 시작이 끝나자마자 context를 닫기 때문에 그대로 두면 tp()가 먼저 shutdown 되어 callback이 실행되지 않는다
+     * 그래서 context가 닫힐때(Thread Pool Bean들이 정리되기 전에) awaitRunResult 에서 callback이 끝날때까지 최대 5초 기다린다
      */
     @Bean
     ApplicationRunner run() {
         return args -> {
             logger.info("run()");
-            Future<String> f = myService.hello();
+            CompletableFuture<String> f = myService.completableFuture();
             logger.info("exit : {}", f.isDone());
-            logger.info("result : {}", f.get());
+            runResult = f.thenAccept(result -> logger.info("result : {}", result));
         };
     }
 
+    private volatile CompletableFuture<Void> runResult;
+
+    /**
+     * ContextClosedEvent는 Bean들을 정리하기 전에 발생하기 때문에 여기서 기다리는 동안 tp()는 아직 살아있다
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void awaitRunResult() {
+        CompletableFuture<Void> f = runResult;
+        if (f == null) {
+            return;
+        }
+        try {
+            f.get(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("run() result was not received : {}", e.toString());
+        }
+    }
+
     /**
      * ListenableFuture 클래스로 비동기 작업 결과를 return 받으면 해당 작업에 대한 success callback과 exception callback 메소드를 설정할 수 있다.
      * 이렇게 callback 메소드를 등록하면 listenableFutureRun 메소드의 작업이 종료되더라도 ListenableFuture 클래스 객체를 return 하는 비동기 작업 메소드가 작업이 마쳐지거나 또는 예외가 발생할때
@@ -153,9 +225,33 @@ public class Day04SpringBootApplication {
     @RestController
     public static class MyController {
 
+        private final ThreadPoolTaskExecutor tp;
+        private final ObjectProvider<Bulkhead> bulkheads;
+
+        public MyController(ThreadPoolTaskExecutor tp, ObjectProvider<Bulkhead> bulkheads) {
+            this.tp = tp;
+            this.bulkheads = bulkheads;
+        }
+
         @GetMapping("/async")
         public String async() {
             return "async";
         }
+
+        /**
+         * tp()의 등급별 대기열 길이와 통계
+         */
+        @GetMapping("/async/queue-stats")
+        public Map<TaskPriority, PriorityQueueStats> queueStats() {
+            return ((PriorityTaskQueue) tp.getThreadPoolExecutor().getQueue()).getStats();
+        }
+
+        /**
+         * application.yml에 정의한 Bulkhead별 Thread, 대기열 사용량과 거절 횟수
+         */
+        @GetMapping("/async/bulkheads")
+        public List<BulkheadStats> bulkheads() {
+            return bulkheads.orderedStream().map(Bulkhead::getStats).collect(Collectors.toList());
+        }
     }
 }
@@ -0,0 +1,62 @@
+package com.terry.reactive.day04;
+
+import com.terry.reactive.publisher.MappedFilePublisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * export.directory 에 있는 파일을 내려주는 Controller
+ *
+ * MappedFilePublisher가 보내는 ByteBuffer(mapping된 파일의 일부분)를 DataBuffer로 감싸기만(wrap) 하고 복사하지 않는다
+ * Netty도 이 ByteBuffer를 그대로 감싸서 Socket에 쓰기 때문에 몇 GB 짜리 파일을 내려줘도 Heap에는 파일 내용이 올라오지 않는다
+ * Netty가 Socket에 다 쓰기 전까지는 chunk를 보관하고 있어야 하는데 MappedFilePublisher의 chunk는 다시 사용되지 않기 때문에 안전하다
+ * (AsyncFilePublisher는 buffer를 다시 사용하기 때문에 여기에 사용하면 안된다)
+ *
+ * 파일 이름에 ../ 등을 넣어서 export.directory 밖의 파일을 읽을 수 없도록 경로를 정규화한 뒤 확인한다
+ *
+ * 인증 없이 디렉토리 안의 모든 파일을 내려주기 때문에 기본값이 없다
+ * 내려줄 파일만 모아둔 전용 디렉토리를 export.directory 에 지정했을때만 Bean을 만든다(tmp 처럼 다른 프로그램도 쓰는 디렉토리는 지정하면 안된다)
+ */
+@RestController
+@ConditionalOnProperty(name = "export.directory")
+public class FileExportController {
+
+    private final Path directory;
+    private final DataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+    public FileExportController(@Value("${export.directory}") String directory) {
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        if (!Files.isDirectory(this.directory)) {
+            throw new IllegalArgumentException("export.directory is not a directory: " + this.directory);
+        }
+    }
+
+    @GetMapping("/export/{name:.+}")
+    public ResponseEntity<Flux<DataBuffer>> export(@PathVariable String name) throws IOException {
+        Path file = directory.resolve(name).normalize();
+        if (!file.startsWith(directory) || !Files.isRegularFile(file)) {
+            return ResponseEntity.notFound().build();
+        }
+        Flux<DataBuffer> body = Flux.from(new MappedFilePublisher(file)).map(bufferFactory::wrap);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(Files.size(file))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+                .body(body);
+    }
+}
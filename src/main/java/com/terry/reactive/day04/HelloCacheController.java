@@ -0,0 +1,41 @@
+package com.terry.reactive.day04;
+
+import com.terry.reactive.cache.CacheStats;
+import com.terry.reactive.circuit.CircuitBreakerStats;
+import com.terry.reactive.retry.RetryStats;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+public class HelloCacheController {
+
+    private final HelloCacheService helloCacheService;
+
+    public HelloCacheController(HelloCacheService helloCacheService) {
+        this.helloCacheService = helloCacheService;
+    }
+
+    /**
+     * CompletableFuture를 Mono로 바꿔서 return 하면 작업이 끝날때까지 요청 Thread를 잡고 있지 않는다
+     */
+    @GetMapping("/hello")
+    public Mono<String> hello() {
+        return Mono.fromFuture(helloCacheService.hello());
+    }
+
+    @GetMapping("/hello/stats")
+    public CacheStats stats() {
+        return helloCacheService.getStats();
+    }
+
+    @GetMapping("/hello/retry-stats")
+    public RetryStats retryStats() {
+        return helloCacheService.getRetryStats();
+    }
+
+    @GetMapping("/hello/circuit-breaker-stats")
+    public CircuitBreakerStats circuitBreakerStats() {
+        return helloCacheService.getCircuitBreakerStats();
+    }
+}
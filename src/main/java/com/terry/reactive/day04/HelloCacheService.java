@@ -0,0 +1,92 @@
+package com.terry.reactive.day04;
+
+import com.terry.reactive.cache.CacheStats;
+import com.terry.reactive.cache.CoalescingCache;
+import com.terry.reactive.circuit.CallNotPermittedException;
+import com.terry.reactive.circuit.CircuitBreaker;
+import com.terry.reactive.circuit.CircuitBreakerStats;
+import com.terry.reactive.future.Futures;
+import com.terry.reactive.retry.Backoff;
+import com.terry.reactive.retry.RetryBudget;
+import com.terry.reactive.retry.RetryPolicy;
+import com.terry.reactive.retry.RetryStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MyService.hello()는 항상 2초가 걸리고 항상 같은 값을 돌려주는데 호출할때마다 tp() Thread Pool에서 Thread를 하나씩 차지한다
+ * 이 클래스는 MyService 앞에 CoalescingCache를 두어서
+ * 동시에 들어온 호출은 실행중인 작업 하나를 같이 기다리고, 끝난 결과는 ttl 동안 재사용해서 tp()의 Thread를 쓰지 않게 한다
+ * MyService가 timeout 안에 끝나지 않으면 TimeoutException으로 실패시키고, 실패한 결과는 캐시에 남지 않기 때문에 다음 호출때 다시 시도한다
+ * 실패하면 cache.hello.retry 설정대로 backoff 시간만큼 기다렸다가 다시 호출하는데, 실패가 계속되면 RetryBudget이 재시도를 막는다
+ * MyService가 느려지거나 계속 실패하면 CircuitBreaker가 열려서 MyService를 호출하지 않고(tp()에 작업을 넣지 않고) 바로 실패시킨다
+ * 열려서 실패한 호출(CallNotPermittedException)은 재시도하지 않는다
+ */
+@Component
+public class HelloCacheService {
+
+    private static final String HELLO = "hello";
+
+    private final Day04SpringBootApplication.MyService myService;
+    private final CoalescingCache<String, String> cache;
+    private final long timeoutMillis;
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreaker circuitBreaker;
+
+    public HelloCacheService(Day04SpringBootApplication.MyService myService,
+                             @Value("${cache.hello.ttl-millis:10000}") long ttlMillis,
+                             @Value("${cache.hello.max-size:1000}") int maxSize,
+                             @Value("${cache.hello.timeout-millis:3000}") long timeoutMillis,
+                             @Value("${cache.hello.retry.max-retries:2}") int maxRetries,
+                             @Value("${cache.hello.retry.first-backoff-millis:200}") long firstBackoffMillis,
+                             @Value("${cache.hello.retry.max-backoff-millis:2000}") long maxBackoffMillis,
+                             @Value("${cache.hello.retry.jitter:0.5}") double jitter,
+                             @Value("${cache.hello.retry.budget-tokens:10}") int budgetTokens,
+                             @Value("${cache.hello.circuit-breaker.window-size:20}") int windowSize,
+                             @Value("${cache.hello.circuit-breaker.minimum-calls:10}") int minimumCalls,
+                             @Value("${cache.hello.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+                             @Value("${cache.hello.circuit-breaker.slow-call-millis:2500}") long slowCallMillis,
+                             @Value("${cache.hello.circuit-breaker.slow-call-rate-threshold:0.5}") double slowCallRateThreshold,
+                             @Value("${cache.hello.circuit-breaker.open-millis:10000}") long openMillis,
+                             @Value("${cache.hello.circuit-breaker.half-open-calls:3}") int halfOpenCalls) {
+        this.myService = myService;
+        this.timeoutMillis = timeoutMillis;
+        this.retryPolicy = new RetryPolicy(
+                new Backoff(maxRetries, firstBackoffMillis, maxBackoffMillis, TimeUnit.MILLISECONDS, jitter),
+                new RetryBudget(budgetTokens, 0.1),
+                t -> !(t instanceof InterruptedException) && !(t instanceof CallNotPermittedException));
+        this.circuitBreaker = new CircuitBreaker(HELLO, windowSize, minimumCalls, failureRateThreshold,
+                slowCallMillis, slowCallRateThreshold, openMillis, TimeUnit.MILLISECONDS, halfOpenCalls);
+        this.cache = new CoalescingCache<>(ttlMillis, TimeUnit.MILLISECONDS, maxSize);
+    }
+
+    public CompletableFuture<String> hello() {
+        return cache.get(HELLO, key -> Futures.retry(() -> Futures.circuitBreaker(this::callMyService, circuitBreaker), retryPolicy));
+    }
+
+    private CompletableFuture<String> callMyService() {
+        try {
+            return Futures.timeout(myService.completableFuture(), timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            CompletableFuture<String> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    public CacheStats getStats() {
+        return cache.getStats();
+    }
+
+    public RetryStats getRetryStats() {
+        return retryPolicy.getStats();
+    }
+
+    public CircuitBreakerStats getCircuitBreakerStats() {
+        return circuitBreaker.getStats();
+    }
+}
@@ -0,0 +1,35 @@
+package com.terry.reactive.day04;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+
+/**
+ * 모든 Bean을 처음 사용될때 만들어지도록(lazy) 바꿔주는 BeanFactoryPostProcessor
+ *
+ * Spring Boot 2.2 부터는 spring.main.lazy-initialization=true 설정 하나로 되지만 이 프로젝트가 사용하는 2.1 에는 없어서 직접 만들었다
+ * Bean 설정 정보(BeanDefinition)를 다 읽은 뒤, Bean을 만들기 전에 실행되기 때문에 여기서 lazyInit 값을 바꾸면
+ * 시작할때는 Web Server와 ApplicationRunner 처럼 바로 필요한 Bean만 만들어지고 나머지는 첫 요청이 올때 만들어진다
+ *
+ * 시작 시간이 줄어드는 대신 설정 오류가 있는 Bean도 첫 요청때 발견되고 첫 요청이 조금 느려진다
+ * 그래서 개발할때는 사용하지 않고 application-prod.yml의 startup.lazy-init=true 로 운영 환경에서만 사용한다
+ */
+@Slf4j
+public class LazyInitBeanFactoryPostProcessor implements BeanFactoryPostProcessor {
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+        int count = 0;
+        for (String name : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition definition = beanFactory.getBeanDefinition(name);
+            // Spring 내부에서 사용하는 Bean(ROLE_INFRASTRUCTURE)은 원래 설정대로 둔다
+            if (definition.getRole() == BeanDefinition.ROLE_APPLICATION && !definition.isLazyInit()) {
+                definition.setLazyInit(true);
+                count++;
+            }
+        }
+        logger.info("lazy initialization enabled for {} beans", count);
+    }
+}
@@ -0,0 +1,27 @@
+package com.terry.reactive.day04;
+
+import com.terry.reactive.scheduler.ContextScheduler;
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * @Async 메소드를 호출한 Thread의 MDC를 tp()의 Thread에서도 볼 수 있게 해주는 TaskDecorator
+ *
+ * 작업을 넣을때 MDC를 한번 복사하고 tp()의 Thread에서 실행될때 넣었다가 끝나면 원래대로 되돌린다
+ * 호출한 Thread의 MDC가 비어있어도 작업을 감싸서 빈 MDC로 실행한다
+ * 감싸지 않으면 tp()의 Thread에 남아있던 MDC(BatchingExecutor의 Batch 처럼 MDC를 직접 넣는 작업이 남긴 값 등)가 그대로 보이기 때문이다
+ */
+public class MdcTaskDecorator implements TaskDecorator {
+
+    private static final Map<String, String> EMPTY = Collections.emptyMap();
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        Map<String, String> copy = MDC.getCopyOfContextMap();
+        Map<String, String> context = copy == null || copy.isEmpty() ? EMPTY : copy;
+        return () -> ContextScheduler.runWith(context, runnable);
+    }
+}
@@ -0,0 +1,29 @@
+package com.terry.reactive.day04;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 시작 시간과 관련된 설정
+ *
+ * BeanFactoryPostProcessor, BeanPostProcessor는 다른 Bean보다 먼저 만들어져야 하기 때문에 static 메소드로 등록한다
+ * (static이 아니면 이 설정 클래스가 먼저 만들어져야 해서 설정 클래스가 BeanPostProcessor의 처리를 받지 못한다)
+ */
+@Configuration
+public class StartupConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "startup.lazy-init", havingValue = "true")
+    static BeanFactoryPostProcessor lazyInitBeanFactoryPostProcessor() {
+        return new LazyInitBeanFactoryPostProcessor();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "startup.timeline.enabled", havingValue = "true", matchIfMissing = true)
+    static StartupTimeline startupTimeline(@Value("${startup.timeline.top:20}") int top) {
+        return new StartupTimeline(top);
+    }
+}
@@ -0,0 +1,116 @@
+package com.terry.reactive.day04;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 시작할때 Bean 마다 만드는데 걸린 시간을 재서 ApplicationReadyEvent 때 오래 걸린 순서대로 로그로 보여준다
+ *
+ * Bean을 만들기 직전(postProcessBeforeInstantiation)에 시간을 기록하고 초기화가 끝난 뒤(postProcessAfterInitialization)에 걸린 시간을 계산한다
+ * A Bean을 만드는 도중에 A가 의존하는 B Bean이 만들어지면 A의 시간에 B의 시간이 포함되기 때문에
+ * Thread 별 stack으로 만들고 있는 Bean을 기억해두고 자식 Bean의 시간을 뺀 값(self)도 같이 계산한다
+ * 시작 시간을 줄일때는 self 시간이 큰 Bean부터 보면 된다
+ *
+ * BeanPostProcessor 보다 먼저 만들어지는 Bean(다른 BeanPostProcessor, 설정 클래스 일부)은 측정되지 않는다
+ */
+@Slf4j
+public class StartupTimeline implements InstantiationAwareBeanPostProcessor, ApplicationListener<ApplicationReadyEvent> {
+
+    private final int top;
+    private final ThreadLocal<Deque<Frame>> creating = ThreadLocal.withInitial(ArrayDeque::new);
+    private final ConcurrentLinkedQueue<BeanTiming> timings = new ConcurrentLinkedQueue<>();
+    private volatile boolean reported;
+
+    public StartupTimeline(int top) {
+        this.top = top;
+    }
+
+    @Override
+    public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) throws BeansException {
+        if (!reported) {
+            creating.get().push(new Frame(beanName, System.nanoTime()));
+        }
+        return null;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        Deque<Frame> stack = creating.get();
+        Frame frame = stack.peek();
+        if (frame == null || !frame.beanName.equals(beanName)) {
+            // 내부 Bean이나 FactoryBean이 만든 객체처럼 before 없이 after만 오는 경우
+            return bean;
+        }
+        stack.pop();
+        long total = System.nanoTime() - frame.start;
+        Frame parent = stack.peek();
+        if (parent != null) {
+            parent.children += total;
+        }
+        timings.add(new BeanTiming(beanName, bean.getClass().getName(), total, total - frame.children));
+        return bean;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (reported) {
+            return;
+        }
+        reported = true;
+        creating.remove();
+
+        List<BeanTiming> sorted = new ArrayList<>(timings);
+        sorted.sort(Comparator.comparingLong((BeanTiming t) -> t.self).reversed());
+        long sum = 0;
+        for (BeanTiming t : sorted) {
+            sum += t.self;
+        }
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("startup timeline : %d beans created eagerly, %.1f ms in bean creation, ready %d ms after JVM start%n",
+                sorted.size(), sum / 1e6, System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime()));
+        report.append(String.format("%10s %10s  %s%n", "self(ms)", "total(ms)", "bean"));
+        for (int i = 0; i < Math.min(top, sorted.size()); i++) {
+            BeanTiming t = sorted.get(i);
+            report.append(String.format("%10.1f %10.1f  %s (%s)%n", t.self / 1e6, t.total / 1e6, t.beanName, t.type));
+        }
+        logger.info(report.toString());
+        timings.clear();
+    }
+
+    static final class Frame {
+        final String beanName;
+        final long start;
+        long children;
+
+        Frame(String beanName, long start) {
+            this.beanName = beanName;
+            this.start = start;
+        }
+    }
+
+    static final class BeanTiming {
+        final String beanName;
+        final String type;
+        final long total;
+        final long self;
+
+        BeanTiming(String beanName, String type, long total, long self) {
+            this.beanName = beanName;
+            this.type = type;
+            this.total = total;
+            this.self = self;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.terry.reactive.day04;
+
+import com.terry.reactive.executor.TaskPriority;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+
+/**
+ * @Async("Bean 이름")으로 지정할 수 있는 Executor Bean들을 등록한다
+ *
+ * 1. 등급별 Executor : 작업을 tp()에 넣기만 하고 넣을때의 등급(TaskPriority)만 바꾼다. @Async("interactiveTasks") 처럼 지정한다
+ * 2. Bulkhead : application.yml의 async.bulkheads 에 정의한 전용 Thread Pool. @Async("bulkhead.hello") 처럼 지정한다(BulkheadRegistrar 참조)
+ * 모두 TaskExecutor가 아닌 Executor 타입으로 등록하기 때문에 이름을 지정하지 않은 @Async는 지금처럼 tp()를 사용한다(NORMAL 등급)
+ */
+@Configuration
+public class TaskPriorityConfiguration {
+
+    public static final String INTERACTIVE = "interactiveTasks";
+    public static final String BACKGROUND = "backgroundTasks";
+    public static final String HELLO_BULKHEAD = "bulkhead.hello";
+
+    @Bean
+    static BulkheadRegistrar bulkheadRegistrar() {
+        return new BulkheadRegistrar();
+    }
+
+    @Bean(INTERACTIVE)
+    Executor interactiveTasks(ThreadPoolTaskExecutor tp) {
+        return TaskPriority.INTERACTIVE.executor(tp);
+    }
+
+    @Bean(BACKGROUND)
+    Executor backgroundTasks(ThreadPoolTaskExecutor tp) {
+        return TaskPriority.BACKGROUND.executor(tp);
+    }
+}
@@ -0,0 +1,28 @@
+package com.terry.reactive.day04;
+
+/**
+ * TickerService가 주기적으로 모든 접속자에게 보내는 데이터
+ */
+public class Tick {
+
+    private final long sequence;
+    private final long timestamp;
+
+    public Tick(long sequence, long timestamp) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "Tick(" + sequence + ")";
+    }
+}
@@ -0,0 +1,43 @@
+package com.terry.reactive.day04;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+/**
+ * TickerService의 공유 tick stream을 브라우저에 push 해주는 Controller
+ *
+ * 같은 /ticker 주소라도 Accept 헤더에 따라
+ * text/event-stream 이면 Server-Sent Events(브라우저의 EventSource로 받을 수 있다)로,
+ * application/stream+json 이면 한줄에 JSON 하나씩(NDJSON) 보낸다
+ */
+@RestController
+public class TickerController {
+
+    private final TickerService tickerService;
+
+    public TickerController(TickerService tickerService) {
+        this.tickerService = tickerService;
+    }
+
+    @GetMapping(value = "/ticker", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Tick>> sse() {
+        return tickerService.ticks()
+                .map(tick -> ServerSentEvent.builder(tick)
+                        .id(String.valueOf(tick.getSequence()))
+                        .event("tick")
+                        .build());
+    }
+
+    @GetMapping(value = "/ticker", produces = MediaType.APPLICATION_STREAM_JSON_VALUE)
+    public Flux<Tick> ndjson() {
+        return tickerService.ticks();
+    }
+
+    @GetMapping("/ticker/stats")
+    public TickerService.TickerStats stats() {
+        return tickerService.getStats();
+    }
+}
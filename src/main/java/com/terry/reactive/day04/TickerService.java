@@ -0,0 +1,102 @@
+package com.terry.reactive.day04;
+
+import com.terry.reactive.publisher.IntervalPublisher;
+import com.terry.reactive.support.OverflowStrategy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SchedulerTest의 FluxInterval 처럼 접속자마다 Flux.interval을 만들면 접속자 수만큼 Timer 작업이 생긴다
+ * 여기서는 IntervalPublisher 하나를 publish().refCount()로 모든 접속자가 같이 구독하게 해서 접속자가 몇명이든 tick은 한번만 만들어진다
+ * 접속자가 한명도 없으면 위쪽 구독을 끊어서 tick도 멈추는데, share()는 마지막 접속자가 나가는 즉시 끊기 때문에
+ * 접속자 한명이 새로고침(끊고 바로 다시 접속)할 때마다 IntervalPublisher를 다시 구독해서 sequence가 0부터 다시 시작한다
+ * 그래서 refCount(1, grace)로 마지막 접속자가 나간 뒤 grace 동안은 구독을 유지하고 그 안에 다시 접속하면 이어서 받는다
+ *
+ * publish()는 모든 구독자가 request 해야 다음 데이터를 보내기 때문에 느린 접속자가 한명만 있어도 전체가 멈출 수 있다
+ * 그래서 접속자마다 공유 stream 뒤에 고정 크기 buffer(onBackpressureBuffer)를 붙였다
+ * 이 buffer는 위에는 항상 Long.MAX_VALUE로 요청하기 때문에 공유 stream은 느린 접속자 때문에 멈추지 않고
+ * buffer가 넘치는 접속자(느린 접속자)는 오래된 tick부터 버려서 최신 tick 위주로 합쳐진다(DROP_OLDEST)
+ * 버려진 tick 수와 느린 접속자 수는 getStats 메소드로 확인할 수 있다
+ */
+@Component
+@Slf4j
+public class TickerService {
+
+    private final Flux<Tick> ticks;
+    private final int clientBufferSize;
+    private final AtomicInteger connectedClients = new AtomicInteger();
+    private final AtomicInteger slowClients = new AtomicInteger();
+    private final LongAdder droppedTicks = new LongAdder();
+
+    public TickerService(@Value("${ticker.period-millis:500}") long periodMillis,
+                         @Value("${ticker.client-buffer-size:16}") int clientBufferSize,
+                         @Value("${ticker.grace-millis:1000}") long graceMillis) {
+        this.clientBufferSize = clientBufferSize;
+        // 공유 stream 자체도 request가 없을때 tick을 쌓아두지 않도록 DROP 전략을 사용한다
+        this.ticks = Flux.from(new IntervalPublisher(periodMillis, TimeUnit.MILLISECONDS, OverflowStrategy.DROP))
+                .map(no -> new Tick(no, System.currentTimeMillis()))
+                .publish()
+                .refCount(1, Duration.ofMillis(graceMillis));
+    }
+
+    /**
+     * 접속자 한명이 구독할 stream을 만든다
+     */
+    public Flux<Tick> ticks() {
+        return Flux.defer(() -> {
+            AtomicBoolean slow = new AtomicBoolean();
+            return ticks
+                    .onBackpressureBuffer(clientBufferSize, dropped -> {
+                        droppedTicks.increment();
+                        if (slow.compareAndSet(false, true)) {
+                            slowClients.incrementAndGet();
+                            logger.warn("slow client detected, dropping oldest ticks");
+                        }
+                    }, BufferOverflowStrategy.DROP_OLDEST)
+                    .doOnSubscribe(s -> connectedClients.incrementAndGet())
+                    .doFinally(signal -> {
+                        connectedClients.decrementAndGet();
+                        if (slow.get()) {
+                            slowClients.decrementAndGet();
+                        }
+                    });
+        });
+    }
+
+    public TickerStats getStats() {
+        return new TickerStats(connectedClients.get(), slowClients.get(), droppedTicks.sum());
+    }
+
+    public static class TickerStats {
+        private final int connectedClients;
+        private final int slowClients;
+        private final long droppedTicks;
+
+        public TickerStats(int connectedClients, int slowClients, long droppedTicks) {
+            this.connectedClients = connectedClients;
+            this.slowClients = slowClients;
+            this.droppedTicks = droppedTicks;
+        }
+
+        public int getConnectedClients() {
+            return connectedClients;
+        }
+
+        public int getSlowClients() {
+            return slowClients;
+        }
+
+        public long getDroppedTicks() {
+            return droppedTicks;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.terry.reactive.dedup;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * key를 저장하지 않고 Bloom filter(bit 배열)에 흔적만 남겨서 기억한다
+ *
+ * key 마다 hash로 k개의 bit 위치를 정해서 1로 바꾸고, k개가 모두 1이면 이미 본 key로 판단한다
+ * 처음 보는 key도 우연히 k개가 모두 1일 수 있어서(false positive) 그 확률만큼 중복이 아닌 데이터를 버린다. 중복을 놓치는 경우는 없다
+ * expectedInsertions 개를 넣었을때 false positive 확률이 falsePositiveRate가 되도록
+ * bit 수 m = -n * ln(p) / (ln 2)^2, hash 수 k = m / n * ln 2 로 정한다(1%이면 key 하나에 약 9.6bit, hash 7개)
+ *
+ * Bloom filter는 지울 수 없어서 계속 넣으면 bit가 모두 1이 되어 모든 데이터를 버리게 된다
+ * 그래서 expectedInsertions 개를 넣을때마다 새 filter를 만들고 직전 filter 하나만 남겨서 두 filter에서 모두 확인한다(generation)
+ * 메모리는 filter 2개로 고정되고, 최근 expectedInsertions ~ 2 * expectedInsertions 개의 key를 기억하며 false positive 확률은 최대 약 2배가 된다
+ *
+ * hash 값 k개는 64bit hash 두개(h1, h2)로 h1 + i * h2 를 계산해서 만든다(Kirsch-Mitzenmacher). bit 수가 int 범위를 넘어도 고르게 퍼진다
+ */
+public final class BloomDedupPolicy<K> implements DedupPolicy<K> {
+
+    private final ToLongFunction<? super K> hasher;
+    private final long expectedInsertions;
+    private final long bits;
+    private final int hashes;
+    private long[] current;
+    private long[] previous;
+    private long inserted;
+    private long total;
+
+    public BloomDedupPolicy(long expectedInsertions, double falsePositiveRate, ToLongFunction<? super K> hasher) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions > 0 required but it was " + expectedInsertions);
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("0 < falsePositiveRate < 1 required but it was " + falsePositiveRate);
+        }
+        long m = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        // long[] 배열 하나로 만들 수 있는 크기로 제한한다
+        this.bits = Math.min(Math.max(64L, m), (long) Integer.MAX_VALUE * 64);
+        this.hashes = Math.max(1, (int) Math.round((double) bits / expectedInsertions * Math.log(2)));
+        this.expectedInsertions = expectedInsertions;
+        this.hasher = hasher;
+        this.current = newFilter();
+    }
+
+    @Override
+    public boolean add(K key) {
+        long h1 = mix(hasher.applyAsLong(key));
+        long h2 = mix(h1 + 0x9E3779B97F4A7C15L);
+        if (contains(current, h1, h2) || (previous != null && contains(previous, h1, h2))) {
+            return false;
+        }
+        for (int i = 1; i <= hashes; i++) {
+            long index = index(h1, h2, i);
+            current[(int) (index >>> 6)] |= 1L << index;
+        }
+        total++;
+        if (++inserted == expectedInsertions) {
+            previous = current;
+            current = newFilter();
+            inserted = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public long size() {
+        return total;
+    }
+
+    /**
+     * filter 하나의 bit 수
+     */
+    public long getBitCount() {
+        return bits;
+    }
+
+    public int getHashCount() {
+        return hashes;
+    }
+
+    private boolean contains(long[] filter, long h1, long h2) {
+        for (int i = 1; i <= hashes; i++) {
+            long index = index(h1, h2, i);
+            if ((filter[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long index(long h1, long h2, int i) {
+        return ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+    }
+
+    private long[] newFilter() {
+        return new long[(int) ((bits + 63) >>> 6)];
+    }
+
+    /**
+     * 연속된 ID(1, 2, 3 ...)도 고르게 퍼지도록 섞는다(SplitMix64의 마지막 단계)
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
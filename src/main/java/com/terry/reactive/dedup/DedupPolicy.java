@@ -0,0 +1,53 @@
+package com.terry.reactive.dedup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * distinct가 이미 본 key를 기억하는 방법
+ *
+ * HashSet에 모든 key를 넣으면 끝나지 않는 Stream에서는 메모리가 계속 늘어난다
+ * 그래서 무엇을 얼마나 기억할지를 골라서 메모리를 제한한다
+ * 1. untilChanged : 바로 앞의 key 하나만 기억한다(연속된 중복만 버린다. distinctUntilChanged)
+ * 2. lru : 최근에 본 maxSize 개의 key만 정확하게 기억한다
+ * 3. timeWindow : 처음 본 뒤 window 시간 동안만 정확하게 기억한다(at-least-once로 다시 오는 데이터는 보통 짧은 시간 안에 다시 온다)
+ * 4. bloom : key를 저장하지 않고 key의 64bit hash로 bit 배열에 흔적만 남긴다. 메모리가 아주 적지만 falsePositiveRate 확률로 처음 보는 key를 중복으로 판단해서 버린다
+ *
+ * 구독마다 하나씩 만들어서 사용하고 onNext 처럼 한번에 하나의 Thread에서만 호출해야 한다(Thread Safe 하지 않다)
+ */
+public interface DedupPolicy<K> {
+
+    /**
+     * key를 기억한다
+     * @return 처음 보는 key 이면 true, 이미 본 key(중복) 이면 false
+     */
+    boolean add(K key);
+
+    /**
+     * 지금 기억하고 있는 key 갯수(bloom은 넣은 갯수)
+     */
+    long size();
+
+    static <K> DedupPolicy<K> untilChanged() {
+        return new LastKeyDedupPolicy<>();
+    }
+
+    static <K> DedupPolicy<K> lru(int maxSize) {
+        return new LruDedupPolicy<>(maxSize);
+    }
+
+    static <K> DedupPolicy<K> timeWindow(long window, TimeUnit unit) {
+        return new TimeWindowDedupPolicy<>(window, unit, System::nanoTime);
+    }
+
+    /**
+     * hasher는 key마다 64bit hash를 만들어야 한다
+     * key.hashCode() 같은 32bit hash를 쓰면 hash 값이 약 43억개 뿐이라 key가 수억개를 넘으면 hashCode가 같은 서로 다른 key가 흔해지고
+     * 그런 key는 bit 수와 상관없이 항상 중복으로 판단되어 falsePositiveRate 보다 훨씬 많이 버려지기 때문에 hashCode로 만드는 방법은 두지 않았다
+     *
+     * @param hasher key의 64bit hash(long ID는 그 값 그대로 주면 된다. 안에서 다시 섞는다)
+     */
+    static <K> DedupPolicy<K> bloom(long expectedInsertions, double falsePositiveRate, ToLongFunction<? super K> hasher) {
+        return new BloomDedupPolicy<>(expectedInsertions, falsePositiveRate, hasher);
+    }
+}
@@ -0,0 +1,27 @@
+package com.terry.reactive.dedup;
+
+import java.util.Objects;
+
+/**
+ * 바로 앞의 key 하나만 기억한다(distinctUntilChanged). 연속으로 같은 key가 오는 것만 중복으로 판단한다
+ */
+public final class LastKeyDedupPolicy<K> implements DedupPolicy<K> {
+
+    private boolean first = true;
+    private K last;
+
+    @Override
+    public boolean add(K key) {
+        if (!first && Objects.equals(last, key)) {
+            return false;
+        }
+        first = false;
+        last = key;
+        return true;
+    }
+
+    @Override
+    public long size() {
+        return first ? 0 : 1;
+    }
+}
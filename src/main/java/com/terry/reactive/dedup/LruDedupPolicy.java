@@ -0,0 +1,39 @@
+package com.terry.reactive.dedup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 최근에 본 maxSize 개의 key만 기억한다. 넘치면 가장 오래전에 본 key부터 잊는다
+ *
+ * LinkedHashMap을 접근 순서(accessOrder)로 만들면 get, put 할때마다 그 항목이 맨 뒤로 가기 때문에 맨 앞이 가장 오래전에 본 key가 된다
+ * 중복으로 다시 온 key도 다시 본 것이므로 맨 뒤로 보낸다(자주 오는 key는 잊지 않는다)
+ */
+public final class LruDedupPolicy<K> implements DedupPolicy<K> {
+
+    private final LinkedHashMap<K, Boolean> seen;
+
+    public LruDedupPolicy(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize > 0 required but it was " + maxSize);
+        }
+        this.seen = new LinkedHashMap<K, Boolean>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Boolean> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    @Override
+    public boolean add(K key) {
+        return seen.put(key, Boolean.TRUE) == null;
+    }
+
+    @Override
+    public long size() {
+        return seen.size();
+    }
+}
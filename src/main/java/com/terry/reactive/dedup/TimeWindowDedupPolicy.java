@@ -0,0 +1,50 @@
+package com.terry.reactive.dedup;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * key를 처음 본 뒤 window 시간 동안만 기억한다
+ *
+ * LinkedHashMap에 (key, 처음 본 시각)을 넣은 순서대로 두고, add 할때마다 앞에서부터 window가 지난 항목을 지운다
+ * 중복으로 다시 와도 시각을 바꾸지 않기 때문에 넣은 순서가 곧 시각 순서이고 지울 항목을 찾을때 앞쪽만 보면 된다
+ * 그래서 기억하는 key는 window 시간 동안 들어온 key 갯수를 넘지 않는다
+ */
+public final class TimeWindowDedupPolicy<K> implements DedupPolicy<K> {
+
+    private final long windowNanos;
+    private final LongSupplier clock;
+    private final LinkedHashMap<K, Long> seen = new LinkedHashMap<>();
+
+    /**
+     * @param clock nano 단위 시각(테스트에서 시간을 직접 움직일때 사용한다)
+     */
+    public TimeWindowDedupPolicy(long window, TimeUnit unit, LongSupplier clock) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("window > 0 required but it was " + window);
+        }
+        this.windowNanos = unit.toNanos(window);
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean add(K key) {
+        long now = clock.getAsLong();
+        Iterator<Map.Entry<K, Long>> it = seen.entrySet().iterator();
+        while (it.hasNext()) {
+            if (now - it.next().getValue() < windowNanos) {
+                break;
+            }
+            it.remove();
+        }
+        return seen.putIfAbsent(key, now) == null;
+    }
+
+    @Override
+    public long size() {
+        return seen.size();
+    }
+}
@@ -0,0 +1,257 @@
+package com.terry.reactive.executor;
+
+import com.terry.reactive.scheduler.SharedTimer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 작업을 batchSize 개씩 모아서 하나의 작업으로 delegate(tp() 같은 Thread Pool)에 넘기는 Executor
+ *
+ * tp()의 ThreadPoolExecutor는 작업 하나마다 LinkedBlockingQueue에 Node를 하나 만들어 넣고, 넣고 꺼낼때마다 Queue의 Lock을 잡는다
+ * 아주 짧은 @Async 호출이 초당 수십만번 들어오면 실제 작업보다 이 Queue의 Lock 경합과 객체 생성에 시간이 더 걸린다
+ * 여기서는 작업을 Lock 없는 배열(Batch)에 모아두었다가 Batch 하나를 delegate에 한번만 넘기기 때문에
+ * delegate의 Queue에는 작업 batchSize 개당 1번만 들어간다
+ *
+ * 작업을 넣을때는 Batch의 index를 getAndIncrement로 하나 받아서 그 칸에 넣는다(Thread마다 다른 칸을 받기 때문에 Lock이 필요 없다)
+ * 마지막 칸을 받은 Thread가 Batch를 delegate에 넘기고, 칸이 다 찬 뒤에 온 Thread는 새 Batch로 바꿔서 다시 시도한다
+ * 호출이 뜸해서 Batch가 다 차지 않으면 작업이 계속 기다리게 되므로 SharedTimer가 maxDelay 마다 현재 Batch를 닫고 넘긴다
+ * 그래서 작업이 delegate에 넘어가기까지 최대 maxDelay 만큼 늦어질 수 있다
+ *
+ * 칸을 받은 Thread가 작업을 넣기 전에 Batch가 넘어갈 수 있기 때문에 Batch를 실행하는 쪽은 칸이 채워질때까지 잠깐(최대 SLOT_WAIT) 기다린다
+ * 그래도 채워지지 않으면 그 칸을 SKIPPED로 막아두고 넘어가고, 늦게 온 Thread는 칸을 채우지 못했으므로 새 Batch에 다시 넣는다
+ *
+ * delegate가 Batch를 거절하면(Queue가 꽉 찬 경우) 작업을 넣던 Thread가 Batch를 닫았으면 그 Thread에서 바로 실행한다(CallerRunsPolicy와 같다)
+ * Timer가 닫은 Batch는 Timer Thread에서 실행하면 안 되기 때문에(SharedTimer를 쓰는 다른 작업이 모두 늦어진다) rejected에 넣어두고
+ * 다음에 작업을 넣는 Thread가 먼저 실행하거나 다음 Timer 때 delegate에 다시 넘긴다
+ * 작업 하나하나의 결과(CompletableFuture 등)는 작업 안에서 완료되기 때문에 호출한 쪽은 지금처럼 자기 작업의 결과만 받는다
+ */
+@Slf4j
+public class BatchingExecutor implements Executor {
+
+    private final Executor delegate;
+    private final int batchSize;
+    private final AtomicReference<Batch> current;
+    private final ScheduledFuture<?> flusher;
+    // Timer에서 넘기다가 delegate가 거절한 Batch
+    private final ConcurrentLinkedDeque<Batch> rejected = new ConcurrentLinkedDeque<>();
+    private final LongAdder tasks = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder timedFlushes = new LongAdder();
+    private volatile boolean shutdown;
+
+    public BatchingExecutor(Executor delegate, int batchSize, long maxDelay, TimeUnit unit) {
+        this(delegate, batchSize, maxDelay, unit, SharedTimer.get());
+    }
+
+    public BatchingExecutor(Executor delegate, int batchSize, long maxDelay, TimeUnit unit, ScheduledExecutorService timer) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize > 0 required but it was " + batchSize);
+        }
+        if (maxDelay <= 0) {
+            throw new IllegalArgumentException("maxDelay > 0 required but it was " + maxDelay);
+        }
+        this.delegate = delegate;
+        this.batchSize = batchSize;
+        this.current = new AtomicReference<>(new Batch(batchSize));
+        this.flusher = timer.scheduleAtFixedRate(() -> flush(false), maxDelay, maxDelay, unit);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException("task");
+        }
+        if (shutdown) {
+            throw new RejectedExecutionException("BatchingExecutor has been shut down");
+        }
+        if (!rejected.isEmpty()) {
+            runRejected();
+        }
+        tasks.increment();
+        for (;;) {
+            Batch batch = current.get();
+            int index = batch.index.getAndIncrement();
+            if (index < batchSize) {
+                if (!batch.tasks.compareAndSet(index, null, task)) {
+                    // 너무 늦게 와서 Batch를 실행하는 쪽이 이 칸을 건너뛰었다. 새 Batch에 다시 넣는다
+                    continue;
+                }
+                if (index == batchSize - 1) {
+                    // 마지막 칸을 받은 Thread가 Batch를 닫는다
+                    current.compareAndSet(batch, new Batch(batchSize));
+                    dispatch(batch, batchSize, true);
+                }
+                return;
+            }
+            // 이미 닫힌 Batch. 새 Batch로 바꾸고 다시 시도한다
+            current.compareAndSet(batch, new Batch(batchSize));
+        }
+    }
+
+    /**
+     * 지금까지 모인 작업을 Batch가 다 차지 않았어도 delegate에 넘긴다
+     * delegate가 거절하면 호출한 Thread에서 실행한다
+     */
+    public void flush() {
+        runRejected();
+        flush(true);
+    }
+
+    /**
+     * SharedTimer에서 maxDelay 마다 호출될때는 callerRuns가 false 이다
+     */
+    private void flush(boolean callerRuns) {
+        if (!callerRuns) {
+            retryRejected();
+        }
+        Batch batch = current.get();
+        if (batch.index.get() == 0) {
+            return;
+        }
+        // index를 batchSize 로 바꿔서 닫는다. 바꾸기 전 값이 batchSize 이상이면 다른 Thread가 이미 닫은 것이다
+        int claimed = batch.index.getAndSet(batchSize);
+        if (claimed >= batchSize) {
+            return;
+        }
+        current.compareAndSet(batch, new Batch(batchSize));
+        if (claimed > 0) {
+            timedFlushes.increment();
+            dispatch(batch, claimed, callerRuns);
+        }
+    }
+
+    private void dispatch(Batch batch, int count, boolean callerRuns) {
+        batches.increment();
+        batch.count = count;
+        try {
+            delegate.execute(batch);
+        } catch (RejectedExecutionException e) {
+            if (callerRuns) {
+                logger.warn("delegate rejected a batch of {} tasks, running in caller thread", count);
+                batch.run();
+            } else {
+                logger.warn("delegate rejected a batch of {} tasks, deferring it", count);
+                rejected.offer(batch);
+            }
+        }
+    }
+
+    /**
+     * Timer Thread에서 거절된 Batch를 delegate에 다시 넘긴다. 또 거절되면 다음 Timer 때까지 그대로 둔다
+     */
+    private void retryRejected() {
+        Batch batch;
+        while ((batch = rejected.poll()) != null) {
+            try {
+                delegate.execute(batch);
+            } catch (RejectedExecutionException e) {
+                rejected.offerFirst(batch);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 거절된 Batch를 호출한 Thread에서 실행한다
+     */
+    private void runRejected() {
+        Batch batch;
+        while ((batch = rejected.poll()) != null) {
+            batch.run();
+        }
+    }
+
+    public long getTaskCount() {
+        return tasks.sum();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    /**
+     * Batch가 다 차기 전에 maxDelay가 지나서 넘긴 횟수
+     */
+    public long getTimedFlushCount() {
+        return timedFlushes.sum();
+    }
+
+    /**
+     * 남은 작업을 넘기고 Timer를 멈춘다. 이후에 들어오는 작업은 거절한다
+     */
+    public void shutdown() {
+        shutdown = true;
+        flusher.cancel(false);
+        flush();
+    }
+
+    static final class Batch implements Runnable {
+
+        // 칸이 채워지기를 기다리는 최대 시간. 칸을 받은 Thread는 바로 작업을 넣기 때문에 그 Thread가 선점되었을 때만 기다린다
+        static final long SLOT_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+        static final int SLOT_SPINS = 64;
+        static final Runnable SKIPPED = () -> { };
+
+        final AtomicInteger index = new AtomicInteger();
+        final AtomicReferenceArray<Runnable> tasks;
+        // dispatch 에서 delegate.execute 전에 쓰고 run 에서 읽는다(execute가 happens-before를 보장한다)
+        int count;
+
+        Batch(int size) {
+            this.tasks = new AtomicReferenceArray<>(size);
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < count; i++) {
+                Runnable task = tasks.get(i);
+                if (task == null) {
+                    task = awaitSlot(i);
+                }
+                if (task == SKIPPED) {
+                    continue;
+                }
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    logger.error("Batched task failed", t);
+                }
+            }
+        }
+
+        /**
+         * 칸을 받은 Thread가 아직 작업을 넣지 못했다. 조금 기다리고 SLOT_WAIT가 지나면 칸을 SKIPPED로 막는다
+         */
+        private Runnable awaitSlot(int i) {
+            long deadline = 0L;
+            for (int spins = 0; ; spins++) {
+                Runnable task = tasks.get(i);
+                if (task != null) {
+                    return task;
+                }
+                if (spins < SLOT_SPINS) {
+                    Thread.yield();
+                    continue;
+                }
+                long now = System.nanoTime();
+                if (deadline == 0L) {
+                    deadline = now + SLOT_WAIT_NANOS;
+                } else if (now - deadline >= 0 && tasks.compareAndSet(i, null, SKIPPED)) {
+                    return SKIPPED;
+                }
+                LockSupport.parkNanos(10_000L);
+            }
+        }
+    }
+}
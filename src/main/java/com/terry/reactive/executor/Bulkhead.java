@@ -0,0 +1,84 @@
+package com.terry.reactive.executor;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * 하나의 메소드(또는 같은 외부 시스템을 호출하는 메소드 묶음)만 사용하는 전용 Thread Pool
+ *
+ * 모든 @Async 메소드가 tp() 하나를 같이 쓰면 느려진 메소드 하나가 Thread와 대기열을 다 차지해서 다른 메소드까지 실행되지 못한다
+ * 메소드마다 Bulkhead를 따로 두면 느려진 메소드는 자기 Bulkhead만 다 쓰고 거절(RejectedExecutionException)되고 다른 Bulkhead는 영향을 받지 않는다
+ * (배의 격벽(bulkhead)처럼 한 칸에 물이 차도 다른 칸으로 넘어가지 않게 막는다)
+ *
+ * 대기열이 꽉 차면 기다리지 않고 바로 거절하기 때문에 호출한 쪽은 빨리 실패를 알 수 있다
+ * decorator는 작업을 넣을때 한번 감싸는 함수이다(MDC 전달 등)
+ */
+@Slf4j
+public class Bulkhead implements Executor {
+
+    private final String name;
+    private final int queueCapacity;
+    private final ThreadPoolExecutor pool;
+    private final UnaryOperator<Runnable> decorator;
+    private final LongAdder rejected = new LongAdder();
+
+    public Bulkhead(String name, int coreSize, int maxSize, int queueCapacity) {
+        this(name, coreSize, maxSize, queueCapacity, UnaryOperator.identity());
+    }
+
+    public Bulkhead(String name, int coreSize, int maxSize, int queueCapacity, UnaryOperator<Runnable> decorator) {
+        if (coreSize < 0 || maxSize <= 0 || coreSize > maxSize) {
+            throw new IllegalArgumentException("0 <= coreSize <= maxSize, maxSize > 0 required but it was coreSize=" + coreSize + ", maxSize=" + maxSize);
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("queueCapacity >= 0 required but it was " + queueCapacity);
+        }
+        this.name = name;
+        this.queueCapacity = queueCapacity;
+        this.decorator = decorator;
+        // 대기열 크기가 0 이면 대기 없이 Thread가 없을때 바로 거절한다
+        BlockingQueue<Runnable> queue = queueCapacity == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(queueCapacity);
+        this.pool = new ThreadPoolExecutor(coreSize, maxSize, 60, TimeUnit.SECONDS, queue, threadFactory(name), (r, executor) -> {
+            rejected.increment();
+            throw new RejectedExecutionException("Bulkhead '" + name + "' is full (maxSize=" + maxSize + ", queueCapacity=" + queueCapacity + ")");
+        });
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> new Thread(r, "bulkhead-" + name + "-" + count.incrementAndGet());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        pool.execute(decorator.apply(task));
+    }
+
+    public BulkheadStats getStats() {
+        return new BulkheadStats(name, pool.getPoolSize(), pool.getActiveCount(), pool.getMaximumPoolSize(),
+                pool.getQueue().size(), queueCapacity, pool.getCompletedTaskCount(), rejected.sum());
+    }
+
+    /**
+     * 새 작업은 받지 않고 이미 받은 작업은 끝까지 실행한다
+     */
+    public void shutdown() {
+        logger.info("shutting down {}", getStats());
+        pool.shutdown();
+    }
+}
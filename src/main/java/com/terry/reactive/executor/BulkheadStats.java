@@ -0,0 +1,75 @@
+package com.terry.reactive.executor;
+
+/**
+ * Bulkhead 하나의 통계
+ * poolSize / activeCount / maxPoolSize : 지금 Thread 수 / 작업을 실행중인 Thread 수 / 최대 Thread 수
+ * queueDepth / queueCapacity : 대기중인 작업 수 / 대기열 크기
+ * completed : 실행을 마친 작업 수
+ * rejected : Thread와 대기열이 모두 차서 거절한 작업 수
+ * saturation : (실행중 + 대기중) / (최대 Thread 수 + 대기열 크기). 1.0 이면 다음 작업부터 거절된다
+ */
+public class BulkheadStats {
+
+    private final String name;
+    private final int poolSize;
+    private final int activeCount;
+    private final int maxPoolSize;
+    private final int queueDepth;
+    private final int queueCapacity;
+    private final long completed;
+    private final long rejected;
+
+    public BulkheadStats(String name, int poolSize, int activeCount, int maxPoolSize, int queueDepth, int queueCapacity, long completed, long rejected) {
+        this.name = name;
+        this.poolSize = poolSize;
+        this.activeCount = activeCount;
+        this.maxPoolSize = maxPoolSize;
+        this.queueDepth = queueDepth;
+        this.queueCapacity = queueCapacity;
+        this.completed = completed;
+        this.rejected = rejected;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public double getSaturation() {
+        return (double) (activeCount + queueDepth) / (maxPoolSize + queueCapacity);
+    }
+
+    @Override
+    public String toString() {
+        return "BulkheadStats(name=" + name + ", poolSize=" + poolSize + ", activeCount=" + activeCount + ", maxPoolSize=" + maxPoolSize
+                + ", queueDepth=" + queueDepth + ", queueCapacity=" + queueCapacity + ", completed=" + completed
+                + ", rejected=" + rejected + ", saturation=" + String.format("%.2f", getSaturation()) + ")";
+    }
+}
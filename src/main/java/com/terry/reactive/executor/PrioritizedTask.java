@@ -0,0 +1,38 @@
+package com.terry.reactive.executor;
+
+/**
+ * 등급(TaskPriority)이 붙은 작업. PriorityTaskQueue는 이 등급을 보고 어느 대기열에 넣을지 정한다
+ */
+public final class PrioritizedTask implements Runnable {
+
+    private final Runnable task;
+    private final TaskPriority priority;
+
+    public PrioritizedTask(Runnable task, TaskPriority priority) {
+        this.task = task;
+        this.priority = priority;
+    }
+
+    /**
+     * 지금 Thread에 정해진 등급(TaskPriority.current())을 task에 붙인다. TaskDecorator에서 사용한다
+     */
+    public static Runnable wrap(Runnable task) {
+        if (task instanceof PrioritizedTask) {
+            return task;
+        }
+        return new PrioritizedTask(task, TaskPriority.current());
+    }
+
+    public static TaskPriority priorityOf(Runnable task) {
+        return task instanceof PrioritizedTask ? ((PrioritizedTask) task).priority : TaskPriority.NORMAL;
+    }
+
+    public TaskPriority getPriority() {
+        return priority;
+    }
+
+    @Override
+    public void run() {
+        task.run();
+    }
+}
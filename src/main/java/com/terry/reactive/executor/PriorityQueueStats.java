@@ -0,0 +1,65 @@
+package com.terry.reactive.executor;
+
+/**
+ * PriorityTaskQueue의 등급(TaskPriority) 하나에 대한 통계
+ * depth : 지금 대기중인 작업 수
+ * enqueued : 대기열에 넣은 작업 수
+ * dequeued : 대기열에서 꺼내 실행한 작업 수
+ * promoted : 더 높은 등급이 남아 있었지만 maxWait 보다 오래 기다려서 먼저 꺼낸 작업 수
+ * rejected : 대기열이 꽉 차서 넣지 못한 작업 수
+ * oldestWaitMillis : 지금 대기중인 작업 중 가장 오래 기다린 시간
+ */
+public class PriorityQueueStats {
+
+    private final TaskPriority priority;
+    private final int depth;
+    private final long enqueued;
+    private final long dequeued;
+    private final long promoted;
+    private final long rejected;
+    private final long oldestWaitMillis;
+
+    public PriorityQueueStats(TaskPriority priority, int depth, long enqueued, long dequeued, long promoted, long rejected, long oldestWaitMillis) {
+        this.priority = priority;
+        this.depth = depth;
+        this.enqueued = enqueued;
+        this.dequeued = dequeued;
+        this.promoted = promoted;
+        this.rejected = rejected;
+        this.oldestWaitMillis = oldestWaitMillis;
+    }
+
+    public TaskPriority getPriority() {
+        return priority;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getEnqueued() {
+        return enqueued;
+    }
+
+    public long getDequeued() {
+        return dequeued;
+    }
+
+    public long getPromoted() {
+        return promoted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getOldestWaitMillis() {
+        return oldestWaitMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "PriorityQueueStats(priority=" + priority + ", depth=" + depth + ", enqueued=" + enqueued + ", dequeued=" + dequeued
+                + ", promoted=" + promoted + ", rejected=" + rejected + ", oldestWaitMillis=" + oldestWaitMillis + ")";
+    }
+}
@@ -0,0 +1,319 @@
+package com.terry.reactive.executor;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ThreadPoolExecutor의 대기열로 사용하는 등급별 BlockingQueue
+ *
+ * tp()의 LinkedBlockingQueue는 하나의 FIFO 대기열이라 오래 걸리는 hello() 호출이 잔뜩 쌓이면 그 뒤에 들어온 급한 작업도 모두 기다려야 한다
+ * 여기서는 TaskPriority 마다 대기열(Lane)을 따로 두고 꺼낼때는 항상 높은 등급의 대기열부터 꺼낸다
+ * 그래서 INTERACTIVE 작업은 BACKGROUND 작업이 아무리 많이 쌓여 있어도 그 앞으로 끼어든다
+ *
+ * 높은 등급만 계속 꺼내면 낮은 등급은 영원히 실행되지 않을 수 있기 때문에(starvation)
+ * 낮은 등급 대기열의 맨 앞 작업이 maxWait 보다 오래 기다렸고 가장 높은 등급의 맨 앞 작업보다도 먼저 들어왔으면 그 작업을 먼저 꺼낸다(promoted)
+ * 다만 이렇게 끼워주는 것은 PROMOTION_INTERVAL 번 꺼낼때 최대 1번뿐이다
+ * BACKGROUND 작업이 계속 쌓여 있으면 맨 앞 작업은 항상 maxWait 보다 오래 기다린 상태라서, 횟수 제한이 없으면
+ * 쌓여 있는 BACKGROUND 작업을 모두 꺼낼때까지 INTERACTIVE 작업이 기다리게 된다(우선순위가 거꾸로 된다)
+ * 그래서 높은 등급은 적어도 (PROMOTION_INTERVAL - 1) / PROMOTION_INTERVAL 만큼의 차례를 항상 받고, 낮은 등급도 나머지 차례는 받기 때문에 굶지 않는다
+ *
+ * 대기열의 크기는 등급마다 capacityPerClass 이다. BACKGROUND 작업이 대기열을 다 채워도 INTERACTIVE 작업은 들어갈 수 있다
+ * 대기열이 꽉 차면 offer가 false를 돌려주고 ThreadPoolExecutor는 max pool size 까지 Thread를 늘리거나 작업을 거절한다(지금과 같다)
+ * 모든 메소드는 하나의 ReentrantLock으로 동기화한다(LinkedBlockingQueue와 같은 방식이다)
+ */
+public class PriorityTaskQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
+
+    private static final TaskPriority[] PRIORITIES = TaskPriority.values();
+
+    // 이만큼 꺼낼때 최대 1번만 오래 기다린 낮은 등급 작업을 끼워준다
+    static final int PROMOTION_INTERVAL = 4;
+
+    private final int capacityPerClass;
+    private final long maxWaitNanos;
+    private final Lane[] lanes = new Lane[PRIORITIES.length];
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private int count;
+    // 오래 기다린 낮은 등급 작업이 있는데도 높은 등급 작업을 꺼낸 횟수
+    private int passedOver;
+
+    public PriorityTaskQueue(int capacityPerClass, long maxWait, TimeUnit unit) {
+        if (capacityPerClass <= 0) {
+            throw new IllegalArgumentException("capacityPerClass > 0 required but it was " + capacityPerClass);
+        }
+        this.capacityPerClass = capacityPerClass;
+        this.maxWaitNanos = unit.toNanos(maxWait);
+        for (TaskPriority priority : PRIORITIES) {
+            lanes[priority.ordinal()] = new Lane(priority);
+        }
+    }
+
+    /**
+     * 등급별 대기열 통계
+     */
+    public Map<TaskPriority, PriorityQueueStats> getStats() {
+        Map<TaskPriority, PriorityQueueStats> stats = new EnumMap<>(TaskPriority.class);
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            for (Lane lane : lanes) {
+                Entry head = lane.entries.peekFirst();
+                long oldestWaitMillis = head == null ? 0L : TimeUnit.NANOSECONDS.toMillis(now - head.enqueuedAt);
+                stats.put(lane.priority, new PriorityQueueStats(lane.priority, lane.entries.size(), lane.enqueued, lane.dequeued,
+                        lane.promoted, lane.rejected, oldestWaitMillis));
+            }
+        } finally {
+            lock.unlock();
+        }
+        return stats;
+    }
+
+    @Override
+    public boolean offer(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException("task");
+        }
+        Lane lane = lanes[PrioritizedTask.priorityOf(task).ordinal()];
+        lock.lock();
+        try {
+            if (lane.entries.size() >= capacityPerClass) {
+                lane.rejected++;
+                return false;
+            }
+            lane.entries.offerLast(new Entry(task, System.nanoTime()));
+            lane.enqueued++;
+            count++;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(Runnable task) throws InterruptedException {
+        // ThreadPoolExecutor는 put을 사용하지 않는다. 꽉 찼으면 자리가 날때까지 짧게 기다렸다가 다시 시도한다
+        while (!offer(task)) {
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+    }
+
+    @Override
+    public boolean offer(Runnable task, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!offer(task)) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        return true;
+    }
+
+    @Override
+    public Runnable poll() {
+        lock.lock();
+        try {
+            return count == 0 ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Runnable poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0L) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * lock을 잡은 상태에서 count > 0 일때만 호출한다
+     * 가장 높은 등급의 작업을 꺼내는데, 그보다 낮은 등급에서 maxWait 보다 오래 기다렸고 가장 높은 등급의 맨 앞 작업보다 먼저 들어온 작업이 있으면
+     * 그런 작업을 두고 높은 등급을 PROMOTION_INTERVAL - 1 번 꺼낸 뒤에만 그 중 가장 오래 기다린 작업을 먼저 꺼낸다
+     */
+    private Runnable dequeue() {
+        Lane first = null;
+        Lane starved = null;
+        long now = System.nanoTime();
+        for (Lane lane : lanes) {
+            Entry head = lane.entries.peekFirst();
+            if (head == null) {
+                continue;
+            }
+            if (first == null) {
+                first = lane;
+            } else if (now - head.enqueuedAt >= maxWaitNanos
+                    && head.enqueuedAt - first.entries.peekFirst().enqueuedAt < 0
+                    && (starved == null || head.enqueuedAt < starved.entries.peekFirst().enqueuedAt)) {
+                starved = lane;
+            }
+        }
+        Lane lane = first;
+        if (starved == null) {
+            passedOver = 0;
+        } else if (passedOver >= PROMOTION_INTERVAL - 1) {
+            starved.promoted++;
+            lane = starved;
+            passedOver = 0;
+        } else {
+            passedOver++;
+        }
+        lane.dequeued++;
+        count--;
+        return lane.entries.pollFirst().task;
+    }
+
+    @Override
+    public Runnable peek() {
+        lock.lock();
+        try {
+            for (Lane lane : lanes) {
+                Entry head = lane.entries.peekFirst();
+                if (head != null) {
+                    return head.task;
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        lock.lock();
+        try {
+            for (Lane lane : lanes) {
+                Iterator<Entry> it = lane.entries.iterator();
+                while (it.hasNext()) {
+                    if (it.next().task.equals(o)) {
+                        it.remove();
+                        count--;
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        lock.lock();
+        try {
+            return capacityPerClass * lanes.length - count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Runnable> c, int maxElements) {
+        lock.lock();
+        try {
+            int n = 0;
+            while (n < maxElements && count > 0) {
+                c.add(dequeue());
+                n++;
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 지금 들어있는 작업의 복사본을 돌려준다(ThreadPoolExecutor.purge 등에서 사용한다). 여기서 지워도 대기열에는 반영되지 않는다
+     */
+    @Override
+    public Iterator<Runnable> iterator() {
+        List<Runnable> snapshot = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Lane lane : lanes) {
+                for (Entry entry : lane.entries) {
+                    snapshot.add(entry.task);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return snapshot.iterator();
+    }
+
+    static final class Lane {
+
+        final TaskPriority priority;
+        final ArrayDeque<Entry> entries = new ArrayDeque<>();
+        long enqueued;
+        long dequeued;
+        long promoted;
+        long rejected;
+
+        Lane(TaskPriority priority) {
+            this.priority = priority;
+        }
+    }
+
+    static final class Entry {
+
+        final Runnable task;
+        final long enqueuedAt;
+
+        Entry(Runnable task, long enqueuedAt) {
+            this.task = task;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.terry.reactive.executor;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+/**
+ * Thread Pool에 넣는 작업의 우선순위 등급. 선언한 순서(INTERACTIVE -> NORMAL -> BACKGROUND)가 높은 순서이다
+ *
+ * 작업을 넣는 Thread에 ThreadLocal로 지금 등급을 정해두면 PrioritizedTask.wrap 이 작업을 넣는 순간의 등급을 작업에 붙인다
+ * 호출하는 쪽에서는 TaskPriority.INTERACTIVE.call(() -> myService.completableFuture()) 처럼 감싸서 호출하고
+ * @Async 메소드 쪽에서는 executor(tp)로 만든 Executor Bean 이름을 @Async("interactiveTasks") 처럼 지정한다
+ * 아무것도 정하지 않은 작업은 NORMAL 이다
+ */
+public enum TaskPriority {
+
+    /**
+     * 사용자가 응답을 기다리는 요청. 다른 등급의 작업이 쌓여 있어도 먼저 실행된다
+     */
+    INTERACTIVE,
+    /**
+     * 등급을 정하지 않은 작업
+     */
+    NORMAL,
+    /**
+     * 늦게 실행되어도 되는 batch 작업. 위의 등급이 비어있거나 너무 오래 기다렸을때 실행된다
+     */
+    BACKGROUND;
+
+    private static final ThreadLocal<TaskPriority> CURRENT = new ThreadLocal<>();
+
+    /**
+     * 지금 Thread에 정해진 등급. 정해지지 않았으면 NORMAL
+     */
+    public static TaskPriority current() {
+        TaskPriority priority = CURRENT.get();
+        return priority == null ? NORMAL : priority;
+    }
+
+    /**
+     * 이 등급으로 action을 실행한다. action 안에서 Thread Pool에 넣은 작업은 이 등급이 된다
+     */
+    public <T> T call(Callable<T> action) throws Exception {
+        TaskPriority previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return action.call();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    public void run(Runnable action) {
+        TaskPriority previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            action.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * delegate에 넣는 작업이 모두 이 등급이 되는 Executor. @Async("Bean 이름")으로 메소드마다 등급을 정할때 사용한다
+     */
+    public Executor executor(Executor delegate) {
+        return task -> run(() -> delegate.execute(task));
+    }
+
+    private static void restore(TaskPriority previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
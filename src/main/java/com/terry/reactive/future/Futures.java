@@ -0,0 +1,172 @@
+package com.terry.reactive.future;
+
+import com.terry.reactive.circuit.CircuitBreaker;
+import com.terry.reactive.retry.RetryPolicy;
+import com.terry.reactive.scheduler.SharedTimer;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * CompletableFuture에 사용하는 유틸리티 메소드 모음
+ *
+ * Java 9의 CompletableFuture.orTimeout, completeOnTimeout과 같은 기능을 Java 8에서 사용할 수 있게 만든 것이다
+ * FutureTest에서 본 것처럼 Future.get(timeout)으로 기다리면 기다리는 Thread가 그동안 막히는데
+ * 여기서는 SharedTimer에 작업을 하나 등록해두고 시간이 지나면 결과 Future를 실패(또는 fallback 값)로 완료시키기 때문에 막히는 Thread가 없다
+ */
+public final class Futures {
+
+    private Futures() {
+    }
+
+    /**
+     * timeout 안에 source가 끝나지 않으면 TimeoutException으로 실패하는 Future를 돌려준다
+     * 이때 source도 cancel 한다(작업을 실행중인 Thread를 멈출 수 있는지는 source를 만든 쪽에 달려 있다)
+     */
+    public static <T> CompletableFuture<T> timeout(CompletableFuture<T> source, long timeout, TimeUnit unit) {
+        return timeout(source, timeout, unit, null, SharedTimer.get());
+    }
+
+    /**
+     * timeout 안에 source가 끝나지 않으면 fallback이 만든 값으로 완료되는 Future를 돌려준다
+     */
+    public static <T> CompletableFuture<T> timeout(CompletableFuture<T> source, long timeout, TimeUnit unit, Supplier<? extends T> fallback) {
+        return timeout(source, timeout, unit, fallback, SharedTimer.get());
+    }
+
+    /**
+     * @param fallback null 이면 TimeoutException으로 실패시킨다
+     */
+    public static <T> CompletableFuture<T> timeout(CompletableFuture<T> source, long timeout, TimeUnit unit,
+                                                   Supplier<? extends T> fallback, ScheduledExecutorService timer) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (source.isDone()) {
+            relay(source, result);
+            return result;
+        }
+        ScheduledFuture<?> task = timer.schedule(() -> {
+            boolean timedOut;
+            if (fallback == null) {
+                timedOut = result.completeExceptionally(new TimeoutException("Future did not complete within " + unit.toMillis(timeout) + "ms"));
+            } else {
+                T value;
+                try {
+                    value = fallback.get();
+                } catch (Throwable ex) {
+                    result.completeExceptionally(ex);
+                    source.cancel(true);
+                    return;
+                }
+                timedOut = result.complete(value);
+            }
+            if (timedOut) {
+                source.cancel(true);
+            }
+        }, timeout, unit);
+        source.whenComplete((value, error) -> {
+            // 먼저 끝나면 Timer 작업을 지워서 SharedTimer의 Queue에 남지 않게 한다
+            task.cancel(false);
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * call이 만든 Future가 실패하면 RetryPolicy에 따라 기다렸다가 call을 다시 호출한다
+     * 기다리는 동안 Thread.sleep 하지 않고 SharedTimer에 다음 호출을 예약하기 때문에 재시도를 기다리는 Thread가 없다
+     * 돌려받은 Future를 cancel 하면 더 이상 재시도하지 않는다
+     */
+    public static <T> CompletableFuture<T> retry(Supplier<? extends CompletableFuture<T>> call, RetryPolicy policy) {
+        return retry(call, policy, SharedTimer.get());
+    }
+
+    public static <T> CompletableFuture<T> retry(Supplier<? extends CompletableFuture<T>> call, RetryPolicy policy, ScheduledExecutorService timer) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attempt(call, policy, timer, result, 0);
+        return result;
+    }
+
+    private static <T> void attempt(Supplier<? extends CompletableFuture<T>> call, RetryPolicy policy,
+                                    ScheduledExecutorService timer, CompletableFuture<T> result, int retry) {
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (Throwable ex) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(ex);
+        }
+        future.whenComplete((value, error) -> {
+            if (error == null) {
+                policy.onSuccess(retry > 0);
+                result.complete(value);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (result.isDone()) {
+                return;
+            }
+            long delay = policy.nextDelayNanos(retry, cause);
+            if (delay == RetryPolicy.NO_RETRY) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            timer.schedule(() -> {
+                if (!result.isDone()) {
+                    attempt(call, policy, timer, result, retry + 1);
+                }
+            }, delay, TimeUnit.NANOSECONDS);
+        });
+    }
+
+    /**
+     * breaker가 허용할때만 call을 호출하고 걸린 시간과 결과를 breaker에 알려준다
+     * 허용하지 않으면 call을 호출하지 않고(tp()에 작업을 넣지 않고) CallNotPermittedException으로 실패한 Future를 바로 돌려준다
+     */
+    public static <T> CompletableFuture<T> circuitBreaker(Supplier<? extends CompletableFuture<T>> call, CircuitBreaker breaker) {
+        if (!breaker.tryAcquirePermission()) {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(breaker.callNotPermitted());
+            return failed;
+        }
+        long start = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (Throwable ex) {
+            breaker.onError(System.nanoTime() - start, ex);
+            future = new CompletableFuture<>();
+            future.completeExceptionally(ex);
+            return future;
+        }
+        return future.whenComplete((value, error) -> {
+            long duration = System.nanoTime() - start;
+            if (error == null) {
+                breaker.onSuccess(duration);
+            } else if (error instanceof CancellationException) {
+                breaker.releasePermission();
+            } else {
+                breaker.onError(duration, error);
+            }
+        });
+    }
+
+    private static <T> void relay(CompletableFuture<T> source, CompletableFuture<T> result) {
+        source.whenComplete((value, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        });
+    }
+}
@@ -0,0 +1,87 @@
+package com.terry.reactive.operator;
+
+import com.terry.reactive.buffer.ReferenceCounted;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * 아래 Subscriber의 onNext가 끝나면 받은 데이터를 release 해서 pool로 돌려보내는 Operator
+ *
+ * PooledBuffer를 받는 쪽에서 매번 release를 호출하지 않아도 되고 onNext 안에서 예외가 나도 release 된다
+ * onNext 이후에도 데이터를 계속 사용해야 하는 Subscriber는 onNext 안에서 retain 하고 다 사용한 뒤 직접 release 해야 한다
+ * cancel이나 onError 이후에 늦게 도착한 데이터는 아래로 전달하지 않고 바로 release 한다
+ */
+public class AutoReleasePublisher<T> implements Publisher<T> {
+
+    private final Publisher<T> source;
+
+    public AutoReleasePublisher(Publisher<T> source) {
+        this.source = source;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> sub) {
+        source.subscribe(new AutoReleaseSubscriber<>(sub));
+    }
+
+    static final class AutoReleaseSubscriber<T> implements Subscriber<T>, Subscription {
+
+        final Subscriber<? super T> actual;
+        Subscription upstream;
+        volatile boolean cancelled;
+        boolean done;
+
+        AutoReleaseSubscriber(Subscriber<? super T> actual) {
+            this.actual = actual;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            this.upstream = s;
+            actual.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (done || cancelled) {
+                ReferenceCounted.safeRelease(t);
+                return;
+            }
+            try {
+                actual.onNext(t);
+            } finally {
+                ReferenceCounted.safeRelease(t);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (done) {
+                return;
+            }
+            done = true;
+            actual.onError(t);
+        }
+
+        @Override
+        public void onComplete() {
+            if (done) {
+                return;
+            }
+            done = true;
+            actual.onComplete();
+        }
+
+        @Override
+        public void request(long n) {
+            upstream.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            upstream.cancel();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.terry.reactive.operator;
+
+import com.terry.reactive.circuit.CircuitBreaker;
+import com.terry.reactive.support.EmptySubscription;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 구독 한번을 호출 한번으로 보고 CircuitBreaker가 허용할때만 위쪽을 구독하는 Operator
+ *
+ * 허용하지 않으면 위쪽을 구독하지 않고 CallNotPermittedException으로 바로 끝낸다
+ * 허용되면 구독한 시각부터 onComplete / onError 까지 걸린 시간과 결과를 breaker에 알려준다
+ * 끝나기 전에 cancel 되면 결과를 알 수 없기 때문에 기록하지 않고 허용받은 자리만 돌려준다(HALF_OPEN의 시험 호출)
+ * Mono도 Publisher 이기 때문에 Mono.from(Operators.circuitBreaker(mono, breaker)) 로 사용할 수 있다
+ */
+public class CircuitBreakerPublisher<T> implements Publisher<T> {
+
+    private final Publisher<T> source;
+    private final CircuitBreaker breaker;
+
+    public CircuitBreakerPublisher(Publisher<T> source, CircuitBreaker breaker) {
+        this.source = source;
+        this.breaker = breaker;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> sub) {
+        if (!breaker.tryAcquirePermission()) {
+            EmptySubscription.error(sub, breaker.callNotPermitted());
+            return;
+        }
+        source.subscribe(new CircuitBreakerSubscriber<>(sub, breaker));
+    }
+
+    static final class CircuitBreakerSubscriber<T> implements Subscriber<T>, Subscription {
+
+        final Subscriber<? super T> actual;
+        final CircuitBreaker breaker;
+        final long start = System.nanoTime();
+        // 결과를 한번만 알려주기 위한 값. 끝나거나 cancel 되면 true
+        final AtomicBoolean finished = new AtomicBoolean();
+
+        Subscription upstream;
+
+        CircuitBreakerSubscriber(Subscriber<? super T> actual, CircuitBreaker breaker) {
+            this.actual = actual;
+            this.breaker = breaker;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            this.upstream = s;
+            actual.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(T t) {
+            actual.onNext(t);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (finished.compareAndSet(false, true)) {
+                breaker.onError(System.nanoTime() - start, t);
+            }
+            actual.onError(t);
+        }
+
+        @Override
+        public void onComplete() {
+            if (finished.compareAndSet(false, true)) {
+                breaker.onSuccess(System.nanoTime() - start);
+            }
+            actual.onComplete();
+        }
+
+        @Override
+        public void request(long n) {
+            upstream.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            if (finished.compareAndSet(false, true)) {
+                breaker.releasePermission();
+            }
+            upstream.cancel();
+        }
+    }
+}
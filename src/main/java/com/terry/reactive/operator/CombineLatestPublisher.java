@@ -0,0 +1,251 @@
+package com.terry.reactive.operator;
+
+import com.terry.reactive.support.Demands;
+import com.terry.reactive.support.EmptySubscription;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * 여러 Publisher 중 하나에서 데이터가 올때마다 각 Publisher의 가장 최근 값들을 combiner로 합친 값을 보내는 Operator
+ * (예: 온도, 습도 센서의 최신 값으로 체감 온도를 계속 계산하기)
+ * 모든 Publisher가 한번 이상 데이터를 보낸 뒤부터 보낸다
+ *
+ * ZipPublisher와 같이 Publisher 마다 prefetch 크기의 Queue를 두고 wip 값을 올린 Thread 하나만 drain 하기 때문에 Lock이 필요 없다
+ * drain은 Queue들을 돌아가면서 하나씩 꺼내기 때문에 한 Publisher 안의 순서는 지켜지지만
+ * 서로 다른 Publisher 사이에서는 도착한 순서가 아니라 돌아가는 순서대로 반영된다
+ * 빠른 Publisher만 계속 반영되어 느린 Publisher의 값이 밀리는 일이 없도록 하기 위해서이다
+ *
+ * 아래 Subscriber의 요청이 없으면 합친 값 하나를 들고 기다리고 Queue에서 더 꺼내지 않는다
+ * 그래서 Queue가 차면 위쪽 Publisher에도 더 요청하지 않는다
+ */
+public class CombineLatestPublisher<R> implements Publisher<R> {
+
+    public static final int DEFAULT_PREFETCH = 32;
+
+    private final Publisher<?>[] sources;
+    private final Function<? super Object[], ? extends R> combiner;
+    private final int prefetch;
+
+    public CombineLatestPublisher(Publisher<?>[] sources, Function<? super Object[], ? extends R> combiner, int prefetch) {
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        this.sources = sources.clone();
+        this.combiner = combiner;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super R> sub) {
+        if (sources.length == 0) {
+            sub.onSubscribe(EmptySubscription.INSTANCE);
+            sub.onComplete();
+            return;
+        }
+        CombineLatestCoordinator<R> coordinator = new CombineLatestCoordinator<>(sub, combiner, sources.length, prefetch);
+        sub.onSubscribe(coordinator);
+        coordinator.subscribe(sources);
+    }
+
+    static final class CombineLatestCoordinator<R> implements Subscription, InnerQueueSubscriber.Parent {
+
+        final Subscriber<? super R> actual;
+        final Function<? super Object[], ? extends R> combiner;
+        final InnerQueueSubscriber<Object>[] inners;
+        final AtomicInteger wip = new AtomicInteger();
+        final AtomicLong requested = new AtomicLong();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        volatile boolean cancelled;
+
+        // 아래 값들은 drain 안에서만 사용한다
+        final Object[] latest;
+        int filled;
+        int next;
+        boolean pending;
+
+        CombineLatestCoordinator(Subscriber<? super R> actual, Function<? super Object[], ? extends R> combiner, int n, int prefetch) {
+            this.actual = actual;
+            this.combiner = combiner;
+            // 제네릭 타입의 배열은 바로 만들 수 없어서 raw 배열을 만들어 대입한다(배열에는 InnerQueueSubscriber<Object>만 넣는다)
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            InnerQueueSubscriber<Object>[] array = new InnerQueueSubscriber[n];
+            this.inners = array;
+            for (int i = 0; i < n; i++) {
+                inners[i] = new InnerQueueSubscriber<>(this, prefetch);
+            }
+            this.latest = new Object[n];
+        }
+
+        @SuppressWarnings("unchecked")
+        void subscribe(Publisher<?>[] sources) {
+            for (int i = 0; i < sources.length && !cancelled && error.get() == null; i++) {
+                ((Publisher<Object>) sources[i]).subscribe(inners[i]);
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0L) {
+                innerError(Demands.invalidRequest(n));
+                return;
+            }
+            Demands.add(requested, n);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            cancelAll();
+            if (wip.getAndIncrement() == 0) {
+                clearAll();
+            }
+        }
+
+        @Override
+        public void innerError(Throwable t) {
+            if (error.compareAndSet(null, t)) {
+                drain();
+            }
+        }
+
+        @Override
+        public void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            int n = inners.length;
+            for (;;) {
+                long r = requested.get();
+                long e = 0L;
+
+                for (;;) {
+                    if (cancelled) {
+                        clearAll();
+                        return;
+                    }
+                    Throwable ex = error.get();
+                    if (ex != null) {
+                        terminate();
+                        actual.onError(ex);
+                        return;
+                    }
+
+                    if (pending) {
+                        // 모든 Publisher의 값이 모인 상태. 요청이 있을때만 보내고 그 전에는 Queue에서 더 꺼내지 않는다
+                        if (e == r) {
+                            break;
+                        }
+                        R result;
+                        try {
+                            result = Objects.requireNonNull(combiner.apply(latest.clone()), "The combiner returned a null value");
+                        } catch (Throwable t) {
+                            terminate();
+                            actual.onError(t);
+                            return;
+                        }
+                        pending = false;
+                        actual.onNext(result);
+                        e++;
+                        continue;
+                    }
+
+                    if (!pollOne(n)) {
+                        if (isDone(n)) {
+                            terminate();
+                            actual.onComplete();
+                            return;
+                        }
+                        break;
+                    }
+                }
+
+                if (e != 0L) {
+                    Demands.produced(requested, e);
+                }
+
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * next 번째 Queue부터 돌아가면서 처음 찾은 값 하나를 latest에 반영한다
+         * @return 모든 Queue가 비어 있으면 false
+         */
+        boolean pollOne(int n) {
+            for (int k = 0; k < n; k++) {
+                int i = next + k;
+                if (i >= n) {
+                    i -= n;
+                }
+                InnerQueueSubscriber<Object> inner = inners[i];
+                Object v = inner.queue.poll();
+                if (v != null) {
+                    if (latest[i] == null) {
+                        filled++;
+                    }
+                    latest[i] = v;
+                    inner.consumedOne();
+                    next = i + 1 == n ? 0 : i + 1;
+                    pending = filled == n;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 모든 Publisher가 끝났거나, 값을 하나도 보내지 않고 끝난 Publisher가 있으면(더 이상 합칠 수 없다) 끝난 것이다
+         */
+        boolean isDone(int n) {
+            boolean allDone = true;
+            for (int i = 0; i < n; i++) {
+                InnerQueueSubscriber<Object> inner = inners[i];
+                boolean d = inner.done;
+                boolean empty = inner.queue.isEmpty();
+                if (d && empty && latest[i] == null) {
+                    return true;
+                }
+                allDone &= d && empty;
+            }
+            return allDone;
+        }
+
+        void terminate() {
+            cancelled = true;
+            cancelAll();
+            clearAll();
+        }
+
+        void cancelAll() {
+            for (InnerQueueSubscriber<Object> inner : inners) {
+                inner.cancel();
+            }
+        }
+
+        void clearAll() {
+            // latest 값들은 combiner에 이미 넘긴 값일 수 있으므로 release 하지 않고 참조만 지운다
+            for (int i = 0; i < latest.length; i++) {
+                latest[i] = null;
+            }
+            for (InnerQueueSubscriber<Object> inner : inners) {
+                inner.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.terry.reactive.operator;
+
+import com.terry.reactive.window.WindowAccumulator;
+import com.terry.reactive.window.WindowAggregate;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 데이터 갯수로 구간을 나눠서 구간마다 WindowAggregate를 보내는 Operator
+ *
+ * step == size 이면 겹치지 않는 구간(tumbling) : size 개마다 집계를 보내고 다시 0부터 센다
+ * step < size 이면 겹치는 구간(sliding) : 최근 size 개의 데이터를 step 개마다 집계해서 보낸다
+ * sliding은 최근 size 개의 값을 원형 배열에 기억해두고 새 값을 더할때 가장 오래된 값을 WindowAccumulator에서 빼기 때문에
+ * 보낼때마다 size 개를 다시 훑지 않고 메모리도 size 개 만큼만 사용한다
+ * 끝났을때 아직 보내지 않은 데이터가 있으면 그 데이터만으로 집계해서 마지막으로 보낸다
+ */
+public class CountWindowPublisher<T> implements Publisher<WindowAggregate> {
+
+    private final Publisher<T> source;
+    private final ToDoubleFunction<? super T> extractor;
+    private final int size;
+    private final int step;
+    private final LongAdder dropped = new LongAdder();
+
+    public CountWindowPublisher(Publisher<T> source, ToDoubleFunction<? super T> extractor, int size, int step) {
+        if (size <= 0 || step <= 0 || step > size) {
+            throw new IllegalArgumentException("0 < step <= size required but it was size=" + size + ", step=" + step);
+        }
+        this.source = source;
+        this.extractor = extractor;
+        this.size = size;
+        this.step = step;
+    }
+
+    /**
+     * 아래 Subscriber가 가져가지 않아서 버린 집계 결과 갯수
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super WindowAggregate> sub) {
+        source.subscribe(new CountWindowSubscriber(sub));
+    }
+
+    final class CountWindowSubscriber extends WindowSubscriber<T> {
+
+        final WindowAccumulator accumulator = new WindowAccumulator();
+        // sliding 일때만 사용한다. 최근 size 개의 값과 받은 시각
+        final double[] values;
+        final long[] times;
+
+        // onNext, onComplete 에서만 사용한다
+        long seen;
+        long startMillis;
+        boolean pending;
+
+        CountWindowSubscriber(Subscriber<? super WindowAggregate> actual) {
+            super(actual, CountWindowPublisher.this.dropped);
+            boolean sliding = step < size;
+            this.values = sliding ? new double[size] : null;
+            this.times = sliding ? new long[size] : null;
+        }
+
+        @Override
+        void onStart() {
+        }
+
+        @Override
+        void onStop() {
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (done) {
+                return;
+            }
+            double v;
+            try {
+                v = extractor.applyAsDouble(t);
+            } catch (Throwable ex) {
+                upstream.cancel();
+                finish(ex);
+                return;
+            }
+            long now = System.currentTimeMillis();
+            if (values == null) {
+                if (accumulator.getCount() == 0) {
+                    startMillis = now;
+                }
+                accumulator.add(v);
+                pending = true;
+                if (accumulator.getCount() == size) {
+                    emit(accumulator.snapshot(startMillis, now));
+                    accumulator.reset();
+                    pending = false;
+                }
+                return;
+            }
+
+            int index = (int) (seen % size);
+            if (seen >= size) {
+                accumulator.remove(values[index]);
+            }
+            values[index] = v;
+            times[index] = now;
+            accumulator.add(v);
+            seen++;
+            pending = true;
+            if (seen >= size && (seen - size) % step == 0) {
+                // 가장 오래된 값은 다음에 덮어쓸 칸에 있다
+                emit(accumulator.snapshot(times[(int) (seen % size)], now));
+                pending = false;
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (done) {
+                return;
+            }
+            finish(t);
+        }
+
+        @Override
+        public void onComplete() {
+            if (done) {
+                return;
+            }
+            if (pending && accumulator.getCount() > 0) {
+                long start = values == null ? startMillis : times[seen >= size ? (int) (seen % size) : 0];
+                emit(accumulator.snapshot(start, System.currentTimeMillis()));
+            }
+            finish(null);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.terry.reactive.operator;
+
+import com.terry.reactive.buffer.ReferenceCounted;
+import com.terry.reactive.dedup.DedupPolicy;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * keyFn으로 만든 key가 이미 본 key 이면 버리고 처음 보는 key의 데이터만 보내는 Operator
+ *
+ * PubSub02의 DelegateSub에 HashSet을 두고 걸러내면 key가 계속 쌓여서 메모리가 끝없이 늘어난다
+ * 여기서는 무엇을 기억할지를 DedupPolicy로 정해서(최근 N개, 최근 시간, Bloom filter) 메모리를 제한한다
+ * policySupplier는 구독할때마다 호출해서 구독마다 따로 기억한다
+ *
+ * 버린 데이터는 아래 Subscriber가 요청한 갯수에서 빠지지 않았으므로 버릴때마다 위쪽에 1개를 더 요청한다
+ */
+public class DistinctPublisher<T, K> implements Publisher<T> {
+
+    private final Publisher<T> source;
+    private final Function<? super T, ? extends K> keyFn;
+    private final Supplier<? extends DedupPolicy<? super K>> policySupplier;
+    private final LongAdder duplicates = new LongAdder();
+
+    public DistinctPublisher(Publisher<T> source, Function<? super T, ? extends K> keyFn,
+                             Supplier<? extends DedupPolicy<? super K>> policySupplier) {
+        this.source = source;
+        this.keyFn = keyFn;
+        this.policySupplier = policySupplier;
+    }
+
+    /**
+     * 중복으로 판단해서 버린 데이터 갯수(모든 구독의 합)
+     */
+    public long getDuplicateCount() {
+        return duplicates.sum();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> sub) {
+        source.subscribe(new DistinctSubscriber<>(sub, keyFn, policySupplier.get(), duplicates));
+    }
+
+    static final class DistinctSubscriber<T, K> implements Subscriber<T>, Subscription {
+
+        final Subscriber<? super T> actual;
+        final Function<? super T, ? extends K> keyFn;
+        final DedupPolicy<? super K> policy;
+        final LongAdder duplicates;
+        Subscription upstream;
+        boolean done;
+
+        DistinctSubscriber(Subscriber<? super T> actual, Function<? super T, ? extends K> keyFn, DedupPolicy<? super K> policy,
+                           LongAdder duplicates) {
+            this.actual = actual;
+            this.keyFn = keyFn;
+            this.policy = policy;
+            this.duplicates = duplicates;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            this.upstream = s;
+            actual.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (done) {
+                ReferenceCounted.safeRelease(t);
+                return;
+            }
+            boolean first;
+            try {
+                first = policy.add(keyFn.apply(t));
+            } catch (Throwable ex) {
+                ReferenceCounted.safeRelease(t);
+                upstream.cancel();
+                onError(ex);
+                return;
+            }
+            if (first) {
+                actual.onNext(t);
+            } else {
+                duplicates.increment();
+                ReferenceCounted.safeRelease(t);
+                upstream.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (done) {
+                return;
+            }
+            done = true;
+            actual.onError(t);
+        }
+
+        @Override
+        public void onComplete() {
+            if (done) {
+                return;
+            }
+            done = true;
+            actual.onComplete();
+        }
+
+        @Override
+        public void request(long n) {
+            upstream.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            upstream.cancel();
+        }
+    }
+}
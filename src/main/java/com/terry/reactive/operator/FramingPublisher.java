@@ -0,0 +1,367 @@
+package com.terry.reactive.operator;
+
+import com.terry.reactive.support.Demands;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ByteBuffer chunk의 흐름(MappedFilePublisher 등)을 줄바꿈('\n') 또는 4byte 길이 헤더 단위의 record로 잘라서 RecordView로 보내는 Operator
+ *
+ * PubSub02의 mapPub이나 DelegateSub 방식으로 만들면 record 마다 byte[]와 String이 만들어지는데
+ * 여기서는 record가 chunk 안에 다 들어 있으면 chunk의 해당 부분을 그대로 가리키고(복사 없음)
+ * chunk 경계에 걸친 record만 구독마다 하나씩 있는 carry buffer에 모아서 가리킨다
+ * RecordView 객체도 구독 하나당 하나를 계속 다시 사용하기 때문에 record 마다 생기는 객체가 없다
+ *
+ * chunk 하나에서 여러 record가 나오기 때문에 위쪽에는 chunk를 1개씩 요청하고 그 chunk를 다 잘라낸 뒤에 다음 chunk를 요청한다
+ * chunk는 다 잘라낼때까지 보관하고 있기 때문에 onNext 이후에 buffer를 다시 사용하는 AsyncFilePublisher와는 같이 사용할 수 없다
+ *
+ * maxRecordLength보다 긴 record가 오면 메모리가 끝없이 늘어나지 않도록 IllegalStateException으로 끝낸다
+ */
+public class FramingPublisher implements Publisher<RecordView> {
+
+    public enum Mode {
+        /**
+         * '\n'으로 구분한다. 끝의 '\r'은 제거하고 마지막 줄은 '\n'이 없어도 record로 보낸다
+         */
+        LINE,
+        /**
+         * 각 record 앞에 big-endian int(4byte)로 record 길이가 붙어 있다
+         */
+        LENGTH_PREFIXED
+    }
+
+    private static final int INITIAL_CARRY_SIZE = 4096;
+
+    private final Publisher<ByteBuffer> source;
+    private final Mode mode;
+    private final int maxRecordLength;
+
+    public FramingPublisher(Publisher<ByteBuffer> source, Mode mode, int maxRecordLength) {
+        if (maxRecordLength <= 0) {
+            throw new IllegalArgumentException("maxRecordLength > 0 required but it was " + maxRecordLength);
+        }
+        this.source = source;
+        this.mode = mode;
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super RecordView> sub) {
+        source.subscribe(new FramingSubscriber(sub));
+    }
+
+    final class FramingSubscriber implements Subscriber<ByteBuffer>, Subscription {
+
+        final Subscriber<? super RecordView> actual;
+        final RecordView view = new RecordView();
+        final AtomicInteger wip = new AtomicInteger();
+        final AtomicLong requested = new AtomicLong();
+
+        Subscription upstream;
+        volatile ByteBuffer chunk;
+        volatile boolean done;
+        volatile boolean cancelled;
+        Throwable error;
+
+        // 아래 값들은 drain 하는 Thread 하나만 사용한다
+        boolean pending;
+        ByteBuffer carry;
+        boolean carryEmitted;
+        int header;
+        int headerBytes;
+        int expected = -1;
+
+        FramingSubscriber(Subscriber<? super RecordView> actual) {
+            this.actual = actual;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            this.upstream = s;
+            actual.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(ByteBuffer t) {
+            chunk = t;
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                upstream.cancel();
+                error = Demands.invalidRequest(n);
+                done = true;
+                chunk = null;
+            } else {
+                Demands.add(requested, n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            upstream.cancel();
+            if (wip.getAndIncrement() == 0) {
+                chunk = null;
+            }
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                long r = requested.get();
+                long e = 0L;
+
+                while (e != r) {
+                    if (cancelled) {
+                        chunk = null;
+                        return;
+                    }
+                    ByteBuffer c = chunk;
+                    if (c == null) {
+                        if (done) {
+                            if (!flushLast()) {
+                                return;
+                            }
+                            e++;
+                            continue;
+                        }
+                        if (!pending) {
+                            // 위쪽 Publisher가 request 안에서 바로 onNext를 호출하면 chunk가 설정되고 다시 위에서 읽는다
+                            pending = true;
+                            upstream.request(1);
+                            continue;
+                        }
+                        break;
+                    }
+
+                    if (carryEmitted) {
+                        carry.clear();
+                        carryEmitted = false;
+                    }
+                    boolean framed;
+                    try {
+                        framed = mode == Mode.LINE ? frameLine(c) : frameLengthPrefixed(c);
+                    } catch (IllegalStateException ex) {
+                        fail(ex);
+                        return;
+                    }
+                    if (!c.hasRemaining()) {
+                        chunk = null;
+                        pending = false;
+                    }
+                    if (framed) {
+                        actual.onNext(view);
+                        e++;
+                    }
+                }
+
+                if (e == r && chunk == null && done && !hasLeftover()) {
+                    if (!cancelled) {
+                        terminate();
+                    }
+                    return;
+                }
+
+                if (e != 0L) {
+                    Demands.produced(requested, e);
+                }
+
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * '\n'을 찾으면 그 앞까지를 view에 설정하고 true, 찾지 못하면 chunk의 나머지를 carry에 모아두고 false
+         */
+        boolean frameLine(ByteBuffer c) {
+            int start = c.position();
+            int limit = c.limit();
+            for (int i = start; i < limit; i++) {
+                if (c.get(i) == '\n') {
+                    if (carryLength() == 0) {
+                        checkLength(i - start);
+                        setLine(c, start, i - start);
+                    } else {
+                        append(c, i);
+                        setLine(carry, 0, carry.position());
+                        carryEmitted = true;
+                    }
+                    c.position(i + 1);
+                    return true;
+                }
+            }
+            append(c, limit);
+            return false;
+        }
+
+        void setLine(ByteBuffer buffer, int offset, int length) {
+            if (length > 0 && buffer.get(offset + length - 1) == '\r') {
+                length--;
+            }
+            view.set(buffer, offset, length);
+        }
+
+        boolean frameLengthPrefixed(ByteBuffer c) {
+            if (expected < 0) {
+                if (headerBytes == 0 && c.remaining() >= 4) {
+                    // chunk의 ByteOrder와 상관없이 big-endian으로 읽는다
+                    int p = c.position();
+                    expected = (c.get(p) & 0xFF) << 24 | (c.get(p + 1) & 0xFF) << 16 | (c.get(p + 2) & 0xFF) << 8 | (c.get(p + 3) & 0xFF);
+                    c.position(p + 4);
+                } else {
+                    while (headerBytes < 4 && c.hasRemaining()) {
+                        header = (header << 8) | (c.get() & 0xFF);
+                        headerBytes++;
+                    }
+                    if (headerBytes < 4) {
+                        return false;
+                    }
+                    expected = header;
+                    header = 0;
+                    headerBytes = 0;
+                }
+                if (expected < 0) {
+                    throw new IllegalStateException("Negative record length " + expected);
+                }
+                checkLength(expected);
+            }
+
+            if (carryLength() == 0 && c.remaining() >= expected) {
+                view.set(c, c.position(), expected);
+                c.position(c.position() + expected);
+                expected = -1;
+                return true;
+            }
+            int needed = expected - carryLength();
+            append(c, c.position() + Math.min(needed, c.remaining()));
+            if (carryLength() == expected) {
+                view.set(carry, 0, expected);
+                carryEmitted = true;
+                expected = -1;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * c의 현재 위치부터 end 까지를 carry에 복사한다. 새 view를 만들지 않도록 c의 limit을 잠깐 바꿔서 한번에 복사한다
+         */
+        void append(ByteBuffer c, int end) {
+            int length = end - c.position();
+            if (length == 0) {
+                return;
+            }
+            int total = carryLength() + length;
+            checkLength(total);
+            ensureCarry(total);
+            int oldLimit = c.limit();
+            c.limit(end);
+            carry.put(c);
+            c.limit(oldLimit);
+        }
+
+        void ensureCarry(int size) {
+            if (carry == null) {
+                carry = ByteBuffer.allocate(Math.min(maxRecordLength + 1, Math.max(INITIAL_CARRY_SIZE, size)));
+            } else if (carry.capacity() < size) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.min(maxRecordLength + 1, Math.max(carry.capacity() * 2, size)));
+                carry.flip();
+                bigger.put(carry);
+                carry = bigger;
+            }
+        }
+
+        /**
+         * LINE 모드에서는 '\r'이 붙어 있을 수 있기 때문에 1byte 여유를 둔다
+         */
+        void checkLength(int length) {
+            int max = mode == Mode.LINE ? maxRecordLength + 1 : maxRecordLength;
+            if (length > max) {
+                throw new IllegalStateException("Record is longer than maxRecordLength " + maxRecordLength);
+            }
+        }
+
+        int carryLength() {
+            return carry == null || carryEmitted ? 0 : carry.position();
+        }
+
+        boolean hasLeftover() {
+            return carryLength() != 0 || headerBytes != 0 || expected >= 0;
+        }
+
+        /**
+         * 위쪽이 끝났을때 남아 있는 데이터를 처리한다
+         * LINE 모드는 '\n' 없이 끝난 마지막 줄을 보내고 LENGTH_PREFIXED 모드는 잘린 record 이므로 에러로 끝낸다
+         *
+         * @return 마지막 줄을 보냈으면 true, 종료 신호를 보냈으면 false
+         */
+        boolean flushLast() {
+            if (carryEmitted) {
+                carry.clear();
+                carryEmitted = false;
+            }
+            if (!hasLeftover()) {
+                terminate();
+                return false;
+            }
+            if (mode == Mode.LENGTH_PREFIXED) {
+                fail(new IllegalStateException("Stream ended in the middle of a record"));
+                return false;
+            }
+            setLine(carry, 0, carry.position());
+            carryEmitted = true;
+            actual.onNext(view);
+            carry.clear();
+            carryEmitted = false;
+            return true;
+        }
+
+        void terminate() {
+            cancelled = true;
+            Throwable ex = error;
+            if (ex != null) {
+                actual.onError(ex);
+            } else {
+                actual.onComplete();
+            }
+        }
+
+        void fail(Throwable ex) {
+            cancelled = true;
+            chunk = null;
+            upstream.cancel();
+            actual.onError(ex);
+        }
+    }
+}
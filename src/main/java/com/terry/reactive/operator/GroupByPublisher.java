@@ -0,0 +1,723 @@
+package com.terry.reactive.operator;
+
+import com.terry.reactive.buffer.ReferenceCounted;
+import com.terry.reactive.support.Demands;
+import com.terry.reactive.support.EmptySubscription;
+import com.terry.reactive.support.LongObjectHashMap;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * 데이터를 key 별로 나눠서 key 마다 GroupedPublisher를 하나씩 만들어 보내는 Operator
+ * (장비 ID 별로 이벤트를 나눠서 장비마다 따로 처리하는 경우 등)
+ *
+ * 처음 보는 key의 데이터가 오면 Group을 만들어서 아래 Subscriber에게 보내고, 그 뒤로 같은 key의 데이터는 그 Group의 Queue에 넣는다
+ * 각 Group은 자기 Subscriber가 request 한 만큼만 Queue에서 꺼내서 보내고, 보낸 갯수만큼 위쪽에 다시 request 한다
+ * 위쪽에는 처음에 bufferSize 만큼 요청하기 때문에 모든 Group의 Queue에 들어있는 데이터는 합쳐서 bufferSize 개를 넘지 않는다
+ * 그래서 Group 하나가 느려서 데이터가 쌓이면 위쪽 전체가 그만큼 느려진다(Group을 구독하지 않고 두면 언젠가 멈춘다)
+ *
+ * key 값이 int, long 이면 longKeyed로 만든다. Group을 LongObjectHashMap에 넣기 때문에 데이터가 올때마다 key를 boxing 하지 않는다
+ * (boxing은 새 Group을 만들때 GroupedPublisher.key() 값을 만들때 한번만 한다)
+ *
+ * key가 수백만개가 되어도 메모리가 계속 늘지 않도록 idleTimeout 동안 데이터가 오지 않고 Queue도 비어있는 Group은 onComplete로 끝내고 지운다(evict)
+ * 그 뒤에 같은 key의 데이터가 오면 새 Group을 만들어서 다시 보낸다
+ * 지울 Group을 찾을때 전체를 훑지 않도록 Group들을 마지막으로 데이터가 온 순서대로 연결 list(LRU)로 관리한다
+ * 시각은 SharedTimer가 idleTimeout / 2 마다 올리는 tick 값을 사용하고 Group은 tick이 바뀐 뒤 처음 데이터가 올때만 list의 끝으로 옮긴다
+ * 그래서 list는 앞쪽일수록 오래된 Group이고 Timer는 앞에서부터 오래된 Group만 확인하고 멈춘다(Group은 idleTimeout ~ 1.5 * idleTimeout 사이에 지워진다)
+ *
+ * Group 표(map)와 LRU list는 위쪽 onNext, Timer, Group의 cancel이 같이 사용하기 때문에 synchronized(this) 안에서만 사용한다
+ * Group의 Queue에 넣는 것도 lock 안에서 하기 때문에 지워지는 Group에 데이터가 들어가서 잃어버리는 경우는 없다
+ * 아래 Subscriber에게 보내는 것(Group의 drain)은 lock 밖에서 한다
+ *
+ * Group을 cancel 하면 그 Group의 남은 데이터는 버리고 버린 만큼 위쪽에 요청한다. 그 뒤에 같은 key의 데이터가 오면 새 Group이 만들어진다
+ * 아래 Subscriber가 cancel 해도 이미 보낸 Group들은 계속 받을 수 있고, Group이 모두 끝나거나 cancel 되면 위쪽을 cancel 한다
+ */
+public class GroupByPublisher<T, K> implements Publisher<GroupedPublisher<K, T>> {
+
+    public static final int DEFAULT_BUFFER_SIZE = 256;
+
+    // 마지막 데이터 이후 tick이 이만큼 지나야 지운다
+    private static final long IDLE_TICKS = 2;
+
+    private final Publisher<T> source;
+    private final Supplier<Table<T, K>> tableSupplier;
+    private final int bufferSize;
+    private final long tickNanos;
+    private final ScheduledExecutorService timer;
+    private final LongAdder created = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    /**
+     * @param idleTimeout 이 시간 동안 데이터가 오지 않은 Group을 끝낸다. 0 이면 끝내지 않는다
+     */
+    public GroupByPublisher(Publisher<T> source, Function<? super T, ? extends K> keyFn, int bufferSize,
+                            long idleTimeout, TimeUnit unit, ScheduledExecutorService timer) {
+        this(source, () -> new HashTable<>(keyFn), bufferSize, idleTimeout, unit, timer);
+    }
+
+    private GroupByPublisher(Publisher<T> source, Supplier<Table<T, K>> tableSupplier, int bufferSize,
+                             long idleTimeout, TimeUnit unit, ScheduledExecutorService timer) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize > 0 required but it was " + bufferSize);
+        }
+        if (idleTimeout < 0) {
+            throw new IllegalArgumentException("idleTimeout >= 0 required but it was " + idleTimeout);
+        }
+        this.source = source;
+        this.tableSupplier = tableSupplier;
+        this.bufferSize = bufferSize;
+        this.tickNanos = unit.toNanos(idleTimeout) / IDLE_TICKS;
+        this.timer = timer;
+    }
+
+    /**
+     * key가 long(int) 값인 경우. Group을 LongObjectHashMap에 넣는다
+     */
+    public static <T> GroupByPublisher<T, Long> longKeyed(Publisher<T> source, ToLongFunction<? super T> keyFn, int bufferSize,
+                                                          long idleTimeout, TimeUnit unit, ScheduledExecutorService timer) {
+        return new GroupByPublisher<>(source, () -> new LongTable<>(keyFn), bufferSize, idleTimeout, unit, timer);
+    }
+
+    /**
+     * 지금까지 만든 Group 수(같은 key라도 지워진 뒤 다시 만들어지면 다시 센다)
+     */
+    public long getCreatedCount() {
+        return created.sum();
+    }
+
+    /**
+     * idleTimeout 때문에 끝낸 Group 수
+     */
+    public long getEvictedCount() {
+        return evicted.sum();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super GroupedPublisher<K, T>> sub) {
+        source.subscribe(new GroupBySubscriber<>(sub, tableSupplier.get(), bufferSize, tickNanos, timer, created, evicted));
+    }
+
+    /**
+     * key로 Group을 찾는 표. 구독마다 하나씩 만들고 GroupBySubscriber의 lock 안에서만 사용한다
+     */
+    abstract static class Table<T, K> {
+
+        /**
+         * @return value의 key에 해당하는 Group. 없으면 null
+         */
+        abstract Group<T, K> get(T value);
+
+        /**
+         * 새 Group을 만들때만 호출한다
+         */
+        abstract K keyOf(T value);
+
+        abstract void put(K key, Group<T, K> group);
+
+        abstract void remove(K key);
+
+        abstract int size();
+
+        abstract void clear();
+    }
+
+    static final class HashTable<T, K> extends Table<T, K> {
+
+        final Function<? super T, ? extends K> keyFn;
+        final Map<K, Group<T, K>> map = new HashMap<>();
+
+        HashTable(Function<? super T, ? extends K> keyFn) {
+            this.keyFn = keyFn;
+        }
+
+        @Override
+        Group<T, K> get(T value) {
+            return map.get(keyFn.apply(value));
+        }
+
+        @Override
+        K keyOf(T value) {
+            return keyFn.apply(value);
+        }
+
+        @Override
+        void put(K key, Group<T, K> group) {
+            map.put(key, group);
+        }
+
+        @Override
+        void remove(K key) {
+            map.remove(key);
+        }
+
+        @Override
+        int size() {
+            return map.size();
+        }
+
+        @Override
+        void clear() {
+            map.clear();
+        }
+    }
+
+    static final class LongTable<T> extends Table<T, Long> {
+
+        final ToLongFunction<? super T> keyFn;
+        final LongObjectHashMap<Group<T, Long>> map = new LongObjectHashMap<>();
+
+        LongTable(ToLongFunction<? super T> keyFn) {
+            this.keyFn = keyFn;
+        }
+
+        @Override
+        Group<T, Long> get(T value) {
+            return map.get(keyFn.applyAsLong(value));
+        }
+
+        @Override
+        Long keyOf(T value) {
+            return keyFn.applyAsLong(value);
+        }
+
+        @Override
+        void put(Long key, Group<T, Long> group) {
+            map.put(key, group);
+        }
+
+        @Override
+        void remove(Long key) {
+            map.remove(key);
+        }
+
+        @Override
+        int size() {
+            return map.size();
+        }
+
+        @Override
+        void clear() {
+            map.clear();
+        }
+    }
+
+    static final class GroupBySubscriber<T, K> implements Subscriber<T>, Subscription, Runnable {
+
+        final Subscriber<? super GroupedPublisher<K, T>> actual;
+        final Table<T, K> table;
+        final int bufferSize;
+        final long tickNanos;
+        final ScheduledExecutorService timer;
+        final LongAdder created;
+        final LongAdder evicted;
+        final Queue<Group<T, K>> newGroups = new ConcurrentLinkedQueue<>();
+        final AtomicLong requested = new AtomicLong();
+        final AtomicInteger wip = new AtomicInteger();
+        final AtomicBoolean upstreamCancelled = new AtomicBoolean();
+        // 여러 Group의 Thread에서 동시에 replenish 해도 upstream.request는 한 Thread에서만 순서대로 호출한다(스펙 2.7)
+        final AtomicLong missedRequested = new AtomicLong();
+        final AtomicInteger requestWip = new AtomicInteger();
+
+        Subscription upstream;
+        volatile ScheduledFuture<?> evictTask;
+        volatile boolean done;
+        Throwable error;
+        volatile boolean cancelled;
+
+        // Timer Thread만 올린다
+        volatile long tick;
+
+        // LRU list. 아래 값들은 synchronized(this) 안에서만 사용한다
+        Group<T, K> head;
+        Group<T, K> tail;
+
+        GroupBySubscriber(Subscriber<? super GroupedPublisher<K, T>> actual, Table<T, K> table, int bufferSize, long tickNanos,
+                          ScheduledExecutorService timer, LongAdder created, LongAdder evicted) {
+            this.actual = actual;
+            this.table = table;
+            this.bufferSize = bufferSize;
+            this.tickNanos = tickNanos;
+            this.timer = timer;
+            this.created = created;
+            this.evicted = evicted;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            this.upstream = s;
+            actual.onSubscribe(this);
+            if (tickNanos > 0) {
+                evictTask = timer.scheduleAtFixedRate(this, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+            }
+            // actual.onSubscribe 안에서 Group이 이미 replenish 했을 수 있기 때문에 처음 요청도 같은 경로로 보낸다
+            replenish(bufferSize);
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (done) {
+                ReferenceCounted.safeRelease(t);
+                return;
+            }
+            Group<T, K> group;
+            boolean isNew = false;
+            try {
+                synchronized (this) {
+                    group = table.get(t);
+                    if (group == null && !cancelled) {
+                        K key = table.keyOf(t);
+                        group = new Group<>(key, this);
+                        group.lastTick = tick;
+                        table.put(key, group);
+                        linkLast(group);
+                        isNew = true;
+                    } else if (group != null && group.lastTick != tick) {
+                        group.lastTick = tick;
+                        unlink(group);
+                        linkLast(group);
+                    }
+                    if (group != null) {
+                        group.queue.offer(t);
+                    }
+                }
+            } catch (Throwable ex) {
+                ReferenceCounted.safeRelease(t);
+                cancelUpstream();
+                onError(ex);
+                return;
+            }
+            if (group == null) {
+                // 아래 Subscriber가 cancel 해서 새 Group은 받을 곳이 없다
+                ReferenceCounted.safeRelease(t);
+                replenish(1);
+                return;
+            }
+            if (isNew) {
+                created.increment();
+                newGroups.offer(group);
+                drain();
+            }
+            group.drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (done) {
+                return;
+            }
+            error = t;
+            terminate();
+        }
+
+        @Override
+        public void onComplete() {
+            if (done) {
+                return;
+            }
+            terminate();
+        }
+
+        void terminate() {
+            done = true;
+            stopTimer();
+            List<Group<T, K>> groups = new ArrayList<>();
+            synchronized (this) {
+                for (Group<T, K> g = head; g != null; g = g.next) {
+                    groups.add(g);
+                    g.removed = true;
+                }
+                head = null;
+                tail = null;
+                table.clear();
+            }
+            for (Group<T, K> g : groups) {
+                g.terminate(error);
+            }
+            drain();
+        }
+
+        /**
+         * Timer Thread에서 실행된다. tick을 올리고 IDLE_TICKS 보다 오래 데이터가 오지 않았고 Queue가 빈 Group을 끝낸다
+         */
+        @Override
+        public void run() {
+            long now = tick + 1;
+            tick = now;
+            List<Group<T, K>> idle = null;
+            boolean empty;
+            synchronized (this) {
+                Group<T, K> g = head;
+                while (g != null && now - g.lastTick > IDLE_TICKS) {
+                    Group<T, K> next = g.next;
+                    unlink(g);
+                    if (g.queue.isEmpty()) {
+                        g.removed = true;
+                        table.remove(g.key);
+                        if (idle == null) {
+                            idle = new ArrayList<>();
+                        }
+                        idle.add(g);
+                    } else {
+                        // Subscriber가 아직 다 가져가지 않았다. 쉬고 있는 것이 아니므로 다시 뒤로 보낸다
+                        g.lastTick = now;
+                        linkLast(g);
+                    }
+                    g = next;
+                }
+                empty = table.size() == 0;
+            }
+            if (idle != null) {
+                evicted.add(idle.size());
+                for (Group<T, K> group : idle) {
+                    group.terminate(null);
+                }
+            }
+            if (empty && cancelled) {
+                cancelUpstream();
+            }
+        }
+
+        /**
+         * Group이 cancel 되었을때 표에서 지운다
+         */
+        void groupCancelled(Group<T, K> group) {
+            boolean empty;
+            synchronized (this) {
+                if (!group.removed) {
+                    group.removed = true;
+                    unlink(group);
+                    table.remove(group.key);
+                }
+                empty = table.size() == 0;
+            }
+            if (empty && cancelled) {
+                cancelUpstream();
+            }
+        }
+
+        /**
+         * Group이 n개를 보냈거나 버렸다. 그만큼 위쪽에 다시 요청한다
+         * 요청 갯수는 missedRequested에 모아두고 requestWip를 0에서 올린 Thread만 모인 갯수를 한번에 요청한다
+         */
+        void replenish(long n) {
+            if (done || upstreamCancelled.get()) {
+                return;
+            }
+            Demands.add(missedRequested, n);
+            if (requestWip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                long r = missedRequested.getAndSet(0L);
+                if (r != 0L && !upstreamCancelled.get()) {
+                    upstream.request(r);
+                }
+                missed = requestWip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        void linkLast(Group<T, K> g) {
+            g.prev = tail;
+            g.next = null;
+            if (tail == null) {
+                head = g;
+            } else {
+                tail.next = g;
+            }
+            tail = g;
+        }
+
+        void unlink(Group<T, K> g) {
+            if (g.prev == null) {
+                head = g.next;
+            } else {
+                g.prev.next = g.next;
+            }
+            if (g.next == null) {
+                tail = g.prev;
+            } else {
+                g.next.prev = g.prev;
+            }
+            g.prev = null;
+            g.next = null;
+        }
+
+        void cancelUpstream() {
+            if (upstreamCancelled.compareAndSet(false, true)) {
+                stopTimer();
+                upstream.cancel();
+            }
+        }
+
+        void stopTimer() {
+            ScheduledFuture<?> f = evictTask;
+            if (f != null) {
+                f.cancel(false);
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancelUpstream();
+                onError(Demands.invalidRequest(n));
+                return;
+            }
+            Demands.add(requested, n);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            drain();
+            boolean empty;
+            synchronized (this) {
+                empty = table.size() == 0;
+            }
+            if (empty) {
+                cancelUpstream();
+            }
+        }
+
+        /**
+         * 새로 만든 Group을 요청받은 만큼 아래 Subscriber에게 보낸다
+         * cancel 된 뒤에는 아직 보내지 못한 Group을 받을 곳이 없으므로 cancel 한다
+         */
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                if (cancelled) {
+                    Group<T, K> g;
+                    while ((g = newGroups.poll()) != null) {
+                        g.cancel();
+                    }
+                } else {
+                    long r = requested.get();
+                    long e = 0L;
+                    while (e != r) {
+                        boolean d = done;
+                        Group<T, K> g = newGroups.poll();
+                        boolean empty = g == null;
+                        if (d && empty) {
+                            finish();
+                            return;
+                        }
+                        if (empty) {
+                            break;
+                        }
+                        actual.onNext(g);
+                        e++;
+                    }
+                    if (e == r && done && newGroups.isEmpty()) {
+                        finish();
+                        return;
+                    }
+                    if (e != 0L) {
+                        Demands.produced(requested, e);
+                    }
+                }
+
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        void finish() {
+            Throwable ex = error;
+            if (ex != null) {
+                actual.onError(ex);
+            } else {
+                actual.onComplete();
+            }
+        }
+    }
+
+    /**
+     * key 하나의 데이터를 보내는 GroupedPublisher. 넣는 쪽은 위쪽 onNext(lock 안), 꺼내는 쪽은 drain 하나뿐이다
+     * Subscriber는 하나만 받는다
+     * lastTick, prev, next, removed 는 부모의 lock 안에서만 사용한다
+     */
+    static final class Group<T, K> implements GroupedPublisher<K, T>, Subscription {
+
+        final K key;
+        final GroupBySubscriber<T, K> parent;
+        final Queue<T> queue = new ConcurrentLinkedQueue<>();
+        final AtomicLong requested = new AtomicLong();
+        final AtomicInteger wip = new AtomicInteger();
+        final AtomicBoolean once = new AtomicBoolean();
+        // 위쪽이 끝난 경우와 request(n <= 0) 중 먼저 온 쪽의 error만 사용한다
+        final AtomicBoolean terminated = new AtomicBoolean();
+
+        volatile Subscriber<? super T> actual;
+        volatile boolean done;
+        Throwable error;
+        volatile boolean cancelled;
+
+        long lastTick;
+        Group<T, K> prev;
+        Group<T, K> next;
+        boolean removed;
+
+        Group(K key, GroupBySubscriber<T, K> parent) {
+            this.key = key;
+            this.parent = parent;
+        }
+
+        @Override
+        public K key() {
+            return key;
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super T> sub) {
+            if (!once.compareAndSet(false, true)) {
+                EmptySubscription.error(sub, new IllegalStateException("GroupedPublisher allows only one Subscriber"));
+                return;
+            }
+            sub.onSubscribe(this);
+            actual = sub;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                // 더 이상 이 Group에 넣지 않도록 지운 뒤 onNext와 겹치지 않게 drain 에서 onError를 보낸다
+                parent.groupCancelled(this);
+                terminate(Demands.invalidRequest(n));
+                return;
+            }
+            Demands.add(requested, n);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            parent.groupCancelled(this);
+            drain();
+        }
+
+        /**
+         * 위쪽이 끝났거나(error) idleTimeout으로 지워지거나 request(n <= 0)일때 호출한다. Queue에 남은 것을 다 보낸 뒤에 끝낸다(error 이면 버리고 바로 끝낸다)
+         */
+        void terminate(Throwable ex) {
+            if (!terminated.compareAndSet(false, true)) {
+                return;
+            }
+            error = ex;
+            done = true;
+            drain();
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                Subscriber<? super T> a = actual;
+                if (cancelled) {
+                    discard();
+                } else if (a != null) {
+                    long r = requested.get();
+                    long e = 0L;
+                    while (e != r) {
+                        boolean d = done;
+                        T v = queue.poll();
+                        boolean empty = v == null;
+                        if (checkTerminated(d, empty, a)) {
+                            return;
+                        }
+                        if (empty) {
+                            break;
+                        }
+                        a.onNext(v);
+                        e++;
+                    }
+                    if (e == r && checkTerminated(done, queue.isEmpty(), a)) {
+                        return;
+                    }
+                    if (e != 0L) {
+                        Demands.produced(requested, e);
+                        parent.replenish(e);
+                    }
+                }
+
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        boolean checkTerminated(boolean d, boolean empty, Subscriber<? super T> a) {
+            if (cancelled) {
+                discard();
+                return true;
+            }
+            if (d) {
+                Throwable ex = error;
+                if (ex != null) {
+                    discard();
+                    a.onError(ex);
+                    return true;
+                }
+                if (empty) {
+                    a.onComplete();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 보내지 않고 버린 만큼 위쪽에 요청해서 다른 Group이 멈추지 않게 한다
+         */
+        void discard() {
+            long n = 0L;
+            T v;
+            while ((v = queue.poll()) != null) {
+                ReferenceCounted.safeRelease(v);
+                n++;
+            }
+            if (n != 0L) {
+                parent.replenish(n);
+            }
+        }
+    }
+}
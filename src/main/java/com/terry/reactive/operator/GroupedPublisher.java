@@ -0,0 +1,11 @@
+package com.terry.reactive.operator;
+
+import org.reactivestreams.Publisher;
+
+/**
+ * groupBy가 key 마다 하나씩 만들어서 보내는 Publisher. 같은 key를 가진 데이터만 보낸다
+ */
+public interface GroupedPublisher<K, T> extends Publisher<T> {
+
+    K key();
+}
@@ -0,0 +1,102 @@
+package com.terry.reactive.operator;
+
+import com.terry.reactive.buffer.ReferenceCounted;
+import com.terry.reactive.support.EmptySubscription;
+import com.terry.reactive.support.SpscArrayQueue;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 여러 Publisher를 합치는 Operator(zip, combineLatest)에서 Publisher 하나를 구독하는 Subscriber
+ *
+ * 받은 데이터는 prefetch 크기의 SpscArrayQueue에 넣고 부모의 drain을 호출하기만 한다
+ * Queue에 넣는 쪽은 이 Publisher의 onNext 하나뿐이고 꺼내는 쪽은 부모의 drain 하나뿐이라서 Lock 없이 사용할 수 있다
+ * 처음에 prefetch 만큼 요청하고 부모가 limit(prefetch의 3/4) 만큼 꺼내면 그만큼 다시 요청하기 때문에 Queue가 넘치지 않는다
+ */
+final class InnerQueueSubscriber<T> implements Subscriber<T> {
+
+    interface Parent {
+        void innerError(Throwable t);
+
+        void drain();
+    }
+
+    final Parent parent;
+    final int prefetch;
+    final int limit;
+    final SpscArrayQueue<T> queue;
+    final AtomicReference<Subscription> upstream = new AtomicReference<>();
+
+    volatile boolean done;
+
+    // 부모의 drain 안에서만 사용한다
+    int consumed;
+
+    InnerQueueSubscriber(Parent parent, int prefetch) {
+        this.parent = parent;
+        this.prefetch = prefetch;
+        this.limit = prefetch - (prefetch >> 2);
+        this.queue = new SpscArrayQueue<>(prefetch);
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        if (!upstream.compareAndSet(null, s)) {
+            // 구독이 끝나기 전에 cancel 된 경우
+            s.cancel();
+            return;
+        }
+        s.request(prefetch);
+    }
+
+    @Override
+    public void onNext(T t) {
+        if (!queue.offer(t)) {
+            ReferenceCounted.safeRelease(t);
+            cancel();
+            parent.innerError(new IllegalStateException("Queue is full: upstream ignored backpressure"));
+            return;
+        }
+        parent.drain();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        parent.innerError(t);
+    }
+
+    @Override
+    public void onComplete() {
+        done = true;
+        parent.drain();
+    }
+
+    /**
+     * 부모가 Queue에서 1개를 꺼낸 뒤에 호출한다
+     */
+    void consumedOne() {
+        if (++consumed == limit) {
+            consumed = 0;
+            Subscription s = upstream.get();
+            if (s != null) {
+                s.request(limit);
+            }
+        }
+    }
+
+    void cancel() {
+        Subscription s = upstream.getAndSet(EmptySubscription.INSTANCE);
+        if (s != null && s != EmptySubscription.INSTANCE) {
+            s.cancel();
+        }
+    }
+
+    /**
+     * 부모의 drain 안에서만 호출해야 한다
+     */
+    void clear() {
+        queue.clear(ReferenceCounted::safeRelease);
+    }
+}
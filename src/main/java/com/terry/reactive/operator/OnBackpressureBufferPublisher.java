@@ -0,0 +1,209 @@
+package com.terry.reactive.operator;
+
+import com.terry.reactive.buffer.ReferenceCounted;
+import com.terry.reactive.support.Demands;
+import com.terry.reactive.support.OverflowStrategy;
+import com.terry.reactive.support.SpscArrayQueue;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * request(n)을 무시하고 데이터를 밀어내는 Publisher(ObTest의 IntObservable, FluxIntervalUsingNative의 interval 등)와
+ * request 한 만큼만 받고 싶은 Subscriber 사이에 고정 크기 Queue를 두어 둘을 연결해주는 Operator
+ *
+ * 위(upstream)에는 Long.MAX_VALUE로 요청해서 전부 받고 받은 데이터는 Lock 없는 고정 크기 Queue(SpscArrayQueue)에 넣어둔다
+ * 아래 Subscriber가 request 하면 그 갯수만큼 Queue에서 꺼내 전달한다
+ * SpscArrayQueue는 크기를 2의 거듭제곱으로 올려서 만들기 때문에 Queue에 들어있는 갯수(size)를 따로 세어서 정확히 capacity 개까지만 넣는다
+ * Queue가 꽉 차면 overflowHandler로 넘친 데이터를 알려주고
+ * OverflowStrategy.ERROR 이면 위쪽 구독을 취소하고 onError를, OverflowStrategy.DROP 이면 넘친 데이터만 버리고 계속 진행한다
+ *
+ * 넘친 데이터와 cancel, onError로 Queue에서 버려지는 데이터가 ReferenceCounted(PooledBuffer 등) 이면 release 해서 pool로 돌려보낸다
+ */
+public class OnBackpressureBufferPublisher<T> implements Publisher<T> {
+
+    private final Publisher<T> source;
+    private final int capacity;
+    private final Consumer<? super T> overflowHandler;
+    private final OverflowStrategy strategy;
+    private final LongAdder dropped = new LongAdder();
+
+    public OnBackpressureBufferPublisher(Publisher<T> source, int capacity, Consumer<? super T> overflowHandler, OverflowStrategy strategy) {
+        if (strategy != OverflowStrategy.ERROR && strategy != OverflowStrategy.DROP) {
+            throw new IllegalArgumentException("Only ERROR or DROP is supported but it was " + strategy);
+        }
+        this.source = source;
+        this.capacity = capacity;
+        this.overflowHandler = overflowHandler;
+        this.strategy = strategy;
+    }
+
+    /**
+     * Queue가 꽉 차서 버려진 데이터 갯수
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> sub) {
+        source.subscribe(new BufferSubscriber(sub));
+    }
+
+    final class BufferSubscriber implements Subscriber<T>, Subscription {
+
+        final Subscriber<? super T> actual;
+        final SpscArrayQueue<T> queue = new SpscArrayQueue<>(capacity);
+        final AtomicInteger wip = new AtomicInteger();
+        final AtomicLong requested = new AtomicLong();
+        // Queue에 들어있는 갯수. 넣는 쪽은 넣은 뒤에, 꺼내는 쪽은 꺼낸 뒤에 바꾸기 때문에 넣는 쪽에서 보면 실제 갯수보다 작아지지 않는다
+        final AtomicInteger size = new AtomicInteger();
+
+        Subscription upstream;
+        volatile boolean done;
+        volatile boolean cancelled;
+        Throwable error;
+
+        BufferSubscriber(Subscriber<? super T> actual) {
+            this.actual = actual;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            this.upstream = s;
+            actual.onSubscribe(this);
+            s.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (done) {
+                return;
+            }
+            if (size.get() >= capacity || !queue.offer(t)) {
+                dropped.increment();
+                overflowHandler.accept(t);
+                ReferenceCounted.safeRelease(t);
+                if (strategy == OverflowStrategy.ERROR) {
+                    upstream.cancel();
+                    error = new IllegalStateException("The receiver is overrun by more signals than expected (bounded queue of " + capacity + ")");
+                    done = true;
+                } else {
+                    return;
+                }
+            } else {
+                size.incrementAndGet();
+            }
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (done) {
+                return;
+            }
+            error = t;
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            if (done) {
+                return;
+            }
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                upstream.cancel();
+                error = Demands.invalidRequest(n);
+                done = true;
+            } else {
+                Demands.add(requested, n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            upstream.cancel();
+            if (wip.getAndIncrement() == 0) {
+                queue.clear(ReferenceCounted::safeRelease);
+            }
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                long r = requested.get();
+                long e = 0L;
+
+                while (e != r) {
+                    boolean d = done;
+                    T v = queue.poll();
+                    boolean empty = v == null;
+                    if (checkTerminated(d, empty)) {
+                        return;
+                    }
+                    if (empty) {
+                        break;
+                    }
+                    size.decrementAndGet();
+                    actual.onNext(v);
+                    e++;
+                }
+
+                if (e == r && checkTerminated(done, queue.isEmpty())) {
+                    return;
+                }
+
+                if (e != 0L) {
+                    Demands.produced(requested, e);
+                }
+
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        boolean checkTerminated(boolean d, boolean empty) {
+            if (cancelled) {
+                queue.clear(ReferenceCounted::safeRelease);
+                return true;
+            }
+            if (d) {
+                Throwable ex = error;
+                if (ex != null) {
+                    cancelled = true;
+                    queue.clear(ReferenceCounted::safeRelease);
+                    actual.onError(ex);
+                    return true;
+                }
+                if (empty) {
+                    cancelled = true;
+                    actual.onComplete();
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
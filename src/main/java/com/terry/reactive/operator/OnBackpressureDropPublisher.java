@@ -0,0 +1,142 @@
+package com.terry.reactive.operator;
+
+import com.terry.reactive.buffer.ReferenceCounted;
+import com.terry.reactive.support.Demands;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 위(upstream)에는 Long.MAX_VALUE로 요청해서 전부 받되 아래 Subscriber의 요청이 남아 있을때만 전달하고
+ * 요청이 없을때 온 데이터는 onDrop으로 알려준 뒤 버린다(ReferenceCounted 이면 onDrop 다음에 release 한다)
+ *
+ * 데이터를 쌓아두지 않기 때문에 Queue도 drain 작업도 필요 없다
+ * onNext는 위쪽 Publisher가 순차적으로만 호출하기 때문에(스펙 1.3) requested 값만 AtomicLong으로 다루면 된다
+ *
+ * 다만 request(n <= 0)의 onError는 request를 호출한 Thread에서 보내야 하기 때문에 위쪽의 onNext와 동시에 나갈 수 있다
+ * 그래서 onNext를 전달하는 동안 wip를 1로 만들어 두고, 끝내는 신호(onError, onComplete)는 wip를 증가시켜서
+ * 0 에서 증가시킨 쪽이 바로 보내고 아니면 onNext를 전달하던 쪽이 끝난 뒤에 보낸다(끝내는 신호는 한번만 보낸다)
+ * 끝내는 신호를 보내는 중이라서 wip를 가져오지 못한 데이터도 요청이 없을때와 같이 버린다
+ * cancel 뒤에 늦게 도착한 데이터는 아래로 전달하지 않고 release만 한다
+ */
+public class OnBackpressureDropPublisher<T> implements Publisher<T> {
+
+    private final Publisher<T> source;
+    private final Consumer<? super T> onDrop;
+    private final LongAdder dropped = new LongAdder();
+
+    public OnBackpressureDropPublisher(Publisher<T> source, Consumer<? super T> onDrop) {
+        this.source = source;
+        this.onDrop = onDrop;
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> sub) {
+        source.subscribe(new DropSubscriber(sub));
+    }
+
+    final class DropSubscriber implements Subscriber<T>, Subscription {
+
+        final Subscriber<? super T> actual;
+        final AtomicLong requested = new AtomicLong();
+        final AtomicInteger wip = new AtomicInteger();
+        final AtomicBoolean terminated = new AtomicBoolean();
+        Subscription upstream;
+        volatile boolean done;
+        volatile boolean cancelled;
+        // terminate 에서 wip를 증가시키기 전에 쓰고 wip를 보고 읽는다. null 이면 onComplete
+        Throwable error;
+
+        DropSubscriber(Subscriber<? super T> actual) {
+            this.actual = actual;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            this.upstream = s;
+            actual.onSubscribe(this);
+            s.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (done) {
+                return;
+            }
+            if (cancelled) {
+                ReferenceCounted.safeRelease(t);
+                return;
+            }
+            if (requested.get() != 0L && wip.get() == 0 && wip.compareAndSet(0, 1)) {
+                actual.onNext(t);
+                Demands.produced(requested, 1);
+                if (wip.decrementAndGet() != 0) {
+                    // 전달하는 동안 끝내는 신호가 왔다
+                    emitTerminal();
+                }
+                return;
+            }
+            // 요청이 없거나 끝내는 신호를 보내는 중이다
+            dropped.increment();
+            onDrop.accept(t);
+            ReferenceCounted.safeRelease(t);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            terminate(t);
+        }
+
+        @Override
+        public void onComplete() {
+            terminate(null);
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                upstream.cancel();
+                // 스펙을 어긴 요청이므로 위쪽 구독을 취소하고 onError를 보낸다(onNext를 전달하는 중이면 그 뒤에 보낸다)
+                terminate(Demands.invalidRequest(n));
+                return;
+            }
+            Demands.add(requested, n);
+        }
+
+        void terminate(Throwable t) {
+            if (!terminated.compareAndSet(false, true)) {
+                return;
+            }
+            error = t;
+            done = true;
+            if (wip.getAndIncrement() == 0) {
+                emitTerminal();
+            }
+        }
+
+        void emitTerminal() {
+            Throwable ex = error;
+            if (ex != null) {
+                actual.onError(ex);
+            } else {
+                actual.onComplete();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            upstream.cancel();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.terry.reactive.operator;
+
+import com.terry.reactive.buffer.ReferenceCounted;
+import com.terry.reactive.support.Demands;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 위(upstream)에는 Long.MAX_VALUE로 요청해서 전부 받고 아래 Subscriber에게 전달하지 못한 데이터는 가장 최신 것 1개만 남겨둔다
+ * 새 데이터가 와서 밀려난 이전 데이터는 onDrop으로 알려준다
+ * 밀려난 데이터와 cancel, onError로 버려지는 데이터가 ReferenceCounted 이면 release 한다
+ * 아래 Subscriber가 다시 request 하면 남겨둔 최신 데이터부터 전달한다
+ *
+ * 최신 데이터는 AtomicReference 하나에 보관하기 때문에 Lock 없이 동작하고 메모리도 데이터 1개 분량만 사용한다
+ */
+public class OnBackpressureLatestPublisher<T> implements Publisher<T> {
+
+    private final Publisher<T> source;
+    private final Consumer<? super T> onDrop;
+    private final LongAdder dropped = new LongAdder();
+
+    public OnBackpressureLatestPublisher(Publisher<T> source, Consumer<? super T> onDrop) {
+        this.source = source;
+        this.onDrop = onDrop;
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> sub) {
+        source.subscribe(new LatestSubscriber(sub));
+    }
+
+    final class LatestSubscriber implements Subscriber<T>, Subscription {
+
+        final Subscriber<? super T> actual;
+        final AtomicReference<T> latest = new AtomicReference<>();
+        final AtomicInteger wip = new AtomicInteger();
+        final AtomicLong requested = new AtomicLong();
+
+        Subscription upstream;
+        volatile boolean done;
+        volatile boolean cancelled;
+        Throwable error;
+
+        LatestSubscriber(Subscriber<? super T> actual) {
+            this.actual = actual;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            this.upstream = s;
+            actual.onSubscribe(this);
+            s.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(T t) {
+            T previous = latest.getAndSet(t);
+            if (previous != null) {
+                dropped.increment();
+                onDrop.accept(previous);
+                ReferenceCounted.safeRelease(previous);
+            }
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                upstream.cancel();
+                error = Demands.invalidRequest(n);
+                done = true;
+            } else {
+                Demands.add(requested, n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            upstream.cancel();
+            if (wip.getAndIncrement() == 0) {
+                ReferenceCounted.safeRelease(latest.getAndSet(null));
+            }
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                long r = requested.get();
+                long e = 0L;
+
+                while (e != r) {
+                    boolean d = done;
+                    T v = latest.getAndSet(null);
+                    boolean empty = v == null;
+                    if (checkTerminated(d, empty)) {
+                        return;
+                    }
+                    if (empty) {
+                        break;
+                    }
+                    actual.onNext(v);
+                    e++;
+                }
+
+                if (e == r && checkTerminated(done, latest.get() == null)) {
+                    return;
+                }
+
+                if (e != 0L) {
+                    Demands.produced(requested, e);
+                }
+
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        boolean checkTerminated(boolean d, boolean empty) {
+            if (cancelled) {
+                ReferenceCounted.safeRelease(latest.getAndSet(null));
+                return true;
+            }
+            if (d) {
+                Throwable ex = error;
+                if (ex != null) {
+                    cancelled = true;
+                    ReferenceCounted.safeRelease(latest.getAndSet(null));
+                    actual.onError(ex);
+                    return true;
+                }
+                if (empty) {
+                    cancelled = true;
+                    actual.onComplete();
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
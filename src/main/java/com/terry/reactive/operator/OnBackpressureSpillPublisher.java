@@ -0,0 +1,214 @@
+package com.terry.reactive.operator;
+
+import com.terry.reactive.support.Demands;
+import com.terry.reactive.support.SpillQueue;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * OnBackpressureBufferPublisher와 같이 위에서 밀려오는 데이터를 쌓아두었다가 request 받은 만큼 전달하는데
+ * Queue가 꽉 차도 버리거나 에러를 보내지 않고 넘치는 데이터를 파일(SpillQueue)에 써둔다
+ *
+ * publishOn 뒤의 Subscriber가 느려서 밀리는 경우, 지금까지는 Heap에 계속 쌓거나(OOM) 버리는(DROP) 것밖에 방법이 없었다
+ * 여기서는 Heap에는 memoryCapacity 개만 두고 나머지는 segment 파일로 넘기기 때문에 순간적으로 많이 들어와도 Heap은 일정하고 데이터도 잃지 않는다
+ * Subscriber가 따라잡으면 넣은 순서 그대로 Heap -> 파일 순서로 꺼내서 전달하고, 다 읽은 segment 파일은 바로 지운다
+ *
+ * 파일로 넘기려면 데이터를 byte[]로 바꿔야 하기 때문에 encoder, decoder가 필요하다
+ * 파일을 쓰지 못하면(디스크가 가득 찬 경우 등) 위쪽 구독을 취소하고 onError를 보낸다
+ * 끝나거나 cancel 되면 남은 segment 파일을 모두 지운다
+ */
+public class OnBackpressureSpillPublisher<T> implements Publisher<T> {
+
+    private final Publisher<T> source;
+    private final int memoryCapacity;
+    private final Path directory;
+    private final int segmentSize;
+    private final Function<? super T, byte[]> encoder;
+    private final Function<byte[], ? extends T> decoder;
+    private final LongAdder spilled = new LongAdder();
+
+    public OnBackpressureSpillPublisher(Publisher<T> source, int memoryCapacity, Path directory, int segmentSize,
+                                       Function<? super T, byte[]> encoder, Function<byte[], ? extends T> decoder) {
+        this.source = source;
+        this.memoryCapacity = memoryCapacity;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.encoder = encoder;
+        this.decoder = decoder;
+    }
+
+    /**
+     * Heap Queue가 꽉 차서 파일에 쓴 데이터 갯수
+     */
+    public long getSpilledCount() {
+        return spilled.sum();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> sub) {
+        source.subscribe(new SpillSubscriber(sub));
+    }
+
+    final class SpillSubscriber implements Subscriber<T>, Subscription {
+
+        final Subscriber<? super T> actual;
+        final SpillQueue<T> queue = new SpillQueue<>(memoryCapacity, directory, segmentSize, encoder, decoder);
+        final AtomicInteger wip = new AtomicInteger();
+        final AtomicLong requested = new AtomicLong();
+
+        Subscription upstream;
+        volatile boolean done;
+        volatile boolean cancelled;
+        Throwable error;
+
+        SpillSubscriber(Subscriber<? super T> actual) {
+            this.actual = actual;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            this.upstream = s;
+            actual.onSubscribe(this);
+            s.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (done) {
+                return;
+            }
+            try {
+                long before = queue.getSpilledTotal();
+                queue.offer(t);
+                if (queue.getSpilledTotal() != before) {
+                    spilled.increment();
+                }
+            } catch (Throwable ex) {
+                upstream.cancel();
+                error = ex;
+                done = true;
+            }
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (done) {
+                return;
+            }
+            error = t;
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            if (done) {
+                return;
+            }
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                upstream.cancel();
+                error = Demands.invalidRequest(n);
+                done = true;
+            } else {
+                Demands.add(requested, n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            upstream.cancel();
+            if (wip.getAndIncrement() == 0) {
+                queue.close();
+            }
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                long r = requested.get();
+                long e = 0L;
+
+                while (e != r) {
+                    boolean d = done;
+                    T v;
+                    try {
+                        v = queue.poll();
+                    } catch (Throwable ex) {
+                        upstream.cancel();
+                        queue.close();
+                        cancelled = true;
+                        actual.onError(ex);
+                        return;
+                    }
+                    boolean empty = v == null;
+                    if (checkTerminated(d, empty)) {
+                        return;
+                    }
+                    if (empty) {
+                        break;
+                    }
+                    actual.onNext(v);
+                    e++;
+                }
+
+                if (e == r && checkTerminated(done, queue.isEmpty())) {
+                    return;
+                }
+
+                if (e != 0L) {
+                    Demands.produced(requested, e);
+                }
+
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        boolean checkTerminated(boolean d, boolean empty) {
+            if (cancelled) {
+                queue.close();
+                return true;
+            }
+            if (d) {
+                Throwable ex = error;
+                if (ex != null) {
+                    cancelled = true;
+                    queue.close();
+                    actual.onError(ex);
+                    return true;
+                }
+                if (empty) {
+                    cancelled = true;
+                    queue.close();
+                    actual.onComplete();
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.terry.reactive.operator;
+
+import com.terry.reactive.circuit.CircuitBreaker;
+import com.terry.reactive.dedup.DedupPolicy;
+import com.terry.reactive.ratelimit.RateLimiter;
+import com.terry.reactive.retry.RetryPolicy;
+import com.terry.reactive.scheduler.Scheduler;
+import com.terry.reactive.scheduler.SharedTimer;
+import com.terry.reactive.support.OverflowStrategy;
+import com.terry.reactive.support.SpillQueue;
+import com.terry.reactive.window.WindowAggregate;
+import org.reactivestreams.Publisher;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * PubSub02의 mapPub(pub, f) 처럼 Publisher를 받아서 기능이 추가된 Publisher를 돌려주는 Operator들을 모아둔 클래스
+ *
+ * 각 Operator의 실제 구현은 별도 클래스로 되어 있고 여기서는 mapPub과 같은 모양으로 호출할 수 있게 static 메소드만 제공한다
+ */
+public final class Operators {
+
+    private Operators() {
+    }
+
+    /**
+     * 위에서 오는 데이터를 scheduler의 Thread에서 아래 Subscriber에게 전달한다(SchedulerTest의 publishOn_테스트 참조)
+     */
+    public static <T> Publisher<T> publishOn(Publisher<T> pub, Scheduler scheduler) {
+        return publishOn(pub, scheduler, PublishOnPublisher.DEFAULT_PREFETCH);
+    }
+
+    public static <T> Publisher<T> publishOn(Publisher<T> pub, Scheduler scheduler, int prefetch) {
+        return new PublishOnPublisher<>(pub, scheduler, prefetch);
+    }
+
+    /**
+     * scheduler의 Thread에서 위쪽 Publisher를 구독하고 request 한다(SchedulerTest의 subscribeOn_publishOn_테스트 참조)
+     */
+    public static <T> Publisher<T> subscribeOn(Publisher<T> pub, Scheduler scheduler) {
+        return new SubscribeOnPublisher<>(pub, scheduler);
+    }
+
+    /**
+     * capacity 크기의 Queue에 쌓아두었다가 request 받은 만큼 전달한다. Queue가 넘치면 overflowHandler를 호출하고 onError로 끝낸다
+     */
+    public static <T> Publisher<T> onBackpressureBuffer(Publisher<T> pub, int capacity, Consumer<? super T> overflowHandler) {
+        return new OnBackpressureBufferPublisher<>(pub, capacity, overflowHandler, OverflowStrategy.ERROR);
+    }
+
+    /**
+     * strategy가 OverflowStrategy.DROP 이면 Queue가 넘쳐도 에러 없이 넘친 데이터만 버리고 계속 진행한다
+     */
+    public static <T> Publisher<T> onBackpressureBuffer(Publisher<T> pub, int capacity, Consumer<? super T> overflowHandler, OverflowStrategy strategy) {
+        return new OnBackpressureBufferPublisher<>(pub, capacity, overflowHandler, strategy);
+    }
+
+    /**
+     * memoryCapacity 개까지는 Heap에 쌓아두고 넘치는 데이터는 directory의 segment 파일에 써두었다가 순서대로 전달한다(버리는 데이터가 없다)
+     */
+    public static <T> Publisher<T> onBackpressureSpill(Publisher<T> pub, int memoryCapacity, Path directory,
+                                                       Function<? super T, byte[]> encoder, Function<byte[], ? extends T> decoder) {
+        return new OnBackpressureSpillPublisher<>(pub, memoryCapacity, directory, SpillQueue.DEFAULT_SEGMENT_SIZE, encoder, decoder);
+    }
+
+    /**
+     * 요청이 없을때 온 데이터는 onDrop으로 알려주고 버린다
+     */
+    public static <T> Publisher<T> onBackpressureDrop(Publisher<T> pub, Consumer<? super T> onDrop) {
+        return new OnBackpressureDropPublisher<>(pub, onDrop);
+    }
+
+    /**
+     * 요청이 없을때 온 데이터는 가장 최신 것 1개만 남겨두고 밀려난 데이터는 onDrop으로 알려준다
+     */
+    public static <T> Publisher<T> onBackpressureLatest(Publisher<T> pub, Consumer<? super T> onDrop) {
+        return new OnBackpressureLatestPublisher<>(pub, onDrop);
+    }
+
+    /**
+     * ByteBuffer chunk를 줄 단위 record로 잘라서 보낸다. RecordView는 다시 사용되기 때문에 onNext 안에서만 유효하다
+     */
+    public static Publisher<RecordView> lines(Publisher<ByteBuffer> pub, int maxLineLength) {
+        return new FramingPublisher(pub, FramingPublisher.Mode.LINE, maxLineLength);
+    }
+
+    /**
+     * ByteBuffer chunk를 4byte 길이 헤더가 붙은 record로 잘라서 보낸다
+     */
+    public static Publisher<RecordView> lengthPrefixed(Publisher<ByteBuffer> pub, int maxRecordLength) {
+        return new FramingPublisher(pub, FramingPublisher.Mode.LENGTH_PREFIXED, maxRecordLength);
+    }
+
+    /**
+     * 아래 Subscriber의 onNext가 끝나면 PooledBuffer 같은 ReferenceCounted 데이터를 release 한다
+     */
+    public static <T> Publisher<T> autoRelease(Publisher<T> pub) {
+        return new AutoReleasePublisher<>(pub);
+    }
+
+    /**
+     * 첫 데이터까지, 그리고 데이터 사이의 간격이 timeout을 넘으면 위쪽 구독을 취소하고 TimeoutException으로 끝낸다. 시간 검사는 SharedTimer에서 한다
+     */
+    public static <T> Publisher<T> timeout(Publisher<T> pub, long timeout, TimeUnit unit) {
+        return new TimeoutPublisher<>(pub, timeout, unit, null, SharedTimer.get());
+    }
+
+    /**
+     * timeout이 나면 에러 대신 fallback을 구독해서 이어서 보낸다
+     */
+    public static <T> Publisher<T> timeout(Publisher<T> pub, long timeout, TimeUnit unit, Publisher<? extends T> fallback) {
+        return new TimeoutPublisher<>(pub, timeout, unit, fallback, SharedTimer.get());
+    }
+
+    /**
+     * onError로 끝나면 RetryPolicy에 따라 SharedTimer에서 기다렸다가 다시 구독한다
+     */
+    public static <T> Publisher<T> retry(Publisher<T> pub, RetryPolicy policy) {
+        return new RetryPublisher<>(pub, policy, SharedTimer.get());
+    }
+
+    /**
+     * 1초에 permitsPerSecond 개(한번에 최대 burst 개)만 위쪽에 request 해서 속도를 제한한다. 구독마다 RateLimiter를 따로 만든다
+     */
+    public static <T> Publisher<T> rateLimit(Publisher<T> pub, double permitsPerSecond, int burst) {
+        return new RateLimitPublisher<>(pub, () -> new RateLimiter(permitsPerSecond, burst), SharedTimer.get());
+    }
+
+    /**
+     * 여러 구독(또는 여러 Publisher)이 limiter 하나의 속도 제한을 나눠 쓴다
+     */
+    public static <T> Publisher<T> rateLimit(Publisher<T> pub, RateLimiter limiter) {
+        return new RateLimitPublisher<>(pub, () -> limiter, SharedTimer.get());
+    }
+
+    /**
+     * breaker가 열려 있으면 위쪽을 구독하지 않고 CallNotPermittedException으로 바로 끝낸다. 구독 한번의 결과와 걸린 시간을 breaker에 기록한다
+     */
+    public static <T> Publisher<T> circuitBreaker(Publisher<T> pub, CircuitBreaker breaker) {
+        return new CircuitBreakerPublisher<>(pub, breaker);
+    }
+
+    /**
+     * keyFn의 결과가 같은 데이터끼리 나눠서 key 마다 GroupedPublisher를 하나씩 보낸다. Group은 지우지 않는다
+     */
+    public static <T, K> Publisher<GroupedPublisher<K, T>> groupBy(Publisher<T> pub, Function<? super T, ? extends K> keyFn) {
+        return new GroupByPublisher<>(pub, keyFn, GroupByPublisher.DEFAULT_BUFFER_SIZE, 0, TimeUnit.MILLISECONDS, SharedTimer.get());
+    }
+
+    /**
+     * idleTimeout 동안 데이터가 오지 않은 Group은 onComplete로 끝내고 지운다. 같은 key의 데이터가 다시 오면 새 Group을 보낸다
+     */
+    public static <T, K> Publisher<GroupedPublisher<K, T>> groupBy(Publisher<T> pub, Function<? super T, ? extends K> keyFn, int bufferSize,
+                                                                  long idleTimeout, TimeUnit unit) {
+        return new GroupByPublisher<>(pub, keyFn, bufferSize, idleTimeout, unit, SharedTimer.get());
+    }
+
+    /**
+     * key가 int, long 값인 groupBy. 데이터마다 key를 boxing 하지 않고 Group을 LongObjectHashMap에서 찾는다
+     */
+    public static <T> Publisher<GroupedPublisher<Long, T>> groupByLong(Publisher<T> pub, ToLongFunction<? super T> keyFn, int bufferSize,
+                                                                       long idleTimeout, TimeUnit unit) {
+        return GroupByPublisher.longKeyed(pub, keyFn, bufferSize, idleTimeout, unit, SharedTimer.get());
+    }
+
+    /**
+     * keyFn의 결과가 이미 본 key 이면 버린다. 무엇을 얼마나 기억할지는 policySupplier가 구독마다 만드는 DedupPolicy가 정한다
+     * (DedupPolicy.lru, DedupPolicy.timeWindow, DedupPolicy.bloom)
+     */
+    public static <T, K> Publisher<T> distinct(Publisher<T> pub, Function<? super T, ? extends K> keyFn,
+                                               Supplier<? extends DedupPolicy<? super K>> policySupplier) {
+        return new DistinctPublisher<>(pub, keyFn, policySupplier);
+    }
+
+    /**
+     * 바로 앞 데이터와 key가 같으면 버린다
+     */
+    public static <T, K> Publisher<T> distinctUntilChanged(Publisher<T> pub, Function<? super T, ? extends K> keyFn) {
+        return new DistinctPublisher<>(pub, keyFn, DedupPolicy::untilChanged);
+    }
+
+    /**
+     * 각 Publisher에서 같은 순서에 온 데이터끼리 묶어서 combiner로 합친다. combiner는 sources 순서대로 값이 들어있는 배열을 받는다
+     * 2개를 묶는 zip과 lambda 인자만으로는 구분이 안 되는 경우가 있어서 이름을 다르게 했다
+     */
+    public static <R> Publisher<R> zipArray(Function<? super Object[], ? extends R> combiner, Publisher<?>... sources) {
+        return new ZipPublisher<>(sources, combiner, ZipPublisher.DEFAULT_PREFETCH);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T1, T2, R> Publisher<R> zip(Publisher<T1> pub1, Publisher<T2> pub2, BiFunction<? super T1, ? super T2, ? extends R> combiner) {
+        return zipArray(values -> combiner.apply((T1) values[0], (T2) values[1]), pub1, pub2);
+    }
+
+    /**
+     * 어느 Publisher에서든 데이터가 오면 각 Publisher의 최신 값들을 combiner로 합친다
+     * 2개를 합치는 combineLatest와 lambda 인자만으로는 구분이 안 되는 경우가 있어서 이름을 다르게 했다
+     */
+    public static <R> Publisher<R> combineLatestArray(Function<? super Object[], ? extends R> combiner, Publisher<?>... sources) {
+        return new CombineLatestPublisher<>(sources, combiner, CombineLatestPublisher.DEFAULT_PREFETCH);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T1, T2, R> Publisher<R> combineLatest(Publisher<T1> pub1, Publisher<T2> pub2, BiFunction<? super T1, ? super T2, ? extends R> combiner) {
+        return combineLatestArray(values -> combiner.apply((T1) values[0], (T2) values[1]), pub1, pub2);
+    }
+
+    /**
+     * size 개씩 겹치지 않게 나눠서 extractor로 꺼낸 값의 갯수, 합계, 최소/최대값, 백분위수를 보낸다
+     */
+    public static <T> Publisher<WindowAggregate> window(Publisher<T> pub, int size, ToDoubleFunction<? super T> extractor) {
+        return new CountWindowPublisher<>(pub, extractor, size, size);
+    }
+
+    /**
+     * timespan 마다 그 동안 온 데이터를 집계해서 보낸다. 구간은 SharedTimer에서 나눈다
+     */
+    public static <T> Publisher<WindowAggregate> window(Publisher<T> pub, long timespan, TimeUnit unit, ToDoubleFunction<? super T> extractor) {
+        return new TimeWindowPublisher<>(pub, extractor, timespan, timespan, unit, SharedTimer.get());
+    }
+
+    /**
+     * step 개마다 최근 size 개의 데이터를 집계해서 보낸다
+     */
+    public static <T> Publisher<WindowAggregate> slidingWindow(Publisher<T> pub, int size, int step, ToDoubleFunction<? super T> extractor) {
+        return new CountWindowPublisher<>(pub, extractor, size, step);
+    }
+
+    /**
+     * slide 마다 최근 timespan 동안의 데이터를 집계해서 보낸다. timespan은 slide의 배수여야 한다
+     */
+    public static <T> Publisher<WindowAggregate> slidingWindow(Publisher<T> pub, long timespan, long slide, TimeUnit unit, ToDoubleFunction<? super T> extractor) {
+        return new TimeWindowPublisher<>(pub, extractor, timespan, slide, unit, SharedTimer.get());
+    }
+}
@@ -0,0 +1,213 @@
+package com.terry.reactive.operator;
+
+import com.terry.reactive.buffer.ReferenceCounted;
+import com.terry.reactive.scheduler.Scheduler;
+import com.terry.reactive.support.Demands;
+import com.terry.reactive.support.SpscArrayQueue;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SchedulerTest의 publishOn_테스트에서 만든 pubOnPub을 Scheduler를 받아서 동작하도록 정리한 것이다
+ *
+ * publishOn_테스트에서는 onNext가 올때마다 es.execute로 작업을 하나씩 던졌는데 이렇게 하면 데이터 1개마다 작업 객체가 1개씩 만들어지고
+ * 원래 Subscriber가 request한 갯수와 상관없이 위에서 오는대로 전부 Thread Pool에 쌓이게 된다
+ * 여기서는 위(upstream)에는 prefetch 갯수만큼만 미리 요청해서 고정 크기 Queue에 받아두고
+ * Worker에서 돌아가는 drain 작업이 Queue에서 꺼내 원래 Subscriber에게 request한 갯수만큼만 전달한다
+ * prefetch의 3/4(limit)만큼 전달하고 나면 그만큼 다시 위에 요청한다
+ * cancel, onError로 Queue에 남은 데이터를 버릴때 ReferenceCounted 이면 release 한다
+ */
+public class PublishOnPublisher<T> implements Publisher<T> {
+
+    public static final int DEFAULT_PREFETCH = 256;
+
+    private final Publisher<T> source;
+    private final Scheduler scheduler;
+    private final int prefetch;
+
+    public PublishOnPublisher(Publisher<T> source, Scheduler scheduler, int prefetch) {
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        this.source = source;
+        this.scheduler = scheduler;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> sub) {
+        source.subscribe(new PublishOnSubscriber<>(sub, scheduler.createWorker(), prefetch));
+    }
+
+    static final class PublishOnSubscriber<T> implements Subscriber<T>, Subscription, Runnable {
+
+        final Subscriber<? super T> actual;
+        final Scheduler.Worker worker;
+        final int prefetch;
+        final int limit;
+        final SpscArrayQueue<T> queue;
+        final AtomicInteger wip = new AtomicInteger();
+        final AtomicLong requested = new AtomicLong();
+
+        Subscription upstream;
+        volatile boolean done;
+        volatile boolean cancelled;
+        Throwable error;
+
+        // drain 작업 안에서만 사용하는 값
+        int consumed;
+
+        PublishOnSubscriber(Subscriber<? super T> actual, Scheduler.Worker worker, int prefetch) {
+            this.actual = actual;
+            this.worker = worker;
+            this.prefetch = prefetch;
+            this.limit = prefetch - (prefetch >> 2);
+            this.queue = new SpscArrayQueue<>(prefetch);
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            this.upstream = s;
+            actual.onSubscribe(this);
+            s.request(prefetch);
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (done) {
+                ReferenceCounted.safeRelease(t);
+                return;
+            }
+            if (!queue.offer(t)) {
+                // prefetch 갯수보다 많이 보낸 것이므로 위쪽 Publisher가 스펙을 어긴 것이다
+                ReferenceCounted.safeRelease(t);
+                upstream.cancel();
+                error = new IllegalStateException("Queue is full: upstream ignored backpressure");
+                done = true;
+            }
+            schedule();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (done) {
+                return;
+            }
+            error = t;
+            done = true;
+            schedule();
+        }
+
+        @Override
+        public void onComplete() {
+            if (done) {
+                return;
+            }
+            done = true;
+            schedule();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0L) {
+                upstream.cancel();
+                error = Demands.invalidRequest(n);
+                done = true;
+            } else {
+                Demands.add(requested, n);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            upstream.cancel();
+            worker.dispose();
+            if (wip.getAndIncrement() == 0) {
+                queue.clear(ReferenceCounted::safeRelease);
+            }
+        }
+
+        void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                worker.schedule(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            for (;;) {
+                long r = requested.get();
+                long e = 0L;
+
+                while (e != r) {
+                    boolean d = done;
+                    T v = queue.poll();
+                    boolean empty = v == null;
+
+                    if (checkTerminated(d, empty)) {
+                        return;
+                    }
+                    if (empty) {
+                        break;
+                    }
+
+                    actual.onNext(v);
+                    e++;
+
+                    if (++consumed == limit) {
+                        consumed = 0;
+                        upstream.request(limit);
+                    }
+                }
+
+                if (e == r && checkTerminated(done, queue.isEmpty())) {
+                    return;
+                }
+
+                if (e != 0L) {
+                    Demands.produced(requested, e);
+                }
+
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        boolean checkTerminated(boolean d, boolean empty) {
+            if (cancelled) {
+                queue.clear(ReferenceCounted::safeRelease);
+                return true;
+            }
+            if (d) {
+                Throwable ex = error;
+                if (ex != null) {
+                    // 에러는 Queue에 남은 데이터를 기다리지 않고 바로 전달한다
+                    queue.clear(ReferenceCounted::safeRelease);
+                    cancelled = true;
+                    actual.onError(ex);
+                    worker.dispose();
+                    return true;
+                }
+                if (empty) {
+                    cancelled = true;
+                    actual.onComplete();
+                    worker.dispose();
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
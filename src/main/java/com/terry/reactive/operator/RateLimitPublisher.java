@@ -0,0 +1,196 @@
+package com.terry.reactive.operator;
+
+import com.terry.reactive.ratelimit.RateLimiter;
+import com.terry.reactive.support.Demands;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 아래 Subscriber의 request를 RateLimiter의 token이 있는 만큼만 위쪽에 request 해서 데이터가 오는 속도를 제한하는 Operator
+ *
+ * 데이터를 받아서 Queue에 쌓아두었다가 천천히 내보내는 방식이 아니라 위쪽에 요청하는 갯수 자체를 조절하기 때문에
+ * 이 Operator에는 Queue가 없고 onNext는 그대로 아래로 전달한다(request를 지키는 Publisher 라면 요청한 것보다 많이 오지 않는다)
+ * 아래에서 요청했지만 아직 위쪽에 요청하지 못한 갯수는 pending에 남겨두고, token이 없으면 다음 token이 생기는 시각에
+ * SharedTimer에서 다시 시도한다. 구독 하나에 Timer 작업은 최대 1개만 등록되고 별도 Thread는 만들지 않는다
+ *
+ * 위쪽이 남은 데이터보다 많이 요청받고 끝나면 그 차이만큼의 token은 사용하지 않고 버려진다(위쪽에 남은 갯수는 알 수 없기 때문이다)
+ * limiterSupplier는 구독할때마다 호출된다. 같은 RateLimiter를 돌려주면 여러 구독이 하나의 속도 제한을 나눠 쓴다(Operators.rateLimit 참조)
+ *
+ * request(n <= 0)의 onError는 request를 호출한 Thread에서 보내기 때문에 OnBackpressureDropPublisher와 같이
+ * onNext를 전달하는 동안 emitting을 1로 만들어 두고 그 사이에 온 끝내는 신호는 onNext를 전달하던 쪽이 끝난 뒤에 보낸다
+ */
+public class RateLimitPublisher<T> implements Publisher<T> {
+
+    private final Publisher<T> source;
+    private final Supplier<RateLimiter> limiterSupplier;
+    private final ScheduledExecutorService timer;
+
+    public RateLimitPublisher(Publisher<T> source, Supplier<RateLimiter> limiterSupplier, ScheduledExecutorService timer) {
+        this.source = source;
+        this.limiterSupplier = limiterSupplier;
+        this.timer = timer;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> sub) {
+        source.subscribe(new RateLimitSubscriber(sub, limiterSupplier.get()));
+    }
+
+    final class RateLimitSubscriber implements Subscriber<T>, Subscription, Runnable {
+
+        final Subscriber<? super T> actual;
+        final RateLimiter limiter;
+        final AtomicLong pending = new AtomicLong();
+        final AtomicInteger wip = new AtomicInteger();
+        // onNext와 끝내는 신호가 겹치지 않게 하는 값. drain의 wip와는 따로 사용한다
+        final AtomicInteger emitting = new AtomicInteger();
+        final AtomicBoolean terminated = new AtomicBoolean();
+
+        Subscription upstream;
+        // drain 안에서만 바꾸고 Timer 작업이 실행되면 false로 돌려놓는다
+        volatile boolean scheduled;
+        volatile ScheduledFuture<?> task;
+        volatile boolean cancelled;
+        volatile boolean done;
+        // terminate 에서 emitting을 증가시키기 전에 쓰고 emitting을 보고 읽는다. null 이면 onComplete
+        Throwable error;
+
+        RateLimitSubscriber(Subscriber<? super T> actual, RateLimiter limiter) {
+            this.actual = actual;
+            this.limiter = limiter;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            this.upstream = s;
+            actual.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (done) {
+                return;
+            }
+            if (emitting.get() == 0 && emitting.compareAndSet(0, 1)) {
+                actual.onNext(t);
+                if (emitting.decrementAndGet() != 0) {
+                    // 전달하는 동안 끝내는 신호가 왔다
+                    emitTerminal();
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            terminate(t);
+        }
+
+        @Override
+        public void onComplete() {
+            terminate(null);
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                // 스펙을 어긴 요청이므로 위쪽 구독을 취소하고 onError를 보낸다(onNext를 전달하는 중이면 그 뒤에 보낸다)
+                terminate(Demands.invalidRequest(n));
+                return;
+            }
+            Demands.add(pending, n);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            stopTimer();
+            upstream.cancel();
+        }
+
+        void terminate(Throwable t) {
+            if (!terminated.compareAndSet(false, true)) {
+                return;
+            }
+            error = t;
+            done = true;
+            stopTimer();
+            if (emitting.getAndIncrement() == 0) {
+                emitTerminal();
+            }
+        }
+
+        void emitTerminal() {
+            Throwable ex = error;
+            if (ex != null) {
+                actual.onError(ex);
+            } else {
+                actual.onComplete();
+            }
+        }
+
+        /**
+         * Timer Thread에서 실행된다
+         */
+        @Override
+        public void run() {
+            scheduled = false;
+            drain();
+        }
+
+        /**
+         * pending 만큼 token을 가져와서 위쪽에 request 한다. token이 모자라면 다음 token이 생길때 다시 실행되도록 Timer에 등록한다
+         * upstream.request 안에서 onNext -> 아래의 request -> drain 으로 다시 들어와도 wip 때문에 재귀 호출되지 않는다
+         */
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                while (!cancelled && !done && !scheduled) {
+                    long p = pending.get();
+                    if (p == 0L) {
+                        break;
+                    }
+                    long k = limiter.tryAcquire(p);
+                    if (k == 0L) {
+                        scheduled = true;
+                        task = timer.schedule(this, Math.max(1L, limiter.nanosToNextPermit()), TimeUnit.NANOSECONDS);
+                        if (cancelled) {
+                            stopTimer();
+                        }
+                        break;
+                    }
+                    Demands.produced(pending, k);
+                    upstream.request(k);
+                }
+
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        void stopTimer() {
+            ScheduledFuture<?> f = task;
+            if (f != null) {
+                f.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.terry.reactive.operator;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * FramingPublisher가 잘라낸 record 하나를 가리키는 view
+ *
+ * record 마다 byte[]나 String을 새로 만들지 않고 chunk(또는 chunk 경계에 걸친 record를 모아두는 buffer)의 offset, length만 바꿔서
+ * 구독 하나당 하나의 RecordView 객체를 계속 다시 사용한다
+ * 그래서 RecordView와 그 내용은 onNext 안에서만 유효하다. onNext 이후에도 필요하면 toByteArray나 toString으로 복사해둬야 한다
+ *
+ * UTF-8 문자열이 필요한 경우에만 asCharSequence를 호출하면 그때 decode 한다
+ * decode 결과도 다시 사용하는 CharBuffer에 담기 때문에 문자열이 필요한 record만 decode 비용을 내고 String도 만들지 않는다
+ */
+public final class RecordView {
+
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private ByteBuffer buffer;
+    private int offset;
+    private int length;
+
+    private CharBuffer chars = CharBuffer.allocate(0);
+    private boolean decoded;
+
+    void set(ByteBuffer buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        this.decoded = false;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public byte get(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + " out of [0, " + length + ")");
+        }
+        return buffer.get(offset + index);
+    }
+
+    /**
+     * @return 찾지 못하면 -1
+     */
+    public int indexOf(byte b, int fromIndex) {
+        for (int i = Math.max(fromIndex, 0); i < length; i++) {
+            if (buffer.get(offset + i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean startsWith(byte[] prefix) {
+        if (prefix.length > length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(offset + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void copyTo(byte[] dst, int dstOffset) {
+        for (int i = 0; i < length; i++) {
+            dst[dstOffset + i] = buffer.get(offset + i);
+        }
+    }
+
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[length];
+        copyTo(bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * record를 UTF-8로 decode 한 결과. 처음 호출할때만 decode 하고 같은 record 안에서는 결과를 다시 사용한다
+     * 돌려주는 CharBuffer는 다음 record에서 다시 사용되기 때문에 onNext 이후에는 사용할 수 없다
+     */
+    public CharSequence asCharSequence() {
+        if (!decoded) {
+            decode();
+            decoded = true;
+        }
+        return chars;
+    }
+
+    /**
+     * decode 한 문자열을 String으로 만든다(새 String을 만들기 때문에 보관해야 할 때만 사용한다)
+     */
+    @Override
+    public String toString() {
+        return asCharSequence().toString();
+    }
+
+    private void decode() {
+        // UTF-8은 byte 하나가 char 하나 이상이 되는 경우가 없어서 length 만큼이면 충분하다
+        if (chars.capacity() < length) {
+            chars = CharBuffer.allocate(Math.max(length, chars.capacity() * 2));
+        }
+        chars.clear();
+        // 새 view를 만들지 않기 위해 buffer의 position, limit을 잠깐 바꿔서 decode 하고 원래대로 돌려놓는다
+        int oldPosition = buffer.position();
+        int oldLimit = buffer.limit();
+        buffer.limit(offset + length).position(offset);
+        decoder.reset();
+        decoder.decode(buffer, chars, true);
+        decoder.flush(chars);
+        buffer.limit(oldLimit).position(oldPosition);
+        chars.flip();
+    }
+}
@@ -0,0 +1,200 @@
+package com.terry.reactive.operator;
+
+import com.terry.reactive.retry.RetryPolicy;
+import com.terry.reactive.support.Demands;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 위쪽 Publisher가 onError로 끝나면 RetryPolicy가 정한 시간만큼 기다렸다가 다시 구독하는 Operator
+ *
+ * 기다리는 동안 Thread.sleep으로 Thread를 잡고 있지 않고 Timer에 다시 구독하는 작업을 예약만 해둔다
+ * 그래서 장애가 나서 재시도가 많아져도 Worker Thread가 재시도를 기다리느라 막히지 않는다
+ * 다시 구독하는 작업은 Timer Thread에서 실행되기 때문에 구독할때 오래 걸리는 작업을 하는 Publisher는 subscribeOn 등으로 다른 Thread로 넘겨야 한다
+ *
+ * 아래 Subscriber는 재시도가 있었는지 모르고 하나의 Subscription만 보게 된다
+ * 그래서 아래에서 request 한 갯수 중 아직 받지 못한 갯수(requested - produced)를 다시 구독한 Publisher에 먼저 요청한다
+ * 데이터를 하나라도 받으면 재시도 횟수를 0으로 되돌린다(오래 실행되는 스트림이 가끔 끊기는 경우 매번 처음 backoff부터 시작한다)
+ *
+ * 끝내는 신호(onError, onComplete)는 terminated를 CAS로 바꾼 쪽만 한번 보낸다. cancel 되었거나 이미 끝났으면 위쪽 에러로 재시도하지도 않는다
+ * request(n <= 0)의 onError는 request를 호출한 Thread에서 보내기 때문에 위쪽의 onNext와 겹치지 않도록
+ * onNext를 전달하는 동안 wip를 1로 만들어 두고 그 사이에 온 끝내는 신호는 onNext를 전달하던 쪽이 끝난 뒤에 보낸다(OnBackpressureDropPublisher와 같다)
+ */
+public class RetryPublisher<T> implements Publisher<T> {
+
+    private final Publisher<T> source;
+    private final RetryPolicy policy;
+    private final ScheduledExecutorService timer;
+
+    public RetryPublisher(Publisher<T> source, RetryPolicy policy, ScheduledExecutorService timer) {
+        this.source = source;
+        this.policy = policy;
+        this.timer = timer;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> sub) {
+        source.subscribe(new RetrySubscriber(sub));
+    }
+
+    final class RetrySubscriber implements Subscriber<T>, Subscription, Runnable {
+
+        final Subscriber<? super T> actual;
+        final AtomicInteger wip = new AtomicInteger();
+        final AtomicBoolean terminated = new AtomicBoolean();
+        // emit 에서 wip를 증가시키기 전에 쓰고 wip를 보고 읽는다. null 이면 onComplete
+        Throwable error;
+
+        // 아래 값들은 synchronized(this) 안에서만 사용한다
+        Subscription current;
+        long requested;
+        boolean cancelled;
+        ScheduledFuture<?> pending;
+
+        // 한번에 하나의 구독에서만 바뀌고, 다음 구독은 Timer 작업을 통해 시작하기 때문에 Timer Thread에서도 최신 값을 읽을 수 있다
+        volatile long produced;
+        int retry;
+        boolean retried;
+
+        RetrySubscriber(Subscriber<? super T> actual) {
+            this.actual = actual;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            boolean first;
+            boolean wasCancelled;
+            long missing;
+            synchronized (this) {
+                first = current == null;
+                current = s;
+                wasCancelled = cancelled;
+                missing = requested == Long.MAX_VALUE ? Long.MAX_VALUE : requested - produced;
+            }
+            if (wasCancelled) {
+                s.cancel();
+            } else if (first) {
+                actual.onSubscribe(this);
+            } else if (missing > 0) {
+                s.request(missing);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (terminated.get()) {
+                return;
+            }
+            if (wip.get() == 0 && wip.compareAndSet(0, 1)) {
+                produced++;
+                retry = 0;
+                actual.onNext(t);
+                if (wip.decrementAndGet() != 0) {
+                    // 전달하는 동안 끝내는 신호가 왔다
+                    emitTerminal();
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            synchronized (this) {
+                // cancel 되었거나 이미 끝났으면 재시도 예산을 쓰지도, 다시 구독하지도 않는다
+                if (cancelled || terminated.get()) {
+                    return;
+                }
+                long delay = policy.nextDelayNanos(retry, t);
+                if (delay != RetryPolicy.NO_RETRY) {
+                    retry++;
+                    retried = true;
+                    pending = timer.schedule(this, delay, TimeUnit.NANOSECONDS);
+                    return;
+                }
+            }
+            if (terminated.compareAndSet(false, true)) {
+                emit(t);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (terminated.compareAndSet(false, true)) {
+                policy.onSuccess(retried);
+                emit(null);
+            }
+        }
+
+        void emit(Throwable t) {
+            error = t;
+            if (wip.getAndIncrement() == 0) {
+                emitTerminal();
+            }
+        }
+
+        void emitTerminal() {
+            Throwable ex = error;
+            if (ex != null) {
+                actual.onError(ex);
+            } else {
+                actual.onComplete();
+            }
+        }
+
+        /**
+         * Timer Thread에서 다시 구독한다
+         */
+        @Override
+        public void run() {
+            synchronized (this) {
+                pending = null;
+                if (cancelled || terminated.get()) {
+                    return;
+                }
+            }
+            source.subscribe(this);
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                // cancel로 재시도를 막은 뒤에 onNext와 겹치지 않게 onError를 보낸다
+                cancel();
+                if (terminated.compareAndSet(false, true)) {
+                    emit(Demands.invalidRequest(n));
+                }
+                return;
+            }
+            Subscription s;
+            synchronized (this) {
+                requested = requested + n < 0 ? Long.MAX_VALUE : requested + n;
+                s = current;
+            }
+            s.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            Subscription s;
+            ScheduledFuture<?> p;
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                s = current;
+                p = pending;
+            }
+            if (p != null) {
+                p.cancel(false);
+            }
+            s.cancel();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.terry.reactive.operator;
+
+import com.terry.reactive.scheduler.Scheduler;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * SchedulerTest의 subscribeOn_publishOn_테스트에서 만든 subOnPub을 Scheduler를 받아서 동작하도록 정리한 것이다
+ *
+ * subOnPub은 구독할때마다 newSingleThreadExecutor로 Thread를 새로 만들었는데 여기서는 Scheduler의 Worker에서 구독한다
+ * 구독뿐 아니라 request도 같은 Worker에서 실행하기 때문에 위쪽 Publisher의 onNext는 항상 Worker의 Thread에서 호출된다
+ * EventLoopScheduler의 Worker를 사용하면 같은 loop 안에서 호출한 request는 Queue를 거치지 않고 바로 실행된다
+ */
+public class SubscribeOnPublisher<T> implements Publisher<T> {
+
+    private final Publisher<T> source;
+    private final Scheduler scheduler;
+
+    public SubscribeOnPublisher(Publisher<T> source, Scheduler scheduler) {
+        this.source = source;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> sub) {
+        Scheduler.Worker worker = scheduler.createWorker();
+        worker.schedule(() -> source.subscribe(new SubscribeOnSubscriber<>(sub, worker)));
+    }
+
+    static final class SubscribeOnSubscriber<T> implements Subscriber<T>, Subscription {
+
+        final Subscriber<? super T> actual;
+        final Scheduler.Worker worker;
+        volatile Subscription upstream;
+
+        SubscribeOnSubscriber(Subscriber<? super T> actual, Scheduler.Worker worker) {
+            this.actual = actual;
+            this.worker = worker;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            this.upstream = s;
+            actual.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(T t) {
+            actual.onNext(t);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            worker.dispose();
+            actual.onError(t);
+        }
+
+        @Override
+        public void onComplete() {
+            worker.dispose();
+            actual.onComplete();
+        }
+
+        @Override
+        public void request(long n) {
+            // 0 이하의 값도 그대로 넘겨서 위쪽 Publisher가 스펙 3.9에 맞게 처리하도록 한다
+            worker.schedule(() -> upstream.request(n));
+        }
+
+        @Override
+        public void cancel() {
+            worker.dispose();
+            upstream.cancel();
+        }
+    }
+}
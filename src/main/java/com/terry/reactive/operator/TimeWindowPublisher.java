@@ -0,0 +1,177 @@
+package com.terry.reactive.operator;
+
+import com.terry.reactive.window.WindowAccumulator;
+import com.terry.reactive.window.WindowAggregate;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 시간으로 구간을 나눠서 구간마다 WindowAggregate를 보내는 Operator(예: 초당 요청 수, 1분 동안의 응답 시간 p99)
+ *
+ * 구간의 경계는 Timer(기본값은 SharedTimer)의 scheduleAtFixedRate로 slide 마다 정해진다
+ * 데이터가 오지 않아도 slide 마다 집계를 보내기 때문에(count가 0인 집계) 대시보드에서 빈 구간도 표시할 수 있다
+ *
+ * slide == timespan 이면 겹치지 않는 구간(tumbling)이고
+ * slide < timespan 이면 최근 timespan 동안의 데이터를 slide 마다 집계하는 sliding window 이다
+ * sliding은 timespan / slide 개의 작은 구간(slot)마다 WindowAccumulator를 두고 전체 합계용 WindowAccumulator를 하나 더 둔다
+ * 데이터는 현재 slot과 전체에 같이 더하고, slide가 지나면 가장 오래된 slot을 전체에서 빼고 비워서 새 slot으로 사용한다
+ * 그래서 데이터를 따로 저장하지 않고 메모리는 slot 갯수만큼만 사용한다
+ *
+ * onNext와 Timer Thread가 같은 WindowAccumulator를 사용하기 때문에 둘은 synchronized로 순서를 정한다(데이터 1개를 더하는 짧은 구간이다)
+ * 집계 결과를 아래 Subscriber에게 보내는 것은 Lock 밖에서 한다
+ */
+public class TimeWindowPublisher<T> implements Publisher<WindowAggregate> {
+
+    private final Publisher<T> source;
+    private final ToDoubleFunction<? super T> extractor;
+    private final long timespanNanos;
+    private final long slideNanos;
+    private final int slots;
+    private final ScheduledExecutorService timer;
+    private final LongAdder dropped = new LongAdder();
+
+    public TimeWindowPublisher(Publisher<T> source, ToDoubleFunction<? super T> extractor, long timespan, long slide, TimeUnit unit, ScheduledExecutorService timer) {
+        if (slide <= 0 || timespan < slide || timespan % slide != 0) {
+            throw new IllegalArgumentException("timespan must be a positive multiple of slide but it was timespan=" + timespan + ", slide=" + slide);
+        }
+        this.source = source;
+        this.extractor = extractor;
+        this.timespanNanos = unit.toNanos(timespan);
+        this.slideNanos = unit.toNanos(slide);
+        this.slots = (int) (timespan / slide);
+        this.timer = timer;
+    }
+
+    /**
+     * 아래 Subscriber가 가져가지 않아서 버린 집계 결과 갯수
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super WindowAggregate> sub) {
+        source.subscribe(new TimeWindowSubscriber(sub));
+    }
+
+    final class TimeWindowSubscriber extends WindowSubscriber<T> implements Runnable {
+
+        // 아래 값들은 synchronized(this) 안에서만 사용한다
+        final WindowAccumulator[] accumulators;
+        final WindowAccumulator total;
+        int current;
+        boolean stopped;
+
+        volatile ScheduledFuture<?> future;
+
+        TimeWindowSubscriber(Subscriber<? super WindowAggregate> actual) {
+            super(actual, TimeWindowPublisher.this.dropped);
+            this.accumulators = new WindowAccumulator[slots];
+            for (int i = 0; i < slots; i++) {
+                accumulators[i] = new WindowAccumulator();
+            }
+            this.total = slots == 1 ? accumulators[0] : new WindowAccumulator();
+        }
+
+        @Override
+        void onStart() {
+            future = timer.scheduleAtFixedRate(this, slideNanos, slideNanos, TimeUnit.NANOSECONDS);
+            if (cancelled || done) {
+                onStop();
+            }
+        }
+
+        /**
+         * request(n <= 0)로 끝날때도 호출되기 때문에 여기서 stopped를 바꿔서 그 뒤에 온 데이터와 onComplete를 무시한다
+         */
+        @Override
+        void onStop() {
+            synchronized (this) {
+                stopped = true;
+            }
+            ScheduledFuture<?> f = future;
+            if (f != null) {
+                f.cancel(false);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            double v;
+            try {
+                v = extractor.applyAsDouble(t);
+            } catch (Throwable ex) {
+                upstream.cancel();
+                stop(ex);
+                return;
+            }
+            synchronized (this) {
+                if (stopped) {
+                    return;
+                }
+                accumulators[current].add(v);
+                if (total != accumulators[current]) {
+                    total.add(v);
+                }
+            }
+        }
+
+        /**
+         * Timer Thread에서 slide 마다 실행된다
+         */
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (stopped || cancelled) {
+                    return;
+                }
+                long now = System.currentTimeMillis();
+                offer(total.snapshot(now - TimeUnit.NANOSECONDS.toMillis(timespanNanos), now));
+
+                current = current + 1 == slots ? 0 : current + 1;
+                WindowAccumulator oldest = accumulators[current];
+                if (total != oldest) {
+                    total.removeAll(oldest);
+                }
+                oldest.reset();
+            }
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            stop(t);
+        }
+
+        @Override
+        public void onComplete() {
+            synchronized (this) {
+                if (stopped) {
+                    return;
+                }
+                if (total.getCount() > 0) {
+                    // 끝나기 전까지 모인 데이터로 마지막 구간을 보낸다
+                    long now = System.currentTimeMillis();
+                    offer(total.snapshot(now - TimeUnit.NANOSECONDS.toMillis(timespanNanos), now));
+                }
+            }
+            stop(null);
+        }
+
+        void stop(Throwable t) {
+            synchronized (this) {
+                if (stopped) {
+                    return;
+                }
+                stopped = true;
+            }
+            finish(t);
+        }
+    }
+}
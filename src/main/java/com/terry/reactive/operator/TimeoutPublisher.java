@@ -0,0 +1,289 @@
+package com.terry.reactive.operator;
+
+import com.terry.reactive.support.Demands;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 구독한 뒤 첫 데이터까지, 그리고 데이터와 데이터 사이에 timeout 시간 동안 아무것도 오지 않으면
+ * 위쪽 구독을 취소하고 TimeoutException으로 끝내거나 fallback Publisher로 바꿔서 계속 진행하는 Operator
+ *
+ * onNext 마다 Timer 작업을 취소하고 다시 등록하면 데이터 1개마다 ScheduledFuture 객체가 하나씩 생기고 Timer Queue도 계속 바뀐다
+ * 여기서는 onNext 에서는 deadline(마지막 데이터 시각 + timeout) 값만 바꾸고
+ * Timer 작업이 실행되었을때 deadline이 아직 지나지 않았으면 남은 시간만큼 뒤로 다시 등록한다
+ * 그래서 데이터가 아무리 많이 와도 Timer 작업은 timeout 시간마다 최대 1번만 등록된다
+ *
+ * onNext와 Timer가 동시에 실행되어 onNext 도중에 onError가 나가지 않도록 index 값으로 순서를 정한다
+ * index가 짝수이면 데이터를 기다리는 중, 홀수이면 onNext를 전달하는 중, Long.MAX_VALUE 이면 끝난 상태이다
+ * Timer는 짝수인 index를 CAS로 Long.MAX_VALUE로 바꾸는데 성공했을때만 timeout 처리를 하고
+ * onNext는 index를 홀수로 바꾸는데 성공했을때만 전달하기 때문에 둘 중 하나만 성공한다
+ *
+ * request(n <= 0)의 onError도 같은 방법으로 보낸다(스펙 3.9)
+ * 에러를 invalidRequest에 먼저 적어두고 index가 짝수일때 CAS로 TERMINATED로 바꾸는데 성공했을때만 보낸다
+ * onNext를 전달하는 중(홀수)이면 onNext가 끝나고 index를 짝수로 돌려놓은 뒤 invalidRequest를 보고 대신 보낸다
+ * fallback으로 바뀐 뒤에는 fallback의 Subscription에 그대로 넘겨서 fallback이 onError를 보내게 한다
+ */
+public class TimeoutPublisher<T> implements Publisher<T> {
+
+    private final Publisher<T> source;
+    private final long timeoutNanos;
+    private final Publisher<? extends T> fallback;
+    private final ScheduledExecutorService timer;
+
+    /**
+     * @param fallback timeout 때 이어서 구독할 Publisher. null 이면 TimeoutException으로 끝낸다
+     */
+    public TimeoutPublisher(Publisher<T> source, long timeout, TimeUnit unit, Publisher<? extends T> fallback, ScheduledExecutorService timer) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("timeout > 0 required but it was " + timeout);
+        }
+        this.source = source;
+        this.timeoutNanos = unit.toNanos(timeout);
+        this.fallback = fallback;
+        this.timer = timer;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> sub) {
+        source.subscribe(new TimeoutSubscriber(sub));
+    }
+
+    final class TimeoutSubscriber implements Subscriber<T>, Subscription, Runnable {
+
+        static final long TERMINATED = Long.MAX_VALUE;
+
+        final Subscriber<? super T> actual;
+        final AtomicLong index = new AtomicLong();
+
+        volatile long deadline;
+        volatile ScheduledFuture<?> task;
+
+        // onNext를 전달할때만 바뀌고 index를 짝수로 돌려놓기 전에 바뀌기 때문에 Timer에서도 최신 값을 읽을 수 있다
+        volatile long produced;
+        // request(n <= 0)로 보내야 하는 에러
+        volatile Throwable invalidRequest;
+
+        // 아래 값들은 synchronized(this) 안에서만 사용한다
+        Subscription current;
+        long requested;
+        boolean cancelled;
+        // fallback으로 바뀌었는지, fallback의 onSubscribe가 호출되었는지, 그 전에 받은 잘못된 request 값
+        boolean switched;
+        boolean fallbackSubscribed;
+        long pendingInvalid;
+
+        TimeoutSubscriber(Subscriber<? super T> actual) {
+            this.actual = actual;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            synchronized (this) {
+                current = s;
+            }
+            deadline = System.nanoTime() + timeoutNanos;
+            actual.onSubscribe(this);
+            schedule(timeoutNanos);
+        }
+
+        @Override
+        public void onNext(T t) {
+            long i = index.get();
+            if (i == TERMINATED || !index.compareAndSet(i, i + 1)) {
+                // 이미 timeout 처리가 된 뒤에 늦게 도착한 데이터
+                return;
+            }
+            actual.onNext(t);
+            produced++;
+            deadline = System.nanoTime() + timeoutNanos;
+            // onNext 도중에 cancel 되었으면 index가 TERMINATED로 바뀌어 있으므로 CAS로 되돌린다
+            if (index.compareAndSet(i + 1, i + 2) && invalidRequest != null) {
+                // onNext를 전달하는 동안 request(n <= 0)가 왔다
+                emitInvalidRequest();
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (index.getAndSet(TERMINATED) != TERMINATED) {
+                stopTimer();
+                actual.onError(t);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (index.getAndSet(TERMINATED) != TERMINATED) {
+                stopTimer();
+                actual.onComplete();
+            }
+        }
+
+        /**
+         * Timer Thread에서 실행된다
+         */
+        @Override
+        public void run() {
+            long i = index.get();
+            if (i == TERMINATED) {
+                return;
+            }
+            long remaining = deadline - System.nanoTime();
+            if ((i & 1) == 1 || remaining > 0) {
+                // onNext를 전달하는 중이거나 그 사이에 데이터가 와서 deadline이 뒤로 밀린 경우
+                schedule(remaining > 0 ? remaining : timeoutNanos);
+                return;
+            }
+            if (!index.compareAndSet(i, TERMINATED)) {
+                // 방금 데이터가 왔거나 끝났다. 끝나지 않았으면 다음 deadline에 맞춰 다시 실행한다
+                if (index.get() != TERMINATED) {
+                    schedule(timeoutNanos);
+                }
+                return;
+            }
+            Subscription upstream;
+            synchronized (this) {
+                upstream = current;
+                switched = fallback != null;
+            }
+            upstream.cancel();
+            if (fallback == null) {
+                actual.onError(new TimeoutException("Did not observe any item within " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + "ms"));
+            } else {
+                fallback.subscribe(new FallbackSubscriber());
+            }
+        }
+
+        void schedule(long delayNanos) {
+            task = timer.schedule(this, delayNanos, TimeUnit.NANOSECONDS);
+            if (index.get() == TERMINATED) {
+                stopTimer();
+            }
+        }
+
+        void stopTimer() {
+            ScheduledFuture<?> f = task;
+            if (f != null) {
+                f.cancel(false);
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = Demands.invalidRequest(n);
+                emitInvalidRequest();
+                // 이미 timeout이 나서 fallback으로 바뀌었으면 fallback에 넘겨서 fallback이 onError를 보내게 한다
+                Subscription s;
+                synchronized (this) {
+                    if (!switched) {
+                        return;
+                    }
+                    if (!fallbackSubscribed) {
+                        // fallback의 onSubscribe 전이다. onSubscribe 에서 넘긴다
+                        pendingInvalid = n;
+                        return;
+                    }
+                    s = current;
+                }
+                s.request(n);
+                return;
+            }
+            Subscription s;
+            synchronized (this) {
+                requested = requested + n < 0 ? Long.MAX_VALUE : requested + n;
+                s = current;
+            }
+            s.request(n);
+        }
+
+        /**
+         * onNext를 전달하는 중이 아니고 아직 끝나지 않았을때만 invalidRequest를 보낸다
+         * 전달하는 중이면 onNext가 끝난 뒤에 다시 호출한다
+         */
+        void emitInvalidRequest() {
+            for (;;) {
+                long i = index.get();
+                if (i == TERMINATED || (i & 1) == 1) {
+                    return;
+                }
+                if (index.compareAndSet(i, TERMINATED)) {
+                    break;
+                }
+            }
+            stopTimer();
+            Subscription s;
+            synchronized (this) {
+                cancelled = true;
+                s = current;
+            }
+            s.cancel();
+            actual.onError(invalidRequest);
+        }
+
+        @Override
+        public void cancel() {
+            Subscription s;
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                s = current;
+            }
+            index.set(TERMINATED);
+            stopTimer();
+            s.cancel();
+        }
+
+        /**
+         * fallback으로 바꾼 뒤에는 아래 Subscriber의 request를 fallback으로 보내고
+         * 원래 Subscriber가 요청했지만 아직 받지 못한 갯수만큼 fallback에 먼저 요청한다
+         */
+        final class FallbackSubscriber implements Subscriber<T> {
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                long missing;
+                long invalid;
+                boolean wasCancelled;
+                synchronized (TimeoutSubscriber.this) {
+                    current = s;
+                    fallbackSubscribed = true;
+                    invalid = pendingInvalid;
+                    wasCancelled = cancelled;
+                    missing = requested == Long.MAX_VALUE ? Long.MAX_VALUE : requested - produced;
+                }
+                if (wasCancelled) {
+                    s.cancel();
+                } else if (invalid != 0L) {
+                    s.request(invalid);
+                } else if (missing > 0) {
+                    s.request(missing);
+                }
+            }
+
+            @Override
+            public void onNext(T t) {
+                actual.onNext(t);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                actual.onError(t);
+            }
+
+            @Override
+            public void onComplete() {
+                actual.onComplete();
+            }
+        }
+    }
+}
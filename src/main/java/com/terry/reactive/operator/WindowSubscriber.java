@@ -0,0 +1,169 @@
+package com.terry.reactive.operator;
+
+import com.terry.reactive.support.Demands;
+import com.terry.reactive.support.SpscArrayQueue;
+import com.terry.reactive.window.WindowAggregate;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * CountWindowPublisher, TimeWindowPublisher가 같이 사용하는 부분
+ *
+ * 집계는 데이터가 올때마다 바로 하기 때문에 위쪽에는 Long.MAX_VALUE를 요청해서 전부 받는다(집계 결과 갯수가 데이터 갯수보다 훨씬 적다)
+ * 집계 결과는 BUFFER_SIZE 크기의 Queue에 넣고 아래에서 요청한 만큼만 drain 에서 꺼내 보낸다
+ * 아래 Subscriber가 가져가지 않아서 Queue가 차면 새 결과는 버리고 dropped 갯수를 센다(IntervalPublisher의 DROP과 같다)
+ * emit, offer는 한번에 하나의 Thread에서만 호출해야 한다(Queue에 넣는 쪽이 하나여야 한다)
+ * finish는 위쪽이 끝났을때와 request(n <= 0)일때 서로 다른 Thread에서 호출될 수 있기 때문에 finished를 CAS로 바꾼 쪽의 error만 사용한다
+ */
+abstract class WindowSubscriber<T> implements Subscriber<T>, Subscription {
+
+    static final int BUFFER_SIZE = 16;
+
+    final Subscriber<? super WindowAggregate> actual;
+    final LongAdder dropped;
+    final SpscArrayQueue<WindowAggregate> queue = new SpscArrayQueue<>(BUFFER_SIZE);
+    final AtomicInteger wip = new AtomicInteger();
+    final AtomicLong requested = new AtomicLong();
+    final AtomicBoolean finished = new AtomicBoolean();
+
+    Subscription upstream;
+    volatile boolean done;
+    volatile boolean cancelled;
+    volatile Throwable error;
+
+    WindowSubscriber(Subscriber<? super WindowAggregate> actual, LongAdder dropped) {
+        this.actual = actual;
+        this.dropped = dropped;
+    }
+
+    /**
+     * 위쪽 구독이 시작된 뒤, 요청하기 전에 호출된다(Timer 시작 등)
+     */
+    abstract void onStart();
+
+    /**
+     * 취소되거나 끝났을때 호출된다(Timer 정지 등)
+     */
+    abstract void onStop();
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        this.upstream = s;
+        actual.onSubscribe(this);
+        onStart();
+        s.request(Long.MAX_VALUE);
+    }
+
+    void emit(WindowAggregate aggregate) {
+        offer(aggregate);
+        drain();
+    }
+
+    /**
+     * Lock 안에서 집계 결과를 만드는 경우 Queue에 넣기만 하고 drain(아래 Subscriber의 onNext)은 Lock 밖에서 호출한다
+     */
+    void offer(WindowAggregate aggregate) {
+        if (!queue.offer(aggregate)) {
+            dropped.increment();
+        }
+    }
+
+    void finish(Throwable t) {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        onStop();
+        error = t;
+        done = true;
+        drain();
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0L) {
+            upstream.cancel();
+            finish(Demands.invalidRequest(n));
+            return;
+        }
+        Demands.add(requested, n);
+        drain();
+    }
+
+    @Override
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        upstream.cancel();
+        onStop();
+        if (wip.getAndIncrement() == 0) {
+            queue.clear();
+        }
+    }
+
+    void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        for (;;) {
+            long r = requested.get();
+            long e = 0L;
+
+            while (e != r) {
+                boolean d = done;
+                WindowAggregate v = queue.poll();
+                boolean empty = v == null;
+                if (checkTerminated(d, empty)) {
+                    return;
+                }
+                if (empty) {
+                    break;
+                }
+                actual.onNext(v);
+                e++;
+            }
+
+            if (e == r && checkTerminated(done, queue.isEmpty())) {
+                return;
+            }
+
+            if (e != 0L) {
+                Demands.produced(requested, e);
+            }
+
+            missed = wip.addAndGet(-missed);
+            if (missed == 0) {
+                return;
+            }
+        }
+    }
+
+    boolean checkTerminated(boolean d, boolean empty) {
+        if (cancelled) {
+            queue.clear();
+            return true;
+        }
+        if (d) {
+            Throwable ex = error;
+            if (ex != null) {
+                queue.clear();
+                cancelled = true;
+                actual.onError(ex);
+                return true;
+            }
+            if (empty) {
+                cancelled = true;
+                actual.onComplete();
+                return true;
+            }
+        }
+        return false;
+    }
+}
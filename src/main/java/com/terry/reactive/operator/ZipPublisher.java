@@ -0,0 +1,217 @@
+package com.terry.reactive.operator;
+
+import com.terry.reactive.buffer.ReferenceCounted;
+import com.terry.reactive.support.Demands;
+import com.terry.reactive.support.EmptySubscription;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * 여러 Publisher에서 같은 순서에 온 데이터끼리 묶어서 combiner로 합친 값을 보내는 Operator
+ * (첫번째끼리, 두번째끼리... 묶는다. 예: 기기 하나의 센서 값 여러개를 같은 측정 순서끼리 묶기)
+ *
+ * Publisher 마다 prefetch 크기의 Queue(InnerQueueSubscriber)를 두고 그 이상은 요청하지 않기 때문에
+ * 한쪽 Publisher가 빠르고 다른 쪽이 느려도 빠른 쪽 데이터가 끝없이 쌓이지 않는다
+ *
+ * 각 Publisher의 onNext는 서로 다른 Thread에서 동시에 올 수 있는데
+ * 데이터를 Queue에 넣은 뒤 drain을 호출하고, wip 값을 0에서 올린 Thread 하나만 drain 작업을 하기 때문에 synchronized가 필요 없다
+ * 하나라도 데이터 없이 끝나면 더 이상 묶을 수 없기 때문에 나머지는 cancel 하고 onComplete 한다
+ */
+public class ZipPublisher<R> implements Publisher<R> {
+
+    public static final int DEFAULT_PREFETCH = 32;
+
+    private final Publisher<?>[] sources;
+    private final Function<? super Object[], ? extends R> combiner;
+    private final int prefetch;
+
+    public ZipPublisher(Publisher<?>[] sources, Function<? super Object[], ? extends R> combiner, int prefetch) {
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch > 0 required but it was " + prefetch);
+        }
+        this.sources = sources.clone();
+        this.combiner = combiner;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super R> sub) {
+        if (sources.length == 0) {
+            sub.onSubscribe(EmptySubscription.INSTANCE);
+            sub.onComplete();
+            return;
+        }
+        ZipCoordinator<R> coordinator = new ZipCoordinator<>(sub, combiner, sources.length, prefetch);
+        sub.onSubscribe(coordinator);
+        coordinator.subscribe(sources);
+    }
+
+    static final class ZipCoordinator<R> implements Subscription, InnerQueueSubscriber.Parent {
+
+        final Subscriber<? super R> actual;
+        final Function<? super Object[], ? extends R> combiner;
+        final InnerQueueSubscriber<Object>[] inners;
+        final AtomicInteger wip = new AtomicInteger();
+        final AtomicLong requested = new AtomicLong();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        volatile boolean cancelled;
+
+        // drain 안에서만 사용한다. 아직 묶지 못한 각 Publisher의 값
+        final Object[] values;
+
+        ZipCoordinator(Subscriber<? super R> actual, Function<? super Object[], ? extends R> combiner, int n, int prefetch) {
+            this.actual = actual;
+            this.combiner = combiner;
+            // 제네릭 타입의 배열은 바로 만들 수 없어서 raw 배열을 만들어 대입한다(배열에는 InnerQueueSubscriber<Object>만 넣는다)
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            InnerQueueSubscriber<Object>[] array = new InnerQueueSubscriber[n];
+            this.inners = array;
+            for (int i = 0; i < n; i++) {
+                inners[i] = new InnerQueueSubscriber<>(this, prefetch);
+            }
+            this.values = new Object[n];
+        }
+
+        @SuppressWarnings("unchecked")
+        void subscribe(Publisher<?>[] sources) {
+            for (int i = 0; i < sources.length && !cancelled && error.get() == null; i++) {
+                ((Publisher<Object>) sources[i]).subscribe(inners[i]);
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0L) {
+                innerError(Demands.invalidRequest(n));
+                return;
+            }
+            Demands.add(requested, n);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            cancelAll();
+            if (wip.getAndIncrement() == 0) {
+                clearAll();
+            }
+        }
+
+        @Override
+        public void innerError(Throwable t) {
+            if (error.compareAndSet(null, t)) {
+                drain();
+            }
+        }
+
+        @Override
+        public void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            int n = inners.length;
+            for (;;) {
+                long r = requested.get();
+                long e = 0L;
+
+                for (;;) {
+                    if (cancelled) {
+                        clearAll();
+                        return;
+                    }
+                    Throwable ex = error.get();
+                    if (ex != null) {
+                        terminate();
+                        actual.onError(ex);
+                        return;
+                    }
+
+                    boolean empty = false;
+                    for (int i = 0; i < n; i++) {
+                        if (values[i] != null) {
+                            continue;
+                        }
+                        InnerQueueSubscriber<Object> inner = inners[i];
+                        boolean d = inner.done;
+                        Object v = inner.queue.poll();
+                        if (v == null) {
+                            if (d) {
+                                terminate();
+                                actual.onComplete();
+                                return;
+                            }
+                            empty = true;
+                        } else {
+                            values[i] = v;
+                        }
+                    }
+
+                    if (empty || e == r) {
+                        break;
+                    }
+
+                    R result;
+                    try {
+                        result = Objects.requireNonNull(combiner.apply(values.clone()), "The combiner returned a null value");
+                    } catch (Throwable t) {
+                        terminate();
+                        actual.onError(t);
+                        return;
+                    }
+                    Arrays.fill(values, null);
+                    for (InnerQueueSubscriber<Object> inner : inners) {
+                        inner.consumedOne();
+                    }
+
+                    actual.onNext(result);
+                    e++;
+                }
+
+                if (e != 0L) {
+                    Demands.produced(requested, e);
+                }
+
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        void terminate() {
+            cancelled = true;
+            cancelAll();
+            clearAll();
+        }
+
+        void cancelAll() {
+            for (InnerQueueSubscriber<Object> inner : inners) {
+                inner.cancel();
+            }
+        }
+
+        void clearAll() {
+            for (int i = 0; i < values.length; i++) {
+                ReferenceCounted.safeRelease(values[i]);
+                values[i] = null;
+            }
+            for (InnerQueueSubscriber<Object> inner : inners) {
+                inner.clear();
+            }
+        }
+    }
+}
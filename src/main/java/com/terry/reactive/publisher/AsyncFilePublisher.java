@@ -0,0 +1,175 @@
+package com.terry.reactive.publisher;
+
+import com.terry.reactive.support.Demands;
+import com.terry.reactive.support.EmptySubscription;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AsynchronousFileChannel로 파일을 읽어서 request 받은 갯수만큼 ByteBuffer로 보내는 Publisher
+ *
+ * read를 호출한 Thread는 읽기가 끝날때까지 기다리지 않고 바로 돌아가고 읽기가 끝나면 channel의 Thread에서 onNext가 호출된다
+ * 그래서 request를 호출하는 Thread(WebFlux의 event loop 등)가 Disk I/O 때문에 막히지 않는다
+ *
+ * 구독 하나당 chunkSize 크기의 direct ByteBuffer 하나만 만들어서 모든 read에 다시 사용한다
+ * (Heap ByteBuffer로 읽으면 JDK가 내부의 임시 direct buffer로 읽은 다음 한번 더 복사한다)
+ * 다음 read는 onNext가 끝난 뒤에 시작하기 때문에 onNext로 받은 ByteBuffer는 onNext 안에서 다 사용하거나 복사해야 한다
+ * onNext 이후에도 데이터를 사용해야 하는 경우는 MappedFilePublisher를 사용한다
+ *
+ * read는 한번에 하나만 진행하기 때문에 onNext가 동시에 호출되는 일은 없다
+ */
+@Slf4j
+public class AsyncFilePublisher implements Publisher<ByteBuffer> {
+
+    private final Path path;
+    private final int chunkSize;
+    private final ExecutorService executor;
+
+    public AsyncFilePublisher(Path path) {
+        this(path, MappedFilePublisher.DEFAULT_CHUNK_SIZE, null);
+    }
+
+    /**
+     * @param executor 읽기가 끝난 뒤 onNext를 호출할 Thread Pool. null 이면 JDK의 기본 Thread Pool을 사용한다
+     */
+    public AsyncFilePublisher(Path path, int chunkSize, ExecutorService executor) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize > 0 required but it was " + chunkSize);
+        }
+        this.path = path;
+        this.chunkSize = chunkSize;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ByteBuffer> sub) {
+        AsynchronousFileChannel channel;
+        long size;
+        try {
+            channel = AsynchronousFileChannel.open(path, Collections.singleton(StandardOpenOption.READ), executor);
+            size = channel.size();
+        } catch (IOException e) {
+            EmptySubscription.error(sub, e);
+            return;
+        }
+        sub.onSubscribe(new AsyncFileSubscription(sub, channel, size));
+    }
+
+    final class AsyncFileSubscription implements Subscription, CompletionHandler<Integer, Void> {
+
+        final Subscriber<? super ByteBuffer> actual;
+        final AsynchronousFileChannel channel;
+        final long size;
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(chunkSize);
+        final AtomicLong requested = new AtomicLong();
+        final AtomicInteger wip = new AtomicInteger();
+
+        volatile boolean reading;
+        volatile boolean cancelled;
+        volatile Throwable error;
+        boolean terminated;
+
+        // read가 끝난 뒤 reading = false 전에 바뀌고 drain 에서는 reading이 false 일때만 읽기 때문에 volatile이 아니어도 된다
+        long position;
+
+        AsyncFileSubscription(Subscriber<? super ByteBuffer> actual, AsynchronousFileChannel channel, long size) {
+            this.actual = actual;
+            this.channel = channel;
+            this.size = size;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = Demands.invalidRequest(n);
+            } else {
+                Demands.add(requested, n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        /**
+         * 진행 중인 read가 없을때만 다음 read를 시작하거나 종료 신호를 보낸다
+         * 진행 중인 read가 있으면 그 read가 끝난 뒤 completed/failed 에서 다시 drain을 호출한다
+         */
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                if (!reading && !terminated) {
+                    if (cancelled) {
+                        terminate();
+                    } else if (error != null) {
+                        terminate();
+                        actual.onError(error);
+                    } else if (position == size) {
+                        terminate();
+                        actual.onComplete();
+                    } else if (requested.get() != 0L) {
+                        reading = true;
+                        buffer.clear();
+                        channel.read(buffer, position, null, this);
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void completed(Integer read, Void attachment) {
+            if (read < 0) {
+                // 읽는 도중에 파일이 작아진 경우
+                position = size;
+            } else if (read > 0 && !cancelled) {
+                position += read;
+                buffer.flip();
+                actual.onNext(buffer);
+                Demands.produced(requested, 1);
+            }
+            reading = false;
+            drain();
+        }
+
+        @Override
+        public void failed(Throwable ex, Void attachment) {
+            if (!cancelled) {
+                error = ex;
+            }
+            reading = false;
+            drain();
+        }
+
+        void terminate() {
+            terminated = true;
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("failed to close {}", path, e);
+            }
+        }
+    }
+}
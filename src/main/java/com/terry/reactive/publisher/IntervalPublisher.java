@@ -0,0 +1,247 @@
+package com.terry.reactive.publisher;
+
+import com.terry.reactive.scheduler.SharedTimer;
+import com.terry.reactive.support.Demands;
+import com.terry.reactive.support.OverflowStrategy;
+import com.terry.reactive.support.SpscArrayQueue;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SchedulerTest의 FluxIntervalUsingNative에서 만든 interval Publisher는 request(n)의 n을 무시하고 Timer가 실행될때마다 무조건 onNext를 호출했다
+ * 그래서 Subscriber가 느리면 요청하지도 않은 데이터가 계속 밀려 들어오고 중간에 이걸 쌓아두는 곳이 있으면 메모리가 끝없이 늘어난다
+ *
+ * 이 Publisher는 request 받은 갯수를 기억해두고 요청이 남아 있을때만 onNext를 호출한다
+ * 요청이 없는데 Timer가 실행된 경우(tick이 넘치는 경우)는 OverflowStrategy에 따라 에러를 내거나, 버리거나, 최신 값만 남기거나, 정해진 크기만큼만 쌓아둔다
+ * 어떤 전략이든 쌓아두는 크기가 고정되어 있기 때문에 Subscriber가 느려도 메모리 사용량은 일정하다
+ * 버린 tick 갯수는 getDroppedCount 메소드로 확인할 수 있다
+ * SpscArrayQueue는 크기를 2의 거듭제곱으로 올려서 만들기 때문에 BUFFER 전략은 Queue에 들어있는 갯수(size)를 보고 정확히 bufferSize 개까지만 쌓아둔다
+ *
+ * Timer는 구독마다 새로 만들지 않고 생성자로 받은 ScheduledExecutorService(기본값은 SharedTimer)를 같이 사용한다
+ */
+public class IntervalPublisher implements Publisher<Long> {
+
+    static final int DEFAULT_BUFFER_SIZE = 32;
+
+    private final long initialDelay;
+    private final long period;
+    private final TimeUnit unit;
+    private final OverflowStrategy strategy;
+    private final int bufferSize;
+    private final ScheduledExecutorService timer;
+    private final LongAdder dropped = new LongAdder();
+
+    public IntervalPublisher(long period, TimeUnit unit, OverflowStrategy strategy) {
+        this(0, period, unit, strategy, DEFAULT_BUFFER_SIZE, SharedTimer.get());
+    }
+
+    /**
+     * @param bufferSize OverflowStrategy.BUFFER 일때 쌓아둘 수 있는 tick 갯수(다른 전략에서는 Subscriber에게 전달되기 전 잠깐 머무는 Queue 크기로 사용한다)
+     */
+    public IntervalPublisher(long initialDelay, long period, TimeUnit unit, OverflowStrategy strategy, int bufferSize, ScheduledExecutorService timer) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("period > 0 required but it was " + period);
+        }
+        this.initialDelay = initialDelay;
+        this.period = period;
+        this.unit = unit;
+        this.strategy = strategy;
+        this.bufferSize = bufferSize;
+        this.timer = timer;
+    }
+
+    /**
+     * 이 Publisher를 구독한 모든 Subscriber에서 버려진 tick의 갯수
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super Long> sub) {
+        IntervalSubscription subscription = new IntervalSubscription(sub);
+        sub.onSubscribe(subscription);
+        subscription.start();
+    }
+
+    final class IntervalSubscription implements Subscription, Runnable {
+
+        final Subscriber<? super Long> actual;
+        final AtomicLong requested = new AtomicLong();
+        final AtomicInteger wip = new AtomicInteger();
+        final SpscArrayQueue<Long> queue;
+        final AtomicReference<Long> latest = new AtomicReference<>();
+
+        volatile boolean cancelled;
+        volatile ScheduledFuture<?> future;
+        volatile Throwable error;
+
+        // Timer Thread 에서만 사용하는 값
+        long count;
+
+        IntervalSubscription(Subscriber<? super Long> actual) {
+            this.actual = actual;
+            this.queue = strategy == OverflowStrategy.LATEST ? null : new SpscArrayQueue<>(bufferSize);
+        }
+
+        void start() {
+            if (cancelled) {
+                return;
+            }
+            future = timer.scheduleAtFixedRate(this, initialDelay, period, unit);
+            if (cancelled) {
+                future.cancel(false);
+            }
+        }
+
+        /**
+         * Timer Thread에서 주기적으로 실행된다
+         */
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+            Long tick = count++;
+            switch (strategy) {
+                case LATEST:
+                    if (latest.getAndSet(tick) != null) {
+                        dropped.increment();
+                    }
+                    break;
+                case BUFFER:
+                    // size는 꺼내는 중이면 실제보다 크게 나올 수 있지만 bufferSize를 넘게 쌓이지는 않는다
+                    if (queue.size() >= bufferSize || !queue.offer(tick)) {
+                        dropped.increment();
+                    }
+                    break;
+                case DROP:
+                    if (!hasRoom() || !queue.offer(tick)) {
+                        dropped.increment();
+                    }
+                    break;
+                case ERROR:
+                default:
+                    if (!hasRoom() || !queue.offer(tick)) {
+                        // drain 하는 쪽에서 cancelled를 보기 전에 error가 먼저 보이도록 error를 먼저 설정한다
+                        error = new IllegalStateException("Could not emit tick " + tick + " due to lack of requests");
+                        stopTimer();
+                    }
+                    break;
+            }
+            drain();
+        }
+
+        /**
+         * 아직 전달하지 못하고 Queue에 남아 있는 갯수보다 요청이 더 남아 있는지 확인한다
+         */
+        boolean hasRoom() {
+            return requested.get() > queue.size();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = Demands.invalidRequest(n);
+                stopTimer();
+            } else {
+                Demands.add(requested, n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            stopTimer();
+            if (wip.getAndIncrement() == 0) {
+                clear();
+            }
+        }
+
+        void stopTimer() {
+            cancelled = true;
+            ScheduledFuture<?> f = future;
+            if (f != null) {
+                f.cancel(false);
+            }
+        }
+
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                long r = requested.get();
+                long e = 0L;
+
+                while (e != r) {
+                    if (terminate()) {
+                        return;
+                    }
+                    Long v = poll();
+                    if (v == null) {
+                        break;
+                    }
+                    actual.onNext(v);
+                    e++;
+                }
+
+                if (terminate()) {
+                    return;
+                }
+
+                if (e != 0L) {
+                    Demands.produced(requested, e);
+                }
+
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * interval은 onComplete가 없고 에러가 나거나 취소되었을때만 끝난다
+         */
+        boolean terminate() {
+            Throwable ex = error;
+            if (ex != null) {
+                error = null;
+                clear();
+                actual.onError(ex);
+                return true;
+            }
+            if (cancelled) {
+                clear();
+                return true;
+            }
+            return false;
+        }
+
+        Long poll() {
+            return queue == null ? latest.getAndSet(null) : queue.poll();
+        }
+
+        void clear() {
+            if (queue == null) {
+                latest.set(null);
+            } else {
+                queue.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.terry.reactive.publisher;
+
+import com.terry.reactive.support.Demands;
+import com.terry.reactive.support.EmptySubscription;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 파일을 chunkSize 크기의 ByteBuffer로 나눠서 request 받은 갯수만큼만 보내는 Publisher
+ *
+ * 파일을 읽어서 byte[]에 복사하지 않고 FileChannel.map으로 파일을 메모리에 mapping 한 뒤 그 일부분을 가리키는 ByteBuffer(slice)를 전달한다
+ * slice는 같은 메모리를 가리키는 view 라서 데이터 복사도, chunk 크기만큼의 메모리 할당도 없고 Heap도 사용하지 않는다
+ * 실제 데이터는 OS의 page cache에 있기 때문에 파일이 몇 GB 라도 Heap 사용량은 일정하다
+ *
+ * 2GB가 넘는 파일은 한번에 mapping 할 수 없기 때문에 windowSize(기본 64MB) 단위로 나눠서 mapping 하고 window를 다 보내면 다음 window를 mapping 한다
+ * 전달한 chunk는 다른 데이터로 덮어쓰지 않기 때문에 Subscriber가 onNext 이후에 비동기로 사용(Socket에 쓰기 등)해도 된다
+ * 대신 JDK 8에는 mapping을 바로 해제하는 공개 API가 없어서 mapping된 메모리는 chunk가 GC 될때 해제된다
+ */
+@Slf4j
+public class MappedFilePublisher implements Publisher<ByteBuffer> {
+
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    static final long DEFAULT_WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private final Path path;
+    private final int chunkSize;
+    private final long windowSize;
+
+    public MappedFilePublisher(Path path) {
+        this(path, DEFAULT_CHUNK_SIZE);
+    }
+
+    public MappedFilePublisher(Path path, int chunkSize) {
+        this(path, chunkSize, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param windowSize 한번에 mapping 할 크기. chunk가 window 경계에서 잘리지 않도록 chunkSize의 배수로 내림한다
+     */
+    public MappedFilePublisher(Path path, int chunkSize, long windowSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize > 0 required but it was " + chunkSize);
+        }
+        if (windowSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("windowSize <= Integer.MAX_VALUE required but it was " + windowSize);
+        }
+        this.path = path;
+        this.chunkSize = chunkSize;
+        this.windowSize = Math.max(chunkSize, windowSize - windowSize % chunkSize);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ByteBuffer> sub) {
+        FileChannel channel;
+        long size;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            size = channel.size();
+        } catch (IOException e) {
+            EmptySubscription.error(sub, e);
+            return;
+        }
+        sub.onSubscribe(new MappedSubscription(sub, channel, size));
+    }
+
+    final class MappedSubscription implements Subscription {
+
+        final Subscriber<? super ByteBuffer> actual;
+        final FileChannel channel;
+        final long size;
+        final AtomicLong requested = new AtomicLong();
+        // onComplete, onError, cancel 중 CAS로 먼저 바꾼 쪽만 channel을 닫고 끝내는 신호를 보낸다
+        final AtomicBoolean terminated = new AtomicBoolean();
+        volatile boolean cancelled;
+        // request(n <= 0)로 보내야 하는 에러. 보내는 작업을 하는 Thread가 onNext 사이에 보낸다
+        volatile Throwable invalidRequest;
+
+        // 아래 값들은 requested를 0에서 올린 Thread 하나만 사용한다
+        long position;
+        MappedByteBuffer window;
+
+        MappedSubscription(Subscriber<? super ByteBuffer> actual, FileChannel channel, long size) {
+            this.actual = actual;
+            this.channel = channel;
+            this.size = size;
+        }
+
+        /**
+         * RangePublisher와 같이 requested 값을 0에서 올린 Thread만 보내는 작업을 하기 때문에
+         * 여러 Thread에서 request 해도 onNext는 동시에 호출되지 않는다
+         * request(n <= 0)도 에러를 적어두고 requested를 1 올려서 보내는 작업을 하는 Thread가 onError를 보내게 한다
+         */
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = Demands.invalidRequest(n);
+                n = 1;
+            }
+            if (Demands.add(requested, n) != 0) {
+                return;
+            }
+            long r = requested.get();
+            for (;;) {
+                long e = 0L;
+                while (e != r) {
+                    if (cancelled) {
+                        return;
+                    }
+                    Throwable invalid = invalidRequest;
+                    if (invalid != null) {
+                        terminate(invalid);
+                        return;
+                    }
+                    if (position == size) {
+                        break;
+                    }
+                    ByteBuffer chunk;
+                    try {
+                        chunk = nextChunk();
+                    } catch (IOException ex) {
+                        terminate(ex);
+                        return;
+                    }
+                    actual.onNext(chunk);
+                    e++;
+                }
+                // 마지막 chunk를 보냈으면 request를 한번 더 기다리지 않고 바로 onComplete를 보낸다
+                if (position == size) {
+                    terminate(null);
+                    return;
+                }
+                r = Demands.produced(requested, e);
+                if (r == 0L) {
+                    return;
+                }
+            }
+        }
+
+        ByteBuffer nextChunk() throws IOException {
+            if (window == null || !window.hasRemaining()) {
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, size - position));
+            }
+            int length = Math.min(chunkSize, window.remaining());
+            ByteBuffer chunk = window.slice();
+            chunk.limit(length);
+            window.position(window.position() + length);
+            position += length;
+            return chunk;
+        }
+
+        /**
+         * 보내는 작업을 하는 Thread에서만 호출한다. t가 null 이면 onComplete
+         */
+        void terminate(Throwable t) {
+            if (!terminated.compareAndSet(false, true)) {
+                return;
+            }
+            cancelled = true;
+            close();
+            if (t != null) {
+                actual.onError(t);
+            } else {
+                actual.onComplete();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            if (terminated.compareAndSet(false, true)) {
+                close();
+            }
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("failed to close {}", path, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.terry.reactive.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 1초에 permitsPerSecond 개, 한번에 최대 burst 개까지 허용하는 token bucket
+ *
+ * 보통의 token bucket은 (남은 token 수, 마지막으로 채운 시각) 두 값을 같이 바꿔야 해서 lock이 필요하다
+ * 여기서는 GCRA(Generic Cell Rate Algorithm) 방식으로 "다음 token이 생기는 이론상의 시각"(tat) 하나만 AtomicLong에 저장한다
+ * token 1개는 interval(= 1초 / permitsPerSecond) 만큼의 시간이고, tat가 (지금 + burst * interval) 보다 앞에 있는 만큼이 남은 token 이다
+ * token k개를 가져가는 것은 tat를 k * interval 만큼 뒤로 미는 것이라 CAS 한번으로 끝난다(RetryBudget과 같은 방식)
+ * 그래서 여러 Thread, 여러 구독에서 하나의 RateLimiter를 같이 사용해도 lock 없이 전체 속도를 제한할 수 있다
+ *
+ * 오래 사용하지 않아서 tat가 지금보다 과거가 되어도 지금 시각에서 다시 시작하기 때문에 쌓이는 token은 burst 개를 넘지 않는다
+ */
+public final class RateLimiter {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int burst;
+    private final LongSupplier clock;
+    private final AtomicLong tat;
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+
+    public RateLimiter(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    /**
+     * @param clock nano 단위 시각(테스트에서 시간을 직접 움직일때 사용한다)
+     */
+    public RateLimiter(double permitsPerSecond, int burst, LongSupplier clock) {
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("permitsPerSecond > 0 required but it was " + permitsPerSecond);
+        }
+        if (burst <= 0) {
+            throw new IllegalArgumentException("burst > 0 required but it was " + burst);
+        }
+        this.intervalNanos = Math.max(1L, Math.round(1_000_000_000d / permitsPerSecond));
+        this.burstNanos = intervalNanos * burst;
+        this.burst = burst;
+        this.clock = clock;
+        this.tat = new AtomicLong(clock.getAsLong());
+    }
+
+    /**
+     * 지금 남아있는 만큼 최대 n개의 token을 가져간다. 기다리지 않는다
+     * @return 가져간 token 갯수(0 ~ min(n, burst))
+     */
+    public long tryAcquire(long n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n > 0 required but it was " + n);
+        }
+        for (;;) {
+            long now = clock.getAsLong();
+            long t = tat.get();
+            long base = t - now > 0 ? t : now;
+            long available = (now + burstNanos - base) / intervalNanos;
+            if (available <= 0) {
+                throttled.increment();
+                return 0;
+            }
+            long k = Math.min(n, available);
+            if (tat.compareAndSet(t, base + k * intervalNanos)) {
+                acquired.add(k);
+                return k;
+            }
+        }
+    }
+
+    public boolean tryAcquire() {
+        return tryAcquire(1) == 1;
+    }
+
+    /**
+     * 다음 token이 생길때까지 남은 시간(nano). 지금 가져갈 수 있으면 0
+     */
+    public long nanosToNextPermit() {
+        long now = clock.getAsLong();
+        long t = tat.get();
+        long base = t - now > 0 ? t : now;
+        return Math.max(0L, base + intervalNanos - burstNanos - now);
+    }
+
+    /**
+     * 지금 가져갈 수 있는 token 갯수
+     */
+    public long getAvailablePermits() {
+        long now = clock.getAsLong();
+        long t = tat.get();
+        long base = t - now > 0 ? t : now;
+        return Math.max(0L, (now + burstNanos - base) / intervalNanos);
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    public double getPermitsPerSecond() {
+        return 1_000_000_000d / intervalNanos;
+    }
+
+    /**
+     * 지금까지 가져간 token 갯수
+     */
+    public long getAcquiredCount() {
+        return acquired.sum();
+    }
+
+    /**
+     * token이 없어서 한개도 가져가지 못한 횟수
+     */
+    public long getThrottledCount() {
+        return throttled.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimiter(permitsPerSecond=" + String.format("%.2f", getPermitsPerSecond()) + ", burst=" + burst
+                + ", available=" + getAvailablePermits() + ", acquired=" + getAcquiredCount() + ", throttled=" + getThrottledCount() + ")";
+    }
+}
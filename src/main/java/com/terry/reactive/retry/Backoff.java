@@ -0,0 +1,61 @@
+package com.terry.reactive.retry;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 재시도 사이에 기다릴 시간을 계산한다
+ *
+ * n번째 재시도(0부터 시작)는 firstBackoff * 2^n 만큼 기다리고 maxBackoff를 넘지 않는다
+ * 여러 클라이언트가 같은 장애를 같은 시각에 만나면 재시도도 같은 시각에 몰리기 때문에
+ * 계산한 시간에서 ±(시간 * jitter) 범위의 임의의 값을 더해서 재시도 시각을 흩어지게 한다(jitter = 0 이면 흩어지지 않는다)
+ */
+public final class Backoff {
+
+    private final int maxRetries;
+    private final long firstBackoffNanos;
+    private final long maxBackoffNanos;
+    private final double jitter;
+
+    public Backoff(int maxRetries, long firstBackoff, long maxBackoff, TimeUnit unit, double jitter) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("maxRetries >= 0 required but it was " + maxRetries);
+        }
+        if (firstBackoff <= 0 || maxBackoff < firstBackoff) {
+            throw new IllegalArgumentException("0 < firstBackoff <= maxBackoff required but it was " + firstBackoff + ", " + maxBackoff);
+        }
+        if (jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("jitter must be between 0 and 1 but it was " + jitter);
+        }
+        this.maxRetries = maxRetries;
+        this.firstBackoffNanos = unit.toNanos(firstBackoff);
+        this.maxBackoffNanos = unit.toNanos(maxBackoff);
+        this.jitter = jitter;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * @param retry 몇번째 재시도인지(0부터 시작)
+     * @return 기다릴 시간(nano seconds)
+     */
+    public long delayNanos(int retry) {
+        long delay = retry >= 62 || firstBackoffNanos > (maxBackoffNanos >> retry)
+                ? maxBackoffNanos
+                : Math.min(maxBackoffNanos, firstBackoffNanos << retry);
+        if (jitter == 0) {
+            return delay;
+        }
+        long offset = (long) (delay * jitter);
+        long jittered = delay + ThreadLocalRandom.current().nextLong(-offset, offset + 1);
+        return Math.max(firstBackoffNanos, Math.min(maxBackoffNanos, jittered));
+    }
+
+    @Override
+    public String toString() {
+        return "Backoff(maxRetries=" + maxRetries + ", firstBackoff=" + TimeUnit.NANOSECONDS.toMillis(firstBackoffNanos)
+                + "ms, maxBackoff=" + TimeUnit.NANOSECONDS.toMillis(maxBackoffNanos) + "ms, jitter=" + jitter + ")";
+    }
+}
@@ -0,0 +1,66 @@
+package com.terry.reactive.retry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 재시도를 얼마나 허용할지 정하는 예산(token bucket)
+ *
+ * 서비스가 느려지거나 장애가 나면 모든 호출이 실패하고, 호출마다 재시도를 최대 횟수까지 하면 부하가 몇 배로 늘어서 회복을 더 어렵게 만든다
+ * 그래서 gRPC의 retry throttling 처럼 maxTokens 에서 시작해서 실패할때마다 token을 1개 빼고 성공할때마다 tokenRatio 만큼 더한다
+ * token이 maxTokens의 절반 이하로 떨어지면 재시도를 하지 않고 바로 실패시킨다
+ * 성공이 다시 늘어나면 token이 채워지면서 재시도도 다시 허용된다
+ *
+ * 같은 서비스를 호출하는 곳들이 하나의 RetryBudget을 같이 사용해야 의미가 있다
+ * 소수점 값을 AtomicLong에 CAS로 더하고 빼기 위해 token을 1000배 해서 저장한다
+ */
+public final class RetryBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long maxTokens;
+    private final long threshold;
+    private final long tokenRatio;
+    private final AtomicLong tokens;
+
+    public RetryBudget(int maxTokens, double tokenRatio) {
+        if (maxTokens <= 0) {
+            throw new IllegalArgumentException("maxTokens > 0 required but it was " + maxTokens);
+        }
+        if (tokenRatio <= 0) {
+            throw new IllegalArgumentException("tokenRatio > 0 required but it was " + tokenRatio);
+        }
+        this.maxTokens = maxTokens * SCALE;
+        this.threshold = this.maxTokens / 2;
+        this.tokenRatio = (long) (tokenRatio * SCALE);
+        this.tokens = new AtomicLong(this.maxTokens);
+    }
+
+    public void onSuccess() {
+        for (;;) {
+            long t = tokens.get();
+            if (t == maxTokens) {
+                return;
+            }
+            if (tokens.compareAndSet(t, Math.min(maxTokens, t + tokenRatio))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 실패를 기록하고 재시도를 해도 되는지 알려준다
+     */
+    public boolean onFailure() {
+        for (;;) {
+            long t = tokens.get();
+            long u = Math.max(0, t - SCALE);
+            if (t == u || tokens.compareAndSet(t, u)) {
+                return u > threshold;
+            }
+        }
+    }
+
+    public double getTokens() {
+        return tokens.get() / (double) SCALE;
+    }
+}
@@ -0,0 +1,84 @@
+package com.terry.reactive.retry;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * 에러가 났을때 재시도를 할지, 한다면 얼마 뒤에 할지 정하고 그 결과를 통계로 남긴다
+ * RetryPublisher와 Futures.retry가 같이 사용한다
+ *
+ * 재시도 여부는 아래 순서로 정한다
+ * 1. retryOn에 맞지 않는 에러(예: 잘못된 요청)는 재시도해도 같은 결과이기 때문에 바로 실패
+ * 2. Backoff의 maxRetries를 다 썼으면 실패
+ * 3. RetryBudget이 있으면 예산이 남아 있을때만 재시도
+ *
+ * 통계 값은 여러 Thread에서 동시에 더하기 때문에 CAS 경합이 적은 LongAdder를 사용했다
+ */
+public final class RetryPolicy {
+
+    /**
+     * 재시도하지 않을때 nextDelayNanos가 돌려주는 값
+     */
+    public static final long NO_RETRY = -1L;
+
+    private final Backoff backoff;
+    private final RetryBudget budget;
+    private final Predicate<? super Throwable> retryOn;
+
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder recovered = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+    private final LongAdder rejectedByBudget = new LongAdder();
+    private final LongAdder notRetryable = new LongAdder();
+
+    public RetryPolicy(Backoff backoff) {
+        this(backoff, null, t -> true);
+    }
+
+    /**
+     * @param budget null 이면 예산 제한 없이 maxRetries 까지 재시도한다
+     */
+    public RetryPolicy(Backoff backoff, RetryBudget budget, Predicate<? super Throwable> retryOn) {
+        this.backoff = backoff;
+        this.budget = budget;
+        this.retryOn = retryOn;
+    }
+
+    /**
+     * @param retry 이번이 몇번째 재시도인지(0부터 시작)
+     * @return 재시도 전에 기다릴 시간(nano seconds). 재시도하지 않으면 NO_RETRY
+     */
+    public long nextDelayNanos(int retry, Throwable error) {
+        if (!retryOn.test(error)) {
+            notRetryable.increment();
+            return NO_RETRY;
+        }
+        boolean allowed = budget == null || budget.onFailure();
+        if (retry >= backoff.getMaxRetries()) {
+            exhausted.increment();
+            return NO_RETRY;
+        }
+        if (!allowed) {
+            rejectedByBudget.increment();
+            return NO_RETRY;
+        }
+        retries.increment();
+        return backoff.delayNanos(retry);
+    }
+
+    /**
+     * @param retried 재시도 끝에 성공했는지
+     */
+    public void onSuccess(boolean retried) {
+        if (budget != null) {
+            budget.onSuccess();
+        }
+        if (retried) {
+            recovered.increment();
+        }
+    }
+
+    public RetryStats getStats() {
+        return new RetryStats(retries.sum(), recovered.sum(), exhausted.sum(), rejectedByBudget.sum(), notRetryable.sum());
+    }
+}
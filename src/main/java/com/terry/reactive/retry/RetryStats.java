@@ -0,0 +1,52 @@
+package com.terry.reactive.retry;
+
+/**
+ * RetryPolicy의 통계
+ * retries : 재시도를 예약한 횟수
+ * recovered : 재시도 끝에 성공한 횟수
+ * exhausted : 최대 재시도 횟수를 다 쓰고 실패한 횟수
+ * rejectedByBudget : RetryBudget이 부족해서 재시도하지 않고 실패한 횟수
+ * notRetryable : 재시도 대상이 아닌 에러로 실패한 횟수
+ */
+public class RetryStats {
+
+    private final long retries;
+    private final long recovered;
+    private final long exhausted;
+    private final long rejectedByBudget;
+    private final long notRetryable;
+
+    public RetryStats(long retries, long recovered, long exhausted, long rejectedByBudget, long notRetryable) {
+        this.retries = retries;
+        this.recovered = recovered;
+        this.exhausted = exhausted;
+        this.rejectedByBudget = rejectedByBudget;
+        this.notRetryable = notRetryable;
+    }
+
+    public long getRetries() {
+        return retries;
+    }
+
+    public long getRecovered() {
+        return recovered;
+    }
+
+    public long getExhausted() {
+        return exhausted;
+    }
+
+    public long getRejectedByBudget() {
+        return rejectedByBudget;
+    }
+
+    public long getNotRetryable() {
+        return notRetryable;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryStats(retries=" + retries + ", recovered=" + recovered + ", exhausted=" + exhausted
+                + ", rejectedByBudget=" + rejectedByBudget + ", notRetryable=" + notRetryable + ")";
+    }
+}
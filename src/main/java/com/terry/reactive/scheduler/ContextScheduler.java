@@ -0,0 +1,116 @@
+package com.terry.reactive.scheduler;
+
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 구독한 Thread의 MDC(traceId 등)를 Worker의 Thread에서도 볼 수 있게 해주는 Scheduler
+ *
+ * subscribeOn, publishOn으로 다른 Thread에 넘어가면 MDC는 ThreadLocal 이기 때문에 비어있게 되고 로그로는 Thread 이름밖에 알 수 없다
+ * onNext 마다 MDC를 복사해서 넣으면 데이터 1개마다 Map 복사와 ThreadLocal 쓰기가 생긴다
+ * 여기서는 createWorker가 호출될때(구독할때) MDC를 한번만 복사해서 Worker가 가지고 있고
+ * Worker의 작업이 시작할때 그 Thread에 넣었다가 끝나면 원래 값으로 되돌린다
+ * publishOn의 drain 작업 하나가 여러 데이터를 보내기 때문에 MDC를 바꾸는 것은 데이터마다가 아니라 Thread를 넘어갈때마다 한번이다
+ *
+ * 이미 같은 MDC가 들어가 있는 Thread에서 실행되는 작업(EventLoopScheduler의 바로 실행, 같은 구독 안의 다음 단계)은 MDC를 다시 넣지 않는다
+ * 구독할때 MDC가 비어있으면 원래 Worker를 그대로 돌려주기 때문에 비용이 없다
+ */
+public class ContextScheduler implements Scheduler {
+
+    // 지금 이 Thread에 넣어둔 MDC. 같은 Map이면 다시 넣지 않는다
+    private static final ThreadLocal<Map<String, String>> CURRENT = new ThreadLocal<>();
+
+    private final Scheduler delegate;
+    private final LongAdder restores = new LongAdder();
+
+    public ContextScheduler(Scheduler delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Worker createWorker() {
+        Map<String, String> context = CURRENT.get();
+        if (context == null) {
+            context = MDC.getCopyOfContextMap();
+        }
+        Worker worker = delegate.createWorker();
+        if (context == null || context.isEmpty()) {
+            return worker;
+        }
+        return new ContextWorker(worker, context);
+    }
+
+    /**
+     * Thread를 넘어가서 MDC를 넣은 횟수
+     */
+    public long getRestoreCount() {
+        return restores.sum();
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    /**
+     * context를 현재 Thread의 MDC로 넣고 task를 실행한 뒤 원래 MDC로 되돌린다
+     * Thread Pool에 작업을 넘기는 곳(TaskDecorator 등)에서도 같이 사용한다
+     */
+    public static void runWith(Map<String, String> context, Runnable task) {
+        Map<String, String> previous = CURRENT.get();
+        if (previous == context) {
+            task.run();
+            return;
+        }
+        Map<String, String> saved = MDC.getCopyOfContextMap();
+        MDC.setContextMap(context);
+        CURRENT.set(context);
+        try {
+            task.run();
+        } finally {
+            if (saved == null) {
+                MDC.clear();
+            } else {
+                MDC.setContextMap(saved);
+            }
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    final class ContextWorker implements Worker {
+
+        final Worker worker;
+        final Map<String, String> context;
+
+        ContextWorker(Worker worker, Map<String, String> context) {
+            this.worker = worker;
+            this.context = context;
+        }
+
+        @Override
+        public void schedule(Runnable task) {
+            worker.schedule(() -> {
+                if (CURRENT.get() != context) {
+                    restores.increment();
+                }
+                runWith(context, task);
+            });
+        }
+
+        @Override
+        public void dispose() {
+            worker.dispose();
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return worker.isDisposed();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.terry.reactive.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 코어 수만큼의 event loop(작업 Queue를 하나씩 가진 Thread)를 미리 만들어두고 구독마다 하나의 loop에 고정시키는 Scheduler
+ *
+ * SchedulerTest의 subscribeOn_publishOn_테스트는 단계마다 CustomizableThreadFactory로 Thread를 새로 만들기 때문에
+ * 데이터 하나가 subscribeOn Thread -> publishOn Thread로 넘어갈때마다 Queue를 거치고 다른 코어로 옮겨가서 CPU 캐시도 다시 채워야 한다
+ * 여기서는 하나의 구독에서 사용하는 Worker들을 같은 loop에 만들고(아래 pinned 참조)
+ * 같은 loop Thread 안에서 같은 loop의 Worker에 작업을 넣으면 Queue에 넣지 않고 그 자리에서 바로 실행한다
+ * 그래서 loop 사이를 넘어가는 것은 처음 구독할때와 loop 밖의 Thread에서 작업을 넣을때뿐이다
+ *
+ * createWorker는 loop Thread에서 호출하면 그 loop를, loop 밖에서 호출하면 돌아가면서(round robin) 다음 loop를 사용한다
+ * 한 구독의 여러 단계를 확실하게 같은 loop에 두려면 pinned()로 loop 하나에 고정된 Scheduler를 받아서 각 단계에 같이 넘긴다
+ *
+ * 하나의 loop에 오래 걸리는 작업을 넣으면 그 loop에 고정된 다른 구독이 모두 밀리기 때문에 Blocking 작업에는 사용하면 안된다
+ */
+@Slf4j
+public class EventLoopScheduler implements Scheduler {
+
+    private final EventLoop[] loops;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder directCalls = new LongAdder();
+    private final LongAdder handoffs = new LongAdder();
+
+    public EventLoopScheduler() {
+        this(Runtime.getRuntime().availableProcessors(), "loop-");
+    }
+
+    public EventLoopScheduler(int loopCount, String threadNamePrefix) {
+        if (loopCount <= 0) {
+            throw new IllegalArgumentException("loopCount > 0 required but it was " + loopCount);
+        }
+        this.loops = new EventLoop[loopCount];
+        for (int i = 0; i < loopCount; i++) {
+            loops[i] = new EventLoop(threadNamePrefix + i);
+        }
+    }
+
+    @Override
+    public Worker createWorker() {
+        EventLoop current = currentLoop();
+        return new EventLoopWorker(current != null ? current : nextLoop());
+    }
+
+    /**
+     * loop 하나에 고정된 Scheduler를 돌려준다. 이 Scheduler로 만든 Worker는 모두 같은 loop Thread에서 실행된다
+     */
+    public Scheduler pinned() {
+        EventLoop loop = nextLoop();
+        return new Scheduler() {
+            @Override
+            public Worker createWorker() {
+                return new EventLoopWorker(loop);
+            }
+
+            @Override
+            public void shutdown() {
+                // loop는 EventLoopScheduler가 관리한다
+            }
+        };
+    }
+
+    public int getLoopCount() {
+        return loops.length;
+    }
+
+    /**
+     * 같은 loop Thread 안에서 Queue를 거치지 않고 바로 실행한 작업 수
+     */
+    public long getDirectCallCount() {
+        return directCalls.sum();
+    }
+
+    /**
+     * loop의 Queue에 넣어서 실행한 횟수(다른 Thread에서 넘어온 작업)
+     */
+    public long getHandoffCount() {
+        return handoffs.sum();
+    }
+
+    @Override
+    public void shutdown() {
+        for (EventLoop loop : loops) {
+            loop.shutdown();
+        }
+    }
+
+    private EventLoop nextLoop() {
+        return loops[(next.getAndIncrement() & Integer.MAX_VALUE) % loops.length];
+    }
+
+    private EventLoop currentLoop() {
+        Thread thread = Thread.currentThread();
+        for (EventLoop loop : loops) {
+            if (loop.thread == thread) {
+                return loop;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Thread 하나와 작업 Queue 하나로 된 loop
+     * 작업이 없으면 park로 잠들고, 잠든 상태에서 작업이 들어올때만 unpark로 깨운다
+     * 작업을 넣는 쪽은 여러 Thread일 수 있어서 ConcurrentLinkedQueue를 사용한다
+     */
+    static final class EventLoop implements Executor, Runnable {
+
+        final Thread thread;
+        final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        volatile boolean parked;
+        volatile boolean shutdown;
+
+        EventLoop(String name) {
+            this.thread = new Thread(this, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            queue.offer(task);
+            // loop가 잠들기 직전에 parked를 먼저 쓰고 Queue를 다시 확인하기 때문에 둘 중 하나는 반드시 상대방의 변경을 본다
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (!shutdown) {
+                Runnable task = queue.poll();
+                if (task == null) {
+                    parked = true;
+                    if (queue.isEmpty() && !shutdown) {
+                        LockSupport.park(this);
+                    }
+                    parked = false;
+                    continue;
+                }
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    logger.error("Event loop task failed", t);
+                }
+            }
+            queue.clear();
+        }
+
+        void shutdown() {
+            shutdown = true;
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * SerializedWorker와 같이 Worker의 작업을 순서대로 한번에 하나씩 실행하는데
+     * 자기 loop Thread에서 작업을 넣었고 실행 대기중인 작업이 없으면 Queue에 넣지 않고 바로 실행한다
+     * 실행 대기중인 작업이 있을때 바로 실행하면 순서가 바뀌기 때문에 그때는 Queue에 넣는다
+     * 바로 실행하는 작업 안에서 다시 같은 Worker에 작업을 넣으면(재귀) wip가 0이 아니기 때문에 Queue에 넣고 끝난 뒤에 이어서 실행한다
+     */
+    final class EventLoopWorker implements Worker, Runnable {
+
+        final EventLoop loop;
+        final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        final AtomicInteger wip = new AtomicInteger();
+        volatile boolean disposed;
+
+        EventLoopWorker(EventLoop loop) {
+            this.loop = loop;
+        }
+
+        @Override
+        public void schedule(Runnable task) {
+            if (disposed) {
+                return;
+            }
+            if (Thread.currentThread() == loop.thread && wip.compareAndSet(0, 1)) {
+                directCalls.increment();
+                runTask(task);
+                drain(1);
+                return;
+            }
+            tasks.offer(task);
+            if (wip.getAndIncrement() == 0) {
+                handoffs.increment();
+                loop.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            drain(1);
+        }
+
+        void drain(int missed) {
+            for (;;) {
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    if (disposed) {
+                        tasks.clear();
+                        return;
+                    }
+                    runTask(task);
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        void runTask(Runnable task) {
+            try {
+                task.run();
+            } catch (Throwable t) {
+                logger.error("Worker task failed", t);
+            }
+        }
+
+        @Override
+        public void dispose() {
+            disposed = true;
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.terry.reactive.scheduler;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 지금까지 테스트에서 사용했던 Executors.newSingleThreadExecutor(), Executors.newCachedThreadPool() 같은 ExecutorService를 그대로 Scheduler로 사용하게 해주는 클래스
+ *
+ * ExecutorService는 모든 Thread가 하나의 대기열 Queue(LinkedBlockingQueue 등)를 같이 사용하는 구조(FIFO)이기 때문에
+ * CPU 코어 수가 많아지면 이 Queue에 작업을 넣고 꺼낼때 Thread끼리 경합이 생긴다
+ * ForkJoinScheduler와 성능을 비교할때 기준으로 사용한다
+ */
+public class ExecutorServiceScheduler implements Scheduler {
+
+    private final ExecutorService executorService;
+
+    public ExecutorServiceScheduler(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    @Override
+    public Worker createWorker() {
+        return new SerializedWorker() {
+            @Override
+            protected void dispatch(Runnable drain) {
+                executorService.execute(drain);
+            }
+        };
+    }
+
+    @Override
+    public void shutdown() {
+        executorService.shutdown();
+    }
+}
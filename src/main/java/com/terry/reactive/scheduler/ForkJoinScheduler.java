@@ -0,0 +1,85 @@
+package com.terry.reactive.scheduler;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Work-Stealing 방식의 ForkJoinPool을 사용하는 Scheduler
+ *
+ * ThreadPoolExecutor는 모든 Thread가 하나의 대기열 Queue를 공유하기 때문에 Thread가 많아질수록 Queue에서 경합이 심해진다
+ * ForkJoinPool은 Thread(worker)마다 자기만의 작업 Deque를 가지고 있어서
+ * Pool 안의 Thread가 새로 만든 작업은 자기 Deque에 넣고(fork) 자기 Deque에서 꺼내 실행한다
+ * 자기 Deque가 비었을때만 다른 Thread의 Deque에서 작업을 훔쳐온다(work stealing)
+ * 그래서 publishOn 다음 단계에서 다시 publishOn을 하는 식으로 Pool 안에서 작업이 계속 만들어지는 CPU 위주의 작업에서 코어 수만큼 처리량이 늘어난다
+ *
+ * asyncMode를 true로 주었는데 이렇게 하면 자기 Deque에서도 먼저 넣은 작업을 먼저 꺼낸다(FIFO)
+ * join을 하지 않고 던져두기만 하는 이벤트 형태의 작업에서는 이 모드가 권장된다
+ */
+public class ForkJoinScheduler implements Scheduler, Executor {
+
+    private final ForkJoinPool pool;
+
+    public ForkJoinScheduler() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ForkJoinScheduler(int parallelism) {
+        this(parallelism, "fj-");
+    }
+
+    public ForkJoinScheduler(int parallelism, String threadNamePrefix) {
+        this.pool = new ForkJoinPool(parallelism, p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName(threadNamePrefix + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, true);
+    }
+
+    @Override
+    public Worker createWorker() {
+        return new SerializedWorker() {
+            @Override
+            protected void dispatch(Runnable drain) {
+                execute(drain);
+            }
+        };
+    }
+
+    /**
+     * Pool 안의 Thread에서 호출하면 그 Thread의 Deque에 넣고(공유 Queue를 거치지 않는다)
+     * Pool 밖의 Thread에서 호출하면 Pool의 외부 제출 Queue에 넣는다
+     */
+    @Override
+    public void execute(Runnable task) {
+        ForkJoinTask<?> forkJoinTask = ForkJoinTask.adapt(task);
+        if (ForkJoinTask.getPool() == pool) {
+            forkJoinTask.fork();
+        } else {
+            pool.execute(forkJoinTask);
+        }
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * 다른 Thread의 Deque에서 작업을 훔쳐온 횟수(추정치)
+     */
+    public long getStealCount() {
+        return pool.getStealCount();
+    }
+
+    public boolean awaitQuiescence(long timeout, TimeUnit unit) {
+        return pool.awaitQuiescence(timeout, unit);
+    }
+
+    @Override
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,29 @@
+package com.terry.reactive.scheduler;
+
+/**
+ * SchedulerTest의 subscribeOn_테스트, publishOn_테스트에서는 Executors.newSingleThreadExecutor()를 Publisher 안에서 직접 만들어서 사용했는데
+ * 어떤 Thread Pool에서 실행할지를 밖에서 정할 수 있도록 그 부분을 인터페이스로 분리한 것이다
+ * (projectreactor의 Scheduler와 같은 역할이다)
+ *
+ * Worker는 하나의 구독(Subscription)이 사용하는 실행 단위이다
+ * 같은 Worker에 넣은 작업들은 넣은 순서대로 한번에 하나씩만 실행된다는 것을 보장해야 한다
+ * 그래야 newSingleThreadExecutor를 사용했을때처럼 onNext가 뒤죽박죽 섞이지 않는다
+ */
+public interface Scheduler {
+
+    Worker createWorker();
+
+    void shutdown();
+
+    interface Worker {
+
+        /**
+         * 작업을 실행 대기시킨다. dispose된 Worker에 넣은 작업은 실행되지 않는다
+         */
+        void schedule(Runnable task);
+
+        void dispose();
+
+        boolean isDisposed();
+    }
+}
@@ -0,0 +1,72 @@
+package com.terry.reactive.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread Pool 위에서 "한번에 하나씩, 넣은 순서대로" 실행되는 Worker를 만들기 위한 공통 클래스
+ *
+ * 작업을 넣을때마다 Thread Pool에 작업을 하나씩 던지면 Pool의 여러 Thread가 동시에 꺼내 실행하기 때문에 순서가 보장되지 않는다
+ * 그래서 작업은 Worker 자신의 Queue에 넣어두고 wip(work in progress) 값이 0에서 1이 되는 순간에만 Pool에 drain 작업을 하나 던진다
+ * drain 작업은 Queue가 빌 때까지 작업을 꺼내 실행하고 그 사이에 들어온 작업도 같이 처리하고 나서야 끝난다
+ * 이렇게 하면 Pool에 던져지는 작업 수는 줄어들고 같은 Worker의 작업은 동시에 실행되지 않는다
+ */
+@Slf4j
+abstract class SerializedWorker implements Scheduler.Worker, Runnable {
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile boolean disposed;
+
+    /**
+     * drain 작업(this)을 실제 Thread Pool에 넘겨준다
+     */
+    protected abstract void dispatch(Runnable drain);
+
+    @Override
+    public void schedule(Runnable task) {
+        if (disposed) {
+            return;
+        }
+        tasks.offer(task);
+        if (wip.getAndIncrement() == 0) {
+            dispatch(this);
+        }
+    }
+
+    @Override
+    public void run() {
+        int missed = 1;
+        for (;;) {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                if (disposed) {
+                    tasks.clear();
+                    return;
+                }
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    logger.error("Worker task failed", t);
+                }
+            }
+            missed = wip.addAndGet(-missed);
+            if (missed == 0) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void dispose() {
+        disposed = true;
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposed;
+    }
+}
@@ -0,0 +1,35 @@
+package com.terry.reactive.scheduler;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+/**
+ * SchedulerTest의 FluxIntervalUsingNative에서는 request가 호출될때마다 Executors.newSingleThreadScheduledExecutor()로
+ * 새 Thread를 만들었는데 구독이 많아지면 구독 수만큼 Thread가 생긴다
+ * 시간에 맞춰 실행해야 하는 작업(interval, timeout 등)은 이 하나의 Timer Thread를 같이 사용한다
+ *
+ * 여기에 넣는 작업은 짧게 끝나야 한다. 오래 걸리는 작업을 넣으면 다른 구독의 시간 작업이 모두 밀린다
+ * Daemon Thread로 만들었기 때문에 이 Timer가 살아 있어도 프로그램 종료를 막지 않는다
+ * 취소된 작업은 바로 Queue에서 제거되도록(setRemoveOnCancelPolicy) 해서 취소가 많아도 메모리가 늘지 않게 했다
+ */
+public final class SharedTimer {
+
+    private static final ScheduledExecutorService INSTANCE = create();
+
+    private SharedTimer() {
+    }
+
+    public static ScheduledExecutorService get() {
+        return INSTANCE;
+    }
+
+    private static ScheduledExecutorService create() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "shared-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+}
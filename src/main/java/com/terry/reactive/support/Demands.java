@@ -0,0 +1,64 @@
+package com.terry.reactive.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Subscription의 request(n)으로 들어오는 요청 갯수(demand)를 계산할때 공통으로 사용하는 메소드들을 모아둔 클래스
+ *
+ * request 메소드는 여러 Thread에서 동시에 호출될 수 있기 때문에 요청 갯수를 단순히 long 변수에 더하면 값이 유실될 수 있다
+ * 그래서 AtomicLong에 CAS(compareAndSet)로 더하고 빼도록 했다
+ * 또 Long.MAX_VALUE는 스펙상 "무한대로 보내달라"는 의미이기 때문에 더하다가 overflow가 나면 Long.MAX_VALUE로 고정시키고
+ * 한번 Long.MAX_VALUE가 되면 onNext로 보낸 갯수를 빼지 않는다
+ */
+public final class Demands {
+
+    private Demands() {
+    }
+
+    /**
+     * requested에 n을 더한다(overflow가 나면 Long.MAX_VALUE로 고정)
+     * @return 더하기 전의 값(0이었으면 호출한 쪽에서 drain 작업을 시작해야 한다는 의미로 사용할 수 있다)
+     */
+    public static long add(AtomicLong requested, long n) {
+        for (;;) {
+            long r = requested.get();
+            if (r == Long.MAX_VALUE) {
+                return Long.MAX_VALUE;
+            }
+            long u = r + n;
+            if (u < 0L) {
+                u = Long.MAX_VALUE;
+            }
+            if (requested.compareAndSet(r, u)) {
+                return r;
+            }
+        }
+    }
+
+    /**
+     * onNext로 n개를 보낸 뒤 requested에서 n을 뺀다
+     * @return 빼고 난 뒤 남아있는 요청 갯수
+     */
+    public static long produced(AtomicLong requested, long n) {
+        for (;;) {
+            long r = requested.get();
+            if (r == Long.MAX_VALUE) {
+                return Long.MAX_VALUE;
+            }
+            long u = r - n;
+            if (u < 0L) {
+                throw new IllegalStateException("More produced than requested: " + u);
+            }
+            if (requested.compareAndSet(r, u)) {
+                return u;
+            }
+        }
+    }
+
+    /**
+     * Reactive Streams 스펙 3.9 : request 메소드에 0 이하의 값이 들어오면 onError로 IllegalArgumentException을 보내야 한다
+     */
+    public static IllegalArgumentException invalidRequest(long n) {
+        return new IllegalArgumentException("§3.9 violated: positive request amount required but it was " + n);
+    }
+}
@@ -0,0 +1,27 @@
+package com.terry.reactive.support;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * 구독을 시작하기도 전에 실패한 경우(파일을 열지 못하는 경우 등)에 사용하는 아무 일도 하지 않는 Subscription
+ *
+ * 스펙상 onError 전에 onSubscribe가 먼저 호출되어야 하기 때문에(스펙 1.9) 이걸 먼저 전달하고 바로 onError를 보낸다
+ */
+public enum EmptySubscription implements Subscription {
+
+    INSTANCE;
+
+    public static void error(Subscriber<?> sub, Throwable t) {
+        sub.onSubscribe(INSTANCE);
+        sub.onError(t);
+    }
+
+    @Override
+    public void request(long n) {
+    }
+
+    @Override
+    public void cancel() {
+    }
+}
@@ -0,0 +1,164 @@
+package com.terry.reactive.support;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * long 값을 key로 사용하는 HashMap(Thread Safe 하지 않다)
+ *
+ * HashMap<Long, V>는 key를 Long 객체로 boxing 하고 항목마다 Node 객체를 만들기 때문에 항목이 수백만개가 되면 객체 수와 메모리가 크게 늘어나고
+ * get 할때마다 Long 객체를 새로 만드는 경우도 생긴다
+ * 여기서는 key는 long[], 값은 Object[] 두 배열에 나란히 넣고 충돌이 나면 바로 다음 칸을 사용한다(open addressing, linear probing)
+ * 그래서 항목을 넣어도 배열이 커질때 말고는 객체를 만들지 않고, get 할때도 객체를 만들지 않는다
+ *
+ * 값이 null 인 칸을 빈 칸으로 보기 때문에 null 값은 넣을 수 없다
+ * 지울때는 빈 칸 표시(tombstone)를 남기지 않고 뒤에 있는 항목들을 앞으로 당겨서(backward shift) 찾는 길이가 늘어나지 않게 한다
+ * 항목이 배열 크기의 3/4을 넘으면 2배로 늘리고, 많이 지워서 1/8 아래로 내려가면 절반으로 줄인다(처음 크기보다 작아지지는 않는다)
+ */
+public final class LongObjectHashMap<V> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private final int initialCapacity;
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+
+    public LongObjectHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongObjectHashMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3 / 4 < expectedSize) {
+            capacity <<= 1;
+        }
+        this.initialCapacity = capacity;
+        allocate(capacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            Object v = values[i];
+            if (v == null) {
+                return null;
+            }
+            if (keys[i] == key) {
+                return (V) v;
+            }
+        }
+    }
+
+    /**
+     * @return 같은 key에 들어있던 값(없었으면 null)
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        Objects.requireNonNull(value, "value");
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            Object v = values[i];
+            if (v == null) {
+                keys[i] = key;
+                values[i] = value;
+                if (++size > (mask + 1) * 3 / 4) {
+                    rehash((mask + 1) << 1);
+                }
+                return null;
+            }
+            if (keys[i] == key) {
+                values[i] = value;
+                return (V) v;
+            }
+        }
+    }
+
+    /**
+     * @return 지운 값(없었으면 null)
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int i = slot(key);
+        for (; ; i = (i + 1) & mask) {
+            Object v = values[i];
+            if (v == null) {
+                return null;
+            }
+            if (keys[i] == key) {
+                break;
+            }
+        }
+        V removed = (V) values[i];
+        // i 뒤에 이어진 항목 중 원래 자리(slot)가 i 보다 앞(또는 i)인 항목을 i로 당긴다
+        for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            boolean between = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+            if (!between) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        values[i] = null;
+        size--;
+        int capacity = mask + 1;
+        if (capacity > initialCapacity && size < capacity / 8) {
+            rehash(capacity >> 1);
+        }
+        return removed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        if (mask + 1 > initialCapacity) {
+            allocate(initialCapacity);
+        } else {
+            Arrays.fill(values, null);
+        }
+        size = 0;
+    }
+
+    /**
+     * 지금 배열의 크기(테스트와 메모리 확인용)
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    private int slot(long key) {
+        // key가 연속된 값(1, 2, 3 ...)이어도 고르게 퍼지도록 섞는다(Fibonacci hashing)
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            Object v = oldValues[i];
+            if (v != null) {
+                int j = slot(oldKeys[i]);
+                while (values[j] != null) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = v;
+            }
+        }
+    }
+}
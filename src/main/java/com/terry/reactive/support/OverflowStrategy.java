@@ -0,0 +1,23 @@
+package com.terry.reactive.support;
+
+/**
+ * Subscriber가 request한 갯수보다 Publisher가 더 빨리 데이터를 만들어낼때 넘치는 데이터를 어떻게 처리할지를 정한다
+ */
+public enum OverflowStrategy {
+    /**
+     * 넘치는 순간 onError(IllegalStateException)를 보내고 구독을 끝낸다
+     */
+    ERROR,
+    /**
+     * 요청이 없을때 만들어진 데이터는 버린다
+     */
+    DROP,
+    /**
+     * 가장 마지막 데이터 1개만 남겨두고 나머지는 버린다(다음 request가 오면 남겨둔 최신 데이터를 보낸다)
+     */
+    LATEST,
+    /**
+     * 정해진 크기만큼 쌓아두고 그 크기를 넘는 데이터는 버린다
+     */
+    BUFFER
+}
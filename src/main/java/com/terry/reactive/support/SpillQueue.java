@@ -0,0 +1,314 @@
+package com.terry.reactive.support;
+
+import com.terry.reactive.buffer.ReferenceCounted;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * memoryCapacity 개까지는 SpscArrayQueue(Heap)에 넣고 그보다 많아지면 나머지를 파일에 써두는 Queue(Single Producer Single Consumer)
+ *
+ * 파일은 segmentSize 크기의 segment 파일 여러개로 나눠서 FileChannel.map으로 mapping 한 메모리에 [길이(int)][encoder가 만든 byte[]]로 쓴다
+ * mapping한 메모리에 쓰는 것은 system call 없이 메모리 복사만 하는 것이라 빠르고, 실제 디스크 쓰기는 OS가 page cache에서 알아서 한다
+ * segment가 꽉 차면 새 segment를 만들고, 꺼내는 쪽이 segment를 다 읽으면 그 segment 파일은 바로 지운다
+ * 그래서 Heap에는 memoryCapacity 개만 남고 디스크에는 아직 꺼내지 않은 데이터가 들어있는 segment만 남는다
+ * (SpscArrayQueue는 크기를 2의 거듭제곱으로 올려서 만들기 때문에 Heap Queue에 들어있는 갯수를 보고 정확히 memoryCapacity 개까지만 넣는다)
+ *
+ * 순서를 지키기 위해 파일에 하나라도 남아있으면 Heap Queue에 자리가 있어도 파일에 쓴다
+ * (Heap Queue에 있는 데이터는 항상 파일에 있는 데이터보다 먼저 들어온 것이다. 그래서 꺼낼때는 Heap Queue를 먼저 비운다)
+ * 파일에 쓴 갯수(spilled)는 AtomicLong으로 관리하고 쓰기가 끝난 뒤에 증가시키기 때문에 꺼내는 쪽은 spilled 만큼은 항상 다 쓰여진 데이터를 읽는다
+ *
+ * 다 읽은 segment와 close 때 남은 segment는 파일을 지우기 전에 mapping도 바로 해제한다(unmap)
+ * GC가 MappedByteBuffer를 정리할때까지 기다리면 Heap에 여유가 있는 동안에는 GC가 일어나지 않아서
+ * 이미 지운 segment의 mapping(주소 공간과 page cache)이 계속 쌓이기 때문이다
+ * mapping을 해제한 뒤에 그 메모리에 접근하면 JVM이 죽기 때문에 쓰는 쪽이 파일에 쓰는 도중에 close가 호출되면
+ * close는 표시만 해두고 쓰는 쪽이 쓰기를 마친 뒤에 해제한다(writer 상태를 CAS로 바꿔서 둘 중 한쪽만 해제한다)
+ *
+ * 파일을 쓰거나 만들지 못하면 UncheckedIOException을 던진다
+ */
+@Slf4j
+public final class SpillQueue<E> implements AutoCloseable {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 8 * 1024 * 1024;
+
+    // segment의 남은 공간에 다음 데이터가 들어가지 않을때 쓰는 표시(다음 segment에서 읽으라는 의미)
+    private static final int END_OF_SEGMENT = -1;
+
+    // 쓰는 쪽의 상태. IDLE -> WRITING -> IDLE 을 반복하다가 close 되면 CLOSED
+    private static final int IDLE = 0;
+    private static final int WRITING = 1;
+    private static final int CLOSED = 2;
+
+    private static final Consumer<MappedByteBuffer> UNMAPPER = unmapper();
+
+    private final SpscArrayQueue<E> memory;
+    private final int memoryCapacity;
+    private final Path directory;
+    private final int segmentSize;
+    private final Function<? super E, byte[]> encoder;
+    private final Function<byte[], ? extends E> decoder;
+    private final Queue<Segment> segments = new ConcurrentLinkedQueue<>();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicInteger writer = new AtomicInteger(IDLE);
+    private final AtomicLong spilledTotal = new AtomicLong();
+
+    // 넣는 쪽만 사용한다
+    private Segment writeSegment;
+    // 꺼내는 쪽만 사용한다
+    private Segment readSegment;
+    private volatile boolean closed;
+
+    public SpillQueue(int memoryCapacity, Path directory, Function<? super E, byte[]> encoder, Function<byte[], ? extends E> decoder) {
+        this(memoryCapacity, directory, DEFAULT_SEGMENT_SIZE, encoder, decoder);
+    }
+
+    public SpillQueue(int memoryCapacity, Path directory, int segmentSize,
+                      Function<? super E, byte[]> encoder, Function<byte[], ? extends E> decoder) {
+        if (segmentSize < 64) {
+            throw new IllegalArgumentException("segmentSize >= 64 required but it was " + segmentSize);
+        }
+        this.memory = new SpscArrayQueue<>(memoryCapacity);
+        this.memoryCapacity = memoryCapacity;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.encoder = encoder;
+        this.decoder = decoder;
+    }
+
+    /**
+     * Heap Queue에 자리가 없거나 파일에 남은 데이터가 있으면 파일에 쓴다. 꽉 차서 실패하는 경우는 없다
+     */
+    public void offer(E e) {
+        if (closed) {
+            // cancel 된 뒤에 늦게 들어온 데이터는 버린다
+            ReferenceCounted.safeRelease(e);
+            return;
+        }
+        if (spilled.get() == 0L && memory.size() < memoryCapacity && memory.offer(e)) {
+            return;
+        }
+        if (!writer.compareAndSet(IDLE, WRITING)) {
+            ReferenceCounted.safeRelease(e);
+            return;
+        }
+        try {
+            write(encoder.apply(e));
+            spilledTotal.incrementAndGet();
+            spilled.incrementAndGet();
+        } finally {
+            if (!writer.compareAndSet(WRITING, IDLE)) {
+                // 쓰는 도중에 close 되었다. segment 해제는 쓰는 쪽이 맡는다
+                releaseSegments();
+            }
+        }
+    }
+
+    /**
+     * @return 비어 있으면 null
+     */
+    public E poll() {
+        E v = memory.poll();
+        if (v != null || spilled.get() == 0L) {
+            return v;
+        }
+        byte[] bytes = read();
+        spilled.decrementAndGet();
+        return decoder.apply(bytes);
+    }
+
+    public boolean isEmpty() {
+        return memory.isEmpty() && spilled.get() == 0L;
+    }
+
+    /**
+     * 지금 파일에 들어있는(아직 꺼내지 않은) 데이터 갯수
+     */
+    public long getSpilledCount() {
+        return spilled.get();
+    }
+
+    /**
+     * 지금까지 파일에 쓴 데이터 갯수
+     */
+    public long getSpilledTotal() {
+        return spilledTotal.get();
+    }
+
+    /**
+     * 지금 디스크에 남아있는 segment 파일 갯수
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Heap Queue를 비우고 남아있는 segment 파일을 모두 지운다
+     * 넣는 쪽과 꺼내는 쪽이 더 이상 사용하지 않을때(cancel, 종료 후) 호출해야 한다
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        memory.clear(ReferenceCounted::safeRelease);
+        spilled.set(0L);
+        if (writer.getAndSet(CLOSED) == IDLE) {
+            releaseSegments();
+        }
+        // WRITING 이었으면 offer가 쓰기를 마친 뒤에 releaseSegments를 호출한다
+    }
+
+    private void releaseSegments() {
+        Segment segment;
+        while ((segment = segments.poll()) != null) {
+            segment.delete();
+        }
+    }
+
+    private void write(byte[] bytes) {
+        int needed = 4 + bytes.length;
+        Segment segment = writeSegment;
+        if (segment == null || segment.buffer.remaining() < needed) {
+            if (segment != null && segment.buffer.remaining() >= 4) {
+                segment.buffer.putInt(END_OF_SEGMENT);
+            }
+            // segmentSize 보다 큰 데이터는 그 데이터만 들어가는 segment를 만든다
+            segment = newSegment(Math.max(segmentSize, needed));
+            writeSegment = segment;
+        }
+        segment.buffer.putInt(bytes.length);
+        segment.buffer.put(bytes);
+    }
+
+    private byte[] read() {
+        Segment segment = readSegment;
+        if (segment == null) {
+            segment = segments.peek();
+            readSegment = segment;
+        }
+        for (;;) {
+            if (segment.readBuffer.remaining() >= 4) {
+                int length = segment.readBuffer.getInt();
+                if (length != END_OF_SEGMENT) {
+                    byte[] bytes = new byte[length];
+                    segment.readBuffer.get(bytes);
+                    return bytes;
+                }
+            }
+            // 다 읽은 segment는 지우고 다음 segment로 넘어간다(spilled > 0 이므로 다음 segment가 반드시 있다)
+            segments.poll();
+            segment.delete();
+            segment = segments.peek();
+            readSegment = segment;
+        }
+    }
+
+    /**
+     * 같은 폴더를 여러 SpillQueue(여러 JVM)가 같이 써도 이름이 겹치지 않도록 createTempFile로 파일을 만든다
+     * close 와 동시에 만들어진 segment도 segments에 들어가기 때문에 offer가 끝날때 같이 해제된다
+     */
+    private Segment newSegment(int size) {
+        Path path;
+        try {
+            path = Files.createTempFile(directory, "spill-", ".seg");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create spill segment in " + directory, e);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // mapping은 channel을 닫아도 유지된다
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            Segment segment = new Segment(path, buffer);
+            segments.offer(segment);
+            return segment;
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ignored) {
+            }
+            throw new UncheckedIOException("Failed to create spill segment " + path, e);
+        }
+    }
+
+    /**
+     * JDK 8은 DirectBuffer.cleaner().clean(), JDK 9 이상은 Unsafe.invokeCleaner로 mapping을 해제한다
+     * 둘 다 사용할 수 없으면 지금처럼 GC 될때 해제된다
+     */
+    private static Consumer<MappedByteBuffer> unmapper() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            Object unsafe = theUnsafe.get(null);
+            return buffer -> invoke(invokeCleaner, unsafe, buffer);
+        } catch (Exception | LinkageError ignored) {
+            // JDK 8
+        }
+        try {
+            Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+            Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+            return buffer -> {
+                Object c = invoke(cleaner, buffer);
+                if (c != null) {
+                    invoke(clean, c);
+                }
+            };
+        } catch (Exception | LinkageError e) {
+            logger.debug("Mapped buffers will be unmapped by GC: {}", e.toString());
+            return buffer -> { };
+        }
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (Exception e) {
+            logger.debug("Failed to unmap spill segment: {}", e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * segment 파일 하나. 넣는 쪽은 buffer로 쓰고 꺼내는 쪽은 같은 메모리를 가리키는 readBuffer로 읽는다(position만 따로 가진다)
+     */
+    static final class Segment {
+
+        final Path path;
+        final MappedByteBuffer buffer;
+        final ByteBuffer readBuffer;
+
+        Segment(Path path, MappedByteBuffer buffer) {
+            this.path = path;
+            this.buffer = buffer;
+            this.readBuffer = buffer.duplicate();
+        }
+
+        /**
+         * 넣는 쪽과 꺼내는 쪽 모두 이 segment를 더 이상 사용하지 않을때만 호출한다
+         */
+        void delete() {
+            UNMAPPER.accept(buffer);
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                logger.warn("Failed to delete spill segment {}", path, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.terry.reactive.support;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 하나의 Thread만 넣고(offer) 하나의 Thread만 꺼내는(poll) 상황에서 사용하는 Lock 없는 고정 크기 Queue(Single Producer Single Consumer)
+ *
+ * Reactive Streams 스펙에서 onNext는 동시에 호출되지 않고 순차적으로만 호출되기 때문에(스펙 1.3) 넣는 쪽은 항상 하나의 Thread처럼 볼 수 있고
+ * 꺼내는 쪽도 drain 작업을 한번에 하나의 Thread만 하도록 만들면 이 Queue를 synchronized 없이 사용할 수 있다
+ *
+ * 크기는 2의 제곱수로 올림해서 잡는다. 그래야 index를 나머지(%) 연산이 아닌 비트 연산(&)으로 계산할 수 있다
+ * 배열의 칸이 비어있는지(null)로 꽉 찼는지를 판단하기 때문에 넣는 쪽과 꺼내는 쪽이 서로의 index를 읽을 필요가 없다
+ * null은 넣을 수 없다
+ */
+public final class SpscArrayQueue<E> {
+
+    private final AtomicReferenceArray<E> buffer;
+    private final int mask;
+    private final AtomicLong producerIndex = new AtomicLong();
+    private final AtomicLong consumerIndex = new AtomicLong();
+
+    public SpscArrayQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity > 0 required but it was " + capacity);
+        }
+        int actual = roundToPowerOfTwo(capacity);
+        this.buffer = new AtomicReferenceArray<>(actual);
+        this.mask = actual - 1;
+    }
+
+    /**
+     * @return 꽉 차서 넣지 못했으면 false
+     */
+    public boolean offer(E e) {
+        Objects.requireNonNull(e, "e");
+        long p = producerIndex.get();
+        int offset = (int) p & mask;
+        if (buffer.get(offset) != null) {
+            return false;
+        }
+        buffer.lazySet(offset, e);
+        producerIndex.lazySet(p + 1);
+        return true;
+    }
+
+    /**
+     * @return 비어 있으면 null
+     */
+    public E poll() {
+        long c = consumerIndex.get();
+        int offset = (int) c & mask;
+        E e = buffer.get(offset);
+        if (e == null) {
+            return null;
+        }
+        buffer.lazySet(offset, null);
+        consumerIndex.lazySet(c + 1);
+        return e;
+    }
+
+    public E peek() {
+        return buffer.get((int) consumerIndex.get() & mask);
+    }
+
+    public boolean isEmpty() {
+        return producerIndex.get() == consumerIndex.get();
+    }
+
+    public int size() {
+        // consumerIndex를 먼저 읽어야 두 값 사이에 진행된 offer 때문에 음수가 나오지 않는다
+        long c = consumerIndex.get();
+        long p = producerIndex.get();
+        return (int) Math.min(p - c, capacity());
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * 꺼내는 쪽 Thread에서만 호출해야 한다
+     */
+    public void clear() {
+        while (poll() != null) {
+            // 비울때까지 꺼낸다
+        }
+    }
+
+    /**
+     * 꺼낸 데이터를 onDiscard로 넘기면서 비운다(pool로 돌려보내야 하는 데이터를 release 하는 경우 등)
+     */
+    public void clear(Consumer<? super E> onDiscard) {
+        E e;
+        while ((e = poll()) != null) {
+            onDiscard.accept(e);
+        }
+    }
+
+    static int roundToPowerOfTwo(int value) {
+        if (value > (1 << 30)) {
+            throw new IllegalArgumentException("capacity too large: " + value);
+        }
+        return 1 << (32 - Integer.numberOfLeadingZeros(value - 1));
+    }
+}
@@ -0,0 +1,71 @@
+package com.terry.reactive.transport;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * PublisherServer와 RemotePublisher가 주고받는 Frame의 형식
+ *
+ * Frame은 [길이(int, 4byte)][종류(1byte)][내용] 으로 되어 있고 길이는 종류 1byte와 내용을 합한 크기이다
+ * 구독하는 쪽(RemotePublisher) -> 보내는 쪽(PublisherServer) : REQUEST(long n), CANCEL
+ * 보내는 쪽 -> 구독하는 쪽 : NEXT(encoder가 만든 byte[]), COMPLETE, ERROR(메세지 UTF-8)
+ */
+final class Frames {
+
+    static final byte REQUEST = 1;
+    static final byte CANCEL = 2;
+    static final byte NEXT = 3;
+    static final byte COMPLETE = 4;
+    static final byte ERROR = 5;
+
+    // 상대방이 잘못된 길이를 보냈을때 그만큼 메모리를 잡지 않도록 막는 최대 크기
+    static final int MAX_FRAME_LENGTH = 16 * 1024 * 1024;
+
+    private Frames() {
+    }
+
+    static void writeRequest(DataOutputStream out, long n) throws IOException {
+        out.writeInt(1 + 8);
+        out.writeByte(REQUEST);
+        out.writeLong(n);
+    }
+
+    static void writeSignal(DataOutputStream out, byte type) throws IOException {
+        out.writeInt(1);
+        out.writeByte(type);
+    }
+
+    static void writeNext(DataOutputStream out, byte[] payload) throws IOException {
+        out.writeInt(1 + payload.length);
+        out.writeByte(NEXT);
+        out.write(payload);
+    }
+
+    static void writeError(DataOutputStream out, Throwable t) throws IOException {
+        byte[] message = String.valueOf(t).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(1 + message.length);
+        out.writeByte(ERROR);
+        out.write(message);
+    }
+
+    /**
+     * Frame의 길이와 종류를 읽는다. 내용은 호출한 쪽에서 length - 1 byte 만큼 읽어야 한다
+     * @return 내용의 길이, 상대방이 연결을 닫았으면 -1
+     */
+    static int readHeader(DataInputStream in, byte[] type) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return -1;
+        }
+        if (length < 1 || length > MAX_FRAME_LENGTH) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        type[0] = in.readByte();
+        return length - 1;
+    }
+}
@@ -0,0 +1,369 @@
+package com.terry.reactive.transport;
+
+import com.terry.reactive.scheduler.SharedTimer;
+import com.terry.reactive.support.Demands;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 이 JVM의 Publisher를 TCP 포트로 열어서 다른 JVM에서 RemotePublisher로 구독할 수 있게 해주는 클래스
+ *
+ * 연결이 하나 들어올때마다 source를 한번 구독하고(연결마다 별도의 구독) 연결마다 Thread 하나가 상대방이 보낸 Frame을 읽는다
+ * 상대방이 REQUEST(n)를 보내면 그대로 source의 request(n)를 호출하기 때문에 source는 상대방이 요청한 갯수만큼만 보낸다
+ * (상대방이 요청하지 않으면 이쪽도 보내지 않고 TCP 버퍼도 차지 않는다. 그래서 JVM을 넘어가도 backpressure가 유지된다)
+ *
+ * onNext로 받은 데이터는 encoder로 byte[]로 바꾼 뒤 NEXT Frame으로 만들어 버퍼(64KB)에 쓰기만 하고 바로 보내지 않는다
+ * 작은 Frame을 하나씩 보내면 Frame마다 system call과 TCP 패킷이 생기기 때문에 아래의 경우에만 모아서 보낸다(flush)
+ * 1. 버퍼가 꽉 찼을때
+ * 2. 상대방이 요청한 갯수를 다 보냈을때(상대방은 이걸 받아야 다음 요청을 하기 때문이다)
+ * 3. 끝났을때(onComplete, onError)
+ * 4. 그 외에는 버퍼에 처음 쓴 뒤 flushDelay가 지나면 보낸다. source가 천천히 보내는 경우에도 flushDelay 이상 늦어지지 않는다
+ *
+ * 4번의 flush는 소켓에 쓰다가 막힐 수 있기 때문에(상대방이 읽지 않아 TCP 버퍼가 차면 flush가 멈춘다) 시간은 SharedTimer로 재지만
+ * flush는 Timer Thread에서 하지 않고 flusher(필요한 만큼 Thread를 만드는 Pool)에 넘겨서 연결마다 따로 한다
+ * 그래서 한 연결의 flush가 막혀도 Timer와 다른 연결의 flush는 멈추지 않는다
+ * 연결마다 주기적인 작업을 두지 않고 버퍼가 비어있다가 처음 쓰였을때만 한번 등록하기 때문에 쉬고 있는 연결은 Timer 작업도, flush Thread도 없다
+ * (연결마다 등록된 flush는 최대 1개라서 flusher의 Thread 수는 연결 수를 넘지 않고 쉬는 Thread는 잠시 뒤에 없어진다)
+ */
+@Slf4j
+public class PublisherServer<T> implements Closeable {
+
+    public static final long DEFAULT_FLUSH_DELAY_MICROS = 1000;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Publisher<T> source;
+    private final Function<? super T, byte[]> encoder;
+    private final long flushDelay;
+    private final TimeUnit unit;
+    private final ServerSocket serverSocket;
+    private final ExecutorService flusher;
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger connectionIds = new AtomicInteger();
+    private volatile boolean closed;
+
+    /**
+     * @param port 0 이면 비어있는 포트를 사용한다(getPort()로 확인)
+     */
+    public PublisherServer(Publisher<T> source, Function<? super T, byte[]> encoder, int port) throws IOException {
+        this(source, encoder, port, DEFAULT_FLUSH_DELAY_MICROS, TimeUnit.MICROSECONDS);
+    }
+
+    public PublisherServer(Publisher<T> source, Function<? super T, byte[]> encoder, int port, long flushDelay, TimeUnit unit) throws IOException {
+        if (flushDelay <= 0) {
+            throw new IllegalArgumentException("flushDelay > 0 required but it was " + flushDelay);
+        }
+        this.source = source;
+        this.encoder = encoder;
+        this.flushDelay = flushDelay;
+        this.unit = unit;
+        this.serverSocket = new ServerSocket(port);
+        AtomicInteger flusherIds = new AtomicInteger();
+        this.flusher = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "publisher-server-" + getPort() + "-flusher-" + flusherIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Thread acceptor = new Thread(this::accept, "publisher-server-" + getPort());
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * 지금 연결되어 있는 구독 수
+     */
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    /**
+     * 더 이상 연결을 받지 않고 연결되어 있는 구독을 모두 cancel 한다
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        flusher.shutdownNow();
+    }
+
+    private void accept() {
+        while (!closed) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (!closed) {
+                    logger.error("accept failed", e);
+                }
+                return;
+            }
+            try {
+                socket.setTcpNoDelay(true); // Frame은 여기서 모아서 보내기 때문에 Nagle 알고리즘으로 또 기다릴 필요가 없다
+                Connection connection = new Connection(socket);
+                connections.add(connection);
+                Thread reader = new Thread(connection, "publisher-server-" + getPort() + "-" + connectionIds.incrementAndGet());
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                logger.error("connection setup failed", e);
+                closeQuietly(socket);
+            }
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * 연결 하나. source의 Subscriber 이면서 상대방이 보낸 Frame을 읽는 Thread의 작업이다
+     */
+    final class Connection implements Subscriber<T>, Runnable {
+
+        final Socket socket;
+        final DataInputStream in;
+        final DataOutputStream out;
+        final AtomicLong requested = new AtomicLong();
+
+        // onComplete, onError, 연결 종료 중 CAS로 먼저 바꾼 쪽만 마지막 처리를 한다
+        final AtomicBoolean done = new AtomicBoolean();
+
+        volatile Subscription upstream;
+        // onSubscribe 전에 들어온 요청 갯수(this로 동기화)
+        long pending;
+        // 버퍼에 썼지만 아직 보내지 않은 Frame이 있는지, flushIfDirty가 등록되어 있는지(out으로 동기화)
+        boolean dirty;
+        boolean flushScheduled;
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE));
+        }
+
+        @Override
+        public void run() {
+            try {
+                source.subscribe(this);
+                byte[] type = new byte[1];
+                for (;;) {
+                    int length = Frames.readHeader(in, type);
+                    if (length < 0) {
+                        break;
+                    }
+                    if (type[0] == Frames.REQUEST && length == 8) {
+                        requestUpstream(in.readLong());
+                    } else if (type[0] == Frames.CANCEL) {
+                        break;
+                    } else {
+                        throw new IOException("Unexpected frame type " + type[0] + " with length " + length);
+                    }
+                }
+            } catch (IOException e) {
+                if (!done.get()) {
+                    logger.warn("connection {} failed: {}", socket.getRemoteSocketAddress(), e.toString());
+                }
+            } finally {
+                close();
+            }
+        }
+
+        void requestUpstream(long n) {
+            if (n <= 0) {
+                // 위쪽을 먼저 cancel 하고 ERROR Frame을 쓴다. done을 CAS로 바꾸기 때문에 위쪽의 onComplete, onError와 겹쳐도 한번만 쓰고
+                // onNext는 out의 lock 안에서 done을 다시 보기 때문에 ERROR 뒤에 NEXT를 쓰지 않는다
+                cancelUpstream();
+                onError(Demands.invalidRequest(n));
+                return;
+            }
+            Demands.add(requested, n);
+            Subscription s = upstream;
+            if (s == null) {
+                synchronized (this) {
+                    s = upstream;
+                    if (s == null) {
+                        pending += n;
+                        if (pending < 0L) {
+                            pending = Long.MAX_VALUE;
+                        }
+                        return;
+                    }
+                }
+            }
+            s.request(n);
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            long p;
+            synchronized (this) {
+                upstream = s;
+                p = pending;
+            }
+            if (p > 0) {
+                s.request(p);
+            }
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (done.get()) {
+                return;
+            }
+            long remaining;
+            try {
+                byte[] payload = encoder.apply(t);
+                remaining = Demands.produced(requested, 1);
+                boolean schedule = false;
+                synchronized (out) {
+                    if (done.get()) {
+                        // 다른 Thread(request(n <= 0)를 읽은 Thread 등)에서 이미 끝내는 Frame을 썼다. 그 뒤에는 NEXT를 쓰지 않는다
+                        return;
+                    }
+                    Frames.writeNext(out, payload);
+                    if (remaining == 0) {
+                        // 상대방이 요청한 만큼 다 보냈다. 상대방은 이걸 받아야 다음 요청을 한다
+                        out.flush();
+                        dirty = false;
+                    } else {
+                        dirty = true;
+                        if (!flushScheduled) {
+                            flushScheduled = true;
+                            schedule = true;
+                        }
+                    }
+                }
+                if (schedule) {
+                    scheduleFlush();
+                }
+            } catch (IOException e) {
+                done.set(true);
+                cancelUpstream();
+                close();
+            } catch (Throwable e) {
+                cancelUpstream();
+                onError(e);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (done.compareAndSet(false, true)) {
+                terminate(() -> Frames.writeError(out, t));
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (done.compareAndSet(false, true)) {
+                terminate(() -> Frames.writeSignal(out, Frames.COMPLETE));
+            }
+        }
+
+        /**
+         * 마지막 Frame을 보내고 쓰기쪽만 닫는다. 소켓은 상대방이 받고 연결을 닫으면(읽는 Thread가 EOF를 받으면) 닫는다
+         * 바로 소켓을 닫으면 상대방이 보낸 REQUEST가 읽히지 않은 채로 남아서 RST가 나갈 수 있고, 그러면 상대방이 마지막 Frame을 못 받을 수 있다
+         */
+        void terminate(FrameWriter writer) {
+            try {
+                synchronized (out) {
+                    writer.write();
+                    out.flush();
+                    dirty = false;
+                }
+                socket.shutdownOutput();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        void scheduleFlush() {
+            SharedTimer.get().schedule(this::submitFlush, flushDelay, unit);
+        }
+
+        /**
+         * Timer Thread에서 실행된다. 막힐 수 있는 flush는 flusher에 넘기고 바로 돌아온다
+         */
+        void submitFlush() {
+            try {
+                flusher.execute(this::flushIfDirty);
+            } catch (RejectedExecutionException e) {
+                // 서버가 닫히는 중이다. 연결도 곧 닫힌다
+                synchronized (out) {
+                    flushScheduled = false;
+                }
+            }
+        }
+
+        /**
+         * flusher Thread에서 실행된다
+         */
+        void flushIfDirty() {
+            synchronized (out) {
+                flushScheduled = false;
+                if (!dirty) {
+                    return;
+                }
+                try {
+                    out.flush();
+                    dirty = false;
+                } catch (IOException e) {
+                    // 읽는 Thread에서도 실패를 알게 되므로 여기서는 닫기만 한다
+                    closeQuietly(socket);
+                }
+            }
+        }
+
+        void cancelUpstream() {
+            Subscription s = upstream;
+            if (s != null) {
+                s.cancel();
+            }
+        }
+
+        void close() {
+            if (!connections.remove(this)) {
+                return;
+            }
+            if (done.compareAndSet(false, true)) {
+                cancelUpstream();
+            }
+            closeQuietly(socket);
+        }
+    }
+
+    interface FrameWriter {
+        void write() throws IOException;
+    }
+}
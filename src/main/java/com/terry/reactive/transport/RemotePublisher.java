@@ -0,0 +1,186 @@
+package com.terry.reactive.transport;
+
+import com.terry.reactive.support.Demands;
+import com.terry.reactive.support.EmptySubscription;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * 다른 JVM의 PublisherServer에 TCP로 연결해서 그 Publisher를 이 JVM의 Publisher처럼 구독하게 해주는 클래스
+ *
+ * 구독할때마다 연결을 하나 만들고, Subscriber의 request(n)은 REQUEST Frame으로 그대로 상대방에게 보낸다
+ * 이쪽에서 따로 미리 요청하지(prefetch) 않기 때문에 상대방의 source는 이쪽 Subscriber가 요청한 갯수만큼만 보낸다
+ * 받은 Frame은 연결마다 하나인 Thread에서 읽어서 decoder로 바꾼 뒤 onNext로 전달한다(그래서 onNext는 항상 같은 Thread에서 순서대로 호출된다)
+ *
+ * 상대방이 보낸 ERROR는 메세지만 전달되기 때문에 IOException으로 바꿔서 onError로 보낸다
+ * 끝나기 전에 연결이 끊어지면 EOFException을 onError로 보낸다
+ */
+@Slf4j
+public class RemotePublisher<T> implements Publisher<T> {
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+
+    private final String host;
+    private final int port;
+    private final Function<byte[], ? extends T> decoder;
+
+    public RemotePublisher(String host, int port, Function<byte[], ? extends T> decoder) {
+        this.host = host;
+        this.port = port;
+        this.decoder = decoder;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> sub) {
+        Socket socket = new Socket();
+        RemoteSubscription<T> subscription;
+        try {
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+            subscription = new RemoteSubscription<>(sub, socket, decoder);
+        } catch (IOException e) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+            EmptySubscription.error(sub, e);
+            return;
+        }
+        Thread reader = new Thread(subscription, "remote-publisher-" + host + ":" + port);
+        reader.setDaemon(true);
+        sub.onSubscribe(subscription);
+        reader.start();
+    }
+
+    static final class RemoteSubscription<T> implements Subscription, Runnable {
+
+        final Subscriber<? super T> actual;
+        final Socket socket;
+        final Function<byte[], ? extends T> decoder;
+        final DataInputStream in;
+        final DataOutputStream out;
+
+        volatile boolean cancelled;
+        // request(0 이하) 처럼 읽는 Thread가 아닌 곳에서 생긴 에러. 소켓을 닫아서 읽는 Thread가 대신 onError로 보내게 한다
+        volatile Throwable error;
+
+        RemoteSubscription(Subscriber<? super T> actual, Socket socket, Function<byte[], ? extends T> decoder) throws IOException {
+            this.actual = actual;
+            this.socket = socket;
+            this.decoder = decoder;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 256));
+        }
+
+        @Override
+        public void request(long n) {
+            if (cancelled) {
+                return;
+            }
+            if (n <= 0L) {
+                error = Demands.invalidRequest(n);
+                send(Frames.CANCEL, 0L);
+                closeSocket();
+                return;
+            }
+            send(Frames.REQUEST, n);
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            send(Frames.CANCEL, 0L);
+            closeSocket();
+        }
+
+        void send(byte type, long n) {
+            try {
+                synchronized (out) {
+                    if (type == Frames.REQUEST) {
+                        Frames.writeRequest(out, n);
+                    } else {
+                        Frames.writeSignal(out, type);
+                    }
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // 읽는 Thread에서도 연결이 끊어진 것을 알게 되고 거기서 onError를 보낸다
+                closeSocket();
+            }
+        }
+
+        @Override
+        public void run() {
+            byte[] type = new byte[1];
+            try {
+                for (;;) {
+                    int length = Frames.readHeader(in, type);
+                    if (length < 0) {
+                        throw new EOFException("Connection closed before the remote publisher completed");
+                    }
+                    byte[] payload = new byte[length];
+                    in.readFully(payload);
+                    if (cancelled) {
+                        return;
+                    }
+                    if (type[0] == Frames.NEXT) {
+                        T value;
+                        try {
+                            value = decoder.apply(payload);
+                        } catch (Throwable e) {
+                            cancel();
+                            actual.onError(e);
+                            return;
+                        }
+                        actual.onNext(value);
+                    } else if (type[0] == Frames.COMPLETE) {
+                        cancelled = true;
+                        actual.onComplete();
+                        return;
+                    } else if (type[0] == Frames.ERROR) {
+                        cancelled = true;
+                        actual.onError(new IOException("Remote publisher failed: " + new String(payload, StandardCharsets.UTF_8)));
+                        return;
+                    } else {
+                        throw new IOException("Unexpected frame type " + type[0]);
+                    }
+                }
+            } catch (IOException e) {
+                Throwable ex = error;
+                if (ex != null) {
+                    cancelled = true;
+                    actual.onError(ex);
+                } else if (!cancelled) {
+                    cancelled = true;
+                    actual.onError(e);
+                }
+            } finally {
+                closeSocket();
+            }
+        }
+
+        void closeSocket() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                logger.debug("close failed", e);
+            }
+        }
+    }
+}
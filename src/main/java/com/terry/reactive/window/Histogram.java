@@ -0,0 +1,145 @@
+package com.terry.reactive.window;
+
+import java.util.Arrays;
+
+/**
+ * 백분위수(percentile)를 구하기 위해 값들을 구간(bucket)별 갯수로 세어두는 Histogram
+ *
+ * 값을 전부 저장해두고 정렬하면 정확한 백분위수를 구할 수 있지만 구간 안의 데이터 수만큼 메모리가 필요하고 구할때마다 정렬해야 한다
+ * 여기서는 구간의 경계를 gamma^i 로 잡아서(로그 간격) 어떤 크기의 값이든 상대 오차 1% 이내로 구할 수 있게 했다
+ * 그래서 데이터가 초당 몇백만개가 와도 메모리는 구간 배열 크기로 고정되고 값을 빼는 것(remove)도 갯수만 줄이면 되기 때문에
+ * sliding window에서 오래된 값을 빼면서 백분위수를 계속 구할 수 있다
+ *
+ * 절대값이 MIN_VALUE 보다 작은 값은 0으로, MAX_VALUE 보다 큰 값은 가장 큰 구간으로 센다
+ * 음수 구간 배열은 음수가 처음 들어올때 만든다
+ * 여러 Thread에서 같이 사용할 수 없다
+ */
+public final class Histogram {
+
+    static final double RELATIVE_ACCURACY = 0.01;
+    static final double MIN_VALUE = 1e-9;
+    static final double MAX_VALUE = 1e12;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final int MIN_INDEX = rawIndex(MIN_VALUE);
+    private static final int BUCKETS = rawIndex(MAX_VALUE) - MIN_INDEX + 1;
+
+    private final int[] positive = new int[BUCKETS];
+    private int[] negative;
+    private long zeroCount;
+    private long count;
+
+    public void add(double value) {
+        record(value, 1);
+    }
+
+    public void remove(double value) {
+        record(value, -1);
+    }
+
+    private void record(double value, int delta) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        double abs = Math.abs(value);
+        if (abs < MIN_VALUE) {
+            zeroCount += delta;
+        } else if (value > 0) {
+            positive[bucket(abs)] += delta;
+        } else {
+            if (negative == null) {
+                negative = new int[BUCKETS];
+            }
+            negative[bucket(abs)] += delta;
+        }
+        count += delta;
+    }
+
+    public void addAll(Histogram other) {
+        merge(other, 1);
+    }
+
+    public void removeAll(Histogram other) {
+        merge(other, -1);
+    }
+
+    private void merge(Histogram other, int sign) {
+        if (other.count == 0) {
+            return;
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            positive[i] += sign * other.positive[i];
+        }
+        if (other.negative != null) {
+            if (negative == null) {
+                negative = new int[BUCKETS];
+            }
+            for (int i = 0; i < BUCKETS; i++) {
+                negative[i] += sign * other.negative[i];
+            }
+        }
+        zeroCount += sign * other.zeroCount;
+        count += sign * other.count;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @param quantile 0 ~ 1 사이의 값(0.5 이면 중앙값, 0.99 이면 99 백분위수)
+     * @return 값이 없으면 NaN
+     */
+    public double percentile(double quantile) {
+        if (count <= 0) {
+            return Double.NaN;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        if (negative != null) {
+            // 절대값이 큰 음수부터 센다
+            for (int i = BUCKETS - 1; i >= 0; i--) {
+                seen += negative[i];
+                if (seen >= rank) {
+                    return -value(i);
+                }
+            }
+        }
+        seen += zeroCount;
+        if (seen >= rank) {
+            return 0;
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += positive[i];
+            if (seen >= rank) {
+                return value(i);
+            }
+        }
+        return value(BUCKETS - 1);
+    }
+
+    public void reset() {
+        Arrays.fill(positive, 0);
+        if (negative != null) {
+            Arrays.fill(negative, 0);
+        }
+        zeroCount = 0;
+        count = 0;
+    }
+
+    private static int bucket(double abs) {
+        return Math.min(BUCKETS - 1, Math.max(0, rawIndex(abs) - MIN_INDEX));
+    }
+
+    private static int rawIndex(double abs) {
+        return (int) Math.ceil(Math.log(abs) / LOG_GAMMA);
+    }
+
+    /**
+     * 구간 (gamma^(i-1), gamma^i] 의 대표 값. 구간 안의 어떤 값과도 상대 오차가 RELATIVE_ACCURACY 이내이다
+     */
+    private static double value(int bucket) {
+        return 2 * Math.pow(GAMMA, bucket + MIN_INDEX) / (GAMMA + 1);
+    }
+}
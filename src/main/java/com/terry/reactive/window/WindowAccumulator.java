@@ -0,0 +1,77 @@
+package com.terry.reactive.window;
+
+/**
+ * 값이 들어올때마다 갯수, 합계, 최소/최대값, Histogram을 바로 갱신해두는 집계 객체
+ * 구간이 끝날때 값들을 다시 훑지 않고 snapshot으로 결과만 만든다
+ *
+ * 더하기만 했을때는 최소/최대값을 정확하게 기억하지만 값을 빼고 나면(sliding window)
+ * 빠진 값이 최소/최대값이었는지 알 수 없기 때문에 그때부터는 Histogram에서 구한다
+ * 여러 Thread에서 같이 사용할 수 없다
+ */
+public final class WindowAccumulator {
+
+    private final Histogram histogram = new Histogram();
+    private long count;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private boolean exact = true;
+
+    public void add(double value) {
+        count++;
+        sum += value;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+        histogram.add(value);
+    }
+
+    public void remove(double value) {
+        count--;
+        sum -= value;
+        exact = false;
+        histogram.remove(value);
+    }
+
+    public void addAll(WindowAccumulator other) {
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        exact &= other.exact;
+        histogram.addAll(other.histogram);
+    }
+
+    public void removeAll(WindowAccumulator other) {
+        count -= other.count;
+        sum -= other.sum;
+        exact = false;
+        histogram.removeAll(other.histogram);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void reset() {
+        count = 0;
+        sum = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+        exact = true;
+        histogram.reset();
+    }
+
+    public WindowAggregate snapshot(long startMillis, long endMillis) {
+        if (count == 0) {
+            return new WindowAggregate(startMillis, endMillis, 0, 0, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+        }
+        return new WindowAggregate(startMillis, endMillis, count, sum,
+                exact ? min : histogram.percentile(0),
+                exact ? max : histogram.percentile(1),
+                histogram.percentile(0.5), histogram.percentile(0.95), histogram.percentile(0.99));
+    }
+}
@@ -0,0 +1,80 @@
+package com.terry.reactive.window;
+
+/**
+ * 구간(window) 하나의 집계 결과
+ * startMillis, endMillis : 구간의 시작과 끝 시각(epoch milli seconds)
+ * count, sum, mean : 갯수, 합계, 평균
+ * min, max : 최소값, 최대값(sliding window에서는 Histogram에서 구하기 때문에 1% 이내의 오차가 있다)
+ * p50, p95, p99 : 백분위수(1% 이내의 오차가 있다)
+ * 값이 하나도 없는 구간은 count가 0이고 나머지 값은 NaN 이다
+ */
+public class WindowAggregate {
+
+    private final long startMillis;
+    private final long endMillis;
+    private final long count;
+    private final double sum;
+    private final double min;
+    private final double max;
+    private final double p50;
+    private final double p95;
+    private final double p99;
+
+    public WindowAggregate(long startMillis, long endMillis, long count, double sum, double min, double max, double p50, double p95, double p99) {
+        this.startMillis = startMillis;
+        this.endMillis = endMillis;
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+        this.p50 = p50;
+        this.p95 = p95;
+        this.p99 = p99;
+    }
+
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    public long getEndMillis() {
+        return endMillis;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public double getMean() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getP50() {
+        return p50;
+    }
+
+    public double getP95() {
+        return p95;
+    }
+
+    public double getP99() {
+        return p99;
+    }
+
+    @Override
+    public String toString() {
+        return "WindowAggregate(start=" + startMillis + ", end=" + endMillis + ", count=" + count + ", sum=" + sum
+                + ", min=" + min + ", max=" + max + ", p50=" + p50 + ", p95=" + p95 + ", p99=" + p99 + ")";
+    }
+}
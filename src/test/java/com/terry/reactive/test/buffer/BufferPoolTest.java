@@ -0,0 +1,174 @@
+package com.terry.reactive.test.buffer;
+
+import com.terry.reactive.buffer.BufferPool;
+import com.terry.reactive.buffer.BufferPoolStats;
+import com.terry.reactive.buffer.PooledBuffer;
+import com.terry.reactive.operator.Operators;
+import com.terry.reactive.scheduler.ForkJoinScheduler;
+import com.terry.reactive.test.support.RecordingSubscriber;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assume;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@Slf4j
+public class BufferPoolTest {
+
+    @Test
+    public void 같은_Thread에서_반환하면_다시_사용() {
+        BufferPool pool = new BufferPool(1024, 4, true);
+
+        PooledBuffer first = pool.allocate();
+        first.buffer().putInt(1);
+        assertTrue(first.release());
+        PooledBuffer second = pool.allocate();
+
+        assertSame(first, second);
+        assertEquals("꺼낼때 position이 초기화되어야 한다", 0, second.buffer().position());
+        assertTrue(second.buffer().isDirect());
+        BufferPoolStats stats = pool.getStats();
+        assertEquals(1, stats.getArenaHits());
+        assertEquals(1, stats.getThreadCacheHits());
+        assertEquals(1, stats.getOutstanding());
+    }
+
+    @Test
+    public void 참조_횟수가_0이_되어야_반환() {
+        BufferPool pool = new BufferPool(64, 2, false);
+        PooledBuffer buffer = pool.allocate();
+
+        buffer.retain();
+        assertFalse(buffer.release());
+        assertEquals(1, pool.getStats().getOutstanding());
+        assertTrue(buffer.release());
+        assertEquals(0, pool.getStats().getOutstanding());
+
+        try {
+            buffer.release();
+            fail("이미 반환된 buffer는 release 할 수 없다");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            buffer.buffer();
+            fail("이미 반환된 buffer는 사용할 수 없다");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void pool이_비면_unpooled_buffer를_만든다() {
+        BufferPool pool = new BufferPool(64, 2, false);
+        PooledBuffer a = pool.allocate();
+        PooledBuffer b = pool.allocate();
+        PooledBuffer c = pool.allocate();
+
+        assertEquals(1, pool.getStats().getUnpooled());
+        a.release();
+        b.release();
+        c.release();
+        assertEquals(0, pool.getStats().getOutstanding());
+    }
+
+    @Test
+    public void release_하지_않고_버리면_leak으로_기록() throws InterruptedException {
+        BufferPool pool = new BufferPool(64, 8, false, 4, 1);
+        pool.allocate();
+
+        for (int i = 0; i < 50 && pool.getStats().getLeaks() == 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+            pool.allocate().release();
+        }
+        assertEquals(1, pool.getStats().getLeaks());
+    }
+
+    /**
+     * publishOn으로 Thread를 넘어가도 autoRelease가 onNext 이후에 반환하기 때문에 pool이 모자라지 않는다
+     */
+    @Test
+    public void publishOn과_autoRelease로_전달하면_모두_반환() throws InterruptedException {
+        BufferPool pool = new BufferPool(64, 512, true);
+        ForkJoinScheduler scheduler = new ForkJoinScheduler(2);
+        try {
+            AtomicLong sum = new AtomicLong();
+            RecordingSubscriber<Integer> sub = new RecordingSubscriber<>();
+            Flux<PooledBuffer> source = Flux.range(0, 10_000).map(i -> {
+                PooledBuffer b = pool.allocate();
+                b.buffer().putInt(0, i);
+                return b;
+            });
+            Flux.from(Operators.autoRelease(Operators.publishOn(source, scheduler)))
+                    .map(b -> {
+                        sum.addAndGet(b.buffer().getInt(0));
+                        return 1;
+                    })
+                    .subscribe(sub);
+
+            assertTrue(sub.await(5, TimeUnit.SECONDS));
+            assertEquals(49_995_000L, sum.get());
+            BufferPoolStats stats = pool.getStats();
+            logger.info("{}", stats);
+            assertEquals(0, stats.getOutstanding());
+            assertEquals(0, stats.getUnpooled());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * cancel 하면 publishOn의 Queue에 남아 있던 buffer도 release 되어야 한다
+     */
+    @Test
+    public void cancel_하면_Queue에_남은_buffer도_반환() throws InterruptedException {
+        BufferPool pool = new BufferPool(64, 512, false);
+        ForkJoinScheduler scheduler = new ForkJoinScheduler(1);
+        try {
+            RecordingSubscriber<PooledBuffer> sub = new RecordingSubscriber<>(1);
+            Flux<PooledBuffer> source = Flux.range(0, 1000).map(i -> pool.allocate());
+            Operators.autoRelease(Operators.publishOn(source, scheduler, 64)).subscribe(sub);
+
+            Thread.sleep(100);
+            assertEquals(1, sub.count());
+            assertTrue(pool.getStats().getOutstanding() > 1);
+
+            sub.cancel();
+            scheduler.awaitQuiescence(1, TimeUnit.SECONDS);
+            assertEquals(0, pool.getStats().getOutstanding());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * 꺼내고 반환하는 과정에서 객체를 만들지 않아야 한다(HotSpot의 Thread 별 할당량으로 확인)
+     */
+    @Test
+    public void 꺼내고_반환할때_객체를_만들지_않는다() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        BufferPool pool = new BufferPool(1024, 16, true, 8, 0);
+        long threadId = Thread.currentThread().getId();
+
+        for (int i = 0; i < 10_000; i++) {
+            pool.allocate().release();
+        }
+        long before = mx.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 1_000_000; i++) {
+            pool.allocate().release();
+        }
+        long allocated = mx.getThreadAllocatedBytes(threadId) - before;
+
+        logger.info("allocated bytes for 1,000,000 allocate/release : {}", allocated);
+        assertTrue("allocated " + allocated, allocated < 64 * 1024);
+    }
+}
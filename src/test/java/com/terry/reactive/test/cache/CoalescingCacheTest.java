@@ -0,0 +1,105 @@
+package com.terry.reactive.test.cache;
+
+import com.terry.reactive.cache.CacheStats;
+import com.terry.reactive.cache.CoalescingCache;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@Slf4j
+public class CoalescingCacheTest {
+
+    /**
+     * MyService.hello() 처럼 시간이 걸리는 작업을 100개의 Thread에서 동시에 호출해도 작업은 한번만 실행되어야 한다
+     */
+    @Test
+    public void 동시_호출은_작업_하나를_공유한다() throws Exception {
+        CoalescingCache<String, String> cache = new CoalescingCache<>(10, TimeUnit.SECONDS, 100);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService es = Executors.newCachedThreadPool();
+
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            results.add(cache.get("hello", key -> CompletableFuture.supplyAsync(() -> {
+                loads.incrementAndGet();
+                sleep(300);
+                return "Hello";
+            }, es)));
+        }
+        for (CompletableFuture<String> f : results) {
+            assertEquals("Hello", f.get(5, TimeUnit.SECONDS));
+        }
+
+        CacheStats stats = cache.getStats();
+        logger.info("{}", stats);
+        assertEquals(1, loads.get());
+        assertEquals(1, stats.getMisses());
+        assertEquals(99, stats.getCoalesced());
+
+        assertEquals("Hello", cache.get("hello", key -> {
+            throw new AssertionError("보관된 결과를 돌려줘야 한다");
+        }).get());
+        assertEquals(1, cache.getStats().getHits());
+        es.shutdown();
+    }
+
+    @Test
+    public void ttl이_지나면_다시_실행한다() throws Exception {
+        AtomicLong now = new AtomicLong();
+        CoalescingCache<String, Integer> cache = new CoalescingCache<>(1, TimeUnit.SECONDS, 100, now::get);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(Integer.valueOf(1), cache.get("k", key -> CompletableFuture.completedFuture(loads.incrementAndGet())).get());
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(Integer.valueOf(1), cache.get("k", key -> CompletableFuture.completedFuture(loads.incrementAndGet())).get());
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+        assertEquals(Integer.valueOf(2), cache.get("k", key -> CompletableFuture.completedFuture(loads.incrementAndGet())).get());
+    }
+
+    @Test
+    public void maxSize를_넘으면_오래된_것부터_지운다() throws Exception {
+        CoalescingCache<Integer, Integer> cache = new CoalescingCache<>(10, TimeUnit.SECONDS, 10);
+        for (int i = 0; i < 100; i++) {
+            cache.get(i, CompletableFuture::completedFuture).get();
+        }
+        CacheStats stats = cache.getStats();
+        assertEquals(10, stats.getSize());
+        assertEquals(90, stats.getEvictions());
+    }
+
+    @Test
+    public void 실패한_결과는_보관하지_않는다() throws Exception {
+        CoalescingCache<String, String> cache = new CoalescingCache<>(10, TimeUnit.SECONDS, 10);
+        CompletableFuture<String> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("boom"));
+        try {
+            cache.get("k", key -> failed).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertEquals("ok", cache.get("k", key -> CompletableFuture.completedFuture("ok")).get());
+        assertEquals(2, cache.getStats().getMisses());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.terry.reactive.test.circuit;
+
+import com.terry.reactive.circuit.CallNotPermittedException;
+import com.terry.reactive.circuit.CircuitBreaker;
+import com.terry.reactive.circuit.CircuitBreakerStats;
+import com.terry.reactive.future.Futures;
+import com.terry.reactive.operator.Operators;
+import com.terry.reactive.test.support.RangePublisher;
+import com.terry.reactive.test.support.RecordingSubscriber;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@Slf4j
+public class CircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(3);
+
+    private final AtomicLong now = new AtomicLong();
+
+    /**
+     * window 10개, 최소 4번, 실패율 50%, 2초 넘으면 느린 호출, 느린 호출 비율 50%, 열리면 5초, 시험 호출 2번
+     */
+    private CircuitBreaker breaker() {
+        return new CircuitBreaker("test", 10, 4, 0.5, 2, 0.5, 5, TimeUnit.SECONDS, 2, now::get);
+    }
+
+    @Test
+    public void 실패율이_기준을_넘으면_열리고_바로_실패시킨다() {
+        CircuitBreaker breaker = breaker();
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(FAST);
+        breaker.onError(FAST, new RuntimeException());
+        // 최소 호출 수 전에는 열리지 않는다
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onError(FAST, new RuntimeException());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        int calls = 1_000_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            assertFalse(breaker.tryAcquirePermission());
+        }
+        logger.info("rejected call : {} ns", (System.nanoTime() - start) / calls);
+
+        CircuitBreakerStats stats = breaker.getStats();
+        logger.info("{}", stats);
+        assertEquals(calls, stats.getNotPermitted());
+        assertEquals(1, stats.getOpenedCount());
+        assertEquals(0.5, stats.getFailureRate(), 0.0);
+    }
+
+    @Test
+    public void 느린_호출이_많아도_열린다() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 3; i++) {
+            breaker.onSuccess(FAST);
+        }
+        for (int i = 0; i < 3; i++) {
+            breaker.onSuccess(SLOW);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(0.0, breaker.getStats().getFailureRate(), 0.0);
+        assertEquals(0.5, breaker.getStats().getSlowCallRate(), 0.0);
+    }
+
+    /**
+     * openDuration이 지나면 HALF_OPEN이 되어 시험 호출만 허용하고, 시험 호출이 실패하면 다시 열리고 모두 성공하면 닫힌다
+     */
+    @Test
+    public void HALF_OPEN에서_시험_호출_결과로_닫히거나_다시_열린다() {
+        CircuitBreaker breaker = breaker();
+        for (int i = 0; i < 4; i++) {
+            breaker.onError(FAST, new RuntimeException());
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertTrue(breaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+        breaker.onError(FAST, new RuntimeException());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        // 결과 없이 포기한 시험 호출은 자리를 돌려준다
+        breaker.releasePermission();
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        CircuitBreakerStats stats = breaker.getStats();
+        logger.info("{}", stats);
+        assertEquals(0, stats.getBufferedCalls());
+        assertEquals(2, stats.getOpenedCount());
+        assertEquals(2, stats.getHalfOpenedCount());
+        assertEquals(1, stats.getClosedCount());
+    }
+
+    /**
+     * 열린 동안에는 Future를 만드는 call과 Publisher 구독을 하지 않고 CallNotPermittedException으로 바로 실패한다
+     */
+    @Test
+    public void 열리면_Future와_Publisher를_호출하지_않는다() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test", 4, 2, 0.5, 2, 0.5, 5, TimeUnit.SECONDS, 1);
+        AtomicInteger called = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            Futures.circuitBreaker(() -> {
+                called.incrementAndGet();
+                CompletableFuture<String> f = new CompletableFuture<>();
+                f.completeExceptionally(new IllegalStateException("down"));
+                return f;
+            }, breaker);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        CompletableFuture<String> rejected = Futures.circuitBreaker(() -> {
+            called.incrementAndGet();
+            return CompletableFuture.completedFuture("hello");
+        }, breaker);
+        try {
+            rejected.get();
+            fail("ExecutionException expected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof CallNotPermittedException);
+        }
+        assertEquals(2, called.get());
+
+        Publisher<Integer> source = sub -> {
+            called.incrementAndGet();
+            new RangePublisher(1, 3).subscribe(sub);
+        };
+        RecordingSubscriber<Integer> sub = new RecordingSubscriber<>();
+        Operators.circuitBreaker(source, breaker).subscribe(sub);
+        assertTrue(sub.await(1, TimeUnit.SECONDS));
+        assertTrue(sub.error() instanceof CallNotPermittedException);
+        assertEquals(2, called.get());
+    }
+}
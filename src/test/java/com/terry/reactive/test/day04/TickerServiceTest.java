@@ -0,0 +1,101 @@
+package com.terry.reactive.test.day04;
+
+import com.terry.reactive.day04.Tick;
+import com.terry.reactive.day04.TickerService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class TickerServiceTest {
+
+    /**
+     * 1개만 요청하고 더는 요청하지 않는 느린 접속자가 있어도 다른 접속자는 계속 tick을 받아야 한다
+     */
+    @Test
+    public void 느린_접속자가_있어도_다른_접속자는_멈추지_않는다() {
+        TickerService tickerService = new TickerService(5, 4, 1000);
+
+        BaseSubscriber<Tick> slow = new BaseSubscriber<Tick>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(1);
+            }
+        };
+        tickerService.ticks().subscribe(slow);
+
+        List<Tick> fast = tickerService.ticks().take(40).collectList().block(Duration.ofSeconds(5));
+        assertEquals(40, fast.size());
+
+        TickerService.TickerStats stats = tickerService.getStats();
+        logger.info("connected : {}, slow : {}, dropped : {}", stats.getConnectedClients(), stats.getSlowClients(), stats.getDroppedTicks());
+        assertEquals(1, stats.getConnectedClients());
+        assertEquals(1, stats.getSlowClients());
+        assertTrue(stats.getDroppedTicks() > 0);
+
+        slow.dispose();
+        assertEquals(0, tickerService.getStats().getConnectedClients());
+        assertEquals(0, tickerService.getStats().getSlowClients());
+    }
+
+    /**
+     * 여러 접속자가 같은 tick(같은 sequence)을 받는지 확인한다
+     * 세 접속자를 먼저 모두 구독시킨 뒤 각자 10개 이상 받을때까지 기다리기 때문에 받은 범위가 항상 겹친다
+     */
+    @Test
+    public void 모든_접속자가_같은_tick을_공유한다() throws InterruptedException {
+        TickerService tickerService = new TickerService(5, 16, 1000);
+
+        List<List<Long>> results = new ArrayList<>();
+        List<Disposable> clients = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            List<Long> sequences = new CopyOnWriteArrayList<>();
+            results.add(sequences);
+            clients.add(tickerService.ticks().subscribe(tick -> sequences.add(tick.getSequence())));
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (results.stream().anyMatch(sequences -> sequences.size() < 10)) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+        clients.forEach(Disposable::dispose);
+
+        // 가장 늦게 시작한 접속자의 첫 tick부터 가장 먼저 끝난 접속자의 마지막 tick까지는 모두 같은 sequence를 받아야 한다
+        long from = results.stream().mapToLong(sequences -> sequences.get(0)).max().getAsLong();
+        long to = results.stream().mapToLong(sequences -> sequences.get(sequences.size() - 1)).min().getAsLong();
+        assertTrue(from <= to);
+        List<Long> expected = null;
+        for (List<Long> sequences : results) {
+            List<Long> overlap = sequences.stream().filter(no -> no >= from && no <= to).collect(Collectors.toList());
+            if (expected == null) {
+                expected = overlap;
+            } else {
+                assertEquals(expected, overlap);
+            }
+        }
+    }
+
+    /**
+     * 마지막 접속자가 나가도 grace 안에 다시 접속하면 tick을 처음부터 다시 만들지 않고 이어서 받는다
+     */
+    @Test
+    public void grace_안에_다시_접속하면_이어서_받는다() {
+        TickerService tickerService = new TickerService(5, 16, 1000);
+
+        List<Tick> first = tickerService.ticks().take(5).collectList().block(Duration.ofSeconds(5));
+        List<Tick> second = tickerService.ticks().take(5).collectList().block(Duration.ofSeconds(5));
+
+        assertTrue(second.get(0).getSequence() > first.get(first.size() - 1).getSequence());
+    }
+}
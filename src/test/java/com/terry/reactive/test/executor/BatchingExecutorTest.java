@@ -0,0 +1,177 @@
+package com.terry.reactive.test.executor;
+
+import com.terry.reactive.executor.BatchingExecutor;
+import com.terry.reactive.executor.PrioritizedTask;
+import com.terry.reactive.executor.TaskPriority;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class BatchingExecutorTest {
+
+    /**
+     * 여러 Thread에서 동시에 넣은 작업이 빠짐없이 한번씩 실행되고, delegate에는 batch 단위로 넘어간다
+     */
+    @Test
+    public void 여러_Thread에서_넣은_작업이_한번씩_실행된다() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        ExecutorService producers = Executors.newFixedThreadPool(4);
+        AtomicLong delegated = new AtomicLong();
+        BatchingExecutor executor = new BatchingExecutor(task -> {
+            delegated.incrementAndGet();
+            pool.execute(task);
+        }, 32, 1, TimeUnit.MILLISECONDS);
+        try {
+            int perThread = 50_000;
+            AtomicIntegerArray runs = new AtomicIntegerArray(4 * perThread);
+            CountDownLatch done = new CountDownLatch(4 * perThread);
+            for (int t = 0; t < 4; t++) {
+                int base = t * perThread;
+                producers.execute(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        int index = base + i;
+                        executor.execute(() -> {
+                            runs.incrementAndGet(index);
+                            done.countDown();
+                        });
+                    }
+                });
+            }
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            for (int i = 0; i < runs.length(); i++) {
+                assertEquals(1, runs.get(i));
+            }
+            logger.info("tasks : {}, batches : {}, timed flushes : {}",
+                    executor.getTaskCount(), executor.getBatchCount(), executor.getTimedFlushCount());
+            assertEquals(4 * perThread, executor.getTaskCount());
+            assertEquals(executor.getBatchCount(), delegated.get());
+            assertTrue(executor.getBatchCount() < executor.getTaskCount() / 4);
+        } finally {
+            producers.shutdownNow();
+            executor.shutdown();
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * batch가 다 차지 않아도 maxDelay가 지나면 delegate에 넘어간다
+     */
+    @Test
+    public void 다_차지_않은_batch도_maxDelay_뒤에_실행된다() throws InterruptedException {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        BatchingExecutor executor = new BatchingExecutor(pool, 1000, 20, TimeUnit.MILLISECONDS);
+        try {
+            CountDownLatch done = new CountDownLatch(3);
+            for (int i = 0; i < 3; i++) {
+                executor.execute(done::countDown);
+            }
+            assertTrue(done.await(1, TimeUnit.SECONDS));
+            assertEquals(1, executor.getBatchCount());
+            assertEquals(1, executor.getTimedFlushCount());
+        } finally {
+            executor.shutdown();
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * @Async가 CompletableFuture를 return 할때처럼 supplyAsync로 넣으면 batch로 실행되어도 호출마다 자기 결과를 받는다
+     * 작업 하나가 실패해도 같은 batch의 다른 작업은 실행된다
+     */
+    @Test
+    public void 작업마다_자기_Future가_완료된다() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        BatchingExecutor executor = new BatchingExecutor(pool, 8, 5, TimeUnit.MILLISECONDS);
+        try {
+            List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                int value = i;
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    if (value == 3) {
+                        throw new IllegalStateException("boom");
+                    }
+                    return value * 10;
+                }, executor));
+            }
+            for (int i = 0; i < 20; i++) {
+                CompletableFuture<Integer> f = futures.get(i);
+                if (i == 3) {
+                    assertTrue(f.handle((v, e) -> e != null).get(1, TimeUnit.SECONDS));
+                } else {
+                    assertEquals(Integer.valueOf(i * 10), f.get(1, TimeUnit.SECONDS));
+                }
+            }
+        } finally {
+            executor.shutdown();
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * TaskPriority.executor로 감싼 delegate에 넘기면 Timer Thread가 넘긴 Batch도 그 등급으로 들어간다
+     */
+    @Test
+    public void 등급별_BatchingExecutor는_자기_등급으로_넘긴다() throws InterruptedException {
+        List<TaskPriority> priorities = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(1);
+        BatchingExecutor executor = new BatchingExecutor(TaskPriority.BACKGROUND.executor(task -> {
+            priorities.add(PrioritizedTask.priorityOf(PrioritizedTask.wrap(task)));
+            task.run();
+        }), 32, 1, TimeUnit.MILLISECONDS);
+        try {
+            // 다 차지 않은 Batch라서 Timer Thread(등급 없음)가 넘긴다
+            executor.execute(done::countDown);
+            assertTrue(done.await(1, TimeUnit.SECONDS));
+            assertEquals(Collections.singletonList(TaskPriority.BACKGROUND), priorities);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Timer가 닫은 Batch를 delegate가 거절해도 Timer Thread에서 실행하지 않고, 다음에 작업을 넣는 Thread가 실행한다
+     */
+    @Test
+    public void 거절된_batch는_Timer_Thread에서_실행하지_않는다() throws InterruptedException {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, r -> new Thread(r, "test-timer"));
+        BatchingExecutor executor = new BatchingExecutor(task -> {
+            throw new RejectedExecutionException("full");
+        }, 1000, 5, TimeUnit.MILLISECONDS, timer);
+        try {
+            List<String> threadNames = new CopyOnWriteArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                executor.execute(() -> threadNames.add(Thread.currentThread().getName()));
+            }
+            Thread.sleep(50);
+            assertTrue(threadNames.isEmpty());
+
+            executor.execute(() -> threadNames.add(Thread.currentThread().getName()));
+            assertEquals(3, threadNames.size());
+            executor.shutdown();
+            assertEquals(4, threadNames.size());
+            for (String name : threadNames) {
+                assertEquals(Thread.currentThread().getName(), name);
+            }
+        } finally {
+            executor.shutdown();
+            timer.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.terry.reactive.test.executor;
+
+import com.terry.reactive.executor.Bulkhead;
+import com.terry.reactive.executor.BulkheadStats;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@Slf4j
+public class BulkheadTest {
+
+    private static Runnable await(CountDownLatch latch) {
+        return () -> {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+
+    /**
+     * 느린 작업으로 한 Bulkhead가 꽉 차서 거절되어도 다른 Bulkhead의 작업은 바로 실행된다
+     */
+    @Test
+    public void 꽉_찬_Bulkhead는_거절하고_다른_Bulkhead는_영향을_받지_않는다() throws InterruptedException {
+        Bulkhead slow = new Bulkhead("slow", 1, 2, 2);
+        Bulkhead fast = new Bulkhead("fast", 1, 1, 0);
+        CountDownLatch blocker = new CountDownLatch(1);
+        try {
+            // Thread 2개 + 대기열 2개
+            for (int i = 0; i < 4; i++) {
+                slow.execute(await(blocker));
+            }
+            try {
+                slow.execute(await(blocker));
+                fail("RejectedExecutionException expected");
+            } catch (RejectedExecutionException expected) {
+            }
+
+            CountDownLatch done = new CountDownLatch(1);
+            fast.execute(done::countDown);
+            assertTrue(done.await(1, TimeUnit.SECONDS));
+
+            BulkheadStats stats = slow.getStats();
+            logger.info("{}", stats);
+            assertEquals(2, stats.getPoolSize());
+            assertEquals(2, stats.getQueueDepth());
+            assertEquals(1, stats.getRejected());
+            // activeCount는 Thread가 작업을 시작한 뒤에 올라가기 때문에 대기열만큼은 확실히 차 있다
+            assertTrue(stats.getSaturation() >= 0.5);
+            assertEquals(0, fast.getStats().getRejected());
+        } finally {
+            blocker.countDown();
+            slow.shutdown();
+            fast.shutdown();
+        }
+    }
+
+    /**
+     * 작업은 decorator로 감싸서 bulkhead-이름-N Thread에서 실행된다
+     */
+    @Test
+    public void decorator를_적용해서_전용_Thread에서_실행한다() throws InterruptedException {
+        String[] seen = new String[2];
+        Bulkhead bulkhead = new Bulkhead("orders", 1, 1, 10, task -> () -> {
+            seen[0] = "decorated";
+            task.run();
+        });
+        try {
+            CountDownLatch done = new CountDownLatch(1);
+            bulkhead.execute(() -> {
+                seen[1] = Thread.currentThread().getName();
+                done.countDown();
+            });
+            assertTrue(done.await(1, TimeUnit.SECONDS));
+            assertEquals("decorated", seen[0]);
+            assertEquals("bulkhead-orders-1", seen[1]);
+            assertEquals("orders", bulkhead.getName());
+        } finally {
+            bulkhead.shutdown();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.terry.reactive.test.executor;
+
+import com.terry.reactive.executor.PrioritizedTask;
+import com.terry.reactive.executor.PriorityQueueStats;
+import com.terry.reactive.executor.PriorityTaskQueue;
+import com.terry.reactive.executor.TaskPriority;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class PriorityTaskQueueTest {
+
+    private ThreadPoolExecutor singleThread(PriorityTaskQueue queue) {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, queue);
+    }
+
+    /**
+     * BACKGROUND 작업이 먼저 쌓여 있어도 나중에 들어온 INTERACTIVE 작업이 먼저 실행된다
+     */
+    @Test
+    public void INTERACTIVE_작업이_BACKGROUND_작업_앞으로_끼어든다() throws InterruptedException {
+        PriorityTaskQueue queue = new PriorityTaskQueue(100, 10, TimeUnit.SECONDS);
+        ThreadPoolExecutor pool = singleThread(queue);
+        try {
+            CountDownLatch blocker = new CountDownLatch(1);
+            pool.execute(() -> {
+                try {
+                    blocker.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            List<String> order = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch done = new CountDownLatch(5);
+            Executor background = TaskPriority.BACKGROUND.executor(task -> pool.execute(PrioritizedTask.wrap(task)));
+            Executor interactive = TaskPriority.INTERACTIVE.executor(task -> pool.execute(PrioritizedTask.wrap(task)));
+            for (int i = 0; i < 3; i++) {
+                int n = i;
+                background.execute(() -> {
+                    order.add("background-" + n);
+                    done.countDown();
+                });
+            }
+            pool.execute(() -> {
+                order.add("normal");
+                done.countDown();
+            });
+            interactive.execute(() -> {
+                order.add("interactive");
+                done.countDown();
+            });
+
+            Map<TaskPriority, PriorityQueueStats> stats = queue.getStats();
+            assertEquals(3, stats.get(TaskPriority.BACKGROUND).getDepth());
+            assertEquals(1, stats.get(TaskPriority.NORMAL).getDepth());
+            assertEquals(1, stats.get(TaskPriority.INTERACTIVE).getDepth());
+
+            blocker.countDown();
+            assertTrue(done.await(1, TimeUnit.SECONDS));
+            assertEquals(Arrays.asList("interactive", "normal", "background-0", "background-1", "background-2"), order);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * 높은 등급이 계속 들어와도 maxWait 보다 오래 기다린 낮은 등급 작업은 PROMOTION_INTERVAL 번에 한번씩 먼저 꺼낸다
+     */
+    @Test
+    public void 오래_기다린_낮은_등급도_차례를_받는다() throws InterruptedException {
+        PriorityTaskQueue queue = new PriorityTaskQueue(100, 20, TimeUnit.MILLISECONDS);
+        Runnable background = new PrioritizedTask(() -> { }, TaskPriority.BACKGROUND);
+        queue.offer(background);
+        Thread.sleep(30);
+        int polls = 0;
+        Runnable task;
+        do {
+            queue.offer(new PrioritizedTask(() -> { }, TaskPriority.INTERACTIVE));
+            task = queue.poll();
+            polls++;
+        } while (task != background);
+        assertTrue(polls <= 4);
+        assertEquals(1, queue.getStats().get(TaskPriority.BACKGROUND).getPromoted());
+    }
+
+    /**
+     * BACKGROUND 작업이 계속 쌓여 있어서 맨 앞 작업이 항상 maxWait 보다 오래 기다린 상태여도
+     * 나중에 들어온 INTERACTIVE 작업이 쌓여 있는 BACKGROUND 작업을 모두 기다리지 않는다(우선순위가 거꾸로 되지 않는다)
+     */
+    @Test
+    public void BACKGROUND가_계속_쌓여_있어도_INTERACTIVE가_먼저_나간다() throws InterruptedException {
+        PriorityTaskQueue queue = new PriorityTaskQueue(1000, 20, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 100; i++) {
+            queue.offer(new PrioritizedTask(() -> { }, TaskPriority.BACKGROUND));
+        }
+        Thread.sleep(30);
+        Runnable interactive = new PrioritizedTask(() -> { }, TaskPriority.INTERACTIVE);
+        queue.offer(interactive);
+        assertTrue(interactive == queue.poll());
+
+        // INTERACTIVE 작업이 계속 들어와도 4번 중 1번은 BACKGROUND 작업이 나가고 나머지는 INTERACTIVE 작업이 나간다
+        int interactiveCount = 0;
+        int backgroundCount = 0;
+        for (int i = 0; i < 40; i++) {
+            queue.offer(new PrioritizedTask(() -> { }, TaskPriority.INTERACTIVE));
+            if (PrioritizedTask.priorityOf(queue.poll()) == TaskPriority.INTERACTIVE) {
+                interactiveCount++;
+            } else {
+                backgroundCount++;
+            }
+        }
+        assertEquals(30, interactiveCount);
+        assertEquals(10, backgroundCount);
+    }
+
+    /**
+     * 대기열 크기는 등급마다 따로라서 BACKGROUND가 꽉 차도 INTERACTIVE는 들어간다
+     */
+    @Test
+    public void 등급마다_대기열_크기가_따로다() {
+        PriorityTaskQueue queue = new PriorityTaskQueue(2, 1, TimeUnit.SECONDS);
+        assertTrue(queue.offer(new PrioritizedTask(() -> { }, TaskPriority.BACKGROUND)));
+        assertTrue(queue.offer(new PrioritizedTask(() -> { }, TaskPriority.BACKGROUND)));
+        assertFalse(queue.offer(new PrioritizedTask(() -> { }, TaskPriority.BACKGROUND)));
+        assertTrue(queue.offer(new PrioritizedTask(() -> { }, TaskPriority.INTERACTIVE)));
+
+        PriorityQueueStats background = queue.getStats().get(TaskPriority.BACKGROUND);
+        logger.info("{}", background);
+        assertEquals(2, background.getDepth());
+        assertEquals(1, background.getRejected());
+        assertEquals(3, queue.size());
+        assertEquals(3, queue.remainingCapacity());
+
+        List<Runnable> drained = new ArrayList<>();
+        queue.drainTo(drained);
+        assertEquals(3, drained.size());
+        assertEquals(TaskPriority.INTERACTIVE, PrioritizedTask.priorityOf(drained.get(0)));
+    }
+}
@@ -0,0 +1,59 @@
+package com.terry.reactive.test.future;
+
+import com.terry.reactive.future.Futures;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@Slf4j
+public class FuturesTest {
+
+    @Test
+    public void 시간_안에_끝나지_않으면_TimeoutException() throws Exception {
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<String> result = Futures.timeout(source, 100, TimeUnit.MILLISECONDS);
+
+        try {
+            result.get(2, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        // result를 먼저 완료한 뒤에 source를 cancel 하기 때문에 잠깐 기다린다
+        assertTrue(awaitCancelled(source));
+    }
+
+    @Test
+    public void 시간_안에_끝나지_않으면_fallback_값으로_완료() throws Exception {
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<String> result = Futures.timeout(source, 100, TimeUnit.MILLISECONDS, () -> "fallback");
+
+        assertEquals("fallback", result.get(2, TimeUnit.SECONDS));
+        assertTrue(awaitCancelled(source));
+    }
+
+    @Test
+    public void 시간_안에_끝나면_원래_값을_돌려준다() throws Exception {
+        CompletableFuture<String> source = CompletableFuture.supplyAsync(() -> "Hello");
+        CompletableFuture<String> result = Futures.timeout(source, 1, TimeUnit.SECONDS);
+
+        assertEquals("Hello", result.get(2, TimeUnit.SECONDS));
+        Thread.sleep(1200);
+        assertEquals("Hello", result.get());
+    }
+
+    private boolean awaitCancelled(CompletableFuture<?> future) throws InterruptedException {
+        for (int i = 0; i < 100 && !future.isCancelled(); i++) {
+            Thread.sleep(10);
+        }
+        return future.isCancelled();
+    }
+}
@@ -0,0 +1,148 @@
+package com.terry.reactive.test.operator;
+
+import com.terry.reactive.dedup.BloomDedupPolicy;
+import com.terry.reactive.dedup.DedupPolicy;
+import com.terry.reactive.dedup.TimeWindowDedupPolicy;
+import com.terry.reactive.operator.DistinctPublisher;
+import com.terry.reactive.operator.Operators;
+import com.terry.reactive.test.support.RangePublisher;
+import com.terry.reactive.test.support.RecordingSubscriber;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class DistinctTest {
+
+    /**
+     * values를 request 받은 만큼 순서대로 보내는 Publisher
+     */
+    private static Publisher<Integer> just(Integer... values) {
+        List<Integer> list = Arrays.asList(values);
+        Publisher<Integer> range = new RangePublisher(0, values.length);
+        return sub -> range.subscribe(new Subscriber<Integer>() {
+            @Override
+            public void onSubscribe(Subscription s) {
+                sub.onSubscribe(s);
+            }
+
+            @Override
+            public void onNext(Integer index) {
+                sub.onNext(list.get(index));
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                sub.onError(t);
+            }
+
+            @Override
+            public void onComplete() {
+                sub.onComplete();
+            }
+        });
+    }
+
+    @Test
+    public void distinctUntilChanged는_연속된_중복만_버린다() {
+        RecordingSubscriber<Integer> sub = new RecordingSubscriber<>();
+        Operators.distinctUntilChanged(just(1, 1, 2, 2, 2, 1, 3, 3), v -> v).subscribe(sub);
+        assertTrue(sub.isCompleted());
+        assertEquals(Arrays.asList(1, 2, 1, 3), sub.values());
+    }
+
+    /**
+     * 버린 데이터만큼 위쪽에 더 요청하기 때문에 아래에서 요청한 갯수는 모두 처음 보는 데이터로 받는다
+     */
+    @Test
+    public void lru는_최근_key만_기억하고_요청한_갯수를_채운다() {
+        DistinctPublisher<Integer, Integer> pub = new DistinctPublisher<>(just(1, 2, 1, 3, 1, 4, 2, 5), v -> v, () -> DedupPolicy.lru(2));
+        RecordingSubscriber<Integer> sub = new RecordingSubscriber<>(3);
+        pub.subscribe(sub);
+        assertEquals(Arrays.asList(1, 2, 3), sub.values());
+
+        sub.request(Long.MAX_VALUE);
+        assertTrue(sub.isCompleted());
+        // 2는 1, 3, 1, 4를 보는 동안 밀려나서 다시 받는다. 1은 자주 와서 계속 기억한다
+        assertEquals(Arrays.asList(1, 2, 3, 4, 2, 5), sub.values());
+        assertEquals(2, pub.getDuplicateCount());
+    }
+
+    @Test
+    public void timeWindow는_window가_지난_key를_잊는다() {
+        AtomicLong now = new AtomicLong();
+        TimeWindowDedupPolicy<String> policy = new TimeWindowDedupPolicy<>(10, TimeUnit.SECONDS, now::get);
+        assertTrue(policy.add("a"));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(6));
+        assertTrue(policy.add("b"));
+        assertFalse(policy.add("a"));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        // a는 11초 전에 처음 봤기 때문에 잊었다. 중복으로 다시 와도 처음 본 시각은 바뀌지 않는다
+        assertTrue(policy.add("c"));
+        assertEquals(2, policy.size());
+        assertTrue(policy.add("a"));
+        assertFalse(policy.add("b"));
+        assertEquals(3, policy.size());
+    }
+
+    /**
+     * 넣은 key는 항상 중복으로 판단하고, 처음 보는 key를 중복으로 잘못 판단하는 비율은 falsePositiveRate 근처이다
+     * expectedInsertions 개를 넣을때마다 filter를 바꾸기 때문에 아주 오래전 key는 잊는다
+     */
+    @Test
+    public void bloom은_정해진_확률_안에서_중복을_걸러낸다() {
+        int n = 100_000;
+        BloomDedupPolicy<Long> policy = new BloomDedupPolicy<>(n, 0.01, Long::longValue);
+        logger.info("bits={}, hashes={}", policy.getBitCount(), policy.getHashCount());
+        int falsePositives = 0;
+        for (long id = 0; id < n - 1; id++) {
+            if (!policy.add(id)) {
+                falsePositives++;
+            }
+        }
+        for (long id = 0; id < n - 1; id++) {
+            assertFalse(policy.add(id));
+        }
+        double rate = falsePositives / (double) n;
+        logger.info("false positive rate while filling : {}", rate);
+        assertTrue(rate < 0.01);
+
+        // 처음 보는 key로 filter를 두번 바꾸면 처음 넣은 key는 잊는다
+        for (long id = n; id < 3L * n + 1; id++) {
+            policy.add(id);
+        }
+        int forgotten = 0;
+        for (long id = 0; id < 1000; id++) {
+            if (policy.add(id)) {
+                forgotten++;
+            }
+        }
+        assertTrue(forgotten > 950);
+    }
+
+    @Test
+    public void distinct와_bloom으로_중복_ID를_걸러낸다() {
+        RecordingSubscriber<Integer> sub = new RecordingSubscriber<>();
+        // 0 ~ 9999 를 두번씩 보낸다
+        Operators.distinct(new RangePublisher(0, 20_000), v -> (long) (v % 10_000),
+                () -> DedupPolicy.<Long>bloom(100_000, 0.001, Long::longValue)).subscribe(sub);
+        assertTrue(sub.isCompleted());
+        List<Integer> values = sub.values();
+        assertTrue(values.size() > 9_950 && values.size() <= 10_000);
+        for (int v : values) {
+            assertTrue(v < 10_000);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.terry.reactive.test.operator;
+
+import com.terry.reactive.operator.Operators;
+import com.terry.reactive.operator.RecordView;
+import com.terry.reactive.test.support.RecordingSubscriber;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.Flux;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class FramingTest {
+
+    private static Flux<ByteBuffer> chunks(String... parts) {
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (String part : parts) {
+            buffers.add(ByteBuffer.wrap(part.getBytes(StandardCharsets.UTF_8)));
+        }
+        return Flux.fromIterable(buffers);
+    }
+
+    private static Flux<ByteBuffer> chunks(byte[] data, int... sizes) {
+        List<ByteBuffer> buffers = new ArrayList<>();
+        int offset = 0;
+        for (int size : sizes) {
+            buffers.add(ByteBuffer.wrap(data, offset, size).slice());
+            offset += size;
+        }
+        buffers.add(ByteBuffer.wrap(data, offset, data.length - offset).slice());
+        return Flux.fromIterable(buffers);
+    }
+
+    /**
+     * RecordView는 onNext 안에서만 유효하기 때문에 map 안에서 String으로 바꿔둔다
+     */
+    private static RecordingSubscriber<String> strings(Publisher<RecordView> pub) {
+        RecordingSubscriber<String> sub = new RecordingSubscriber<>();
+        Flux.from(pub).map(RecordView::toString).subscribe(sub);
+        return sub;
+    }
+
+    @Test
+    public void chunk_경계에_걸친_줄() {
+        RecordingSubscriber<String> sub = strings(Operators.lines(chunks("hello\nwor", "ld\r\nfoo", "", "\n\nlast"), 100));
+
+        assertEquals(Arrays.asList("hello", "world", "foo", "", "last"), sub.values());
+        assertTrue(sub.isCompleted());
+    }
+
+    /**
+     * 한글(3byte)이 chunk 경계에서 잘려도 carry에 모은 뒤 decode 하기 때문에 깨지지 않는다
+     */
+    @Test
+    public void 잘린_UTF8은_모아서_decode() {
+        byte[] data = "가나다\n라마\n".getBytes(StandardCharsets.UTF_8);
+        RecordingSubscriber<String> sub = strings(Operators.lines(chunks(data, 4, 7), 100));
+
+        assertEquals(Arrays.asList("가나다", "라마"), sub.values());
+    }
+
+    @Test
+    public void RecordView는_다시_사용하고_decode는_요청할때만() {
+        List<RecordView> views = new ArrayList<>();
+        List<Boolean> sameChars = new ArrayList<>();
+        Flux.from(Operators.lines(chunks("a\nb\nc\n"), 100))
+                .subscribe(view -> {
+                    views.add(view);
+                    if (view.startsWith(new byte[]{'b'})) {
+                        sameChars.add(view.asCharSequence() == view.asCharSequence());
+                    }
+                });
+
+        assertEquals(3, views.size());
+        assertSame(views.get(0), views.get(1));
+        assertSame(views.get(1), views.get(2));
+        assertEquals(Arrays.asList(true), sameChars);
+    }
+
+    @Test
+    public void 길이_헤더가_chunk_경계에_걸친_record() {
+        ByteBuffer data = ByteBuffer.allocate(64);
+        for (String s : new String[]{"first", "", "second record"}) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            data.putInt(bytes.length).put(bytes);
+        }
+        byte[] bytes = Arrays.copyOf(data.array(), data.position());
+
+        // 첫 chunk는 헤더 중간(2byte)에서, 두번째 chunk는 record 중간에서 끊긴다
+        RecordingSubscriber<String> sub = strings(Operators.lengthPrefixed(chunks(bytes, 2, 5, 1, 4, 6), 100));
+
+        assertEquals(Arrays.asList("first", "", "second record"), sub.values());
+        assertTrue(sub.isCompleted());
+    }
+
+    @Test
+    public void 중간에_끝난_record는_onError() {
+        byte[] bytes = ByteBuffer.allocate(6).putInt(10).put((byte) 'a').put((byte) 'b').array();
+        RecordingSubscriber<String> sub = strings(Operators.lengthPrefixed(chunks(bytes), 100));
+
+        assertTrue(sub.error() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void maxRecordLength보다_긴_줄은_onError() {
+        RecordingSubscriber<String> sub = strings(Operators.lines(chunks("short\n", "0123456789", "0123456789\n"), 16));
+
+        assertEquals(Arrays.asList("short"), sub.values());
+        assertTrue(sub.error() instanceof IllegalStateException);
+    }
+
+    /**
+     * request(1) 이면 첫 chunk만 요청하고 그 chunk 안의 record를 다 보내기 전에는 다음 chunk를 요청하지 않는다
+     */
+    @Test
+    public void chunk는_하나씩_요청() {
+        AtomicLong upstreamRequested = new AtomicLong();
+        Flux<ByteBuffer> source = chunks("a\nb\n", "c\n").doOnRequest(upstreamRequested::addAndGet);
+
+        List<String> received = new ArrayList<>();
+        Subscription[] subscription = new Subscription[1];
+        Operators.lines(source, 100).subscribe(new Subscriber<RecordView>() {
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscription[0] = s;
+                s.request(1);
+            }
+
+            @Override
+            public void onNext(RecordView view) {
+                received.add(view.toString());
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+
+            @Override
+            public void onComplete() {
+                received.add("complete");
+            }
+        });
+
+        assertEquals(Arrays.asList("a"), received);
+        assertEquals(1, upstreamRequested.get());
+
+        subscription[0].request(1);
+        assertEquals(1, upstreamRequested.get());
+
+        subscription[0].request(10);
+        assertEquals(Arrays.asList("a", "b", "c", "complete"), received);
+    }
+}
@@ -0,0 +1,370 @@
+package com.terry.reactive.test.operator;
+
+import com.terry.reactive.operator.GroupByPublisher;
+import com.terry.reactive.operator.GroupedPublisher;
+import com.terry.reactive.operator.Operators;
+import com.terry.reactive.scheduler.SharedTimer;
+import com.terry.reactive.support.LongObjectHashMap;
+import com.terry.reactive.test.support.RangePublisher;
+import com.terry.reactive.test.support.RecordingSubscriber;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class GroupByTest {
+
+    /**
+     * 받은 Group 마다 RecordingSubscriber(initialRequest)로 구독하고 key 별로 모아두는 Subscriber
+     */
+    static class GroupCollector<K, T> implements Subscriber<GroupedPublisher<K, T>> {
+        final long initialRequest;
+        final List<K> keys = new CopyOnWriteArrayList<>();
+        final Map<K, RecordingSubscriber<T>> groups = new ConcurrentHashMap<>();
+        final RecordingSubscriber<GroupedPublisher<K, T>> main = new RecordingSubscriber<>();
+
+        GroupCollector(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            main.onSubscribe(s);
+        }
+
+        @Override
+        public void onNext(GroupedPublisher<K, T> group) {
+            keys.add(group.key());
+            RecordingSubscriber<T> sub = new RecordingSubscriber<>(initialRequest);
+            groups.put(group.key(), sub);
+            group.subscribe(sub);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            main.onError(t);
+        }
+
+        @Override
+        public void onComplete() {
+            main.onComplete();
+        }
+    }
+
+    /**
+     * request를 기록하는 RangePublisher
+     */
+    static Publisher<Integer> recordRequests(Publisher<Integer> source, AtomicLong outstanding, AtomicLong maxOutstanding) {
+        return sub -> source.subscribe(new Subscriber<Integer>() {
+            @Override
+            public void onSubscribe(Subscription s) {
+                sub.onSubscribe(new Subscription() {
+                    @Override
+                    public void request(long n) {
+                        maxOutstanding.accumulateAndGet(outstanding.addAndGet(n), Math::max);
+                        s.request(n);
+                    }
+
+                    @Override
+                    public void cancel() {
+                        s.cancel();
+                    }
+                });
+            }
+
+            @Override
+            public void onNext(Integer integer) {
+                outstanding.decrementAndGet();
+                sub.onNext(integer);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                sub.onError(t);
+            }
+
+            @Override
+            public void onComplete() {
+                sub.onComplete();
+            }
+        });
+    }
+
+    @Test
+    public void key별로_나눠서_보낸다() throws InterruptedException {
+        GroupCollector<Long, Integer> collector = new GroupCollector<>(Long.MAX_VALUE);
+        Operators.groupByLong(new RangePublisher(1, 100), v -> v % 3, 16, 0, TimeUnit.MILLISECONDS).subscribe(collector);
+
+        assertTrue(collector.main.await(1, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(1L, 2L, 0L), collector.keys);
+        for (long key = 0; key < 3; key++) {
+            RecordingSubscriber<Integer> group = collector.groups.get(key);
+            assertTrue(group.await(1, TimeUnit.SECONDS));
+            for (int v : group.values()) {
+                assertEquals(key, v % 3);
+            }
+        }
+        assertEquals(34, collector.groups.get(1L).values().size());
+        assertEquals(33, collector.groups.get(0L).values().size());
+    }
+
+    /**
+     * Group이 요청하지 않으면 위쪽에도 bufferSize 개 보다 많이 요청하지 않고, Group이 요청하면 이어서 받는다
+     */
+    @Test
+    public void Group이_요청한_만큼만_위쪽에_요청한다() throws InterruptedException {
+        AtomicLong outstanding = new AtomicLong();
+        AtomicLong maxOutstanding = new AtomicLong();
+        GroupCollector<String, Integer> collector = new GroupCollector<>(0);
+        Operators.groupBy(recordRequests(new RangePublisher(1, 1000), outstanding, maxOutstanding),
+                v -> v % 2 == 0 ? "even" : "odd", 32, 0, TimeUnit.MILLISECONDS).subscribe(collector);
+
+        // 32개를 받은 뒤에는 Group이 가져가지 않아서 멈춘다
+        assertEquals(32, maxOutstanding.get());
+        assertEquals(0, outstanding.get());
+        assertFalse(collector.main.isCompleted());
+
+        collector.groups.get("odd").request(Long.MAX_VALUE);
+        collector.groups.get("even").request(Long.MAX_VALUE);
+        assertTrue(collector.main.await(1, TimeUnit.SECONDS));
+        assertTrue(collector.groups.get("odd").await(1, TimeUnit.SECONDS));
+        assertTrue(collector.groups.get("even").await(1, TimeUnit.SECONDS));
+        assertEquals(500, collector.groups.get("odd").values().size());
+        assertEquals(500, collector.groups.get("even").values().size());
+        assertTrue(maxOutstanding.get() <= 32);
+    }
+
+    /**
+     * 여러 Thread에서 각자 Group에 request 해서 여러 Group이 동시에 replenish 해도 위쪽 request는 겹쳐서 호출되지 않는다(스펙 2.7)
+     */
+    @Test
+    public void 여러_Group이_동시에_요청해도_위쪽_request는_겹치지_않는다() throws InterruptedException {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        Publisher<Integer> source = sub -> new RangePublisher(0, 100_000).subscribe(new Subscriber<Integer>() {
+            @Override
+            public void onSubscribe(Subscription s) {
+                sub.onSubscribe(new Subscription() {
+                    @Override
+                    public void request(long n) {
+                        if (active.getAndIncrement() != 0) {
+                            overlaps.incrementAndGet();
+                        }
+                        s.request(n);
+                        active.decrementAndGet();
+                    }
+
+                    @Override
+                    public void cancel() {
+                        s.cancel();
+                    }
+                });
+            }
+
+            @Override
+            public void onNext(Integer integer) {
+                sub.onNext(integer);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                sub.onError(t);
+            }
+
+            @Override
+            public void onComplete() {
+                sub.onComplete();
+            }
+        });
+        GroupCollector<Long, Integer> collector = new GroupCollector<>(0);
+        Operators.groupByLong(source, v -> v % 4, 16, 0, TimeUnit.MILLISECONDS).subscribe(collector);
+        assertEquals(4, collector.groups.size());
+
+        List<Thread> threads = new ArrayList<>();
+        for (RecordingSubscriber<Integer> group : collector.groups.values()) {
+            Thread t = new Thread(() -> {
+                try {
+                    while (!group.await(0, TimeUnit.MILLISECONDS)) {
+                        group.request(1);
+                    }
+                } catch (InterruptedException ignored) {
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join(10_000);
+        }
+
+        assertEquals(0, overlaps.get());
+        assertTrue(collector.main.await(1, TimeUnit.SECONDS));
+        int total = 0;
+        for (RecordingSubscriber<Integer> group : collector.groups.values()) {
+            assertTrue(group.isCompleted());
+            total += group.count();
+        }
+        assertEquals(100_000, total);
+    }
+
+    /**
+     * idleTimeout 동안 데이터가 오지 않은 Group은 onComplete로 끝나고 같은 key의 데이터가 다시 오면 새 Group이 만들어진다
+     */
+    @Test
+    public void 쉬고_있는_Group은_끝내고_지운다() throws InterruptedException {
+        TimeoutTest.ManualPublisher source = new TimeoutTest.ManualPublisher();
+        GroupByPublisher<Integer, Long> pub = GroupByPublisher.longKeyed(source, v -> v / 10, 16, 200, TimeUnit.MILLISECONDS, SharedTimer.get());
+        List<RecordingSubscriber<Integer>> emitted = new CopyOnWriteArrayList<>();
+        GroupCollector<Long, Integer> collector = new GroupCollector<Long, Integer>(Long.MAX_VALUE) {
+            @Override
+            public void onNext(GroupedPublisher<Long, Integer> group) {
+                super.onNext(group);
+                emitted.add(groups.get(group.key()));
+            }
+        };
+        pub.subscribe(collector);
+
+        source.next(1);
+        source.next(11);
+        // key 1 Group만 계속 데이터를 받는다
+        for (int i = 0; i < 20; i++) {
+            Thread.sleep(20);
+            source.next(12);
+        }
+        assertTrue(emitted.get(0).await(1, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(1), emitted.get(0).values());
+        assertFalse(emitted.get(1).isCompleted());
+        assertEquals(1, pub.getEvictedCount());
+
+        source.next(2);
+        assertEquals(Arrays.asList(0L, 1L, 0L), collector.keys);
+        assertEquals(Arrays.asList(2), emitted.get(2).values());
+        assertEquals(3, pub.getCreatedCount());
+
+        source.subscriber.onComplete();
+        assertTrue(collector.main.await(1, TimeUnit.SECONDS));
+        assertTrue(emitted.get(1).isCompleted());
+        assertEquals(21, emitted.get(1).values().size());
+    }
+
+    /**
+     * Group을 cancel 하면 남은 데이터는 버리고 버린 만큼 위쪽에 요청해서 다른 Group은 계속 받는다
+     */
+    @Test
+    public void cancel한_Group의_데이터는_버리고_다른_Group은_계속_받는다() throws InterruptedException {
+        GroupCollector<String, Integer> collector = new GroupCollector<String, Integer>(0) {
+            @Override
+            public void onNext(GroupedPublisher<String, Integer> group) {
+                if (keys.contains(group.key())) {
+                    // cancel 한 뒤에 다시 만들어진 Group은 전부 받는다
+                    keys.add(group.key());
+                    RecordingSubscriber<Integer> sub = new RecordingSubscriber<>();
+                    groups.put(group.key(), sub);
+                    group.subscribe(sub);
+                } else {
+                    super.onNext(group);
+                }
+            }
+        };
+        Operators.groupBy(new RangePublisher(1, 1000), v -> v % 2 == 0 ? "even" : "odd", 8, 0, TimeUnit.MILLISECONDS)
+                .subscribe(collector);
+        RecordingSubscriber<Integer> odd = collector.groups.get("odd");
+
+        // 홀수 4개와 짝수 4개를 받은 상태에서 멈춰 있다
+        odd.cancel();
+        collector.groups.get("even").request(Long.MAX_VALUE);
+        assertTrue(collector.main.await(1, TimeUnit.SECONDS));
+        assertTrue(collector.groups.get("even").await(1, TimeUnit.SECONDS));
+        assertEquals(500, collector.groups.get("even").values().size());
+        assertEquals(0, odd.values().size());
+        // cancel 한 뒤에 온 홀수는 새 odd Group으로 보낸다
+        assertEquals(Arrays.asList("odd", "even", "odd"), collector.keys);
+        assertEquals(496, collector.groups.get("odd").values().size());
+    }
+
+    /**
+     * Group에 request(0)을 하면 그 Group만 onError로 끝나고 남은 데이터는 버려서 다른 Group은 계속 받는다
+     */
+    @Test
+    public void Group에_request가_0이면_그_Group만_onError() throws InterruptedException {
+        GroupCollector<String, Integer> collector = new GroupCollector<String, Integer>(0) {
+            @Override
+            public void onNext(GroupedPublisher<String, Integer> group) {
+                if (keys.contains(group.key())) {
+                    // 끝난 뒤에 다시 만들어진 Group은 전부 받는다
+                    keys.add(group.key());
+                    RecordingSubscriber<Integer> sub = new RecordingSubscriber<>();
+                    groups.put(group.key(), sub);
+                    group.subscribe(sub);
+                } else {
+                    super.onNext(group);
+                }
+            }
+        };
+        Operators.groupBy(new RangePublisher(1, 1000), v -> v % 2 == 0 ? "even" : "odd", 8, 0, TimeUnit.MILLISECONDS)
+                .subscribe(collector);
+        RecordingSubscriber<Integer> odd = collector.groups.get("odd");
+
+        odd.request(0);
+        assertTrue(odd.await(1, TimeUnit.SECONDS));
+        assertTrue(odd.error() instanceof IllegalArgumentException);
+
+        collector.groups.get("even").request(Long.MAX_VALUE);
+        assertTrue(collector.main.await(1, TimeUnit.SECONDS));
+        assertTrue(collector.groups.get("even").await(1, TimeUnit.SECONDS));
+        assertEquals(500, collector.groups.get("even").values().size());
+        assertEquals(0, odd.values().size());
+        // 위쪽이 끝나도 이미 끝난 Group의 error는 바뀌지 않는다
+        assertFalse(odd.isCompleted());
+        assertTrue(odd.error() instanceof IllegalArgumentException);
+    }
+
+    /**
+     * 넣고 지우기를 무작위로 반복해도 HashMap과 같은 결과가 나오고 많이 지우면 배열이 다시 작아진다
+     */
+    @Test
+    public void LongObjectHashMap은_HashMap과_같게_동작한다() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        Map<Long, String> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(5_000) - 2_500L;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                String value = "v" + i;
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (Map.Entry<Long, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        int capacity = map.capacity();
+        for (Long key : new ArrayList<>(expected.keySet())) {
+            map.remove(key);
+        }
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+        assertTrue(map.capacity() < capacity);
+    }
+}
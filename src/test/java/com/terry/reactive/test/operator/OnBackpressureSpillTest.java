@@ -0,0 +1,127 @@
+package com.terry.reactive.test.operator;
+
+import com.terry.reactive.operator.OnBackpressureSpillPublisher;
+import com.terry.reactive.operator.Operators;
+import com.terry.reactive.support.SpillQueue;
+import com.terry.reactive.test.support.IntCodec;
+import com.terry.reactive.test.support.PushPublisher;
+import com.terry.reactive.test.support.RecordingSubscriber;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class OnBackpressureSpillTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private int segmentFiles() {
+        File[] files = folder.getRoot().listFiles((dir, name) -> name.endsWith(".seg"));
+        return files == null ? 0 : files.length;
+    }
+
+    /**
+     * Heap Queue가 넘치면 파일에 쓰고, 넣은 순서대로 꺼내고, 다 읽은 segment는 지운다
+     * 파일을 읽는 중에 다시 넣어도 Heap Queue가 아니라 파일 뒤에 붙어서 순서가 유지된다
+     */
+    @Test
+    public void SpillQueue는_넣은_순서대로_꺼낸다() {
+        SpillQueue<Integer> queue = new SpillQueue<>(16, folder.getRoot().toPath(), 1024, IntCodec::encode, IntCodec::decode);
+        for (int i = 0; i < 1000; i++) {
+            queue.offer(i);
+        }
+        assertEquals(1000 - 16, queue.getSpilledCount());
+        assertTrue(segmentFiles() > 1);
+
+        int next = 0;
+        for (int i = 0; i < 500; i++) {
+            assertEquals(Integer.valueOf(next++), queue.poll());
+        }
+        for (int i = 1000; i < 1100; i++) {
+            queue.offer(i);
+        }
+        Integer v;
+        while ((v = queue.poll()) != null) {
+            assertEquals(Integer.valueOf(next++), v);
+        }
+        assertEquals(1100, next);
+        assertTrue(queue.isEmpty());
+        // 마지막으로 쓰던 segment 하나만 남는다
+        assertTrue(segmentFiles() <= 1);
+
+        // 파일이 비면 다시 Heap Queue를 사용한다
+        long spilled = queue.getSpilledTotal();
+        queue.offer(1);
+        assertEquals(spilled, queue.getSpilledTotal());
+        assertEquals(Integer.valueOf(1), queue.poll());
+        assertNull(queue.poll());
+
+        queue.close();
+        assertEquals(0, segmentFiles());
+    }
+
+    /**
+     * 2의 거듭제곱이 아닌 memoryCapacity도 그 갯수까지만 Heap에 넣고 나머지는 파일에 쓴다(내부 Queue는 128칸으로 만들어진다)
+     */
+    @Test
+    public void SpillQueue는_memoryCapacity_만큼만_Heap에_넣는다() {
+        SpillQueue<Integer> queue = new SpillQueue<>(100, folder.getRoot().toPath(), 1024, IntCodec::encode, IntCodec::decode);
+        for (int i = 0; i < 200; i++) {
+            queue.offer(i);
+        }
+        assertEquals(100, queue.getSpilledCount());
+        for (int i = 0; i < 200; i++) {
+            assertEquals(Integer.valueOf(i), queue.poll());
+        }
+        assertTrue(queue.isEmpty());
+        queue.close();
+    }
+
+    /**
+     * 느린 Subscriber에게 한번에 밀어낸 100만개를 버리지 않고 모두 순서대로 전달한다
+     */
+    @Test
+    public void 넘치는_데이터를_버리지_않고_순서대로_전달한다() throws InterruptedException {
+        OnBackpressureSpillPublisher<Integer> pub = new OnBackpressureSpillPublisher<>(new PushPublisher(1_000_000), 64, folder.getRoot().toPath(),
+                64 * 1024, IntCodec::encode, IntCodec::decode);
+        RecordingSubscriber<Integer> sub = new RecordingSubscriber<>(10);
+        pub.subscribe(sub);
+
+        assertEquals(10, sub.count());
+        // 처음 10개는 Queue에 들어가자마자 전달되었다
+        assertEquals(1_000_000 - 10 - 64, pub.getSpilledCount());
+        assertTrue(segmentFiles() > 1);
+
+        sub.request(Long.MAX_VALUE);
+        assertTrue(sub.await(10, TimeUnit.SECONDS));
+        assertTrue(sub.isCompleted());
+        List<Integer> values = sub.values();
+        assertEquals(1_000_000, values.size());
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals(Integer.valueOf(i + 1), values.get(i));
+        }
+        assertEquals(0, segmentFiles());
+    }
+
+    @Test
+    public void cancel하면_segment_파일을_지운다() {
+        RecordingSubscriber<Integer> sub = new RecordingSubscriber<>(1);
+        Operators.onBackpressureSpill(new PushPublisher(100_000), 16, folder.getRoot().toPath(),
+                IntCodec::encode, IntCodec::decode).subscribe(sub);
+
+        assertEquals(1, sub.count());
+        assertTrue(segmentFiles() > 0);
+        sub.cancel();
+        assertEquals(0, segmentFiles());
+    }
+}
@@ -0,0 +1,219 @@
+package com.terry.reactive.test.operator;
+
+import com.terry.reactive.buffer.BufferPool;
+import com.terry.reactive.buffer.PooledBuffer;
+import com.terry.reactive.operator.OnBackpressureBufferPublisher;
+import com.terry.reactive.operator.Operators;
+import com.terry.reactive.support.OverflowStrategy;
+import com.terry.reactive.test.support.PushPublisher;
+import com.terry.reactive.test.support.RecordingSubscriber;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class OnBackpressureTest {
+
+    @Test
+    public void onBackpressureBuffer_테스트() throws InterruptedException {
+        RecordingSubscriber<Integer> sub = new RecordingSubscriber<>(2);
+        Operators.onBackpressureBuffer(new PushPublisher(5), 8, dropped -> logger.info("overflow : {}", dropped)).subscribe(sub);
+
+        assertEquals(Arrays.asList(1, 2), sub.values());
+        sub.request(10);
+
+        assertTrue(sub.await(1, TimeUnit.SECONDS));
+        assertTrue(sub.isCompleted());
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), sub.values());
+    }
+
+    /**
+     * Queue 크기를 넘으면 overflowHandler가 호출되고 onError로 끝난다
+     */
+    @Test
+    public void onBackpressureBuffer_넘치면_onError() throws InterruptedException {
+        List<Integer> overflowed = Collections.synchronizedList(new ArrayList<>());
+        RecordingSubscriber<Integer> sub = new RecordingSubscriber<>(1);
+        Operators.onBackpressureBuffer(new PushPublisher(100), 4, overflowed::add).subscribe(sub);
+
+        assertTrue(sub.await(1, TimeUnit.SECONDS));
+        assertTrue(sub.error() instanceof IllegalStateException);
+        assertEquals(Collections.singletonList(1), sub.values());
+        assertEquals(Collections.singletonList(6), overflowed);
+    }
+
+    @Test
+    public void onBackpressureBuffer_DROP_전략() throws InterruptedException {
+        RecordingSubscriber<Integer> sub = new RecordingSubscriber<>(0);
+        OnBackpressureBufferPublisher<Integer> pub = new OnBackpressureBufferPublisher<>(new PushPublisher(100), 4, v -> { }, OverflowStrategy.DROP);
+        pub.subscribe(sub);
+
+        sub.request(Long.MAX_VALUE);
+        assertTrue(sub.await(1, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(1, 2, 3, 4), sub.values());
+        assertEquals(96, pub.getDroppedCount());
+    }
+
+    /**
+     * 2의 거듭제곱이 아닌 capacity도 그 갯수까지만 쌓아둔다(내부 Queue는 128칸으로 만들어진다)
+     */
+    @Test
+    public void onBackpressureBuffer는_capacity_만큼만_쌓아둔다() throws InterruptedException {
+        RecordingSubscriber<Integer> sub = new RecordingSubscriber<>(0);
+        OnBackpressureBufferPublisher<Integer> pub = new OnBackpressureBufferPublisher<>(new PushPublisher(1000), 100, v -> { }, OverflowStrategy.DROP);
+        pub.subscribe(sub);
+
+        sub.request(Long.MAX_VALUE);
+        assertTrue(sub.await(1, TimeUnit.SECONDS));
+        assertEquals(100, sub.count());
+        assertEquals(900, pub.getDroppedCount());
+    }
+
+    @Test
+    public void onBackpressureDrop_테스트() throws InterruptedException {
+        List<Integer> dropped = Collections.synchronizedList(new ArrayList<>());
+        RecordingSubscriber<Integer> sub = new RecordingSubscriber<>(3);
+        Operators.onBackpressureDrop(new PushPublisher(10), dropped::add).subscribe(sub);
+
+        assertTrue(sub.await(1, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(1, 2, 3), sub.values());
+        assertEquals(Arrays.asList(4, 5, 6, 7, 8, 9, 10), dropped);
+    }
+
+    @Test
+    public void onBackpressureLatest_테스트() throws InterruptedException {
+        List<Integer> dropped = Collections.synchronizedList(new ArrayList<>());
+        RecordingSubscriber<Integer> sub = new RecordingSubscriber<>(1);
+        Operators.onBackpressureLatest(new PushPublisher(10), dropped::add).subscribe(sub);
+
+        assertEquals(Collections.singletonList(1), sub.values());
+        sub.request(1);
+
+        assertTrue(sub.await(1, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(1, 10), sub.values());
+        assertEquals(Arrays.asList(2, 3, 4, 5, 6, 7, 8, 9), dropped);
+    }
+
+    /**
+     * 별도 Thread에서 빠르게 밀어내는 Publisher와 천천히 1개씩 요청하는 Subscriber를 연결해도 메모리가 늘지 않고 멈추지도 않는다
+     */
+    @Test
+    public void 빠른_Publisher와_느린_Subscriber_연결() throws InterruptedException {
+        Publisher<Integer> fast = sub -> {
+            Thread producer = new Thread(() -> new PushPublisher(1_000_000).subscribe(sub));
+            producer.start();
+        };
+        RecordingSubscriber<Integer> slow = new RecordingSubscriber<>(0);
+        OnBackpressureBufferPublisher<Integer> pub = new OnBackpressureBufferPublisher<>(fast, 16, v -> { }, OverflowStrategy.DROP);
+        pub.subscribe(slow);
+
+        // onSubscribe는 producer Thread에서 호출되기 때문에 구독이 끝나기 전에 request 하지 않도록 기다린다
+        assertTrue(slow.awaitSubscription(1, TimeUnit.SECONDS));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!slow.await(1, TimeUnit.MILLISECONDS)) {
+            assertTrue("timed out", System.nanoTime() < deadline);
+            slow.request(1);
+        }
+        assertTrue(slow.isCompleted());
+        assertEquals(1_000_000, slow.count() + pub.getDroppedCount());
+        logger.info("received : {}, dropped : {}", slow.count(), pub.getDroppedCount());
+    }
+
+    /**
+     * 다른 Thread에서 onNext를 받고 있는 중에 request(0)을 해도 onError는 onNext와 겹치지 않고 한번만 오며 그 뒤에는 아무 신호도 오지 않는다(스펙 1.3, 3.9)
+     */
+    @Test
+    public void onBackpressureDrop_request가_0이면_onNext와_겹치지_않게_onError() throws InterruptedException {
+        for (int round = 0; round < 20; round++) {
+            Publisher<Integer> fast = sub -> new Thread(() -> new PushPublisher(1_000_000).subscribe(sub)).start();
+            AtomicInteger active = new AtomicInteger();
+            AtomicInteger violations = new AtomicInteger();
+            AtomicInteger terminals = new AtomicInteger();
+            CountDownLatch subscribed = new CountDownLatch(1);
+            CountDownLatch errored = new CountDownLatch(1);
+            Subscription[] subscription = new Subscription[1];
+            Operators.onBackpressureDrop(fast, v -> { }).subscribe(new Subscriber<Integer>() {
+                @Override
+                public void onSubscribe(Subscription s) {
+                    subscription[0] = s;
+                    s.request(Long.MAX_VALUE);
+                    subscribed.countDown();
+                }
+
+                @Override
+                public void onNext(Integer integer) {
+                    if (active.getAndIncrement() != 0 || terminals.get() != 0) {
+                        violations.incrementAndGet();
+                    }
+                    active.decrementAndGet();
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    if (active.getAndIncrement() != 0 || terminals.incrementAndGet() != 1 || !(t instanceof IllegalArgumentException)) {
+                        violations.incrementAndGet();
+                    }
+                    active.decrementAndGet();
+                    errored.countDown();
+                }
+
+                @Override
+                public void onComplete() {
+                    violations.incrementAndGet();
+                }
+            });
+            assertTrue(subscribed.await(1, TimeUnit.SECONDS));
+            subscription[0].request(0);
+            assertTrue(errored.await(1, TimeUnit.SECONDS));
+            Thread.sleep(5);
+            assertEquals(0, violations.get());
+            assertEquals(1, terminals.get());
+        }
+    }
+
+    /**
+     * cancel 한 뒤에도 위쪽이 늦게 보낸 데이터는 아래로 전달하지 않고 release 한다
+     */
+    @Test
+    public void onBackpressureDrop_cancel_뒤에_온_데이터는_release() {
+        BufferPool pool = new BufferPool(64, 2, false);
+        AtomicReference<Subscriber<? super PooledBuffer>> upstream = new AtomicReference<>();
+        Publisher<PooledBuffer> source = sub -> {
+            upstream.set(sub);
+            sub.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+        };
+        List<PooledBuffer> dropped = new ArrayList<>();
+        RecordingSubscriber<PooledBuffer> sub = new RecordingSubscriber<>(10);
+        Operators.onBackpressureDrop(source, dropped::add).subscribe(sub);
+        sub.cancel();
+
+        PooledBuffer buffer = pool.allocate();
+        upstream.get().onNext(buffer);
+
+        assertEquals(0, sub.count());
+        assertTrue(dropped.isEmpty());
+        assertEquals(0, buffer.refCnt());
+    }
+}
@@ -0,0 +1,178 @@
+package com.terry.reactive.test.operator;
+
+import com.terry.reactive.operator.Operators;
+import com.terry.reactive.ratelimit.RateLimiter;
+import com.terry.reactive.test.support.RangePublisher;
+import com.terry.reactive.test.support.RecordingSubscriber;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class RateLimitTest {
+
+    /**
+     * 시간을 직접 움직여서 token이 interval 마다 1개씩 생기고 burst 개를 넘게 쌓이지 않는 것을 확인한다
+     */
+    @Test
+    public void token은_interval마다_생기고_burst를_넘지_않는다() {
+        AtomicLong now = new AtomicLong(1_000L);
+        RateLimiter limiter = new RateLimiter(10, 5, now::get);
+
+        assertEquals(5, limiter.tryAcquire(100));
+        assertEquals(0, limiter.tryAcquire(1));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), limiter.nanosToNextPermit());
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(250));
+        assertEquals(2, limiter.getAvailablePermits());
+        assertTrue(limiter.tryAcquire());
+        assertEquals(1, limiter.tryAcquire(10));
+        assertEquals(0, limiter.getAvailablePermits());
+
+        // 한참 쉬어도 burst 개까지만 쌓인다
+        now.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        assertEquals(5, limiter.tryAcquire(100));
+        logger.info("{}", limiter);
+        assertEquals(12, limiter.getAcquiredCount());
+        assertEquals(1, limiter.getThrottledCount());
+    }
+
+    /**
+     * 아래에서 한번에 전부 요청해도 위쪽에는 token 만큼씩 나눠서 request 하고 속도에 맞춰 천천히 받는다
+     */
+    @Test
+    public void 위쪽에_token_만큼만_request_한다() throws InterruptedException {
+        List<Long> requests = new CopyOnWriteArrayList<>();
+        Publisher<Integer> source = new RangePublisher(1, 30);
+        Publisher<Integer> recorded = sub -> source.subscribe(new Subscriber<Integer>() {
+            @Override
+            public void onSubscribe(Subscription s) {
+                sub.onSubscribe(new Subscription() {
+                    @Override
+                    public void request(long n) {
+                        requests.add(n);
+                        s.request(n);
+                    }
+
+                    @Override
+                    public void cancel() {
+                        s.cancel();
+                    }
+                });
+            }
+
+            @Override
+            public void onNext(Integer integer) {
+                sub.onNext(integer);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                sub.onError(t);
+            }
+
+            @Override
+            public void onComplete() {
+                sub.onComplete();
+            }
+        });
+
+        long start = System.nanoTime();
+        RecordingSubscriber<Integer> sub = new RecordingSubscriber<>();
+        Operators.rateLimit(recorded, 100, 10).subscribe(sub);
+        // 처음 10개는 바로 오고 나머지 20개는 10ms 마다 1개씩 온다
+        assertTrue(sub.count() >= 10);
+        assertTrue(sub.await(5, TimeUnit.SECONDS));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        logger.info("elapsed {}ms, upstream requests {}", elapsedMillis, requests.size());
+
+        assertTrue(sub.isCompleted());
+        assertEquals(30, sub.values().size());
+        assertTrue(elapsedMillis >= 180);
+        for (long n : requests) {
+            assertTrue(n <= 10);
+        }
+    }
+
+    /**
+     * 같은 RateLimiter를 사용하는 두 구독은 합쳐서 제한된 속도로 받는다
+     */
+    @Test
+    public void 공유한_RateLimiter는_여러_구독의_전체_속도를_제한한다() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(200, 10);
+        RecordingSubscriber<Integer> sub1 = new RecordingSubscriber<>();
+        RecordingSubscriber<Integer> sub2 = new RecordingSubscriber<>();
+        long start = System.nanoTime();
+        Operators.rateLimit(new RangePublisher(1, 30), limiter).subscribe(sub1);
+        Operators.rateLimit(new RangePublisher(1, 30), limiter).subscribe(sub2);
+
+        assertTrue(sub1.await(5, TimeUnit.SECONDS));
+        assertTrue(sub2.await(5, TimeUnit.SECONDS));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        logger.info("elapsed {}ms, {}", elapsedMillis, limiter);
+
+        assertEquals(30, sub1.values().size());
+        assertEquals(30, sub2.values().size());
+        // 60개 중 burst 10개를 뺀 50개가 5ms 마다 1개씩이라 250ms 보다 빨리 끝날 수 없다
+        assertTrue(elapsedMillis >= 240);
+        // 마지막 request는 남은 갯수보다 많을 수 있어서 구독마다 최대 burst 개의 token이 남는다
+        assertTrue(limiter.getAcquiredCount() >= 60 && limiter.getAcquiredCount() <= 80);
+    }
+
+    /**
+     * onNext 안에서 request(0)을 호출하면 onError는 onNext가 끝난 뒤에 한번만 오고 위쪽의 onComplete는 전달되지 않는다
+     */
+    @Test
+    public void onNext_안에서_request가_0이면_onNext가_끝난_뒤에_onError() {
+        AtomicInteger terminals = new AtomicInteger();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Operators.rateLimit(new RangePublisher(1, 5), new RateLimiter(1000, 10)).subscribe(new Subscriber<Integer>() {
+            Subscription subscription;
+            boolean inOnNext;
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscription = s;
+                s.request(5);
+            }
+
+            @Override
+            public void onNext(Integer value) {
+                inOnNext = true;
+                subscription.request(0);
+                inOnNext = false;
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                overlapped.compareAndSet(false, inOnNext);
+                error.set(t);
+                terminals.incrementAndGet();
+            }
+
+            @Override
+            public void onComplete() {
+                terminals.incrementAndGet();
+            }
+        });
+
+        assertEquals(1, terminals.get());
+        assertFalse(overlapped.get());
+        assertTrue(error.get() instanceof IllegalArgumentException);
+    }
+}
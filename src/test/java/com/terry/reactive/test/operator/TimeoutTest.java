@@ -0,0 +1,207 @@
+package com.terry.reactive.test.operator;
+
+import com.terry.reactive.operator.Operators;
+import com.terry.reactive.operator.TimeoutPublisher;
+import com.terry.reactive.test.support.RangePublisher;
+import com.terry.reactive.test.support.RecordingSubscriber;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Arrays;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class TimeoutTest {
+
+    /**
+     * 테스트 코드에서 직접 onNext를 보낼 수 있고 request와 cancel을 기록하는 Publisher
+     */
+    static class ManualPublisher implements Publisher<Integer> {
+        volatile Subscriber<? super Integer> subscriber;
+        volatile long requested;
+        volatile boolean cancelled;
+
+        @Override
+        public void subscribe(Subscriber<? super Integer> sub) {
+            subscriber = sub;
+            sub.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                    requested += n;
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+        }
+
+        void next(int value) {
+            subscriber.onNext(value);
+        }
+    }
+
+    /**
+     * schedule 호출 횟수를 세는 Timer
+     */
+    static class CountingTimer extends ScheduledThreadPoolExecutor {
+        final AtomicInteger schedules = new AtomicInteger();
+
+        CountingTimer() {
+            super(1);
+            setRemoveOnCancelPolicy(true);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            schedules.incrementAndGet();
+            return super.schedule(command, delay, unit);
+        }
+    }
+
+    @Test
+    public void 데이터가_오지_않으면_위쪽을_취소하고_TimeoutException() throws InterruptedException {
+        ManualPublisher source = new ManualPublisher();
+        RecordingSubscriber<Integer> sub = new RecordingSubscriber<>();
+        Operators.timeout(source, 100, TimeUnit.MILLISECONDS).subscribe(sub);
+
+        source.next(1);
+        assertTrue(sub.await(2, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(1), sub.values());
+        assertTrue(sub.error() instanceof TimeoutException);
+        assertTrue(source.cancelled);
+    }
+
+    @Test
+    public void 시간_안에_끝나면_timeout이_나지_않는다() throws InterruptedException {
+        RecordingSubscriber<Integer> sub = new RecordingSubscriber<>();
+        Operators.timeout(new RangePublisher(1, 1000), 1, TimeUnit.SECONDS).subscribe(sub);
+
+        assertTrue(sub.await(1, TimeUnit.SECONDS));
+        assertTrue(sub.isCompleted());
+        assertEquals(1000, sub.count());
+    }
+
+    /**
+     * 요청한 5개 중 2개를 받은 뒤 timeout이 나면 fallback에는 남은 3개만 요청해야 한다
+     */
+    @Test
+    public void fallback은_남은_요청만큼_이어서_보낸다() throws InterruptedException {
+        ManualPublisher source = new ManualPublisher();
+        RecordingSubscriber<Integer> sub = new RecordingSubscriber<>(5);
+        Operators.timeout(source, 100, TimeUnit.MILLISECONDS, new RangePublisher(100, 10)).subscribe(sub);
+
+        source.next(1);
+        source.next(2);
+        Thread.sleep(500);
+
+        assertTrue(source.cancelled);
+        assertEquals(Arrays.asList(1, 2, 100, 101, 102), sub.values());
+
+        sub.request(100);
+        assertTrue(sub.await(1, TimeUnit.SECONDS));
+        assertTrue(sub.isCompleted());
+        assertEquals(12, sub.count());
+    }
+
+    /**
+     * onNext 마다 Timer 작업을 새로 등록하지 않고 deadline만 바꾸기 때문에
+     * 데이터가 아주 많이 와도 schedule 호출은 timeout 간격마다 한번 정도만 일어난다
+     * GC 등으로 잠깐 멈춰도 timeout이 나지 않도록 timeout은 데이터를 보내는 시간에 비해 넉넉하게 잡는다
+     */
+    @Test
+    public void onNext_마다_Timer_작업을_만들지_않는다() throws InterruptedException {
+        CountingTimer timer = new CountingTimer();
+        try {
+            ManualPublisher source = new ManualPublisher();
+            RecordingSubscriber<Integer> sub = new RecordingSubscriber<>();
+            new TimeoutPublisher<>(source, 500, TimeUnit.MILLISECONDS, null, timer).subscribe(sub);
+
+            long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(1000);
+            int sent = 0;
+            while (System.nanoTime() < end) {
+                source.next(sent++);
+            }
+            logger.info("onNext : {}, schedule : {}", sent, timer.schedules.get());
+
+            assertEquals(sent, sub.count());
+            assertTrue(timer.schedules.get() <= 10);
+            assertTrue(sub.await(5, TimeUnit.SECONDS));
+            assertTrue(sub.error() instanceof TimeoutException);
+        } finally {
+            timer.shutdownNow();
+        }
+    }
+
+    /**
+     * request(0)은 §3.9에 따라 IllegalArgumentException으로 끝나고 위쪽 구독은 취소된다
+     */
+    @Test
+    public void request가_0이면_IllegalArgumentException() throws InterruptedException {
+        ManualPublisher source = new ManualPublisher();
+        RecordingSubscriber<Integer> sub = new RecordingSubscriber<>(0);
+        Operators.timeout(source, 1, TimeUnit.SECONDS).subscribe(sub);
+
+        sub.request(0);
+        assertTrue(sub.await(1, TimeUnit.SECONDS));
+        assertTrue(sub.error() instanceof IllegalArgumentException);
+        assertTrue(source.cancelled);
+    }
+
+    /**
+     * onNext를 전달하는 중에 request(0)이 와도 onError는 onNext가 끝난 뒤에 한번만 보낸다(스펙 1.3)
+     */
+    @Test
+    public void onNext_안에서_request가_0이면_onNext가_끝난_뒤에_onError() throws InterruptedException {
+        ManualPublisher source = new ManualPublisher();
+        AtomicInteger inOnNext = new AtomicInteger();
+        AtomicInteger violations = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        Operators.timeout(source, 1, TimeUnit.SECONDS).subscribe(new Subscriber<Integer>() {
+            Subscription s;
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                this.s = s;
+                s.request(10);
+            }
+
+            @Override
+            public void onNext(Integer integer) {
+                inOnNext.incrementAndGet();
+                s.request(0);
+                inOnNext.decrementAndGet();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                if (inOnNext.get() != 0 || !(t instanceof IllegalArgumentException)) {
+                    violations.incrementAndGet();
+                }
+                errors.incrementAndGet();
+            }
+
+            @Override
+            public void onComplete() {
+                violations.incrementAndGet();
+            }
+        });
+
+        source.next(1);
+        source.next(2);
+        assertEquals(0, violations.get());
+        assertEquals(1, errors.get());
+        assertTrue(source.cancelled);
+    }
+}
@@ -0,0 +1,228 @@
+package com.terry.reactive.test.operator;
+
+import com.terry.reactive.operator.Operators;
+import com.terry.reactive.test.support.RangePublisher;
+import com.terry.reactive.test.support.RecordingSubscriber;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class ZipTest {
+
+    /**
+     * 위에 요청된 갯수와 cancel 여부를 기록한다
+     */
+    static class TrackingPublisher<T> implements Publisher<T> {
+        final Publisher<T> source;
+        final AtomicLong requested = new AtomicLong();
+        final AtomicBoolean cancelled = new AtomicBoolean();
+
+        TrackingPublisher(Publisher<T> source) {
+            this.source = source;
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super T> sub) {
+            source.subscribe(new Subscriber<T>() {
+                @Override
+                public void onSubscribe(Subscription s) {
+                    sub.onSubscribe(new Subscription() {
+                        @Override
+                        public void request(long n) {
+                            requested.addAndGet(n);
+                            s.request(n);
+                        }
+
+                        @Override
+                        public void cancel() {
+                            cancelled.set(true);
+                            s.cancel();
+                        }
+                    });
+                }
+
+                @Override
+                public void onNext(T t) {
+                    sub.onNext(t);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    sub.onError(t);
+                }
+
+                @Override
+                public void onComplete() {
+                    sub.onComplete();
+                }
+            });
+        }
+    }
+
+    /**
+     * 직접 onNext를 보낼 수 있는 Publisher(요청 갯수는 확인하지 않는다)
+     */
+    static class ManualPublisher<T> implements Publisher<T> {
+        volatile Subscriber<? super T> subscriber;
+
+        @Override
+        public void subscribe(Subscriber<? super T> sub) {
+            subscriber = sub;
+            sub.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+        }
+    }
+
+    @Test
+    public void zip은_같은_순서끼리_묶고_짧은_쪽이_끝나면_끝난다() throws InterruptedException {
+        TrackingPublisher<Integer> longer = new TrackingPublisher<>(new RangePublisher(1, 1000));
+        RecordingSubscriber<String> sub = new RecordingSubscriber<>();
+        Operators.zip(new RangePublisher(1, 3), longer, (a, b) -> a + ":" + b).subscribe(sub);
+
+        assertTrue(sub.await(1, TimeUnit.SECONDS));
+        assertTrue(sub.isCompleted());
+        assertEquals(Arrays.asList("1:1", "2:2", "3:3"), sub.values());
+        assertTrue(longer.cancelled.get());
+    }
+
+    /**
+     * 아래에서 요청하지 않으면 각 Publisher에는 prefetch 만큼만 요청하고 더 이상 받지 않는다
+     */
+    @Test
+    public void zip은_prefetch_이상_요청하지_않는다() throws InterruptedException {
+        TrackingPublisher<Integer> a = new TrackingPublisher<>(new RangePublisher(1, 10_000));
+        TrackingPublisher<Integer> b = new TrackingPublisher<>(new RangePublisher(1, 10_000));
+        RecordingSubscriber<Integer> sub = new RecordingSubscriber<>(5);
+        Operators.zip(a, b, Integer::sum).subscribe(sub);
+
+        assertEquals(Arrays.asList(2, 4, 6, 8, 10), sub.values());
+        assertEquals(32, a.requested.get());
+        assertEquals(32, b.requested.get());
+
+        sub.request(Long.MAX_VALUE);
+        assertTrue(sub.await(1, TimeUnit.SECONDS));
+        assertEquals(10_000, sub.count());
+    }
+
+    /**
+     * 서로 다른 Thread에서 동시에 보내도 순서대로 묶이고 빠지는 값이 없어야 한다
+     */
+    @Test
+    public void zip_여러_Thread에서_동시에_보내기() throws InterruptedException {
+        ExecutorService es = Executors.newFixedThreadPool(3);
+        try {
+            int count = 100_000;
+            Publisher<Integer> a = sub -> es.execute(() -> new RangePublisher(0, count).subscribe(sub));
+            Publisher<Integer> b = sub -> es.execute(() -> new RangePublisher(0, count).subscribe(sub));
+            Publisher<Integer> c = sub -> es.execute(() -> new RangePublisher(0, count).subscribe(sub));
+            List<Integer> mismatches = Collections.synchronizedList(new ArrayList<>());
+            RecordingSubscriber<Integer> sub = new RecordingSubscriber<>();
+            Operators.<Integer>zipArray(values -> {
+                if (!values[0].equals(values[1]) || !values[1].equals(values[2])) {
+                    mismatches.add((Integer) values[0]);
+                }
+                return (Integer) values[0];
+            }, a, b, c).subscribe(sub);
+
+            assertTrue(sub.await(5, TimeUnit.SECONDS));
+            assertTrue(sub.isCompleted());
+            assertEquals(count, sub.count());
+            assertTrue(mismatches.isEmpty());
+        } finally {
+            es.shutdownNow();
+        }
+    }
+
+    @Test
+    public void 하나가_에러로_끝나면_나머지를_취소하고_onError() throws InterruptedException {
+        TrackingPublisher<Integer> other = new TrackingPublisher<>(new RangePublisher(1, 1000));
+        Publisher<Integer> failing = sub -> {
+            sub.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            sub.onError(new IllegalStateException("sensor failure"));
+        };
+        RecordingSubscriber<Integer> sub = new RecordingSubscriber<>();
+        Operators.combineLatest(other, failing, Integer::sum).subscribe(sub);
+
+        assertTrue(sub.await(1, TimeUnit.SECONDS));
+        assertTrue(sub.error() instanceof IllegalStateException);
+        assertTrue(other.cancelled.get());
+    }
+
+    @Test
+    public void combineLatest는_각각의_최신_값으로_합친다() throws InterruptedException {
+        ManualPublisher<String> temperature = new ManualPublisher<>();
+        ManualPublisher<String> humidity = new ManualPublisher<>();
+        RecordingSubscriber<String> sub = new RecordingSubscriber<>();
+        Operators.combineLatest(temperature, humidity, (t, h) -> t + "/" + h).subscribe(sub);
+
+        temperature.subscriber.onNext("20");
+        temperature.subscriber.onNext("21");
+        assertTrue(sub.values().isEmpty());
+
+        humidity.subscriber.onNext("40");
+        humidity.subscriber.onNext("41");
+        temperature.subscriber.onNext("22");
+        assertEquals(Arrays.asList("21/40", "21/41", "22/41"), sub.values());
+
+        temperature.subscriber.onComplete();
+        humidity.subscriber.onNext("42");
+        assertEquals("22/42", sub.values().get(3));
+        humidity.subscriber.onComplete();
+
+        assertTrue(sub.await(1, TimeUnit.SECONDS));
+        assertTrue(sub.isCompleted());
+    }
+
+    /**
+     * 요청이 없으면 합친 값을 보내지 않고 기다렸다가 요청이 오면 그때 보낸다
+     * 기다리는 동안 온 값은 Queue에 남아 있다가 다음 요청때 반영된다
+     */
+    @Test
+    public void combineLatest는_요청한_만큼만_보낸다() {
+        ManualPublisher<Integer> a = new ManualPublisher<>();
+        ManualPublisher<Integer> b = new ManualPublisher<>();
+        RecordingSubscriber<Integer> sub = new RecordingSubscriber<>(0);
+        Operators.combineLatest(a, b, Integer::sum).subscribe(sub);
+
+        a.subscriber.onNext(1);
+        b.subscriber.onNext(10);
+        a.subscriber.onNext(2);
+        assertTrue(sub.values().isEmpty());
+
+        sub.request(1);
+        assertEquals(Arrays.asList(11), sub.values());
+        sub.request(1);
+        assertEquals(Arrays.asList(11, 12), sub.values());
+    }
+}
@@ -0,0 +1,214 @@
+package com.terry.reactive.test.publisher;
+
+import com.terry.reactive.publisher.AsyncFilePublisher;
+import com.terry.reactive.publisher.MappedFilePublisher;
+import com.terry.reactive.test.support.RecordingSubscriber;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class FilePublisherTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private byte[] content;
+
+    private Path createFile(int size) throws IOException {
+        content = new byte[size];
+        new Random(size).nextBytes(content);
+        Path file = folder.newFile().toPath();
+        Files.write(file, content);
+        return file;
+    }
+
+    /**
+     * window(1000 -> 999)와 chunk(333)의 경계가 파일 끝과 맞지 않아도 내용이 그대로 전달되어야 한다
+     */
+    @Test
+    public void mapped_window를_넘어가며_전체_전달() throws Exception {
+        Path file = createFile(10_000);
+        CopyingSubscriber sub = new CopyingSubscriber(Long.MAX_VALUE);
+        new MappedFilePublisher(file, 333, 1000).subscribe(sub);
+
+        assertTrue(sub.await());
+        assertArrayEquals(content, sub.bytes());
+        assertEquals(31, sub.chunks);
+    }
+
+    @Test
+    public void mapped_request한_갯수만큼만_전달() throws Exception {
+        Path file = createFile(10_000);
+        RecordingSubscriber<ByteBuffer> sub = new RecordingSubscriber<>(2);
+        new MappedFilePublisher(file, 1024).subscribe(sub);
+
+        assertEquals(2, sub.count());
+        assertFalse(sub.isCompleted());
+
+        // 전달된 chunk는 다시 사용되지 않기 때문에 나중에 읽어도 내용이 같아야 한다
+        sub.request(100);
+        assertTrue(sub.isCompleted());
+        ByteBuffer first = sub.values().get(0);
+        assertTrue(first.isDirect());
+        assertEquals(content[0], first.get(0));
+        assertEquals(content[1023], first.get(1023));
+    }
+
+    @Test
+    public void 없는_파일은_onError() throws Exception {
+        RecordingSubscriber<ByteBuffer> sub = new RecordingSubscriber<>();
+        new MappedFilePublisher(folder.getRoot().toPath().resolve("none")).subscribe(sub);
+
+        assertTrue(sub.error() instanceof NoSuchFileException);
+    }
+
+    /**
+     * onNext 안에서 request(0)을 호출하면 onError는 onNext가 끝난 뒤에 한번만 와야 한다
+     */
+    @Test
+    public void mapped_onNext_안에서_request가_0이면_onNext가_끝난_뒤에_onError() throws Exception {
+        Path file = createFile(10_000);
+        AtomicInteger terminals = new AtomicInteger();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        new MappedFilePublisher(file, 1024).subscribe(new Subscriber<ByteBuffer>() {
+            Subscription subscription;
+            boolean inOnNext;
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscription = s;
+                s.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer buffer) {
+                inOnNext = true;
+                subscription.request(0);
+                inOnNext = false;
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                overlapped.compareAndSet(false, inOnNext);
+                error.set(t);
+                terminals.incrementAndGet();
+            }
+
+            @Override
+            public void onComplete() {
+                terminals.incrementAndGet();
+            }
+        });
+
+        assertEquals(1, terminals.get());
+        assertFalse(overlapped.get());
+        assertTrue(error.get() instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void async_buffer를_다시_사용하며_전체_전달() throws Exception {
+        Path file = createFile(100_000);
+        CopyingSubscriber sub = new CopyingSubscriber(Long.MAX_VALUE);
+        new AsyncFilePublisher(file, 4096, null).subscribe(sub);
+
+        assertTrue(sub.await());
+        assertArrayEquals(content, sub.bytes());
+        assertEquals("모든 read에 같은 buffer를 사용해야 한다", 1, sub.distinctBuffers);
+    }
+
+    @Test
+    public void async_request한_갯수만큼만_읽는다() throws Exception {
+        Path file = createFile(100_000);
+        CopyingSubscriber sub = new CopyingSubscriber(3);
+        new AsyncFilePublisher(file, 4096, null).subscribe(sub);
+
+        Thread.sleep(200);
+        assertEquals(3, sub.chunks);
+
+        sub.subscription.request(Long.MAX_VALUE);
+        assertTrue(sub.await());
+        assertArrayEquals(content, sub.bytes());
+    }
+
+    /**
+     * AsyncFilePublisher의 buffer는 onNext가 끝나면 다시 사용되기 때문에 onNext 안에서 내용을 복사해둔다
+     */
+    static class CopyingSubscriber implements Subscriber<ByteBuffer> {
+
+        final long initialRequest;
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Subscription subscription;
+        volatile int chunks;
+        volatile int distinctBuffers;
+        ByteBuffer last;
+
+        CopyingSubscriber(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            subscription = s;
+            s.request(initialRequest);
+        }
+
+        @Override
+        public void onNext(ByteBuffer buffer) {
+            if (buffer != last) {
+                last = buffer;
+                distinctBuffers++;
+            }
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            synchronized (out) {
+                out.write(bytes, 0, bytes.length);
+            }
+            chunks++;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            logger.error("onError", t);
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+
+        boolean await() throws InterruptedException {
+            return done.await(5, TimeUnit.SECONDS);
+        }
+
+        byte[] bytes() {
+            synchronized (out) {
+                return out.toByteArray();
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.terry.reactive.test.publisher;
+
+import com.terry.reactive.publisher.IntervalPublisher;
+import com.terry.reactive.support.OverflowStrategy;
+import com.terry.reactive.test.support.RecordingSubscriber;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class IntervalPublisherTest {
+
+    /**
+     * FluxIntervalUsingNative와 달리 request 한 갯수만큼만 onNext가 호출되어야 한다
+     */
+    @Test
+    public void request한_갯수만큼만_tick_전달() throws InterruptedException {
+        IntervalPublisher pub = new IntervalPublisher(10, TimeUnit.MILLISECONDS, OverflowStrategy.DROP);
+        RecordingSubscriber<Long> sub = new RecordingSubscriber<>(3);
+        pub.subscribe(sub);
+
+        Thread.sleep(300);
+        sub.cancel();
+
+        assertEquals(3, sub.count());
+        assertTrue(pub.getDroppedCount() > 0);
+        logger.info("dropped : {}", pub.getDroppedCount());
+    }
+
+    /**
+     * LATEST 전략은 요청이 없는 동안의 tick은 버리고 마지막 tick만 남겨두었다가 request가 오면 그 값을 보낸다
+     */
+    @Test
+    public void LATEST_전략은_최신_tick을_보낸다() throws InterruptedException {
+        IntervalPublisher pub = new IntervalPublisher(10, TimeUnit.MILLISECONDS, OverflowStrategy.LATEST);
+        RecordingSubscriber<Long> sub = new RecordingSubscriber<>(1);
+        pub.subscribe(sub);
+
+        Thread.sleep(200);
+        sub.request(1);
+        sub.cancel();
+
+        assertEquals(2, sub.count());
+        assertEquals(Long.valueOf(0), sub.values().get(0));
+        assertTrue("최신 tick이 전달되어야 한다", sub.values().get(1) > 5);
+    }
+
+    /**
+     * BUFFER 전략은 bufferSize 만큼은 쌓아두었다가 request가 오면 순서대로 보낸다
+     */
+    @Test
+    public void BUFFER_전략은_정해진_크기만큼_쌓아둔다() throws InterruptedException {
+        IntervalPublisher pub = new IntervalPublisher(0, 5, TimeUnit.MILLISECONDS, OverflowStrategy.BUFFER, 4, java.util.concurrent.Executors.newSingleThreadScheduledExecutor());
+        RecordingSubscriber<Long> sub = new RecordingSubscriber<>(0);
+        pub.subscribe(sub);
+
+        Thread.sleep(200);
+        sub.request(10);
+        sub.cancel();
+
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L), sub.values());
+        assertTrue(pub.getDroppedCount() > 0);
+    }
+
+    /**
+     * 2의 거듭제곱이 아닌 bufferSize도 그 갯수까지만 쌓아둔다(내부 Queue는 8칸으로 만들어진다)
+     */
+    @Test
+    public void BUFFER_전략은_2의_거듭제곱이_아닌_크기도_지킨다() throws InterruptedException {
+        IntervalPublisher pub = new IntervalPublisher(0, 5, TimeUnit.MILLISECONDS, OverflowStrategy.BUFFER, 5, java.util.concurrent.Executors.newSingleThreadScheduledExecutor());
+        RecordingSubscriber<Long> sub = new RecordingSubscriber<>(0);
+        pub.subscribe(sub);
+
+        Thread.sleep(200);
+        sub.request(10);
+        sub.cancel();
+
+        assertEquals(Arrays.asList(0L, 1L, 2L, 3L, 4L), sub.values());
+        assertTrue(pub.getDroppedCount() > 0);
+    }
+
+    @Test
+    public void ERROR_전략은_요청이_없으면_onError() throws InterruptedException {
+        IntervalPublisher pub = new IntervalPublisher(10, TimeUnit.MILLISECONDS, OverflowStrategy.ERROR);
+        RecordingSubscriber<Long> sub = new RecordingSubscriber<>(2);
+        pub.subscribe(sub);
+
+        assertTrue(sub.await(5, TimeUnit.SECONDS));
+        assertEquals(2, sub.count());
+        assertTrue(sub.error() instanceof IllegalStateException);
+    }
+}
@@ -0,0 +1,236 @@
+package com.terry.reactive.test.retry;
+
+import com.terry.reactive.future.Futures;
+import com.terry.reactive.operator.Operators;
+import com.terry.reactive.retry.Backoff;
+import com.terry.reactive.retry.RetryBudget;
+import com.terry.reactive.retry.RetryPolicy;
+import com.terry.reactive.retry.RetryStats;
+import com.terry.reactive.test.support.RangePublisher;
+import com.terry.reactive.test.support.RecordingSubscriber;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@Slf4j
+public class RetryTest {
+
+    /**
+     * 구독할때마다 failures 번째 구독까지는 count 개를 보내고 onError, 그 다음부터는 count 개를 보내고 onComplete 하는 Publisher
+     */
+    private Publisher<Integer> flaky(int count, int failures, AtomicInteger subscriptions) {
+        return sub -> {
+            int n = subscriptions.incrementAndGet();
+            new RangePublisher(1, count).subscribe(new Subscriber<Integer>() {
+                @Override
+                public void onSubscribe(Subscription s) {
+                    sub.onSubscribe(s);
+                }
+
+                @Override
+                public void onNext(Integer value) {
+                    sub.onNext(value);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    sub.onError(t);
+                }
+
+                @Override
+                public void onComplete() {
+                    if (n <= failures) {
+                        sub.onError(new IllegalStateException("failure " + n));
+                    } else {
+                        sub.onComplete();
+                    }
+                }
+            });
+        };
+    }
+
+    @Test
+    public void backoff는_2배씩_늘어나고_max를_넘지_않는다() {
+        Backoff backoff = new Backoff(10, 100, 1000, TimeUnit.MILLISECONDS, 0);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), backoff.delayNanos(0));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(200), backoff.delayNanos(1));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(800), backoff.delayNanos(3));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1000), backoff.delayNanos(4));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1000), backoff.delayNanos(100));
+
+        Backoff jittered = new Backoff(10, 100, 10_000, TimeUnit.MILLISECONDS, 0.5);
+        boolean different = false;
+        for (int i = 0; i < 100; i++) {
+            long delay = jittered.delayNanos(2);
+            assertTrue(delay >= TimeUnit.MILLISECONDS.toNanos(200) && delay <= TimeUnit.MILLISECONDS.toNanos(600));
+            different |= delay != TimeUnit.MILLISECONDS.toNanos(400);
+        }
+        assertTrue(different);
+    }
+
+    /**
+     * 3개를 보내고 실패하는 Publisher를 두번 재시도하면 처음 요청한 갯수 안에서 이어서 받는다
+     */
+    @Test
+    public void 실패하면_다시_구독하고_남은_요청만큼_받는다() throws InterruptedException {
+        AtomicInteger subscriptions = new AtomicInteger();
+        RetryPolicy policy = new RetryPolicy(new Backoff(3, 10, 100, TimeUnit.MILLISECONDS, 0.5));
+        RecordingSubscriber<Integer> sub = new RecordingSubscriber<>(7);
+        Operators.retry(flaky(3, 2, subscriptions), policy).subscribe(sub);
+
+        Thread.sleep(300);
+        assertEquals(Arrays.asList(1, 2, 3, 1, 2, 3, 1), sub.values());
+
+        sub.request(10);
+        assertTrue(sub.await(1, TimeUnit.SECONDS));
+        assertTrue(sub.isCompleted());
+        assertEquals(3, subscriptions.get());
+
+        RetryStats stats = policy.getStats();
+        assertEquals(2, stats.getRetries());
+        assertEquals(1, stats.getRecovered());
+    }
+
+    @Test
+    public void 최대_재시도_횟수를_넘으면_onError() throws InterruptedException {
+        AtomicInteger subscriptions = new AtomicInteger();
+        RetryPolicy policy = new RetryPolicy(new Backoff(2, 10, 100, TimeUnit.MILLISECONDS, 0));
+        RecordingSubscriber<Integer> sub = new RecordingSubscriber<>();
+        Operators.retry(flaky(0, 100, subscriptions), policy).subscribe(sub);
+
+        assertTrue(sub.await(1, TimeUnit.SECONDS));
+        assertTrue(sub.error() instanceof IllegalStateException);
+        assertEquals(3, subscriptions.get());
+        assertEquals(1, policy.getStats().getExhausted());
+    }
+
+    @Test
+    public void 재시도_대상이_아닌_에러는_바로_onError() throws InterruptedException {
+        AtomicInteger subscriptions = new AtomicInteger();
+        RetryPolicy policy = new RetryPolicy(new Backoff(5, 10, 100, TimeUnit.MILLISECONDS, 0), null,
+                t -> !(t instanceof IllegalStateException));
+        RecordingSubscriber<Integer> sub = new RecordingSubscriber<>();
+        Operators.retry(flaky(1, 100, subscriptions), policy).subscribe(sub);
+
+        assertTrue(sub.await(1, TimeUnit.SECONDS));
+        assertTrue(sub.error() instanceof IllegalStateException);
+        assertEquals(1, subscriptions.get());
+        assertEquals(1, policy.getStats().getNotRetryable());
+    }
+
+    /**
+     * request(0)으로 끝난 뒤에 위쪽에서 에러가 와도 재시도 예산을 쓰지 않고 다시 구독하지도 않으며 끝내는 신호는 한번만 온다
+     */
+    @Test
+    public void request가_0이면_위쪽_에러로_재시도하지_않는다() throws InterruptedException {
+        AtomicInteger subscriptions = new AtomicInteger();
+        Subscriber<?>[] upstream = new Subscriber<?>[1];
+        Publisher<Integer> source = sub -> {
+            subscriptions.incrementAndGet();
+            upstream[0] = sub;
+            sub.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+        };
+        RetryPolicy policy = new RetryPolicy(new Backoff(5, 10, 100, TimeUnit.MILLISECONDS, 0));
+        AtomicInteger terminals = new AtomicInteger();
+        RecordingSubscriber<Integer> sub = new RecordingSubscriber<Integer>(0) {
+            @Override
+            public void onError(Throwable t) {
+                terminals.incrementAndGet();
+                super.onError(t);
+            }
+        };
+        Operators.retry(source, policy).subscribe(sub);
+
+        sub.request(0);
+        // 위쪽은 cancel을 무시하고 에러를 보낸다
+        upstream[0].onError(new IllegalStateException("late"));
+        Thread.sleep(100);
+
+        assertTrue(sub.error() instanceof IllegalArgumentException);
+        assertEquals(1, terminals.get());
+        assertEquals(1, subscriptions.get());
+        assertEquals(0, policy.getStats().getRetries());
+    }
+
+    @Test
+    public void 재시도를_기다리는_중에_cancel_하면_다시_구독하지_않는다() throws InterruptedException {
+        AtomicInteger subscriptions = new AtomicInteger();
+        RetryPolicy policy = new RetryPolicy(new Backoff(5, 200, 200, TimeUnit.MILLISECONDS, 0));
+        RecordingSubscriber<Integer> sub = new RecordingSubscriber<>();
+        Operators.retry(flaky(1, 100, subscriptions), policy).subscribe(sub);
+
+        sub.cancel();
+        Thread.sleep(400);
+        assertEquals(1, subscriptions.get());
+        assertFalse(sub.await(0, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * 실패가 계속되어 token이 절반 이하로 떨어지면 maxRetries가 남아 있어도 재시도하지 않는다
+     */
+    @Test
+    public void 예산이_부족하면_재시도하지_않는다() throws Exception {
+        RetryBudget budget = new RetryBudget(4, 1);
+        RetryPolicy policy = new RetryPolicy(new Backoff(10, 1, 1, TimeUnit.MILLISECONDS, 0), budget, t -> true);
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> result = Futures.retry(() -> {
+            calls.incrementAndGet();
+            CompletableFuture<String> f = new CompletableFuture<>();
+            f.completeExceptionally(new IllegalStateException());
+            return f;
+        }, policy);
+
+        try {
+            result.get(1, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        // token 4 -> 3(재시도) -> 2(절반 이하라서 실패)
+        assertEquals(2, calls.get());
+        assertEquals(1, policy.getStats().getRejectedByBudget());
+
+        budget.onSuccess();
+        budget.onSuccess();
+        assertEquals(4.0, budget.getTokens(), 0.001);
+    }
+
+    @Test
+    public void Future_재시도_끝에_성공() throws Exception {
+        RetryPolicy policy = new RetryPolicy(new Backoff(3, 10, 100, TimeUnit.MILLISECONDS, 0.5));
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> result = Futures.retry(() -> CompletableFuture.supplyAsync(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new IllegalStateException();
+            }
+            return "Hello";
+        }), policy);
+
+        assertEquals("Hello", result.get(1, TimeUnit.SECONDS));
+        assertEquals(3, calls.get());
+        assertEquals(1, policy.getStats().getRecovered());
+    }
+}
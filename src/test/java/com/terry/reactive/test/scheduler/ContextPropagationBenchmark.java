@@ -0,0 +1,151 @@
+package com.terry.reactive.test.scheduler;
+
+import com.terry.reactive.operator.Operators;
+import com.terry.reactive.scheduler.ContextScheduler;
+import com.terry.reactive.scheduler.ExecutorServiceScheduler;
+import com.terry.reactive.scheduler.Scheduler;
+import com.terry.reactive.test.support.RangePublisher;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RangePublisher -> publishOn -> publishOn -> Subscriber 구독을 여러개 동시에 실행하면서 MDC 전달 방법별 처리량을 비교한다
+ *
+ * 1. none : MDC를 전달하지 않는다(기준)
+ * 2. per-element : 구독할때 복사한 MDC를 onNext 마다 MDC.setContextMap 으로 넣는다(지금까지 사용하던 방법)
+ * 3. per-hop : ContextScheduler를 사용한다. Worker의 작업이 Thread를 넘어갈때만 MDC를 넣는다
+ *
+ * per-hop은 ContextScheduler.getRestoreCount()로 MDC를 넣은 횟수를 세서 한번 넣을때 드는 시간(ns/hop)도 같이 출력한다
+ * ForkJoinSchedulerBenchmark 처럼 main 메소드로 실행한다
+ */
+@Slf4j
+public class ContextPropagationBenchmark {
+
+    static final int THREADS = 4;
+    static final int PIPELINES = 32;
+    static final int ITEMS_PER_PIPELINE = 50_000;
+    static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws InterruptedException {
+        ExecutorService es = Executors.newFixedThreadPool(THREADS);
+        Scheduler plain = new ExecutorServiceScheduler(es);
+        ContextScheduler context = new ContextScheduler(plain);
+        try {
+            MDC.put("traceId", "benchmark");
+            double none = best(() -> pipelines(plain, false));
+            double perElement = best(() -> pipelines(plain, true));
+            long restoresBefore = context.getRestoreCount();
+            double perHop = best(() -> pipelines(context, false));
+            // best 는 warm up 1번과 ROUNDS 번을 실행한다
+            double hopsPerRun = (double) (context.getRestoreCount() - restoresBefore) / (ROUNDS + 1);
+            double items = (double) PIPELINES * ITEMS_PER_PIPELINE;
+
+            System.out.println(String.format("%-12s %16s %10s", "mode", "items/s", "overhead"));
+            System.out.println(String.format("%-12s %16.0f %10s", "none", none, "-"));
+            System.out.println(String.format("%-12s %16.0f %9.1f%%", "per-element", perElement, (1 - perElement / none) * 100));
+            System.out.println(String.format("%-12s %16.0f %9.1f%%", "per-hop", perHop, (1 - perHop / none) * 100));
+            // 두 구독의 처리 시간 차이를 MDC를 넣은 횟수로 나눈 값이다(Thread 갯수만큼 동시에 실행되므로 Thread 시간으로 환산한다)
+            double nanosPerHop = (items / perHop - items / none) * 1e9 * THREADS / hopsPerRun;
+            System.out.println(String.format("per-hop : %.0f hops per run (%.4f per item), ~%.0f ns per hop",
+                    hopsPerRun, hopsPerRun / items, nanosPerHop));
+        } finally {
+            MDC.clear();
+            es.shutdown();
+        }
+    }
+
+    interface Workload {
+        double run() throws InterruptedException;
+    }
+
+    static double best(Workload workload) throws InterruptedException {
+        workload.run(); // warm up
+        double best = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            best = Math.max(best, workload.run());
+        }
+        return best;
+    }
+
+    /**
+     * @return 초당 Subscriber에 전달된 데이터 수
+     */
+    static double pipelines(Scheduler scheduler, boolean copyPerElement) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(PIPELINES);
+        long start = System.nanoTime();
+        for (int i = 0; i < PIPELINES; i++) {
+            Publisher<Integer> first = Operators.publishOn(new RangePublisher(0, ITEMS_PER_PIPELINE), scheduler);
+            Publisher<Integer> second = Operators.publishOn(copyPerElement ? perElement(first) : first, scheduler);
+            (copyPerElement ? perElement(second) : second).subscribe(new Subscriber<Integer>() {
+                @Override
+                public void onSubscribe(Subscription s) {
+                    s.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(Integer integer) {
+                    if (MDC.get("traceId") == null && scheduler instanceof ContextScheduler) {
+                        throw new IllegalStateException("traceId is missing");
+                    }
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    logger.error("pipeline failed", t);
+                    latch.countDown();
+                }
+
+                @Override
+                public void onComplete() {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await(5, TimeUnit.MINUTES);
+        return (double) PIPELINES * ITEMS_PER_PIPELINE / ((System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * 구독할때 MDC를 복사해두고 onNext 마다 넣었다가 지우는 방법
+     */
+    static Publisher<Integer> perElement(Publisher<Integer> source) {
+        return sub -> {
+            Map<String, String> context = MDC.getCopyOfContextMap();
+            source.subscribe(new Subscriber<Integer>() {
+                @Override
+                public void onSubscribe(Subscription s) {
+                    sub.onSubscribe(s);
+                }
+
+                @Override
+                public void onNext(Integer integer) {
+                    MDC.setContextMap(context);
+                    try {
+                        sub.onNext(integer);
+                    } finally {
+                        MDC.clear();
+                    }
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    sub.onError(t);
+                }
+
+                @Override
+                public void onComplete() {
+                    sub.onComplete();
+                }
+            });
+        };
+    }
+}
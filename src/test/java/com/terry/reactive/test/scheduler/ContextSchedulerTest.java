@@ -0,0 +1,107 @@
+package com.terry.reactive.test.scheduler;
+
+import com.terry.reactive.operator.Operators;
+import com.terry.reactive.scheduler.ContextScheduler;
+import com.terry.reactive.scheduler.ExecutorServiceScheduler;
+import com.terry.reactive.test.support.RangePublisher;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.MDC;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class ContextSchedulerTest {
+
+    @After
+    public void clearMdc() {
+        MDC.clear();
+    }
+
+    /**
+     * subscribeOn, publishOn으로 Thread를 두번 넘어가도 구독한 Thread의 traceId가 onNext에서 보이고
+     * MDC를 넣는 것은 데이터마다가 아니라 Thread를 넘어갈때만 일어난다
+     */
+    @Test
+    public void 구독한_Thread의_MDC가_onNext까지_전달된다() throws InterruptedException {
+        ExecutorService subOn = Executors.newSingleThreadExecutor();
+        ExecutorService pubOn = Executors.newSingleThreadExecutor();
+        ContextScheduler subOnScheduler = new ContextScheduler(new ExecutorServiceScheduler(subOn));
+        ContextScheduler pubOnScheduler = new ContextScheduler(new ExecutorServiceScheduler(pubOn));
+        try {
+            MDC.put("traceId", "trace-1");
+            Publisher<Integer> pub = Operators.publishOn(Operators.subscribeOn(new RangePublisher(1, 10_000), subOnScheduler), pubOnScheduler);
+            Set<String> traceIds = Collections.synchronizedSet(new HashSet<>());
+            AtomicInteger count = new AtomicInteger();
+            CountDownLatch done = new CountDownLatch(1);
+            pub.subscribe(new Subscriber<Integer>() {
+                @Override
+                public void onSubscribe(Subscription s) {
+                    s.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(Integer integer) {
+                    traceIds.add(String.valueOf(MDC.get("traceId")));
+                    count.incrementAndGet();
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    done.countDown();
+                }
+
+                @Override
+                public void onComplete() {
+                    logger.info("onComplete");
+                    done.countDown();
+                }
+            });
+            MDC.clear();
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(10_000, count.get());
+            assertEquals(Collections.singleton("trace-1"), traceIds);
+            logger.info("restores : subscribeOn {}, publishOn {}", subOnScheduler.getRestoreCount(), pubOnScheduler.getRestoreCount());
+            assertTrue(pubOnScheduler.getRestoreCount() < count.get() / 10);
+
+            // 작업이 끝난 Pool Thread에는 MDC가 남지 않는다
+            CountDownLatch checked = new CountDownLatch(1);
+            String[] left = new String[]{"not checked"};
+            pubOn.execute(() -> {
+                left[0] = MDC.get("traceId");
+                checked.countDown();
+            });
+            assertTrue(checked.await(1, TimeUnit.SECONDS));
+            assertNull(left[0]);
+        } finally {
+            subOn.shutdownNow();
+            pubOn.shutdownNow();
+        }
+    }
+
+    /**
+     * 작업을 실행한 Thread에 원래 있던 MDC는 작업이 끝나면 되돌려진다
+     */
+    @Test
+    public void 실행한_Thread의_원래_MDC로_되돌린다() {
+        MDC.put("traceId", "outer");
+        ContextScheduler.runWith(Collections.singletonMap("traceId", "inner"), () -> assertEquals("inner", MDC.get("traceId")));
+        assertEquals("outer", MDC.get("traceId"));
+    }
+}
@@ -0,0 +1,125 @@
+package com.terry.reactive.test.scheduler;
+
+import com.terry.reactive.operator.Operators;
+import com.terry.reactive.scheduler.EventLoopScheduler;
+import com.terry.reactive.scheduler.Scheduler;
+import com.terry.reactive.test.support.RangePublisher;
+import com.terry.reactive.test.support.RecordingSubscriber;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class EventLoopSchedulerTest {
+
+    /**
+     * SchedulerTest의 subscribeOn_publishOn_테스트를 pinned Scheduler 하나로 실행하면
+     * 구독, request, onNext가 모두 같은 loop Thread에서 실행되고 대부분의 작업이 Queue를 거치지 않는다
+     */
+    @Test
+    public void 같은_loop에_고정된_subscribeOn_publishOn() throws InterruptedException {
+        EventLoopScheduler scheduler = new EventLoopScheduler(4, "loop-test-");
+        try {
+            Scheduler loop = scheduler.pinned();
+            Publisher<Integer> pub = Operators.publishOn(Operators.subscribeOn(new RangePublisher(1, 10_000), loop), loop, 16);
+            RecordingSubscriber<Integer> sub = new RecordingSubscriber<>();
+            pub.subscribe(sub);
+
+            assertTrue(sub.await(5, TimeUnit.SECONDS));
+            assertEquals(10_000, sub.count());
+            assertEquals(1, new HashSet<>(sub.threadNames()).size());
+            assertTrue(sub.threadNames().get(0).startsWith("loop-test-"));
+
+            logger.info("direct calls : {}, handoffs : {}", scheduler.getDirectCallCount(), scheduler.getHandoffCount());
+            assertTrue(scheduler.getHandoffCount() < 10);
+            assertTrue(scheduler.getDirectCallCount() > scheduler.getHandoffCount());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * loop 밖에서 만든 Worker는 돌아가면서 loop를 배정받고, loop 안에서 만든 Worker는 그 loop를 사용한다
+     */
+    @Test
+    public void loop_안에서_만든_Worker는_같은_loop를_사용한다() throws InterruptedException {
+        EventLoopScheduler scheduler = new EventLoopScheduler(2, "loop-affinity-");
+        try {
+            List<String> names = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch latch = new CountDownLatch(4);
+            for (int i = 0; i < 2; i++) {
+                scheduler.createWorker().schedule(() -> {
+                    names.add(Thread.currentThread().getName());
+                    latch.countDown();
+                    scheduler.createWorker().schedule(() -> {
+                        names.add(Thread.currentThread().getName());
+                        latch.countDown();
+                    });
+                });
+            }
+            assertTrue(latch.await(1, TimeUnit.SECONDS));
+            Set<String> distinct = new HashSet<>(names);
+            assertEquals(2, distinct.size());
+            // 각 loop에서 바깥 작업과 안쪽 작업이 같은 Thread에서 실행된다
+            for (String name : distinct) {
+                assertEquals(2, Collections.frequency(names, name));
+            }
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * 여러 Thread에서 같은 Worker에 작업을 넣어도 한번에 하나씩, 넣은 Thread별 순서대로 실행된다
+     */
+    @Test
+    public void 여러_Thread에서_넣은_작업도_순서대로_하나씩_실행된다() throws InterruptedException {
+        EventLoopScheduler scheduler = new EventLoopScheduler(2, "loop-serial-");
+        ExecutorService es = Executors.newFixedThreadPool(4);
+        try {
+            Scheduler.Worker worker = scheduler.createWorker();
+            int perThread = 10_000;
+            int[] last = new int[4];
+            int[] running = new int[1];
+            List<String> violations = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch done = new CountDownLatch(4 * perThread);
+            for (int t = 0; t < 4; t++) {
+                int producer = t;
+                es.execute(() -> {
+                    for (int i = 1; i <= perThread; i++) {
+                        int value = i;
+                        worker.schedule(() -> {
+                            if (running[0]++ != 0) {
+                                violations.add("concurrent");
+                            }
+                            if (last[producer] + 1 != value) {
+                                violations.add("order " + producer + " " + value);
+                            }
+                            last[producer] = value;
+                            running[0]--;
+                            done.countDown();
+                        });
+                    }
+                });
+            }
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertTrue(violations.toString(), violations.isEmpty());
+        } finally {
+            es.shutdownNow();
+            scheduler.shutdown();
+        }
+    }
+}
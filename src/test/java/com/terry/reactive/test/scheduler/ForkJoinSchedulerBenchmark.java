@@ -0,0 +1,180 @@
+package com.terry.reactive.test.scheduler;
+
+import com.terry.reactive.operator.Operators;
+import com.terry.reactive.scheduler.ExecutorServiceScheduler;
+import com.terry.reactive.scheduler.ForkJoinScheduler;
+import com.terry.reactive.scheduler.Scheduler;
+import com.terry.reactive.test.support.RangePublisher;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ForkJoinScheduler와 기존에 사용하던 하나의 Queue를 공유하는 Thread Pool(Executors.newFixedThreadPool)의 처리량을
+ * Thread 갯수를 1개부터 코어 수(또는 첫번째 실행 인자로 준 값)까지 2배씩 늘려가면서 비교한다
+ *
+ * SchedulerMain 처럼 main 메소드로 실행한다(JUnit 테스트로 돌리면 전체 테스트 시간이 너무 길어지기 때문이다)
+ *
+ * 1. fan-out : 작업 하나가 실행되면서 작은 작업 2개를 새로 만드는 구조를 깊이 depth 만큼 반복한다
+ *    Pool 안에서 작업이 계속 만들어지기 때문에 공유 Queue를 쓰는 Pool은 Thread가 늘어날수록 Queue에서 경합이 생긴다
+ * 2. pipeline : RangePublisher -> publishOn -> CPU 작업 -> publishOn -> Subscriber 로 구성된 구독을 여러개 동시에 실행한다
+ *
+ * 코어 수가 적은 환경에서 실행하면 Thread를 늘려도 처리량이 늘지 않기 때문에 코어 수가 충분한 장비에서 실행해야 의미가 있다
+ */
+@Slf4j
+public class ForkJoinSchedulerBenchmark {
+
+    static final int FAN_OUT_DEPTH = 18;
+    static final int PIPELINES = 64;
+    static final int ITEMS_PER_PIPELINE = 20_000;
+    static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.println(String.format("%-10s %-8s %18s %18s", "workload", "threads", "ForkJoin(ops/s)", "FixedPool(ops/s)"));
+        for (int threads = 1; threads <= maxThreads; threads = threads == maxThreads ? threads + 1 : Math.min(threads * 2, maxThreads)) {
+            ForkJoinScheduler forkJoin = new ForkJoinScheduler(threads);
+            ExecutorService fixed = Executors.newFixedThreadPool(threads);
+            try {
+                double fj = best(() -> fanOut(forkJoin));
+                double fp = best(() -> fanOut(fixed));
+                System.out.println(String.format("%-10s %-8d %18.0f %18.0f", "fan-out", threads, fj, fp));
+
+                Scheduler fixedScheduler = new ExecutorServiceScheduler(fixed);
+                fj = best(() -> pipelines(forkJoin));
+                fp = best(() -> pipelines(fixedScheduler));
+                System.out.println(String.format("%-10s %-8d %18.0f %18.0f", "pipeline", threads, fj, fp));
+            } finally {
+                forkJoin.shutdown();
+                fixed.shutdown();
+            }
+        }
+    }
+
+    interface Workload {
+        double run() throws InterruptedException;
+    }
+
+    static double best(Workload workload) throws InterruptedException {
+        workload.run(); // warm up
+        double best = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            best = Math.max(best, workload.run());
+        }
+        return best;
+    }
+
+    /**
+     * @return 초당 처리한 작업 수
+     */
+    static double fanOut(Executor executor) throws InterruptedException {
+        int tasks = (1 << (FAN_OUT_DEPTH + 1)) - 1;
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicInteger remaining = new AtomicInteger(tasks);
+        long start = System.nanoTime();
+        executor.execute(new FanOutTask(executor, FAN_OUT_DEPTH, remaining, latch));
+        latch.await(5, TimeUnit.MINUTES);
+        return tasks / ((System.nanoTime() - start) / 1e9);
+    }
+
+    static final class FanOutTask implements Runnable {
+        final Executor executor;
+        final int depth;
+        final AtomicInteger remaining;
+        final CountDownLatch latch;
+
+        FanOutTask(Executor executor, int depth, AtomicInteger remaining, CountDownLatch latch) {
+            this.executor = executor;
+            this.depth = depth;
+            this.remaining = remaining;
+            this.latch = latch;
+        }
+
+        @Override
+        public void run() {
+            cpuWork(depth);
+            if (depth > 0) {
+                executor.execute(new FanOutTask(executor, depth - 1, remaining, latch));
+                executor.execute(new FanOutTask(executor, depth - 1, remaining, latch));
+            }
+            if (remaining.decrementAndGet() == 0) {
+                latch.countDown();
+            }
+        }
+    }
+
+    /**
+     * @return 초당 Subscriber에 전달된 데이터 수
+     */
+    static double pipelines(Scheduler scheduler) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(PIPELINES);
+        long start = System.nanoTime();
+        for (int i = 0; i < PIPELINES; i++) {
+            Publisher<Integer> first = Operators.publishOn(new RangePublisher(0, ITEMS_PER_PIPELINE), scheduler);
+            Publisher<Integer> mapped = sub -> first.subscribe(new Subscriber<Integer>() {
+                @Override
+                public void onSubscribe(Subscription s) {
+                    sub.onSubscribe(s);
+                }
+
+                @Override
+                public void onNext(Integer integer) {
+                    sub.onNext(cpuWork(integer));
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    sub.onError(t);
+                }
+
+                @Override
+                public void onComplete() {
+                    sub.onComplete();
+                }
+            });
+            Operators.publishOn(mapped, scheduler).subscribe(new Subscriber<Integer>() {
+                @Override
+                public void onSubscribe(Subscription s) {
+                    s.request(Long.MAX_VALUE);
+                }
+
+                @Override
+                public void onNext(Integer integer) {
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    logger.error("pipeline failed", t);
+                    latch.countDown();
+                }
+
+                @Override
+                public void onComplete() {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await(5, TimeUnit.MINUTES);
+        return (double) PIPELINES * ITEMS_PER_PIPELINE / ((System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * JIT가 없애버리지 못하도록 결과를 돌려주는 간단한 CPU 작업
+     */
+    static int cpuWork(int seed) {
+        int x = seed;
+        for (int i = 0; i < 200; i++) {
+            x = x * 1103515245 + 12345;
+        }
+        return x;
+    }
+}
@@ -0,0 +1,91 @@
+package com.terry.reactive.test.scheduler;
+
+import com.terry.reactive.operator.Operators;
+import com.terry.reactive.scheduler.ExecutorServiceScheduler;
+import com.terry.reactive.scheduler.ForkJoinScheduler;
+import com.terry.reactive.scheduler.Scheduler;
+import com.terry.reactive.test.support.RangePublisher;
+import com.terry.reactive.test.support.RecordingSubscriber;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class ForkJoinSchedulerTest {
+
+    /**
+     * SchedulerTest의 publishOn_테스트를 ForkJoinScheduler로 실행해본다
+     * ForkJoinPool의 Thread에서 onNext가 실행되고 Thread가 여러개여도 데이터 순서는 그대로 유지되어야 한다
+     */
+    @Test
+    public void ForkJoinScheduler_publishOn_테스트() throws InterruptedException {
+        Scheduler scheduler = new ForkJoinScheduler(4, "fj-test-");
+        try {
+            Publisher<Integer> pub = Operators.publishOn(new RangePublisher(1, 1000), scheduler, 16);
+            RecordingSubscriber<Integer> sub = new RecordingSubscriber<>();
+            pub.subscribe(sub);
+
+            assertTrue(sub.await(10, TimeUnit.SECONDS));
+            assertNull(sub.error());
+            List<Integer> values = sub.values();
+            assertEquals(1000, values.size());
+            for (int i = 0; i < values.size(); i++) {
+                assertEquals(Integer.valueOf(i + 1), values.get(i));
+            }
+            assertTrue(sub.threadNames().stream().allMatch(name -> name.startsWith("fj-test-")));
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * publishOn을 두번 거치면 두번째 publishOn의 drain 작업은 ForkJoinPool 안의 Thread에서 만들어지기 때문에
+     * 공유 Queue가 아닌 그 Thread의 Deque로 들어간다(fork)
+     */
+    @Test
+    public void publishOn_두번_거치기_테스트() throws InterruptedException {
+        ForkJoinScheduler scheduler = new ForkJoinScheduler(4, "fj-chain-");
+        try {
+            Publisher<Integer> pub = Operators.publishOn(Operators.publishOn(new RangePublisher(0, 10_000), scheduler), scheduler);
+            RecordingSubscriber<Integer> sub = new RecordingSubscriber<>();
+            pub.subscribe(sub);
+
+            assertTrue(sub.await(10, TimeUnit.SECONDS));
+            assertEquals(10_000, sub.count());
+            logger.info("steal count : {}", scheduler.getStealCount());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * Subscriber가 request한 만큼만 전달되는지 확인한다
+     */
+    @Test
+    public void request한_갯수만큼만_전달() throws InterruptedException {
+        Scheduler scheduler = new ExecutorServiceScheduler(Executors.newSingleThreadExecutor());
+        try {
+            RecordingSubscriber<Integer> sub = new RecordingSubscriber<>(5);
+            Operators.publishOn(new RangePublisher(0, 100), scheduler, 8).subscribe(sub);
+
+            Thread.sleep(200);
+            assertEquals(5, sub.count());
+
+            sub.request(10);
+            Thread.sleep(200);
+            assertEquals(15, sub.count());
+
+            sub.cancel();
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.terry.reactive.test.stress;
+
+import com.terry.reactive.operator.OnBackpressureBufferPublisher;
+import com.terry.reactive.operator.OnBackpressureDropPublisher;
+import com.terry.reactive.operator.OnBackpressureLatestPublisher;
+import com.terry.reactive.operator.Operators;
+import com.terry.reactive.publisher.IntervalPublisher;
+import com.terry.reactive.scheduler.ForkJoinScheduler;
+import com.terry.reactive.support.OverflowStrategy;
+import com.terry.reactive.support.SpscArrayQueue;
+import com.terry.reactive.test.support.RangePublisher;
+import com.terry.reactive.test.support.RecordingSubscriber;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * src/jcstress 에 있는 jcstress 테스트는 두 Thread가 딱 한번 겹치는 경우를 수백만번 반복해서 확인하는데
+ * 여기서는 반대로 여러 Thread가 오랫동안 request, cancel, onNext를 섞어서 호출하는 상황을 만들어
+ * 순서가 바뀌거나, 같은 값이 두번 오거나, 전달된 갯수 + 버려진 갯수가 보낸 갯수와 다른 경우가 없는지 확인한다
+ *
+ * 한번에 끝나는 테스트가 아니라 ROUNDS 만큼 반복하기 때문에 다른 테스트보다 오래 걸린다
+ */
+@Slf4j
+public class ConcurrencyStressTest {
+
+    private static final int ROUNDS = 50;
+    private static final int COUNT = 20_000;
+
+    private ForkJoinScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = new ForkJoinScheduler(4, "stress-");
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void spscArrayQueue_순서와_갯수() throws InterruptedException {
+        for (int round = 0; round < ROUNDS; round++) {
+            SpscArrayQueue<Integer> queue = new SpscArrayQueue<>(64);
+            AtomicReference<String> failure = new AtomicReference<>();
+
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < COUNT; i++) {
+                    while (!queue.offer(i)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            Thread consumer = new Thread(() -> {
+                int expected = 0;
+                while (expected < COUNT) {
+                    Integer v = queue.poll();
+                    if (v == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    if (v != expected) {
+                        failure.compareAndSet(null, "expected " + expected + " but was " + v);
+                        return;
+                    }
+                    expected++;
+                }
+            });
+            producer.start();
+            consumer.start();
+            producer.join(10_000);
+            consumer.join(10_000);
+
+            assertNull(failure.get());
+            assertTrue(queue.isEmpty());
+        }
+    }
+
+    /**
+     * 아래 Subscriber가 여러 Thread에서 동시에 request(1)을 나눠서 해도 publishOn은 순서대로 빠짐없이 전달해야 한다
+     */
+    @Test
+    public void publishOn_동시_request() throws InterruptedException {
+        for (int round = 0; round < ROUNDS; round++) {
+            RecordingSubscriber<Integer> sub = new RecordingSubscriber<>(0);
+            Operators.publishOn(new RangePublisher(0, COUNT), scheduler, 32).subscribe(sub);
+
+            runConcurrently(4, () -> {
+                for (int i = 0; i < COUNT / 4; i++) {
+                    sub.request(1);
+                }
+            });
+
+            assertTrue(sub.await(10, TimeUnit.SECONDS));
+            assertInOrderWithoutGaps(sub.values(), COUNT);
+        }
+    }
+
+    /**
+     * 데이터가 전달되는 도중에 다른 Thread에서 cancel 하면 그 뒤로는 더 이상 데이터가 오지 않아야 하고
+     * cancel 전까지 받은 값에는 빠진 값이나 중복이 없어야 한다
+     */
+    @Test
+    public void publishOn_전달중_cancel() throws InterruptedException {
+        for (int round = 0; round < ROUNDS; round++) {
+            RecordingSubscriber<Integer> sub = new RecordingSubscriber<>();
+            Operators.publishOn(new RangePublisher(0, COUNT), scheduler, 32).subscribe(sub);
+
+            Thread.sleep(ThreadLocalRandom.current().nextInt(2));
+            sub.cancel();
+            int afterCancel = sub.count();
+            Thread.sleep(20);
+
+            List<Integer> values = sub.values();
+            assertTrue(values.size() - afterCancel <= 1);
+            assertInOrderWithoutGaps(values, values.size());
+        }
+    }
+
+    @Test
+    public void onBackpressureBuffer_전달된_갯수와_버려진_갯수() throws InterruptedException {
+        for (int round = 0; round < ROUNDS; round++) {
+            AtomicInteger overflowed = new AtomicInteger();
+            OnBackpressureBufferPublisher<Integer> pub = new OnBackpressureBufferPublisher<>(
+                    threadPushPub(COUNT), 128, v -> overflowed.incrementAndGet(), OverflowStrategy.DROP);
+
+            RecordingSubscriber<Integer> sub = requestUntilDone(pub);
+
+            List<Integer> values = sub.values();
+            assertStrictlyIncreasing(values);
+            assertEquals(COUNT, values.size() + pub.getDroppedCount());
+            assertEquals(overflowed.get(), pub.getDroppedCount());
+        }
+    }
+
+    @Test
+    public void onBackpressureDrop_전달된_갯수와_버려진_갯수() throws InterruptedException {
+        for (int round = 0; round < ROUNDS; round++) {
+            AtomicInteger onDrop = new AtomicInteger();
+            OnBackpressureDropPublisher<Integer> pub = new OnBackpressureDropPublisher<>(threadPushPub(COUNT), v -> onDrop.incrementAndGet());
+
+            RecordingSubscriber<Integer> sub = requestUntilDone(pub);
+
+            List<Integer> values = sub.values();
+            assertStrictlyIncreasing(values);
+            assertEquals(COUNT, values.size() + pub.getDroppedCount());
+            assertEquals(onDrop.get(), pub.getDroppedCount());
+        }
+    }
+
+    /**
+     * Latest는 onComplete 직전에 남아있던 마지막 값도 반드시 전달해야 한다
+     */
+    @Test
+    public void onBackpressureLatest_전달된_갯수와_버려진_갯수() throws InterruptedException {
+        for (int round = 0; round < ROUNDS; round++) {
+            AtomicInteger onDrop = new AtomicInteger();
+            OnBackpressureLatestPublisher<Integer> pub = new OnBackpressureLatestPublisher<>(threadPushPub(COUNT), v -> onDrop.incrementAndGet());
+
+            RecordingSubscriber<Integer> sub = requestUntilDone(pub);
+
+            List<Integer> values = sub.values();
+            assertStrictlyIncreasing(values);
+            assertEquals(COUNT, values.size() + pub.getDroppedCount());
+            assertEquals(onDrop.get(), pub.getDroppedCount());
+            assertEquals(Integer.valueOf(COUNT - 1), values.get(values.size() - 1));
+        }
+    }
+
+    /**
+     * 여러 Subscriber가 같은 Timer를 공유하면서 request와 cancel을 섞어서 해도 각 Subscriber가 받은 tick은 순서대로 증가해야 하고
+     * request 한 갯수보다 많이 받으면 안된다(Queue가 넘쳐서 버려진 tick이 있으면 중간이 비어 있을 수 있다)
+     */
+    @Test
+    public void interval_공유_Timer에서_request와_cancel() throws InterruptedException {
+        ScheduledExecutorService timer = Executors.newScheduledThreadPool(2);
+        try {
+            IntervalPublisher pub = new IntervalPublisher(0, 100, TimeUnit.MICROSECONDS, OverflowStrategy.BUFFER, 1024, timer);
+            int subscribers = 8;
+            List<RecordingSubscriber<Long>> subs = new ArrayList<>();
+            for (int i = 0; i < subscribers; i++) {
+                RecordingSubscriber<Long> sub = new RecordingSubscriber<>(0);
+                subs.add(sub);
+                pub.subscribe(sub);
+            }
+
+            long[] requested = new long[subscribers];
+            runConcurrently(subscribers, new Runnable() {
+                final AtomicInteger index = new AtomicInteger();
+
+                @Override
+                public void run() {
+                    int me = index.getAndIncrement();
+                    RecordingSubscriber<Long> sub = subs.get(me);
+                    for (int i = 0; i < 200; i++) {
+                        int n = ThreadLocalRandom.current().nextInt(1, 4);
+                        requested[me] += n;
+                        sub.request(n);
+                        if (i % 50 == 0) {
+                            Thread.yield();
+                        }
+                    }
+                    sub.cancel();
+                }
+            });
+
+            for (int i = 0; i < subscribers; i++) {
+                List<Long> values = subs.get(i).values();
+                for (int j = 1; j < values.size(); j++) {
+                    assertTrue(values.get(j - 1) < values.get(j));
+                }
+                assertTrue(values.size() <= requested[i]);
+                assertNull(subs.get(i).error());
+            }
+        } finally {
+            timer.shutdownNow();
+        }
+    }
+
+    /**
+     * 별도 Thread 하나가 request(n)을 무시하고 0부터 count-1까지 쉬지 않고 밀어내는 Publisher
+     */
+    private Publisher<Integer> threadPushPub(int count) {
+        return sub -> sub.onSubscribe(new Subscription() {
+            final AtomicBoolean started = new AtomicBoolean();
+            volatile boolean cancelled;
+
+            @Override
+            public void request(long n) {
+                if (!started.compareAndSet(false, true)) {
+                    return;
+                }
+                Thread t = new Thread(() -> emit(sub));
+                t.start();
+            }
+
+            void emit(Subscriber<? super Integer> sub) {
+                for (int i = 0; i < count && !cancelled; i++) {
+                    sub.onNext(i);
+                }
+                if (!cancelled) {
+                    sub.onComplete();
+                }
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+            }
+        });
+    }
+
+    /**
+     * 두 Thread가 번갈아가며 조금씩 request 하다가 onComplete가 오면 멈춘다
+     */
+    private RecordingSubscriber<Integer> requestUntilDone(Publisher<Integer> pub) throws InterruptedException {
+        RecordingSubscriber<Integer> sub = new RecordingSubscriber<>(1);
+        pub.subscribe(sub);
+        CountDownLatch done = new CountDownLatch(1);
+        runConcurrently(2, () -> {
+            while (done.getCount() != 0) {
+                sub.request(ThreadLocalRandom.current().nextInt(1, 16));
+                try {
+                    if (sub.await(10, TimeUnit.MICROSECONDS)) {
+                        done.countDown();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        });
+        assertTrue(sub.await(10, TimeUnit.SECONDS));
+        assertNull(sub.error());
+        return sub;
+    }
+
+    private void runConcurrently(int threads, Runnable task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                task.run();
+            });
+            workers[i].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join(10_000);
+        }
+    }
+
+    private void assertInOrderWithoutGaps(List<Integer> values, int expectedSize) {
+        assertEquals(expectedSize, values.size());
+        for (int i = 0; i < values.size(); i++) {
+            assertEquals(Integer.valueOf(i), values.get(i));
+        }
+    }
+
+    private void assertStrictlyIncreasing(List<Integer> values) {
+        for (int i = 1; i < values.size(); i++) {
+            assertTrue("not increasing at " + i, values.get(i - 1) < values.get(i));
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.terry.reactive.test.support;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 파일이나 소켓으로 Integer를 주고받는 테스트에서 쓰는 encoder, decoder (4 byte big-endian)
+ */
+public final class IntCodec {
+
+    private IntCodec() {
+    }
+
+    public static byte[] encode(Integer value) {
+        return ByteBuffer.allocate(4).putInt(value).array();
+    }
+
+    public static Integer decode(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).getInt();
+    }
+}
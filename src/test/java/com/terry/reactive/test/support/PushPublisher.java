@@ -0,0 +1,42 @@
+package com.terry.reactive.test.support;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * PubSub02의 iterPub 처럼 request(n)의 n을 무시하고 1부터 count까지 한번에 밀어내는 Publisher
+ * onBackpressureXXX 처럼 아래쪽이 요청하지 않은 데이터를 받아야 하는 Operator를 테스트할때 사용한다
+ */
+public class PushPublisher implements Publisher<Integer> {
+
+    private final int count;
+
+    public PushPublisher(int count) {
+        this.count = count;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super Integer> sub) {
+        sub.onSubscribe(new Subscription() {
+            boolean started;
+
+            @Override
+            public void request(long n) {
+                if (started) {
+                    return;
+                }
+                started = true;
+                for (int i = 1; i <= count; i++) {
+                    sub.onNext(i);
+                }
+                sub.onComplete();
+            }
+
+            @Override
+            public void cancel() {
+
+            }
+        });
+    }
+}
@@ -0,0 +1,74 @@
+package com.terry.reactive.test.support;
+
+import com.terry.reactive.support.Demands;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PubSub02의 iterPub은 request(n)의 n을 무시하고 전부 보내버리는데
+ * 이 Publisher는 start부터 count개의 숫자를 request 받은 갯수만큼만 보낸다
+ * request 안에서 다시 request가 호출되어도(onNext 안에서 request(1) 하는 경우) 재귀 호출로 Stack이 깊어지지 않도록
+ * requested 값이 0에서 증가한 Thread만 보내는 작업을 하도록 했다
+ */
+public class RangePublisher implements Publisher<Integer> {
+
+    private final int start;
+    private final int count;
+
+    public RangePublisher(int start, int count) {
+        this.start = start;
+        this.count = count;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super Integer> sub) {
+        sub.onSubscribe(new Subscription() {
+            final AtomicLong requested = new AtomicLong();
+            final int end = start + count;
+            int index = start;
+            volatile boolean cancelled;
+
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    cancelled = true;
+                    sub.onError(Demands.invalidRequest(n));
+                    return;
+                }
+                if (Demands.add(requested, n) != 0) {
+                    return;
+                }
+                long r = n;
+                for (;;) {
+                    long e = 0;
+                    while (e != r && index != end) {
+                        if (cancelled) {
+                            return;
+                        }
+                        sub.onNext(index++);
+                        e++;
+                    }
+                    if (index == end) {
+                        if (!cancelled) {
+                            cancelled = true;
+                            sub.onComplete();
+                        }
+                        return;
+                    }
+                    r = requested.addAndGet(-e);
+                    if (r == 0) {
+                        return;
+                    }
+                }
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+            }
+        });
+    }
+}
@@ -0,0 +1,113 @@
+package com.terry.reactive.test.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 테스트에서 Subscriber가 받은 데이터와 onError, onComplete 신호를 기록해두는 Subscriber
+ *
+ * 지금까지 테스트에서 만든 Subscriber는 logger로 출력만 했기 때문에 결과를 눈으로 확인해야 했는데
+ * 받은 값들을 List에 모아두고 종료 신호가 올때까지 기다릴 수 있게 해서 assert로 확인할 수 있도록 했다
+ * 생성자로 받은 initialRequest 만큼 onSubscribe에서 request 하고 그 다음부터는 테스트 코드에서 request 메소드로 직접 요청한다
+ */
+@Slf4j
+public class RecordingSubscriber<T> implements Subscriber<T> {
+
+    private final long initialRequest;
+    private final List<T> values = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> threadNames = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch subscribed = new CountDownLatch(1);
+    private final CountDownLatch terminated = new CountDownLatch(1);
+    private volatile Subscription subscription;
+    private volatile Throwable error;
+    private volatile boolean completed;
+
+    public RecordingSubscriber() {
+        this(Long.MAX_VALUE);
+    }
+
+    public RecordingSubscriber(long initialRequest) {
+        this.initialRequest = initialRequest;
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        logger.debug("onSubscribe");
+        this.subscription = s;
+        subscribed.countDown();
+        if (initialRequest > 0) {
+            s.request(initialRequest);
+        }
+    }
+
+    @Override
+    public void onNext(T t) {
+        logger.debug("onNext : {}", t);
+        values.add(t);
+        threadNames.add(Thread.currentThread().getName());
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        logger.debug("onError : {}", t.toString());
+        error = t;
+        terminated.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+        logger.debug("onComplete");
+        completed = true;
+        terminated.countDown();
+    }
+
+    public void request(long n) {
+        subscription.request(n);
+    }
+
+    public void cancel() {
+        subscription.cancel();
+    }
+
+    /**
+     * 다른 Thread에서 onSubscribe가 호출되는 Publisher를 구독했을때 request 하기 전에 기다린다
+     */
+    public boolean awaitSubscription(long timeout, TimeUnit unit) throws InterruptedException {
+        return subscribed.await(timeout, unit);
+    }
+
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+
+    public List<T> values() {
+        synchronized (values) {
+            return new ArrayList<>(values);
+        }
+    }
+
+    public List<String> threadNames() {
+        synchronized (threadNames) {
+            return new ArrayList<>(threadNames);
+        }
+    }
+
+    public int count() {
+        return values.size();
+    }
+
+    public Throwable error() {
+        return error;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+}
@@ -0,0 +1,266 @@
+package com.terry.reactive.test.transport;
+
+import com.terry.reactive.test.support.IntCodec;
+import com.terry.reactive.test.support.RangePublisher;
+import com.terry.reactive.test.support.RecordingSubscriber;
+import com.terry.reactive.transport.PublisherServer;
+import com.terry.reactive.transport.RemotePublisher;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class TransportTest {
+
+    /**
+     * source가 보낸 갯수와 request 받은 갯수, cancel 여부를 기록한다
+     */
+    static final class CountingPublisher implements Publisher<Integer> {
+
+        final Publisher<Integer> source;
+        final AtomicLong emitted = new AtomicLong();
+        final AtomicLong requested = new AtomicLong();
+        final CountDownLatch cancelled = new CountDownLatch(1);
+
+        CountingPublisher(Publisher<Integer> source) {
+            this.source = source;
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super Integer> sub) {
+            source.subscribe(new Subscriber<Integer>() {
+                @Override
+                public void onSubscribe(Subscription s) {
+                    sub.onSubscribe(new Subscription() {
+                        @Override
+                        public void request(long n) {
+                            requested.addAndGet(n);
+                            s.request(n);
+                        }
+
+                        @Override
+                        public void cancel() {
+                            cancelled.countDown();
+                            s.cancel();
+                        }
+                    });
+                }
+
+                @Override
+                public void onNext(Integer integer) {
+                    emitted.incrementAndGet();
+                    sub.onNext(integer);
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    sub.onError(t);
+                }
+
+                @Override
+                public void onComplete() {
+                    sub.onComplete();
+                }
+            });
+        }
+    }
+
+    @Test
+    public void loopback으로_모든_데이터를_순서대로_받는다() throws Exception {
+        try (PublisherServer<Integer> server = new PublisherServer<>(new RangePublisher(0, 100_000), IntCodec::encode, 0)) {
+            RecordingSubscriber<Integer> sub = new RecordingSubscriber<>();
+            new RemotePublisher<>("localhost", server.getPort(), IntCodec::decode).subscribe(sub);
+
+            assertTrue(sub.await(10, TimeUnit.SECONDS));
+            assertTrue(sub.isCompleted());
+            List<Integer> values = sub.values();
+            assertEquals(100_000, values.size());
+            for (int i = 0; i < 100_000; i++) {
+                assertEquals(Integer.valueOf(i), values.get(i));
+            }
+        }
+    }
+
+    /**
+     * 원격 Subscriber가 요청한 갯수만큼만 source가 보낸다
+     */
+    @Test
+    public void request_n이_원격_source까지_전달된다() throws Exception {
+        CountingPublisher source = new CountingPublisher(new RangePublisher(0, 1_000_000));
+        try (PublisherServer<Integer> server = new PublisherServer<>(source, IntCodec::encode, 0)) {
+            RecordingSubscriber<Integer> sub = new RecordingSubscriber<>(5);
+            new RemotePublisher<>("localhost", server.getPort(), IntCodec::decode).subscribe(sub);
+
+            waitUntil(() -> sub.count() == 5);
+            Thread.sleep(100);
+            assertEquals(5, sub.count());
+            assertEquals(5, source.requested.get());
+            assertEquals(5, source.emitted.get());
+
+            sub.request(10);
+            waitUntil(() -> sub.count() == 15);
+            Thread.sleep(100);
+            assertEquals(15, source.emitted.get());
+            assertFalse(sub.isCompleted());
+
+            // 원격 Subscriber의 cancel은 source의 cancel로 전달된다
+            sub.cancel();
+            assertTrue(source.cancelled.await(1, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * 요청한 갯수보다 적게 보내고 끝나지 않는 source도 flushDelay 뒤에는 상대방이 받는다
+     */
+    @Test
+    public void 요청보다_적게_보내도_flushDelay_뒤에_받는다() throws Exception {
+        Publisher<Integer> slow = sub -> {
+            sub.onSubscribe(new Subscription() {
+                boolean sent;
+
+                @Override
+                public void request(long n) {
+                    if (!sent) {
+                        sent = true;
+                        for (int i = 0; i < 3; i++) {
+                            sub.onNext(i);
+                        }
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+        };
+        try (PublisherServer<Integer> server = new PublisherServer<>(slow, IntCodec::encode, 0, 5, TimeUnit.MILLISECONDS)) {
+            RecordingSubscriber<Integer> sub = new RecordingSubscriber<>(100);
+            new RemotePublisher<>("localhost", server.getPort(), IntCodec::decode).subscribe(sub);
+
+            waitUntil(() -> sub.count() == 3);
+            assertFalse(sub.isCompleted());
+            sub.cancel();
+        }
+    }
+
+    /**
+     * 읽지 않는 상대방 때문에 한 연결의 flush가 막혀도 다른 연결은 flushDelay 뒤에 받는다
+     */
+    @Test
+    public void 한_연결의_flush가_막혀도_다른_연결은_받는다() throws Exception {
+        AtomicInteger subscriptions = new AtomicInteger();
+        Publisher<Integer> source = sub -> {
+            boolean flood = subscriptions.incrementAndGet() == 1;
+            sub.onSubscribe(new Subscription() {
+                volatile boolean cancelled;
+                boolean sent;
+
+                @Override
+                public void request(long n) {
+                    if (sent) {
+                        return;
+                    }
+                    sent = true;
+                    // 첫번째 연결에는 요청한 만큼 큰 데이터를 계속 보내고 두번째 연결에는 3개만 보낸다
+                    for (long i = 0; i < (flood ? n : 3) && !cancelled; i++) {
+                        sub.onNext(flood ? -1 : (int) i);
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+        };
+        Function<Integer, byte[]> encoder = v -> v < 0 ? new byte[16 * 1024] : IntCodec.encode(v);
+        try (PublisherServer<Integer> server = new PublisherServer<>(source, encoder, 0, 5, TimeUnit.MILLISECONDS);
+             Socket stalled = new Socket()) {
+            // 요청만 보내고 읽지 않는다
+            stalled.setReceiveBufferSize(4096);
+            stalled.connect(new InetSocketAddress("localhost", server.getPort()));
+            DataOutputStream out = new DataOutputStream(stalled.getOutputStream());
+            out.writeInt(1 + 8);
+            out.writeByte(1);
+            out.writeLong(1_000_000);
+            out.flush();
+            waitUntil(() -> subscriptions.get() == 1);
+            Thread.sleep(200);
+
+            RecordingSubscriber<Integer> sub = new RecordingSubscriber<>(100);
+            new RemotePublisher<>("localhost", server.getPort(), IntCodec::decode).subscribe(sub);
+
+            waitUntil(() -> sub.count() == 3);
+            sub.cancel();
+        }
+    }
+
+    @Test
+    public void 원격_source의_에러가_전달된다() throws Exception {
+        Publisher<Integer> failing = sub -> {
+            sub.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                    sub.onNext(1);
+                    sub.onError(new IllegalStateException("boom"));
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+        };
+        try (PublisherServer<Integer> server = new PublisherServer<>(failing, IntCodec::encode, 0)) {
+            RecordingSubscriber<Integer> sub = new RecordingSubscriber<>();
+            new RemotePublisher<>("localhost", server.getPort(), IntCodec::decode).subscribe(sub);
+
+            assertTrue(sub.await(5, TimeUnit.SECONDS));
+            assertEquals(1, sub.count());
+            assertTrue(sub.error() instanceof IOException);
+            assertTrue(sub.error().getMessage().contains("boom"));
+        }
+    }
+
+    @Test
+    public void 연결할_수_없으면_onError() throws Exception {
+        int port;
+        try (PublisherServer<Integer> server = new PublisherServer<>(new RangePublisher(0, 1), IntCodec::encode, 0)) {
+            port = server.getPort();
+        }
+        RecordingSubscriber<Integer> sub = new RecordingSubscriber<>();
+        new RemotePublisher<>("localhost", port, IntCodec::decode).subscribe(sub);
+        assertTrue(sub.await(5, TimeUnit.SECONDS));
+        assertTrue(sub.error() instanceof IOException);
+    }
+
+    interface Condition {
+        boolean test();
+    }
+
+    static void waitUntil(Condition condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.test()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("timed out");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
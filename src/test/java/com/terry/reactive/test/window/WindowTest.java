@@ -0,0 +1,181 @@
+package com.terry.reactive.test.window;
+
+import com.terry.reactive.operator.Operators;
+import com.terry.reactive.publisher.IntervalPublisher;
+import com.terry.reactive.support.OverflowStrategy;
+import com.terry.reactive.test.support.RangePublisher;
+import com.terry.reactive.test.support.RecordingSubscriber;
+import com.terry.reactive.window.Histogram;
+import com.terry.reactive.window.WindowAggregate;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Slf4j
+public class WindowTest {
+
+    @Test
+    public void Histogram_백분위수는_1퍼센트_오차_이내() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 10_000; i++) {
+            histogram.add(i);
+        }
+        assertEquals(5_000, histogram.percentile(0.5), 50);
+        assertEquals(9_900, histogram.percentile(0.99), 99);
+        assertEquals(1, histogram.percentile(0), 0.01);
+
+        // 절반을 빼면 나머지 값들로 다시 계산된다
+        for (int i = 1; i <= 5_000; i++) {
+            histogram.remove(i);
+        }
+        assertEquals(5_000, histogram.getCount());
+        assertEquals(7_500, histogram.percentile(0.5), 75);
+
+        histogram.add(-3);
+        histogram.add(0);
+        assertEquals(-3, histogram.percentile(0), 0.03);
+    }
+
+    @Test
+    public void 갯수로_나눈_구간() throws InterruptedException {
+        RecordingSubscriber<WindowAggregate> sub = new RecordingSubscriber<>();
+        Operators.window(new RangePublisher(1, 25), 10, Integer::doubleValue).subscribe(sub);
+
+        assertTrue(sub.await(1, TimeUnit.SECONDS));
+        List<WindowAggregate> windows = sub.values();
+        assertEquals(3, windows.size());
+
+        WindowAggregate first = windows.get(0);
+        assertEquals(10, first.getCount());
+        assertEquals(55, first.getSum(), 0);
+        assertEquals(1, first.getMin(), 0);
+        assertEquals(10, first.getMax(), 0);
+        assertEquals(5.5, first.getMean(), 0);
+        assertEquals(5, first.getP50(), 0.05);
+
+        // 끝날때 남은 5개로 마지막 구간을 보낸다
+        assertEquals(5, windows.get(2).getCount());
+        assertEquals(21 + 22 + 23 + 24 + 25, windows.get(2).getSum(), 0);
+    }
+
+    @Test
+    public void 갯수로_나눈_sliding_구간() throws InterruptedException {
+        RecordingSubscriber<WindowAggregate> sub = new RecordingSubscriber<>();
+        Operators.slidingWindow(new RangePublisher(1, 10), 4, 2, Integer::doubleValue).subscribe(sub);
+
+        assertTrue(sub.await(1, TimeUnit.SECONDS));
+        List<WindowAggregate> windows = sub.values();
+        // [1..4], [3..6], [5..8], [7..10]
+        assertEquals(4, windows.size());
+        assertEquals(1 + 2 + 3 + 4, windows.get(0).getSum(), 0);
+        assertEquals(3 + 4 + 5 + 6, windows.get(1).getSum(), 0);
+        assertEquals(7 + 8 + 9 + 10, windows.get(3).getSum(), 0);
+        assertEquals(4, windows.get(3).getCount());
+        assertEquals(7, windows.get(3).getMin(), 0.07);
+        assertEquals(10, windows.get(3).getMax(), 0.1);
+    }
+
+    /**
+     * 빠른 interval을 100ms 구간으로 집계하면 구간마다 대략 10개가 모인다
+     */
+    @Test
+    public void 시간으로_나눈_구간() throws InterruptedException {
+        Publisher<Long> ticks = new IntervalPublisher(10, TimeUnit.MILLISECONDS, OverflowStrategy.DROP);
+        RecordingSubscriber<WindowAggregate> sub = new RecordingSubscriber<>();
+        Operators.window(ticks, 100, TimeUnit.MILLISECONDS, Long::doubleValue).subscribe(sub);
+
+        Thread.sleep(550);
+        sub.cancel();
+        List<WindowAggregate> windows = sub.values();
+        logger.info("windows : {}", windows);
+
+        assertTrue(windows.size() >= 4);
+        long total = 0;
+        for (WindowAggregate w : windows) {
+            assertTrue(w.getCount() >= 5 && w.getCount() <= 15);
+            total += w.getCount();
+        }
+        // 다음 구간의 최소값은 이전 구간의 최대값보다 크다(겹치지 않는다)
+        assertTrue(windows.get(1).getMin() > windows.get(0).getMax());
+        assertTrue(total >= 40);
+    }
+
+    /**
+     * request(0)으로 끝난 뒤에 위쪽이 데이터를 보내고 onComplete 해도 마지막 구간을 보내지 않고 에러도 바뀌지 않는다
+     */
+    @Test
+    public void 시간으로_나눈_구간에_request가_0이면_onError로_끝난다() {
+        AtomicReference<Subscriber<? super Long>> upstream = new AtomicReference<>();
+        Publisher<Long> source = s -> {
+            upstream.set(s);
+            s.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+        };
+        RecordingSubscriber<WindowAggregate> sub = new RecordingSubscriber<>(10);
+        Operators.window(source, 100, TimeUnit.MILLISECONDS, Long::doubleValue).subscribe(sub);
+
+        sub.request(0);
+        upstream.get().onNext(1L);
+        upstream.get().onComplete();
+
+        assertTrue(sub.error() instanceof IllegalArgumentException);
+        assertFalse(sub.isCompleted());
+        assertEquals(0, sub.count());
+    }
+
+    /**
+     * 300ms 동안의 데이터를 100ms 마다 집계하면 구간이 겹치기 때문에 각 구간은 대략 30개씩 포함한다
+     */
+    @Test
+    public void 시간으로_나눈_sliding_구간() throws InterruptedException {
+        Publisher<Long> ticks = new IntervalPublisher(10, TimeUnit.MILLISECONDS, OverflowStrategy.DROP);
+        RecordingSubscriber<WindowAggregate> sub = new RecordingSubscriber<>();
+        Operators.slidingWindow(ticks, 300, 100, TimeUnit.MILLISECONDS, Long::doubleValue).subscribe(sub);
+
+        Thread.sleep(750);
+        sub.cancel();
+        List<WindowAggregate> windows = sub.values();
+        logger.info("windows : {}", windows);
+
+        assertTrue(windows.size() >= 6);
+        WindowAggregate last = windows.get(windows.size() - 1);
+        assertTrue(last.getCount() >= 20 && last.getCount() <= 40);
+        // 구간 안의 값은 연속된 tick 이므로 max - min + 1 이 갯수와 비슷해야 한다
+        assertEquals(last.getCount(), last.getMax() - last.getMin() + 1, last.getCount() * 0.1 + 2);
+    }
+
+    /**
+     * 많은 데이터를 집계해도 값을 저장하지 않기 때문에 결과 갯수만큼만 메모리를 사용한다
+     */
+    @Test
+    public void 많은_데이터의_백분위수() throws InterruptedException {
+        int count = 1_000_000;
+        Publisher<Integer> random = sub -> new RangePublisher(0, count).subscribe(sub);
+        RecordingSubscriber<WindowAggregate> sub = new RecordingSubscriber<>();
+        Operators.window(random, count, i -> ThreadLocalRandom.current().nextDouble(1000)).subscribe(sub);
+
+        assertTrue(sub.await(5, TimeUnit.SECONDS));
+        WindowAggregate w = sub.values().get(0);
+        assertEquals(count, w.getCount());
+        assertEquals(500, w.getP50(), 15);
+        assertEquals(990, w.getP99(), 15);
+    }
+}